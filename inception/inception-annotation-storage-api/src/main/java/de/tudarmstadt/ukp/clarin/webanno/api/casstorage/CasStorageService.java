@@ -177,6 +177,20 @@ public interface CasStorageService
      */
     void upgradeCas(SourceDocument aDocument, String aUser) throws IOException, CasSessionException;
 
+    /**
+     * Re-writes the given CAS if it is stored in a different format than the one the storage is
+     * configured to write. The contents of the CAS are not changed.
+     * 
+     * @param aDocument
+     *            the document to migrate the CAS for.
+     * @param aUser
+     *            the user to migrate the CAS for.
+     * @return whether the CAS was migrated.
+     * @throws IOException
+     *             if the CAS could not be loaded or saved.
+     */
+    boolean migrateCasFormat(SourceDocument aDocument, String aUser) throws IOException;
+
     void forceActionOnCas(SourceDocument aDocument, String aUser, CasStorageServiceLoader aLoader,
             CasStorageServiceAction aAction, boolean aSave)
         throws IOException;
@@ -0,0 +1,483 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.joining;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasSessionException;
+import de.tudarmstadt.ukp.inception.support.logging.Logging;
+
+/**
+ * Controls access to the CASes managed by the {@link CasStorageServiceImpl}. For every
+ * {@link CasKey}, there is a fair read/write lease:
+ * <ul>
+ * <li>An <b>exclusive</b> lease grants access to the {@link CasHolder} of the key and excludes all
+ * other leases on the key.</li>
+ * <li><b>Shared</b> leases can be held concurrently by any number of consumers which only need to
+ * make sure that the CAS is not re-written or deleted while they access it.</li>
+ * </ul>
+ * Waiting consumers are served in the order of their arrival. A consumer trying to obtain a lease
+ * on a key on which the same thread already holds a conflicting lease fails immediately instead of
+ * waiting for the timeout. Every lease records the thread and (if any) the task which holds it.
+ * <p>
+ * Holders with a loaded CAS remain in memory for a minimum idle time after the last lease has been
+ * returned. Idle entries are queued in the order in which they became idle, so the cleanup only
+ * ever looks at entries which actually expired.
+ */
+public class CasLeaseManager
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int EXCLUSIVE_PERMITS = 1 << 16;
+
+    public static enum LeaseMode
+    {
+        SHARED, EXCLUSIVE;
+    }
+
+    private final ConcurrentHashMap<CasKey, LeaseEntry> entries = new ConcurrentHashMap<>();
+    private final Queue<IdleMarker> idleQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean cleanupScheduled = new AtomicBoolean();
+
+    private final Duration acquireTimeout;
+    private final long minIdleNanos;
+    private final Duration cleanupDelay;
+
+    /**
+     * @param aAcquireTimeout
+     *            maximum time to wait for a lease.
+     * @param aMinIdleTime
+     *            time that a loaded CAS remains in memory after its last lease has been returned.
+     * @param aCleanupDelay
+     *            delay between checks for expired idle CASes.
+     */
+    public CasLeaseManager(Duration aAcquireTimeout, Duration aMinIdleTime, Duration aCleanupDelay)
+    {
+        acquireTimeout = aAcquireTimeout;
+        minIdleNanos = aMinIdleTime.toNanos();
+        cleanupDelay = aCleanupDelay;
+    }
+
+    /**
+     * Obtains an exclusive lease on the given key. The lease must be returned using
+     * {@link #returnExclusive}.
+     * 
+     * @param aKey
+     *            the CAS key.
+     * @return the holder for the CAS. If the holder contains no CAS yet, the caller is responsible
+     *         for loading it.
+     * @throws CasSessionException
+     *             if the lease could not be obtained.
+     */
+    public CasHolder borrowExclusive(CasKey aKey) throws CasSessionException
+    {
+        var entry = retain(aKey);
+        try {
+            acquire(entry, LeaseMode.EXCLUSIVE);
+        }
+        catch (RuntimeException e) {
+            unretain(entry);
+            throw e;
+        }
+
+        synchronized (entry) {
+            entry.exclusiveLease = newLeaseInfo(aKey, LeaseMode.EXCLUSIVE);
+            // Replace the holder if the CAS has been deleted or needs to be re-loaded with a new
+            // type system
+            if (entry.holder == null || !isReusable(entry.holder)) {
+                entry.holder = new CasHolder(aKey);
+            }
+            return entry.holder;
+        }
+    }
+
+    /**
+     * Returns an exclusive lease obtained through {@link #borrowExclusive}.
+     * 
+     * @param aKey
+     *            the CAS key.
+     * @param aHolder
+     *            the holder obtained when borrowing.
+     * @throws IllegalStateException
+     *             if the holder is not currently borrowed.
+     */
+    public void returnExclusive(CasKey aKey, CasHolder aHolder)
+    {
+        var entry = entries.get(aKey);
+        if (entry == null) {
+            throw new IllegalStateException("No lease exists for CAS " + aKey);
+        }
+
+        synchronized (entry) {
+            if (entry.holder != aHolder || entry.exclusiveLease == null) {
+                throw new IllegalStateException("CAS holder " + aHolder + " is not leased");
+            }
+
+            entry.exclusiveLease = null;
+            if (!isReusable(aHolder) || !aHolder.isCasSet()) {
+                entry.holder = null;
+            }
+        }
+
+        entry.permits.release(EXCLUSIVE_PERMITS);
+        unretain(entry);
+    }
+
+    /**
+     * Obtains a shared lease on the given key. Any number of shared leases can be held at the same
+     * time, but no exclusive lease is granted while any shared lease is held.
+     * 
+     * @param aKey
+     *            the CAS key.
+     * @return the lease which must be closed to return it.
+     * @throws CasSessionException
+     *             if the lease could not be obtained.
+     */
+    public SharedLease borrowShared(CasKey aKey) throws CasSessionException
+    {
+        var entry = retain(aKey);
+        try {
+            acquire(entry, LeaseMode.SHARED);
+        }
+        catch (RuntimeException e) {
+            unretain(entry);
+            throw e;
+        }
+
+        var info = newLeaseInfo(aKey, LeaseMode.SHARED);
+        entry.sharedLeases.add(info);
+        return new SharedLease(entry, info);
+    }
+
+    /**
+     * Applies the given action to all holders currently known to the lease manager, both leased and
+     * idle ones.
+     * 
+     * @param aAction
+     *            the action.
+     */
+    public void forEachHolder(Consumer<CasHolder> aAction)
+    {
+        for (var entry : entries.values()) {
+            synchronized (entry) {
+                if (entry.holder != null) {
+                    aAction.accept(entry.holder);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return all leases currently held.
+     */
+    public List<CasLeaseInfo> getLeases()
+    {
+        var leases = new ArrayList<CasLeaseInfo>();
+        for (var entry : entries.values()) {
+            synchronized (entry) {
+                if (entry.exclusiveLease != null) {
+                    leases.add(entry.exclusiveLease);
+                }
+            }
+            leases.addAll(entry.sharedLeases);
+        }
+        return leases;
+    }
+
+    /**
+     * @return number of keys for which there is either a lease, a waiting consumer or an idle CAS.
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * @return number of idle CASes kept in memory.
+     */
+    public int getNumIdle()
+    {
+        return (int) entries.values().stream().filter(e -> e.users == 0).count();
+    }
+
+    /**
+     * Drops all idle CASes which have exceeded the minimum idle time.
+     */
+    public void cleanup()
+    {
+        var now = System.nanoTime();
+        IdleMarker marker;
+        while ((marker = idleQueue.peek()) != null && now - marker.idleSince() >= minIdleNanos) {
+            if (!idleQueue.remove(marker)) {
+                // Another thread took care of this marker already
+                continue;
+            }
+
+            var expired = marker;
+            entries.computeIfPresent(expired.entry().key, (k, e) -> {
+                // Only drop the entry if it has not been used again since it became idle
+                if (e == expired.entry() && e.users == 0 && e.idleSince == expired.idleSince()) {
+                    LOG.debug("Dropping idle CAS from memory: {}", k);
+                    return null;
+                }
+                return e;
+            });
+        }
+    }
+
+    private void scheduleCleanup()
+    {
+        if (!cleanupScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        CompletableFuture.delayedExecutor(cleanupDelay.toMillis(), MILLISECONDS).execute(() -> {
+            cleanupScheduled.set(false);
+            try {
+                cleanup();
+            }
+            finally {
+                if (!idleQueue.isEmpty()) {
+                    scheduleCleanup();
+                }
+            }
+        });
+    }
+
+    private LeaseEntry retain(CasKey aKey)
+    {
+        return entries.compute(aKey, (k, e) -> {
+            var entry = e != null ? e : new LeaseEntry(k);
+            entry.users++;
+            return entry;
+        });
+    }
+
+    private void unretain(LeaseEntry aEntry)
+    {
+        entries.computeIfPresent(aEntry.key, (k, e) -> {
+            e.users--;
+            if (e.users > 0) {
+                return e;
+            }
+
+            // No need to keep an entry around if there is no CAS worth keeping in memory
+            synchronized (e) {
+                if (e.holder == null || !e.holder.isCasSet() || !isReusable(e.holder)) {
+                    return null;
+                }
+            }
+
+            e.idleSince = System.nanoTime();
+            idleQueue.add(new IdleMarker(e, e.idleSince));
+            scheduleCleanup();
+            return e;
+        });
+    }
+
+    private void acquire(LeaseEntry aEntry, LeaseMode aMode) throws CasSessionException
+    {
+        var permits = aMode == LeaseMode.EXCLUSIVE ? EXCLUSIVE_PERMITS : 1;
+
+        // If the current thread already holds a conflicting lease, waiting would never succeed
+        var thread = Thread.currentThread();
+        for (var lease : getLeases(aEntry)) {
+            if (lease.getThread() != thread) {
+                continue;
+            }
+
+            if (aMode == LeaseMode.EXCLUSIVE || lease.getMode() == LeaseMode.EXCLUSIVE) {
+                throw new CasSessionException("Unable to obtain " + aMode + " access to CAS "
+                        + aEntry.key + " because the current thread already holds " + lease);
+            }
+
+            // The thread already holds a shared lease, so it must not queue up behind a waiting
+            // exclusive consumer which in turn waits for the shared lease to be returned
+            if (aEntry.permits.tryAcquire(permits)) {
+                return;
+            }
+        }
+
+        try {
+            if (!aEntry.permits.tryAcquire(permits, acquireTimeout.toMillis(), MILLISECONDS)) {
+                throw new CasSessionException("Unable to obtain " + aMode + " access to CAS "
+                        + aEntry.key + " within " + acquireTimeout + " - current leases: "
+                        + getLeases(aEntry).stream().map(CasLeaseInfo::toString)
+                                .collect(joining(", ")));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CasSessionException(
+                    "Interrupted while waiting for " + aMode + " access to CAS " + aEntry.key, e);
+        }
+    }
+
+    private List<CasLeaseInfo> getLeases(LeaseEntry aEntry)
+    {
+        var leases = new ArrayList<CasLeaseInfo>(aEntry.sharedLeases);
+        synchronized (aEntry) {
+            if (aEntry.exclusiveLease != null) {
+                leases.add(aEntry.exclusiveLease);
+            }
+        }
+        return leases;
+    }
+
+    private static boolean isReusable(CasHolder aHolder)
+    {
+        return !aHolder.isTypeSystemOutdated() && !aHolder.isDeleted();
+    }
+
+    private static CasLeaseInfo newLeaseInfo(CasKey aKey, LeaseMode aMode)
+    {
+        return new CasLeaseInfo(aKey, aMode, Thread.currentThread(), MDC.get(Logging.KEY_TASK),
+                Instant.now());
+    }
+
+    /**
+     * Information about a lease for diagnostic purposes.
+     */
+    public static class CasLeaseInfo
+    {
+        private final CasKey key;
+        private final LeaseMode mode;
+        private final Thread thread;
+        private final String task;
+        private final Instant since;
+
+        private CasLeaseInfo(CasKey aKey, LeaseMode aMode, Thread aThread, String aTask,
+                Instant aSince)
+        {
+            key = aKey;
+            mode = aMode;
+            thread = aThread;
+            task = aTask;
+            since = aSince;
+        }
+
+        public CasKey getKey()
+        {
+            return key;
+        }
+
+        public LeaseMode getMode()
+        {
+            return mode;
+        }
+
+        public Thread getThread()
+        {
+            return thread;
+        }
+
+        public String getTask()
+        {
+            return task;
+        }
+
+        public Instant getSince()
+        {
+            return since;
+        }
+
+        @Override
+        public String toString()
+        {
+            var sb = new StringBuilder();
+            sb.append(mode).append(" lease on ").append(key);
+            sb.append(" held by thread [").append(thread.getName()).append("]");
+            if (task != null) {
+                sb.append(" running task [").append(task).append("]");
+            }
+            sb.append(" since ").append(since);
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A shared lease obtained through {@link CasLeaseManager#borrowShared}.
+     */
+    public class SharedLease
+        implements AutoCloseable
+    {
+        private final LeaseEntry entry;
+        private final CasLeaseInfo info;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private SharedLease(LeaseEntry aEntry, CasLeaseInfo aInfo)
+        {
+            entry = aEntry;
+            info = aInfo;
+        }
+
+        @Override
+        public void close()
+        {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+
+            entry.sharedLeases.remove(info);
+            entry.permits.release();
+            unretain(entry);
+        }
+    }
+
+    private static class LeaseEntry
+    {
+        private final CasKey key;
+        private final Semaphore permits = new Semaphore(EXCLUSIVE_PERMITS, true);
+        private final Set<CasLeaseInfo> sharedLeases = ConcurrentHashMap.newKeySet();
+
+        // Guarded by the monitor of the entry
+        private CasHolder holder;
+        private CasLeaseInfo exclusiveLease;
+
+        // Guarded by the compute lock of the entries map
+        private int users;
+        private long idleSince;
+
+        private LeaseEntry(CasKey aKey)
+        {
+            key = aKey;
+        }
+    }
+
+    private record IdleMarker(LeaseEntry entry, long idleSince)
+    {}
+}
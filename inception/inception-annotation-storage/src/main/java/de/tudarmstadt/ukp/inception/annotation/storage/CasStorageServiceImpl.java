@@ -25,46 +25,40 @@ import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.AU
 import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.NO_CAS_UPGRADE;
 import static de.tudarmstadt.ukp.inception.annotation.storage.CasStorageServiceImpl.RepairAndUpgradeFlags.ISOLATED_SESSION;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.withProjectLogger;
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.INITIAL_CAS_PSEUDO_USER;
+import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.createCasCopy;
 import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.getRealCas;
 import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.transferCasOwnershipToCurrentThread;
 import static java.lang.System.currentTimeMillis;
-import static java.util.Collections.newSetFromMap;
-import static java.util.Collections.synchronizedSet;
 import static org.apache.commons.lang3.ArrayUtils.contains;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.OptionalLong;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 
 import org.apache.commons.lang3.Validate;
-import org.apache.commons.pool2.PooledObject;
-import org.apache.commons.pool2.impl.DefaultEvictionPolicy;
-import org.apache.commons.pool2.impl.EvictionConfig;
-import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
-import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
 import org.apache.uima.UIMAException;
 import org.apache.uima.cas.AbstractCas;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.impl.CASImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.event.TransactionalEventListener;
-import org.springframework.util.ConcurrentReferenceHashMap;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.Scheduler;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode;
@@ -75,13 +69,19 @@ import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageServiceAction;
 import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageServiceLoader;
 import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode;
 import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.ConcurentCasModificationException;
+import de.tudarmstadt.ukp.clarin.webanno.api.type.CASMetadata;
 import de.tudarmstadt.ukp.clarin.webanno.diag.CasDoctor;
 import de.tudarmstadt.ukp.clarin.webanno.diag.CasDoctorException;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasLeaseManager.CasLeaseInfo;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasLeaseManager.SharedLease;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasWriteBehindQueue.PendingCasWrite;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageCacheProperties;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.annotation.storage.driver.CasStorageDriver;
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasPersistenceUtils;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.support.logging.BaseLoggers;
@@ -93,10 +93,12 @@ import de.tudarmstadt.ukp.inception.support.logging.BaseLoggers;
  * </p>
  */
 public class CasStorageServiceImpl
-    implements CasStorageService
+    implements CasStorageService, DisposableBean
 {
     private final static Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    public static final String JOURNAL_FOLDER = "cas-journal";
+
     private final CasDoctor casDoctor;
     private final AnnotationSchemaService schemaService;
     private final CasStorageCacheProperties casStorageProperties;
@@ -106,13 +108,13 @@ public class CasStorageServiceImpl
     private final AtomicLong lastExclusiveAccessPoolSnapshotUpdate = new AtomicLong();
     private final AtomicInteger lastExclusiveAccessPoolSnapshotSize = new AtomicInteger();
 
-    private final GenericKeyedObjectPool<CasKey, CasHolder> exclusiveAccessPool;
-    private final Set<CasHolder> exclusiveAccessHolders = synchronizedSet(
-            newSetFromMap(new WeakHashMap<>()));
-    private final Cache<CasKey, CasHolder> sharedAccessCache;
+    private final CasLeaseManager leaseManager;
+    private final TieredCasCache sharedAccessCache;
 
     private final CasStorageDriver driver;
 
+    private final CasWriteBehindQueue writeBehindQueue;
+
     public static enum RepairAndUpgradeFlags
     {
         /**
@@ -132,73 +134,139 @@ public class CasStorageServiceImpl
      * @param aSchemaService
      *            (optional) if present, CAS upgrades can be performed
      */
-    @Autowired
     public CasStorageServiceImpl(CasStorageDriver aDriver,
             CasStorageCacheProperties aCasStorageProperties,
             @Autowired(required = false) CasDoctor aCasDoctor,
             @Autowired(required = false) AnnotationSchemaService aSchemaService)
+    {
+        this(aDriver, aCasStorageProperties, aCasDoctor, aSchemaService, null);
+    }
+
+    /**
+     * @param aDriver
+     *            a storage driver implementation
+     * @param aCasStorageProperties
+     *            storage configuration properties
+     * @param aCasDoctor
+     *            (optional) if present, CAS validation can take place
+     * @param aSchemaService
+     *            (optional) if present, CAS upgrades can be performed
+     * @param aRepositoryProperties
+     *            (optional) if present, CASes can be saved in write-behind mode
+     */
+    @Autowired
+    public CasStorageServiceImpl(CasStorageDriver aDriver,
+            CasStorageCacheProperties aCasStorageProperties,
+            @Autowired(required = false) CasDoctor aCasDoctor,
+            @Autowired(required = false) AnnotationSchemaService aSchemaService,
+            @Autowired(required = false) RepositoryProperties aRepositoryProperties)
     {
         driver = aDriver;
         casDoctor = aCasDoctor;
         schemaService = aSchemaService;
         casStorageProperties = aCasStorageProperties;
 
-        var config = new GenericKeyedObjectPoolConfig<CasHolder>();
-        config.setEvictionPolicy(new LoggingDefaultEvictionPolicy());
-        // Since we want the pool to control exclusive access to a particular CAS, we only ever
-        // must have one instance per key (the key uniquely identifies the CAS)
-        config.setMaxTotalPerKey(1);
-        config.setMaxIdlePerKey(1);
-        // Setting this to 0 because we do not want any CAS to stick around in memory indefinitely
-        config.setMinIdlePerKey(0);
-        // Run an evictor thread periodically
-        config.setTimeBetweenEvictionRuns(casStorageProperties.getIdleCasEvictionDelay());
-        // Allow the evictor to drop idle CASes from pool after a short time. This should avoid that
-        // CASes that are used regularly are dropped from the pool too quickly.
-        config.setMinEvictableIdleDuration(casStorageProperties.getMinIdleCasTime());
-        // Allow the evictor to drop all idle CASes on every eviction run
-        config.setNumTestsPerEvictionRun(-1);
-        // Allow viewing the pool in JMX
-        config.setJmxEnabled(true);
-        config.setJmxNameBase(getClass().getPackage().getName() + ":type="
-                + getClass().getSimpleName() + ",name=");
-        config.setJmxNamePrefix("exclusiveCasAccessPool");
-        // Check if the CAS needs to be replaced every time we do a significant action
-        config.setTestOnReturn(true);
-        config.setTestOnBorrow(true);
-        config.setTestWhileIdle(true);
-        // Max. time we wait for a CAS to become available before giving up with an error
-        config.setMaxWait(casStorageProperties.getCasBorrowWaitTimeout());
-        // We do not have to set maxTotal because the default is already to have no limit (-1)
-        exclusiveAccessPool = new GenericKeyedObjectPool<>(new PooledCasHolderFactory(), config);
-
-        sharedAccessCache = Caffeine.newBuilder() //
-                .scheduler(Scheduler.systemScheduler()) //
-                .expireAfterAccess(casStorageProperties.getIdleCasEvictionDelay()) //
-                .maximumSize(casStorageProperties.getSharedCasCacheSize()) //
-                .recordStats() //
-                .evictionListener((key, value, cause) -> {
-                    LOG.debug("Marked CAS for eviction from shared-access pool: {} [{}]", value,
-                            cause);
-                }) //
-                .build();
+        // Controls exclusive access to a particular CAS. CASes that have been loaded remain in
+        // memory for a while after their last use, so that CASes which are used regularly do not
+        // have to be read from disk again too quickly.
+        leaseManager = new CasLeaseManager(casStorageProperties.getCasBorrowWaitTimeout(),
+                casStorageProperties.getMinIdleCasTime(),
+                casStorageProperties.getIdleCasEvictionDelay());
+
+        // CASes accessed in shared read-only mode are kept in a cache bounded by their estimated
+        // memory use. CASes pushed out by other CASes are kept for a while in compressed form.
+        sharedAccessCache = new TieredCasCache(
+                casStorageProperties.getSharedCasCacheMemory().toBytes(),
+                casStorageProperties.getSharedCasCacheCompressedMemory().toBytes(),
+                casStorageProperties.getIdleCasEvictionDelay());
 
         if (casDoctor == null) {
             LOG.info("CAS doctor not available - unable to check/repair CASes");
         }
 
-        BaseLoggers.BOOT_LOG.info("CAS cache size: {} instances",
-                casStorageProperties.getSharedCasCacheSize());
+        writeBehindQueue = createWriteBehindQueue(aRepositoryProperties);
+
+        BaseLoggers.BOOT_LOG.info("CAS cache memory: {} MB (compressed: {} MB)",
+                casStorageProperties.getSharedCasCacheMemory().toMegabytes(),
+                casStorageProperties.getSharedCasCacheCompressedMemory().toMegabytes());
     }
 
     public long getSharedAccessCacheSize()
     {
-        return sharedAccessCache.estimatedSize();
+        return sharedAccessCache.getHeapTierSize();
     }
 
     public CacheStats getSharedAccessCacheStats()
     {
-        return sharedAccessCache.stats();
+        return sharedAccessCache.getHeapTierStats();
+    }
+
+    TieredCasCache getSharedAccessCache()
+    {
+        return sharedAccessCache;
+    }
+
+    private CasWriteBehindQueue createWriteBehindQueue(RepositoryProperties aRepositoryProperties)
+    {
+        if (!casStorageProperties.isWriteBehindEnabled()) {
+            return null;
+        }
+
+        if (aRepositoryProperties == null) {
+            LOG.warn("Repository location not available - unable to save CASes in write-behind "
+                    + "mode");
+            return null;
+        }
+
+        try {
+            var queue = new CasWriteBehindQueue(
+                    new File(aRepositoryProperties.getPath(), JOURNAL_FOLDER),
+                    casStorageProperties.getWriteBehindDelay(),
+                    casStorageProperties.getWriteBehindMaxDelay(),
+                    casStorageProperties.getWriteBehindMaxAttempts(),
+                    this::serializePendingWrite, this::flushPendingWriteInBackground);
+
+            BaseLoggers.BOOT_LOG.info(
+                    "CAS write-behind: enabled (delay: {}, max delay: {}, max attempts: {})",
+                    casStorageProperties.getWriteBehindDelay(),
+                    casStorageProperties.getWriteBehindMaxDelay(),
+                    casStorageProperties.getWriteBehindMaxAttempts());
+
+            return queue;
+        }
+        catch (IOException e) {
+            LOG.error("Unable to set up CAS write-behind journal - writing CASes synchronously",
+                    e);
+            return null;
+        }
+    }
+
+    public int getPendingWriteCount()
+    {
+        return writeBehindQueue != null ? writeBehindQueue.size() : 0;
+    }
+
+    void awaitWriteBehindJournal() throws IOException
+    {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.awaitJournal();
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (writeBehindQueue == null) {
+            return;
+        }
+
+        // Try writing all pending CASes before shutting down. Any CAS that cannot be written
+        // remains in the journal and is written when the application is started again. Closing
+        // the queue waits for the CASes saved so far to be recorded in the journal.
+        writeBehindQueue.close();
+        for (var write : writeBehindQueue.getPendingWrites()) {
+            flushPendingWriteInBackground(write);
+        }
     }
 
     @Override
@@ -239,11 +307,11 @@ public class CasStorageServiceImpl
                             + "] on document [" + mCas.get().getSourceDocumentId() + "]");
                 }
 
-                realWriteCas(aDocument, aUserName, aCas);
+                saveCas(aDocument, aUserName, aCas);
             }
             else {
                 try (var access = new WithExclusiveAccess(aDocument, aUserName)) {
-                    realWriteCas(aDocument, aUserName, aCas);
+                    saveCas(aDocument, aUserName, aCas);
 
                     // If the CAS which was written does not match the CAS in the session for the
                     // given document/user, then we replace the CAS in the session with the new CAS.
@@ -328,8 +396,7 @@ public class CasStorageServiceImpl
             // If the CAS is not yet in the session, then we must get hold of it somehow...
             CasHolder casHolder;
 
-            // If exclusive access is requested, then we check the CAS out of the exclusive access
-            // pool
+            // If exclusive access is requested, then we obtain an exclusive lease on the CAS
             if (EXCLUSIVE_WRITE_ACCESS.equals(aAccessMode)) {
                 CasKey key = null;
                 CasHolder holder = null;
@@ -340,8 +407,7 @@ public class CasStorageServiceImpl
                     key = new CasKey(aDocument, aUsername);
                     holder = borrowCas(key);
 
-                    // If the CAS has not been loaded into the exclusive access pool, then we need
-                    // to load it
+                    // If the CAS has not been loaded into memory yet, then we need to load it
                     if (!holder.isCasSet()) {
                         CasKey finalKey = key;
                         CasHolder finalHolder = holder;
@@ -357,6 +423,10 @@ public class CasStorageServiceImpl
                             // in fact we won't even have set the CAS in the holder by then
                             mLoaderCas.setReleaseOnClose(false);
 
+                            // If the CAS is waiting to be written, write it now so we do not load
+                            // a stale version from the storage
+                            writePendingCas(key);
+
                             cas = readOrCreateUnmanagedCas(aDocument, aUsername, aSupplier,
                                     aUpgradeMode);
                         }
@@ -386,17 +456,16 @@ public class CasStorageServiceImpl
                     casHolder = holder;
                 }
                 catch (Exception e) {
-                    // If there was an exception, we need to return the CAS to the pool
+                    // If there was an exception, we need to return the lease
                     if (key != null && holder != null) {
                         LOG.trace(
                                 "CAS storage session [{}]: returning borrowed CAS [{}] for [{}]@{} after failure to load CAS",
                                 session.hashCode(), holder.getCasHashCode(), aUsername, aDocument);
                         try {
-                            exclusiveAccessPool.returnObject(key, holder);
-                            logExclusiveAccessHolders();
+                            leaseManager.returnExclusive(key, holder);
                         }
                         catch (Exception e1) {
-                            LOG.error("Unable to return CAS to exclusive access pool", e1);
+                            LOG.error("Unable to return exclusive lease on CAS", e1);
                         }
                     }
                     casHolder = new CasHolder(key, e);
@@ -411,39 +480,64 @@ public class CasStorageServiceImpl
                                     + AUTO_CAS_UPGRADE);
                 }
 
+                // If the CAS is waiting to be written, readers get a copy of the saved state
+                // instead of the outdated state from the storage. Writing the CAS here would
+                // defeat the write-behind mode since e.g. the indexing reads CASes shortly after
+                // every save.
+                var key = new CasKey(aDocument, aUsername);
+                var pendingCas = sharedAccessCache.getIfPresent(key) == null
+                        ? copyPendingCas(aDocument, aUsername)
+                        : null;
+
                 // Ensure that the CAS is not being re-written and temporarily unavailable while we
                 // check for its existence
-                try (var access = new WithExclusiveAccess(aDocument, aUsername)) {
-                    // Since we promise to only read the CAS, we don't have to worry about it being
-                    // locked to a particular thread...
-                    casHolder = sharedAccessCache.get(new CasKey(aDocument, aUsername),
-                            (key) -> CasHolder.of(key,
-                                    () -> getRealCas(readOrCreateUnmanagedCas(aDocument, aUsername,
-                                            aSupplier, aUpgradeMode))));
-                    var size = getSharedAccessCacheSize();
-                    var max = casStorageProperties.getSharedCasCacheSize();
-                    if (size > (max * 0.9)) {
-                        LOG.warn("Shared access CAS cache is >= 90% full: {} / {}", size, max);
+                try (var access = withAccessFor(aDocument, aUsername, aSupplier)) {
+                    if (pendingCas != null && getPendingWrite(aDocument, aUsername)
+                            .orElse(null) != pendingCas.write()) {
+                        // The CAS has been saved again since we made the copy. Do not cache the
+                        // copy - saving the CAS has already dropped it from the cache.
+                        var copy = pendingCas.cas();
+                        casHolder = CasHolder.of(key, () -> copy);
+                    }
+                    else {
+                        // Since we promise to only read the CAS, we don't have to worry about it
+                        // being locked to a particular thread...
+                        casHolder = sharedAccessCache.get(key, (k) -> CasHolder.of(k,
+                                () -> pendingCas != null ? pendingCas.cas()
+                                        : getRealCas(readOrCreateUnmanagedCas(aDocument,
+                                                aUsername, aSupplier, aUpgradeMode))));
+                    }
+                    var weight = sharedAccessCache.getHeapTierWeight();
+                    var max = sharedAccessCache.getHeapTierMaxWeight();
+                    if (weight > (max * 0.9)) {
+                        LOG.warn("Shared access CAS cache is >= 90% full: {} / {} bytes", weight,
+                                max);
                     }
                 }
             }
             // else if the special bypass mode is requested, then we fetch directly from disk
             else if (UNMANAGED_ACCESS.equals(aAccessMode)) {
+                var pendingCas = copyPendingCas(aDocument, aUsername);
+
                 // Ensure that the CAS is not being re-written and temporarily unavailable while we
                 // check for its existence
-                try (var access = new WithExclusiveAccess(aDocument, aUsername)) {
+                try (var access = withAccessFor(aDocument, aUsername, aSupplier)) {
                     casHolder = CasHolder.of(new CasKey(aDocument, aUsername),
-                            () -> readOrCreateUnmanagedCas(aDocument, aUsername, aSupplier,
-                                    aUpgradeMode));
+                            () -> pendingCas != null ? pendingCas.cas()
+                                    : readOrCreateUnmanagedCas(aDocument, aUsername, aSupplier,
+                                            aUpgradeMode));
                 }
             }
             // else if the special bypass mode is requested, then we fetch directly from disk
             else if (UNMANAGED_NON_INITIALIZING_ACCESS.equals(aAccessMode)) {
+                var pendingCas = copyPendingCas(aDocument, aUsername);
+
                 // Ensure that the CAS is not being re-written and temporarily unavailable while we
                 // check for its existence
-                try (var access = new WithExclusiveAccess(aDocument, aUsername)) {
+                try (var access = new WithSharedAccess(aDocument, aUsername)) {
                     casHolder = CasHolder.of(new CasKey(aDocument, aUsername),
-                            () -> driver.readCas(aDocument, aUsername));
+                            () -> pendingCas != null ? pendingCas.cas()
+                                    : driver.readCas(aDocument, aUsername));
                 }
             }
             else {
@@ -471,38 +565,34 @@ public class CasStorageServiceImpl
 
     private CasHolder borrowCas(CasKey aKey)
     {
-        try {
-            var holder = exclusiveAccessPool.borrowObject(aKey);
-            // Add the holder to the set of known holder. Because this set it using weak
-            // references, and because we use the set only to inform holders when they become
-            // invalid we do never have to explicitly remove the holder from the set
-            exclusiveAccessHolders.add(holder);
-            LOG.trace("Added to exclusiveAccessHolders: {}", holder);
-
-            if (currentTimeMillis()
-                    - lastExclusiveAccessPoolSnapshotUpdate.get() > snapshotInterval) {
-                lastExclusiveAccessPoolSnapshotUpdate.set(System.currentTimeMillis());
-                var currentSize = exclusiveAccessPool.getNumActive()
-                        + exclusiveAccessPool.getNumIdle();
-                var lastSize = lastExclusiveAccessPoolSnapshotSize.getAndSet(currentSize);
-
-                if (currentSize > (lastSize + warningThreshold)) {
-                    LOG.warn(
-                            "Exclusive CAS access pool sizes increased strongly in the last {}ms: {} -> {}",
-                            snapshotInterval, lastSize, currentSize);
-                }
-            }
+        var holder = leaseManager.borrowExclusive(aKey);
 
-            logExclusiveAccessHolders();
-            return holder;
-        }
-        catch (Exception e) {
-            throw new CasSessionException("Unable to borrow CAS", e);
+        if (currentTimeMillis() - lastExclusiveAccessPoolSnapshotUpdate.get() > snapshotInterval) {
+            lastExclusiveAccessPoolSnapshotUpdate.set(System.currentTimeMillis());
+            var currentSize = leaseManager.size();
+            var lastSize = lastExclusiveAccessPoolSnapshotSize.getAndSet(currentSize);
+
+            if (currentSize > (lastSize + warningThreshold)) {
+                LOG.warn("Number of leased CASes increased strongly in the last {}ms: {} -> {}",
+                        snapshotInterval, lastSize, currentSize);
+            }
         }
+
+        return holder;
+    }
+
+    public List<CasLeaseInfo> getCasLeases()
+    {
+        return leaseManager.getLeases();
+    }
+
+    public int getIdleCasCount()
+    {
+        return leaseManager.getNumIdle();
     }
 
     /**
-     * Returns a borrowed CAS to the exclusive access pool. This method is not called directly when
+     * Returns an exclusive lease on a borrowed CAS. This method is not called directly when
      * a CAS needs to be returned. Rather, it is registered as a "CAS owner" in CAS instances such
      * that it is called when {@link CAS#release()} is called.
      */
@@ -511,11 +601,10 @@ public class CasStorageServiceImpl
         try {
             LOG.trace("Returning borrowed CAS [{}] for [{}]@[{}]({})", cas.hashCode(),
                     aKey.getUserId(), aKey.getDocumentName(), aKey.getDocumentId());
-            exclusiveAccessPool.returnObject(aKey, aHolder);
-            logExclusiveAccessHolders();
+            leaseManager.returnExclusive(aKey, aHolder);
         }
         catch (Exception e) {
-            LOG.error("Unable to return CAS [{}] for [{}]@[{}]({}) to exclusive access pool",
+            LOG.error("Unable to return exclusive lease on CAS [{}] for [{}]@[{}]({})",
                     cas.hashCode(), aKey.getUserId(), aKey.getDocumentName(), aKey.getDocumentId(),
                     e);
         }
@@ -539,6 +628,12 @@ public class CasStorageServiceImpl
                         throw new IOException(e);
                     }
                 }
+
+                // Set the marker only after the upgrade because the upgrade may replace the CAS
+                // contents and thereby invalidate the marker
+                if (casDoctor != null) {
+                    casDoctor.markAnalyzed(aCas);
+                }
             }
             finally {
                 // We do not want the CAS to be released by this nested session
@@ -635,6 +730,8 @@ public class CasStorageServiceImpl
     {
         try (var logCtx = withProjectLogger(aDocument.getProject());
                 var access = new WithExclusiveAccess(aDocument, aUsername)) {
+            discardPendingWrite(aDocument, aUsername);
+
             var fileWasDeleted = driver.deleteCas(aDocument, aUsername);
 
             // Drop the CAS from the shared CAS it doesn't ghost around. Also set the deleted flag
@@ -647,11 +744,10 @@ public class CasStorageServiceImpl
             }
             sharedAccessCache.invalidate(key);
 
-            // Drop the CAS from the exclusive access pool. This is done my marking it as deleted
-            // and then releasing it (returning it to the pool). Upon return, the deleted flag
-            // causes the CAS to be invalidated and dropped from the pool.
-            exclusiveAccessHolders.forEach(h -> {
-                // Must use the forEach here because stream() is not synchronized!
+            // Drop the CAS from memory. This is done my marking it as deleted and then releasing
+            // it (returning the lease). Upon return, the deleted flag causes the CAS to be
+            // invalidated and dropped.
+            leaseManager.forEachHolder(h -> {
                 if (Objects.equals(h.getKey(), key)) {
                     h.setDeleted(true);
                 }
@@ -715,7 +811,7 @@ public class CasStorageServiceImpl
             }
             // If the repairs are not active, then we run the analysis explicitly
             else {
-                analyze(aProject, aDocumentName, aDocumentId, aUsername, aCas);
+                analyze(aProject, aDocumentName, aDocumentId, aUsername, aCas, false);
             }
         }
     }
@@ -736,16 +832,23 @@ public class CasStorageServiceImpl
      *            the user owning the CAS (used for logging)
      * @param aCas
      *            the CAS object
+     * @param aChangesOnly
+     *            whether only the changes since the CAS was last analyzed need to be checked
      */
     private void analyze(Project aProject, String aDocumentName, long aDocumentId, String aUsername,
-            CAS aCas)
+            CAS aCas, boolean aChangesOnly)
     {
         if (casDoctor == null) {
             return;
         }
 
         try {
-            casDoctor.analyze(aProject, aCas);
+            if (aChangesOnly) {
+                casDoctor.analyzeChanges(aProject, aCas);
+            }
+            else {
+                casDoctor.analyze(aProject, aCas);
+            }
         }
         catch (CasDoctorException e) {
             var detailMsg = new StringBuilder();
@@ -775,6 +878,8 @@ public class CasStorageServiceImpl
             try (var access = new WithExclusiveAccess(aDocument, aUser)) {
                 session.add(aDocument.getId(), aUser, EXCLUSIVE_WRITE_ACCESS, access.getHolder());
 
+                writePendingCas(access.getKey());
+
                 driver.exportCas(aDocument, aUser, aStream);
             }
             finally {
@@ -799,6 +904,8 @@ public class CasStorageServiceImpl
             try (var access = new WithExclusiveAccess(aDocument, aUser)) {
                 session.add(aDocument.getId(), aUser, EXCLUSIVE_WRITE_ACCESS, access.getHolder());
 
+                discardPendingWrite(aDocument, aUser);
+
                 driver.importCas(aDocument, aUser, aStream);
             }
             finally {
@@ -825,6 +932,51 @@ public class CasStorageServiceImpl
                 true);
     }
 
+    @Override
+    public boolean migrateCasFormat(SourceDocument aDocument, String aUser) throws IOException
+    {
+        Validate.notNull(aDocument, "Source document must be specified");
+        Validate.notBlank(aUser, "User must be specified");
+
+        try (var session = CasStorageSession.openNested(true)) {
+            try (var access = new WithExclusiveAccess(aDocument, aUser)) {
+                session.add(aDocument.getId(), aUser, EXCLUSIVE_WRITE_ACCESS, access.getHolder());
+
+                writePendingCas(access.getKey());
+
+                if (!driver.isCasFormatOutdated(aDocument, aUser)) {
+                    return false;
+                }
+
+                // Editors which have the CAS open compare the timestamp of the file to the one
+                // they have seen when loading it. The contents do not change, so we keep the
+                // timestamp to avoid them reporting a concurrent modification.
+                var timestamp = driver.getCasMetadata(aDocument, aUser) //
+                        .orElseThrow(() -> new IOException(
+                                "Unable to obtain last modified data for annotation document ["
+                                        + aDocument + "] of user [" + aUser + "]"))
+                        .getTimestamp();
+
+                // Simply reading and writing the CAS converts it to the configured format. We do
+                // not upgrade the CAS here - that happens when it is accessed the next time anyway.
+                var cas = driver.readCas(aDocument, aUser);
+                access.setCas(cas);
+                realWriteCas(aDocument, aUser, cas, OptionalLong.of(timestamp));
+
+                return true;
+            }
+            finally {
+                session.remove(aDocument.getId(), aUser);
+            }
+        }
+        catch (IOException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
     @Override
     public void forceActionOnCas(SourceDocument aDocument, String aUser,
             CasStorageServiceLoader aLoader, CasStorageServiceAction aAction, boolean aSave)
@@ -836,6 +988,8 @@ public class CasStorageServiceImpl
             try (var access = new WithExclusiveAccess(aDocument, aUser)) {
                 session.add(aDocument.getId(), aUser, EXCLUSIVE_WRITE_ACCESS, access.getHolder());
 
+                writePendingCas(access.getKey());
+
                 var cas = aLoader.load(aDocument, aUser);
                 access.setCas(cas);
 
@@ -865,7 +1019,11 @@ public class CasStorageServiceImpl
 
         // Ensure that the CAS is not being re-written and temporarily unavailable while we check
         // for its existence
-        try (var access = new WithExclusiveAccess(aDocument, aUser)) {
+        try (var access = new WithSharedAccess(aDocument, aUser)) {
+            if (getPendingWrite(aDocument, aUser).isPresent()) {
+                return true;
+            }
+
             return driver.existsCas(aDocument, aUser);
         }
         catch (IOException e) {
@@ -882,9 +1040,11 @@ public class CasStorageServiceImpl
         Validate.notNull(aDocument, "Source document must be specified");
         Validate.notBlank(aUser, "User must be specified");
 
+        flushPendingWrite(aDocument, aUser);
+
         // Ensure that the CAS is not being re-written and temporarily unavailable while we check
         // for its existence
-        try (var access = new WithExclusiveAccess(aDocument, aUser)) {
+        try (var access = new WithSharedAccess(aDocument, aUser)) {
             return driver.getCasFileSize(aDocument, aUser);
         }
         catch (IOException e) {
@@ -896,7 +1056,7 @@ public class CasStorageServiceImpl
     }
 
     private class WithExclusiveAccess
-        implements AutoCloseable
+        implements CasAccess
     {
         private final CasKey key;
         private CasHolder holder;
@@ -1001,9 +1161,8 @@ public class CasStorageServiceImpl
         public void release()
         {
             if (holder != null) {
-                exclusiveAccessPool.returnObject(key, holder);
+                leaseManager.returnExclusive(key, holder);
                 holder = null;
-                logExclusiveAccessHolders();
             }
             else {
                 getCas().release();
@@ -1016,12 +1175,61 @@ public class CasStorageServiceImpl
             if (holder != null) {
                 LOG.trace("Returning briefly borrowed CAS [{}]@[{}]({})", username, documentName,
                         documentId);
-                exclusiveAccessPool.returnObject(key, holder);
-                logExclusiveAccessHolders();
+                leaseManager.returnExclusive(key, holder);
+            }
+        }
+    }
+
+    /**
+     * Obtains a shared lease on a CAS. This ensures that the CAS is not being re-written and
+     * temporarily unavailable while we access its storage, but it permits other consumers to do the
+     * same at the same time.
+     */
+    private class WithSharedAccess
+        implements CasAccess
+    {
+        private final SharedLease lease;
+
+        public WithSharedAccess(SourceDocument aDocument, String aUser) throws CasSessionException
+        {
+            // If the session already has exclusive access, then we can access the storage anyway
+            if (CasStorageSession.get().hasExclusiveAccess(aDocument, aUser)) {
+                lease = null;
+            }
+            else {
+                lease = leaseManager.borrowShared(new CasKey(aDocument, aUser));
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if (lease != null) {
+                lease.close();
             }
         }
     }
 
+    private interface CasAccess
+        extends AutoCloseable
+    {
+        @Override
+        void close();
+    }
+
+    /**
+     * If a CAS may need to be created from the given supplier, then exclusive access is required.
+     * Otherwise, shared access is sufficient.
+     */
+    private CasAccess withAccessFor(SourceDocument aDocument, String aUser, CasProvider aSupplier)
+    {
+        if (aSupplier != null) {
+            return new WithExclusiveAccess(aDocument, aUser);
+        }
+
+        return new WithSharedAccess(aDocument, aUser);
+    }
+
     @Override
     public Optional<Long> getCasTimestamp(SourceDocument aDocument, String aUser) throws IOException
     {
@@ -1030,7 +1238,12 @@ public class CasStorageServiceImpl
 
         // Ensure that the CAS is not being re-written and temporarily unavailable while we check
         // for its timestamp
-        try (var access = new WithExclusiveAccess(aDocument, aUser)) {
+        try (var access = new WithSharedAccess(aDocument, aUser)) {
+            var pendingWrite = getPendingWrite(aDocument, aUser);
+            if (pendingWrite.isPresent()) {
+                return Optional.of(pendingWrite.get().timestamp());
+            }
+
             return driver.getCasMetadata(aDocument, aUser).map(CasStorageMetadata::getTimestamp);
         }
         catch (IOException e) {
@@ -1051,7 +1264,20 @@ public class CasStorageServiceImpl
 
         // Ensure that the CAS is not being re-written and temporarily unavailable while we check
         // for its timestamp
-        try (var access = new WithExclusiveAccess(aDocument, aUser)) {
+        try (var access = new WithSharedAccess(aDocument, aUser)) {
+            var pendingWrite = getPendingWrite(aDocument, aUser);
+            if (pendingWrite.isPresent()) {
+                var timestamp = pendingWrite.get().timestamp();
+                if (timestamp != aExpectedTimeStamp) {
+                    throw new ConcurentCasModificationException("While [" + aContextAction
+                            + "], the CAS storage detected a concurrent modification to the "
+                            + "annotation CAS for user [" + aUser + "] in document " + aDocument
+                            + " or project " + aDocument.getProject() + " (expected: "
+                            + aExpectedTimeStamp + " actual pending write: " + timestamp + ")");
+                }
+                return Optional.of(timestamp);
+            }
+
             return driver.verifyCasTimestamp(aDocument, aUser, aExpectedTimeStamp, aContextAction);
         }
         catch (IOException e) {
@@ -1062,53 +1288,309 @@ public class CasStorageServiceImpl
         }
     }
 
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional
+    public void beforeLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    {
+        // Tell the known CAS holders for the given project that their type system is outdated
+        // so they can be refreshed when next returned or borrowed
+        leaseManager.forEachHolder(h -> {
+            if (Objects.equals(h.getKey().getProjectId(), aEvent.getProject().getId())) {
+                h.setTypeSystemOutdated(true);
+            }
+        });
+
+        // Drop all cached CASes from the updated project from the cache so the CASes get loaded
+        // with an updated type system on next access
+        sharedAccessCache.invalidateIf(
+                key -> Objects.equals(key.getProjectId(), aEvent.getProject().getId()));
+    }
+
     /**
-     * When using the Spring {@link ConcurrentReferenceHashMap} for the
-     * {@link #exclusiveAccessHolders}, we had some trouble that CASHolders disappeared from the set
-     * even though they had not yet been garbage collected (i.e. still referenced from the
-     * {@link #exclusiveAccessPool}. To fix this, we switch to a simple synchronized
-     * {@link WeakHashMap} turned into a set. We keep the debug/logging code around for a little
-     * more to facilitate debugging this again if need be.
+     * Saves the CAS either directly to the storage or - in write-behind mode - to the write-behind
+     * queue from which it is written to the storage later. The caller must have exclusive access to
+     * the CAS.
      */
-    private void logExclusiveAccessHolders()
+    private void saveCas(SourceDocument aDocument, String aUserName, CAS aCas) throws IOException
     {
-        if (LOG.isTraceEnabled()) {
-            if (exclusiveAccessHolders.isEmpty()) {
-                LOG.trace("exclusiveAccessHolders: empty!");
+        // Initial CASes are written only once and they may share their storage with other
+        // initial CASes, so we always write them directly
+        if (writeBehindQueue == null || INITIAL_CAS_PSEUDO_USER.equals(aUserName)) {
+            realWriteCas(aDocument, aUserName, aCas);
+            return;
+        }
+
+        var key = new CasKey(aDocument, aUserName);
+        var pendingWrite = writeBehindQueue.get(key);
+
+        long lastTimestamp;
+        if (pendingWrite.isPresent()) {
+            lastTimestamp = pendingWrite.get().timestamp();
+        }
+        else {
+            // Check for concurrent modifications now - when the CAS is actually written, it is too
+            // late to tell the user
+            var lastChanged = aCas.getTypeSystem().getType(CASMetadata._TypeName) != null
+                    ? CasMetadataUtils.getLastChanged(aCas)
+                    : -1l;
+            if (lastChanged != -1l) {
+                driver.verifyCasTimestamp(aDocument, aUserName, lastChanged, "saving");
+            }
+
+            lastTimestamp = driver.getCasMetadata(aDocument, aUserName) //
+                    .map(CasStorageMetadata::getTimestamp) //
+                    .orElse(0l);
+        }
+
+        // The timestamp is assigned now and not when the CAS is actually written. So anybody who
+        // has seen the timestamp of the saved CAS does not see it change again later.
+        var timestamp = Math.max(currentTimeMillis(), lastTimestamp + 1);
+
+        // If the CAS could not be written in the background, write it directly so that the user
+        // learns about the problem instead of continuing to work on annotations that never reach
+        // the storage
+        var failure = writeBehindQueue.getFailure(key);
+        if (failure.isPresent()) {
+            LOG.warn("Writing CAS {} in the background failed repeatedly - writing it directly",
+                    key, failure.get());
+            realWriteCas(aDocument, aUserName, aCas, OptionalLong.of(timestamp));
+            writeBehindQueue.discard(key);
+            return;
+        }
+
+        writeBehindQueue.submit(aDocument, aUserName, aCas, timestamp);
+    }
+
+    private Optional<PendingCasWrite> getPendingWrite(SourceDocument aDocument, String aUser)
+    {
+        if (writeBehindQueue == null) {
+            return Optional.empty();
+        }
+
+        return writeBehindQueue.get(new CasKey(aDocument, aUser));
+    }
+
+    /**
+     * Writes the CAS to the storage if it is waiting to be written. The caller must have exclusive
+     * access to the CAS.
+     */
+    private void writePendingCas(CasKey aKey) throws IOException
+    {
+        if (writeBehindQueue == null) {
+            return;
+        }
+
+        var pendingWrite = writeBehindQueue.get(aKey);
+        if (pendingWrite.isEmpty()) {
+            return;
+        }
+
+        var write = pendingWrite.get();
+        transferCasOwnershipToCurrentThread(write.cas());
+        realWriteCas(write.document(), aKey.getUserId(), write.cas(),
+                OptionalLong.of(write.timestamp()));
+        writeBehindQueue.complete(write);
+    }
+
+    /**
+     * Writes the CAS to the storage if it is waiting to be written. Obtains exclusive access to the
+     * CAS if necessary, so the caller must not hold a shared lease on the CAS.
+     */
+    private void flushPendingWrite(SourceDocument aDocument, String aUser) throws IOException
+    {
+        if (getPendingWrite(aDocument, aUser).isEmpty()) {
+            return;
+        }
+
+        try (var access = new WithExclusiveAccess(aDocument, aUser)) {
+            writePendingCas(access.getKey());
+        }
+        catch (IOException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Copies the CAS if it is waiting to be written. Obtains exclusive access to the CAS if
+     * necessary, so the caller must not hold a shared lease on the CAS.
+     * 
+     * @return the copy and the pending write it was made from or {@code null} if the CAS is not
+     *         waiting to be written.
+     */
+    private PendingCasCopy copyPendingCas(SourceDocument aDocument, String aUser)
+        throws IOException
+    {
+        if (getPendingWrite(aDocument, aUser).isEmpty()) {
+            return null;
+        }
+
+        try (var access = new WithExclusiveAccess(aDocument, aUser)) {
+            var pendingWrite = writeBehindQueue.get(access.getKey());
+            if (pendingWrite.isEmpty()) {
+                return null;
+            }
+
+            var write = pendingWrite.get();
+            transferCasOwnershipToCurrentThread(write.cas());
+            return new PendingCasCopy(write, createCasCopy(write.cas()));
+        }
+        catch (IOException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private record PendingCasCopy(PendingCasWrite write, CAS cas)
+    {}
+
+    /**
+     * Called by the write-behind queue from its journal thread.
+     */
+    private byte[] serializePendingWrite(PendingCasWrite aWrite) throws IOException
+    {
+        try (var session = CasStorageSession.openNested();
+                var access = new WithExclusiveAccess(aWrite.document(),
+                        aWrite.key().getUserId())) {
+            // Saving or writing the CAS requires exclusive access, so while we hold it, the
+            // pending write cannot change under our feet
+            if (writeBehindQueue.get(aWrite.key()).orElse(null) != aWrite) {
+                return null;
+            }
+
+            transferCasOwnershipToCurrentThread(aWrite.cas());
+            return CasPersistenceUtils.writeToCompressedByteArray(aWrite.cas());
+        }
+        catch (IOException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Called by the write-behind queue from its background thread.
+     */
+    private void flushPendingWriteInBackground(PendingCasWrite aWrite)
+    {
+        try (var session = CasStorageSession.openNested()) {
+            flushPendingWrite(aWrite.document(), aWrite.key().getUserId());
+        }
+        catch (Exception e) {
+            if (writeBehindQueue.retry(aWrite, casStorageProperties.getWriteBehindMaxDelay(),
+                    e)) {
+                LOG.error("Unable to write pending CAS {} - will try again later", aWrite.key(),
+                        e);
             }
             else {
-                LOG.trace("exclusiveAccessHolders: {}", exclusiveAccessHolders);
+                LOG.error("Unable to write pending CAS {} - giving up. The problem is reported "
+                        + "to the user when the CAS is saved the next time.", aWrite.key(), e);
             }
         }
     }
 
-    @TransactionalEventListener(fallbackExecution = true)
-    @Transactional
-    public void beforeLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    private void discardPendingWrite(SourceDocument aDocument, String aUser)
     {
-        // Tell the known CAS holders for the given project that their type system is outdated
-        // so they can be refreshed when next returned or borrowed
-        logExclusiveAccessHolders();
+        if (writeBehindQueue != null) {
+            writeBehindQueue.discard(new CasKey(aDocument, aUser));
+        }
+    }
 
-        exclusiveAccessHolders.forEach(h -> {
-            // Must use the forEach here because stream() is not synchronized!
-            if (Objects.equals(h.getKey().getProjectId(), aEvent.getProject().getId())) {
-                h.setTypeSystemOutdated(true);
+    /**
+     * Writes the CASes left in the write-behind journal, e.g. because the application was
+     * terminated before they could be written.
+     * 
+     * @param aDocumentResolver
+     *            resolves the project ID and document ID of a journal record to the document. May
+     *            return {@code null} if the document does not exist anymore.
+     * @return the number of CASes that were written.
+     */
+    public int replayWriteBehindJournal(BiFunction<Long, Long, SourceDocument> aDocumentResolver)
+    {
+        if (writeBehindQueue == null) {
+            return 0;
+        }
+
+        var replayed = 0;
+        var failed = false;
+        for (var record : writeBehindQueue.readJournal()) {
+            var key = record.key();
+
+            // Records for keys with a pending write have been written during the current run
+            if (writeBehindQueue.get(key).isPresent()) {
+                continue;
             }
-        });
 
-        logExclusiveAccessHolders();
+            SourceDocument document;
+            try {
+                document = aDocumentResolver.apply(key.getProjectId(), key.getDocumentId());
+            }
+            catch (Exception e) {
+                document = null;
+            }
 
-        // Drop all cached CASes from the updated project from the cache so the CASes get loaded
-        // with an updated type system on next access
-        sharedAccessCache.asMap().keySet()
-                .removeIf(key -> Objects.equals(key.getProjectId(), aEvent.getProject().getId()));
+            if (document == null) {
+                LOG.warn("Dropping CAS journal record for {} - document does not exist anymore",
+                        key);
+                continue;
+            }
+
+            try (var session = CasStorageSession.openNested();
+                    var access = new WithExclusiveAccess(document, key.getUserId())) {
+                // The record may already have been written before the application was terminated
+                // or by an earlier replay that failed for other records
+                var diskTimestamp = driver.getCasMetadata(document, key.getUserId()) //
+                        .map(CasStorageMetadata::getTimestamp);
+                if (diskTimestamp.isPresent() && diskTimestamp.get() >= record.timestamp()) {
+                    LOG.debug("Skipping CAS journal record for {} - already written", key);
+                    continue;
+                }
+
+                var cas = writeBehindQueue.readJournalCas(record);
+                realWriteCas(document, key.getUserId(), cas, OptionalLong.of(record.timestamp()));
+
+                // Make sure nobody keeps using a version of the CAS from before the replay
+                leaseManager.forEachHolder(h -> {
+                    if (Objects.equals(h.getKey(), key)) {
+                        h.setTypeSystemOutdated(true);
+                    }
+                });
+                sharedAccessCache.invalidate(key);
+
+                replayed++;
+                LOG.info("Replayed CAS journal record for {}", key);
+            }
+            catch (Exception e) {
+                LOG.error("Unable to replay CAS journal record for {} - keeping the journal", key,
+                        e);
+                failed = true;
+            }
+        }
+
+        if (!failed) {
+            writeBehindQueue.deleteReplayedJournal();
+        }
+
+        return replayed;
     }
 
     private void realWriteCas(SourceDocument aDocument, String aUserName, CAS aCas)
         throws IOException
     {
-        analyze(aDocument.getProject(), aDocument.getName(), aDocument.getId(), aUserName, aCas);
+        realWriteCas(aDocument, aUserName, aCas, OptionalLong.empty());
+    }
+
+    private void realWriteCas(SourceDocument aDocument, String aUserName, CAS aCas,
+            OptionalLong aTimestamp)
+        throws IOException
+    {
+        analyze(aDocument.getProject(), aDocument.getName(), aDocument.getId(), aUserName, aCas,
+                true);
 
         if (CasStorageSession.exists()) {
             var session = CasStorageSession.get();
@@ -1121,22 +1603,15 @@ public class CasStorageServiceImpl
                     aDocument.getProject());
         }
 
-        driver.writeCas(aDocument, aUserName, aCas);
-    }
+        if (aTimestamp.isPresent()) {
+            driver.writeCas(aDocument, aUserName, aCas, aTimestamp.getAsLong());
+        }
+        else {
+            driver.writeCas(aDocument, aUserName, aCas);
+        }
 
-    public static class LoggingDefaultEvictionPolicy
-        extends DefaultEvictionPolicy<CasHolder>
-    {
-        @Override
-        public boolean evict(EvictionConfig aConfig, PooledObject<CasHolder> aUnderTest,
-                int aIdleCount)
-        {
-            var result = super.evict(aConfig, aUnderTest, aIdleCount);
-            if (result) {
-                LOG.debug("Marked CAS for eviction from exclusive-access pool: {}",
-                        aUnderTest.getObject());
-            }
-            return result;
+        if (casDoctor != null) {
+            casDoctor.markAnalyzed(aCas);
         }
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import de.tudarmstadt.ukp.inception.annotation.storage.CasLeaseManager.CasLeaseInfo;
+
+@ManagedResource("de.tudarmstadt.ukp.inception.annotation.storage:type=CasStorageServiceImpl,name=casLeases")
+public class CasStorageServiceLeasesAdapter
+{
+    private final CasStorageServiceImpl casStorageService;
+
+    @Autowired
+    public CasStorageServiceLeasesAdapter(CasStorageServiceImpl aCasStorageService)
+    {
+        casStorageService = aCasStorageService;
+    }
+
+    @ManagedAttribute
+    public int getLeaseCount()
+    {
+        return casStorageService.getCasLeases().size();
+    }
+
+    @ManagedAttribute
+    public int getIdleCasCount()
+    {
+        return casStorageService.getIdleCasCount();
+    }
+
+    @ManagedAttribute
+    public int getPendingWriteCount()
+    {
+        return casStorageService.getPendingWriteCount();
+    }
+
+    @ManagedAttribute
+    public String[] getLeases()
+    {
+        return casStorageService.getCasLeases().stream() //
+                .map(CasLeaseInfo::toString) //
+                .toArray(String[]::new);
+    }
+}
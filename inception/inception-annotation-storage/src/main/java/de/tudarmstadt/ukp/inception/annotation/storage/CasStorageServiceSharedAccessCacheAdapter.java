@@ -21,20 +21,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedResource;
 
-import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageCacheProperties;
-
 @ManagedResource("de.tudarmstadt.ukp.inception.annotation.storage:type=CasStorageServiceImpl,name=sharedReadOnlyCasCache")
 public class CasStorageServiceSharedAccessCacheAdapter
 {
     private final CasStorageServiceImpl casStorageService;
-    private final CasStorageCacheProperties casStorageProperties;
 
     @Autowired
-    public CasStorageServiceSharedAccessCacheAdapter(CasStorageServiceImpl aCasStorageService,
-            CasStorageCacheProperties aCasStorageProperties)
+    public CasStorageServiceSharedAccessCacheAdapter(CasStorageServiceImpl aCasStorageService)
     {
         casStorageService = aCasStorageService;
-        casStorageProperties = aCasStorageProperties;
     }
 
     @ManagedAttribute
@@ -110,20 +105,68 @@ public class CasStorageServiceSharedAccessCacheAdapter
     }
 
     @ManagedAttribute
-    public long getMaxCount()
+    public long getActiveWeight()
+    {
+        return casStorageService.getSharedAccessCache().getHeapTierWeight();
+    }
+
+    @ManagedAttribute
+    public long getMaxWeight()
     {
-        return casStorageProperties.getSharedCasCacheSize();
+        return casStorageService.getSharedAccessCache().getHeapTierMaxWeight();
     }
 
     @ManagedAttribute
     public double getUtilizationRate()
     {
-        long max = getMaxCount();
+        long max = getMaxWeight();
 
         if (max == 0) {
             return 0;
         }
 
-        return getActiveCount() / max;
+        return (double) getActiveWeight() / max;
+    }
+
+    @ManagedAttribute
+    public long getCompressedHitCount()
+    {
+        return casStorageService.getSharedAccessCache().getCompressedTierStats().hitCount();
+    }
+
+    @ManagedAttribute
+    public long getCompressedMissCount()
+    {
+        return casStorageService.getSharedAccessCache().getCompressedTierStats().missCount();
+    }
+
+    @ManagedAttribute
+    public long getCompressedEvictionCount()
+    {
+        return casStorageService.getSharedAccessCache().getCompressedTierStats().evictionCount();
+    }
+
+    @ManagedAttribute
+    public double getCompressedHitRate()
+    {
+        return casStorageService.getSharedAccessCache().getCompressedTierStats().hitRate();
+    }
+
+    @ManagedAttribute
+    public long getCompressedActiveCount()
+    {
+        return casStorageService.getSharedAccessCache().getCompressedTierSize();
+    }
+
+    @ManagedAttribute
+    public long getCompressedActiveWeight()
+    {
+        return casStorageService.getSharedAccessCache().getCompressedTierWeight();
+    }
+
+    @ManagedAttribute
+    public long getCompressedMaxWeight()
+    {
+        return casStorageService.getSharedAccessCache().getCompressedTierMaxWeight();
     }
 }
@@ -0,0 +1,833 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xerial.snappy.SnappyFramedInputStream;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasPersistenceUtils;
+
+/**
+ * Queue of CASes which have been saved by the user but which have not been written to the storage
+ * yet.
+ * <ul>
+ * <li>Submitting a CAS only records it in memory. Recording the CAS in the journal happens on a
+ * background thread, so serializing the CAS and syncing the journal to disk do not delay the
+ * user.</li>
+ * <li>The journal is a sequence of segment files to which records are only ever appended. All
+ * CASes submitted while the journal thread was busy are appended together and synced to disk
+ * once. If a CAS is submitted repeatedly in that time, only its latest state is appended.</li>
+ * <li>The CAS is handed to the flusher once no new submission for it has been made for the
+ * configured delay - but at the latest after the configured maximum delay. So a series of rapid
+ * edits results only in a single write.</li>
+ * <li>Once the flusher has written the CAS, it {@link #complete completes} the pending write.
+ * Segments which contain no record of a pending write anymore are deleted. Segments which are
+ * still present on startup belong to writes that were interrupted and can be {@link #readJournal
+ * replayed}.</li>
+ * <li>If the flusher fails to write a CAS for the configured number of attempts, the queue stops
+ * retrying and keeps the {@link #getFailure failure} for the caller to report.</li>
+ * </ul>
+ * The queue does not coordinate access to the CASes itself. Callers must hold exclusive access to
+ * a CAS when submitting, completing or discarding writes for it and the serializer must obtain
+ * exclusive access before serializing a CAS.
+ */
+public class CasWriteBehindQueue
+    implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    static final String JOURNAL_PREFIX = "journal-";
+    static final String JOURNAL_EXTENSION = ".wal";
+
+    private static final Pattern JOURNAL_SEGMENT_PATTERN = Pattern
+            .compile(Pattern.quote(JOURNAL_PREFIX) + "(\\d+)" + Pattern.quote(JOURNAL_EXTENSION));
+
+    private static final byte[] JOURNAL_MAGIC = { 'I', 'N', 'C', 'W', 'A', 'L' };
+    private static final int JOURNAL_FORMAT_VERSION = 1;
+    private static final int JOURNAL_HEADER_SIZE = JOURNAL_MAGIC.length + Short.BYTES;
+
+    /**
+     * Size after which a new segment is started so that segments with only obsolete records can be
+     * deleted while the application is running.
+     */
+    private static final long MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final File journalFolder;
+    private final Duration delay;
+    private final Duration maxDelay;
+    private final int maxAttempts;
+    private final CasSerializer serializer;
+    private final Consumer<PendingCasWrite> flusher;
+    private final ScheduledExecutorService flushExecutor;
+    private final ScheduledThreadPoolExecutor journalExecutor;
+
+    private final Map<CasKey, PendingCasWrite> pendingWrites = new ConcurrentHashMap<>();
+    private final Map<CasKey, ScheduledFuture<?>> scheduledFlushes = new ConcurrentHashMap<>();
+    private final Map<CasKey, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private final Map<CasKey, Exception> failures = new ConcurrentHashMap<>();
+    private final Set<CasKey> unjournaledWrites = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Segments left over from earlier runs of the application.
+     */
+    private final List<File> replaySegments;
+
+    // The following fields are only accessed from the journal thread
+    private final Map<CasKey, Long> journaledIn = new HashMap<>();
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+    private long nextSegment;
+    private long activeSegment;
+    private FileChannel activeChannel;
+
+    /**
+     * @param aJournalFolder
+     *            folder in which the journal segments are kept.
+     * @param aDelay
+     *            time without new submissions for a CAS after which it is flushed.
+     * @param aMaxDelay
+     *            maximum time a submitted CAS may wait for being flushed.
+     * @param aMaxAttempts
+     *            number of failed flushes after which the queue stops retrying to flush a CAS.
+     * @param aSerializer
+     *            serializes a pending CAS for the journal. It is called from a background thread.
+     * @param aFlusher
+     *            writes a pending CAS to the storage. It is called from a background thread.
+     * @throws IOException
+     *             if the journal folder cannot be created.
+     */
+    public CasWriteBehindQueue(File aJournalFolder, Duration aDelay, Duration aMaxDelay,
+            int aMaxAttempts, CasSerializer aSerializer, Consumer<PendingCasWrite> aFlusher)
+        throws IOException
+    {
+        journalFolder = aJournalFolder;
+        delay = aDelay;
+        maxDelay = aMaxDelay.compareTo(aDelay) < 0 ? aDelay : aMaxDelay;
+        maxAttempts = Math.max(1, aMaxAttempts);
+        serializer = aSerializer;
+        flusher = aFlusher;
+
+        FileUtils.forceMkdir(journalFolder);
+
+        replaySegments = listSegments();
+        nextSegment = replaySegments.isEmpty() ? 1
+                : getSegmentNumber(replaySegments.get(replaySegments.size() - 1)) + 1;
+
+        var flushThreadFactory = new BasicThreadFactory.Builder() //
+                .daemon(true) //
+                .namingPattern("cas-write-behind-%d") //
+                .build();
+        var scheduledExecutor = new ScheduledThreadPoolExecutor(1, flushThreadFactory);
+        scheduledExecutor.setRemoveOnCancelPolicy(true);
+        flushExecutor = scheduledExecutor;
+
+        var journalThreadFactory = new BasicThreadFactory.Builder() //
+                .daemon(true) //
+                .namingPattern("cas-journal-%d") //
+                .build();
+        journalExecutor = new ScheduledThreadPoolExecutor(1, journalThreadFactory);
+        // Records which are still waiting to be journaled on shutdown are journaled, but delayed
+        // retries are not waited for
+        journalExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Records the given CAS as the latest state of the CAS for the given document and user. The
+     * CAS is recorded in the journal shortly after in the background. If the application is
+     * terminated before that, the save is lost.
+     * 
+     * @param aDocument
+     *            the document.
+     * @param aUser
+     *            the user.
+     * @param aCas
+     *            the CAS.
+     * @param aTimestamp
+     *            the timestamp the CAS should have in the storage once it has been written.
+     * @return the pending write.
+     */
+    public PendingCasWrite submit(SourceDocument aDocument, String aUser, CAS aCas,
+            long aTimestamp)
+    {
+        var key = new CasKey(aDocument, aUser);
+        var previous = pendingWrites.get(key);
+        var firstSubmitted = previous != null ? previous.firstSubmitted()
+                : System.currentTimeMillis();
+
+        var write = new PendingCasWrite(key, aDocument, aCas, aTimestamp, firstSubmitted);
+        pendingWrites.put(key, write);
+        unjournaledWrites.add(key);
+        scheduleJournal(0);
+        scheduleFlush(write);
+
+        LOG.trace("Queued write of CAS {} (timestamp: {})", key, aTimestamp);
+
+        return write;
+    }
+
+    public Optional<PendingCasWrite> get(CasKey aKey)
+    {
+        return Optional.ofNullable(pendingWrites.get(aKey));
+    }
+
+    public List<PendingCasWrite> getPendingWrites()
+    {
+        return new ArrayList<>(pendingWrites.values());
+    }
+
+    public int size()
+    {
+        return pendingWrites.size();
+    }
+
+    /**
+     * @param aKey
+     *            the CAS.
+     * @return the last error if flushing the pending write of the given CAS has failed for the
+     *         maximum number of attempts.
+     */
+    public Optional<Exception> getFailure(CasKey aKey)
+    {
+        return Optional.ofNullable(failures.get(aKey));
+    }
+
+    /**
+     * Marks the given write as done - unless the CAS has been submitted again in the meantime.
+     * 
+     * @param aWrite
+     *            the write that has been persisted.
+     * @return whether the write was still the latest pending write of its CAS.
+     */
+    public boolean complete(PendingCasWrite aWrite)
+    {
+        if (!pendingWrites.remove(aWrite.key(), aWrite)) {
+            return false;
+        }
+
+        forget(aWrite.key());
+        return true;
+    }
+
+    /**
+     * Drops the pending write of the given CAS without writing it, e.g. because the CAS has been
+     * deleted or replaced.
+     * 
+     * @param aKey
+     *            the CAS.
+     */
+    public void discard(CasKey aKey)
+    {
+        if (pendingWrites.remove(aKey) == null) {
+            return;
+        }
+
+        forget(aKey);
+        LOG.trace("Discarded pending write of CAS {}", aKey);
+    }
+
+    /**
+     * Re-schedules flushing a pending write after flushing it failed - unless flushing the CAS has
+     * already failed for the maximum number of attempts. In that case, the failure is kept and can
+     * be obtained via {@link #getFailure}.
+     * 
+     * @param aWrite
+     *            the write.
+     * @param aDelay
+     *            the time to wait before the next attempt.
+     * @param aCause
+     *            the reason why flushing failed.
+     * @return whether flushing the CAS is attempted again.
+     */
+    public boolean retry(PendingCasWrite aWrite, Duration aDelay, Exception aCause)
+    {
+        var key = aWrite.key();
+        if (!pendingWrites.containsKey(key)) {
+            return false;
+        }
+
+        var attempts = failedAttempts.merge(key, 1, Integer::sum);
+        if (attempts >= maxAttempts) {
+            failures.put(key, aCause);
+            cancelFlush(key);
+            return false;
+        }
+
+        // If the CAS has been submitted again in the meantime, the newer write is already
+        // scheduled
+        if (pendingWrites.get(key) == aWrite) {
+            schedule(aWrite, aDelay.toMillis());
+        }
+
+        return true;
+    }
+
+    /**
+     * Waits until the journal thread has processed all CASes submitted so far.
+     * 
+     * @throws IOException
+     *             if waiting has been interrupted.
+     */
+    public void awaitJournal() throws IOException
+    {
+        try {
+            journalExecutor.submit(() -> {
+                // Nothing to do - tasks are executed in order
+            }).get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the latest journal record of every CAS in the segments left over from earlier runs of
+     *         the application, e.g. because the application was terminated before the writes were
+     *         done. A segment is read up to the first record that is incomplete or damaged.
+     */
+    public List<JournalRecord> readJournal()
+    {
+        var records = new LinkedHashMap<CasKey, JournalRecord>();
+        for (var file : replaySegments) {
+            try (var in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file)))) {
+                readJournalHeader(in);
+
+                long offset = JOURNAL_HEADER_SIZE;
+                JournalRecord record;
+                while ((record = readJournalRecord(in, file, offset)) != null) {
+                    offset += record.length();
+                    // Records are appended in the order in which the CASes were saved
+                    records.put(record.key(), record);
+                }
+            }
+            catch (IOException e) {
+                LOG.error("Unable to read CAS journal segment [{}]", file, e);
+            }
+        }
+
+        return new ArrayList<>(records.values());
+    }
+
+    /**
+     * @param aRecord
+     *            a journal record.
+     * @return the CAS stored in the given journal record.
+     * @throws IOException
+     *             if the record could not be read.
+     */
+    public CAS readJournalCas(JournalRecord aRecord) throws IOException
+    {
+        try (var file = new RandomAccessFile(aRecord.file(), "r")) {
+            file.seek(aRecord.offset());
+            var payload = new byte[file.readInt()];
+            file.readFully(payload);
+            if (file.readLong() != checksum(payload)) {
+                throw new IOException("CAS journal record is damaged");
+            }
+
+            var in = new DataInputStream(new ByteArrayInputStream(payload));
+            readJournalRecordHeader(in);
+            in.readLong();
+
+            var cas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+            CasPersistenceUtils.readSerializedCas(cas, new SnappyFramedInputStream(in));
+            return cas;
+        }
+        catch (IOException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Removes the segments left over from earlier runs of the application after their records have
+     * been replayed.
+     */
+    public void deleteReplayedJournal()
+    {
+        for (var file : replaySegments) {
+            deleteSegment(file);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        flushExecutor.shutdownNow();
+
+        // Let the journal thread record the CASes which have been submitted so far
+        journalExecutor.shutdown();
+        try {
+            if (!journalExecutor.awaitTermination(1, MINUTES)) {
+                LOG.warn("Timed out waiting for the CAS journal to be written");
+                journalExecutor.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            journalExecutor.shutdownNow();
+        }
+
+        closeActiveSegment();
+    }
+
+    private void forget(CasKey aKey)
+    {
+        cancelFlush(aKey);
+        failedAttempts.remove(aKey);
+        failures.remove(aKey);
+        // Give the journal thread the chance to delete segments that are no longer needed
+        scheduleJournal(0);
+    }
+
+    private void scheduleFlush(PendingCasWrite aWrite)
+    {
+        // Wait until no new edits have been made for a while, but do not wait longer than the
+        // maximum delay since the first edit that has not been written yet
+        var now = System.currentTimeMillis();
+        var deadline = aWrite.firstSubmitted() + maxDelay.toMillis();
+        var flushAt = Math.min(now + delay.toMillis(), deadline);
+
+        schedule(aWrite, Math.max(0, flushAt - now));
+    }
+
+    private void schedule(PendingCasWrite aWrite, long aDelayMillis)
+    {
+        // After the queue has been closed, pending writes remain in the journal
+        if (flushExecutor.isShutdown()) {
+            return;
+        }
+
+        var future = flushExecutor.schedule(() -> flush(aWrite.key()), aDelayMillis,
+                MILLISECONDS);
+        var previous = scheduledFlushes.put(aWrite.key(), future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void cancelFlush(CasKey aKey)
+    {
+        var future = scheduledFlushes.remove(aKey);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private void flush(CasKey aKey)
+    {
+        var write = pendingWrites.get(aKey);
+        if (write == null) {
+            return;
+        }
+
+        try {
+            flusher.accept(write);
+        }
+        catch (Exception e) {
+            LOG.error("Unable to write CAS {} - journal record is kept", aKey, e);
+        }
+    }
+
+    private void scheduleJournal(long aDelayMillis)
+    {
+        if (journalExecutor.isShutdown()) {
+            return;
+        }
+
+        journalExecutor.schedule(this::writeJournal, aDelayMillis, MILLISECONDS);
+    }
+
+    /**
+     * Appends the CASes submitted since the last run to the journal. Runs on the journal thread.
+     */
+    private void writeJournal()
+    {
+        var batch = new ArrayList<JournalEntry>();
+        var failed = false;
+        var i = unjournaledWrites.iterator();
+        while (i.hasNext()) {
+            var key = i.next();
+            i.remove();
+
+            var write = pendingWrites.get(key);
+            if (write == null) {
+                continue;
+            }
+
+            try {
+                var casBytes = serializer.serialize(write);
+                // Null means the write has been superseded or completed while we were waiting
+                if (casBytes != null) {
+                    batch.add(new JournalEntry(write, casBytes));
+                }
+            }
+            catch (Exception e) {
+                LOG.error("Unable to record CAS {} in the journal - will try again later", key,
+                        e);
+                unjournaledWrites.add(key);
+                failed = true;
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                appendToJournal(batch);
+            }
+            catch (IOException e) {
+                LOG.error("Unable to write CAS journal - will try again later", e);
+                // The segment may end with an incomplete record now - continue in a new one
+                closeActiveSegment();
+                batch.forEach(entry -> unjournaledWrites.add(entry.write().key()));
+                failed = true;
+            }
+        }
+
+        if (failed) {
+            scheduleJournal(delay.toMillis());
+        }
+
+        deleteObsoleteSegments();
+    }
+
+    private void appendToJournal(List<JournalEntry> aBatch) throws IOException
+    {
+        if (activeChannel == null) {
+            openSegment();
+        }
+
+        for (var entry : aBatch) {
+            var buffer = encodeJournalRecord(entry);
+            while (buffer.hasRemaining()) {
+                activeChannel.write(buffer);
+            }
+        }
+
+        // Make the whole batch durable at once
+        activeChannel.force(false);
+
+        for (var entry : aBatch) {
+            journaledIn.put(entry.write().key(), activeSegment);
+        }
+
+        LOG.trace("Recorded {} CASes in journal segment {}", aBatch.size(), activeSegment);
+
+        if (activeChannel.size() >= MAX_SEGMENT_SIZE) {
+            closeActiveSegment();
+        }
+    }
+
+    private void openSegment() throws IOException
+    {
+        var number = nextSegment++;
+        var file = getSegmentFile(number);
+        var channel = FileChannel.open(file.toPath(), CREATE, WRITE, APPEND);
+        try {
+            var header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE) //
+                    .put(JOURNAL_MAGIC) //
+                    .putShort((short) JOURNAL_FORMAT_VERSION) //
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        segments.put(number, file);
+        activeSegment = number;
+        activeChannel = channel;
+    }
+
+    private void closeActiveSegment()
+    {
+        if (activeChannel == null) {
+            return;
+        }
+
+        try {
+            activeChannel.close();
+        }
+        catch (IOException e) {
+            LOG.error("Unable to close CAS journal segment {}", activeSegment, e);
+        }
+
+        activeChannel = null;
+    }
+
+    /**
+     * Deletes the segments which contain only records of CASes that have been written in the
+     * meantime. Runs on the journal thread.
+     */
+    private void deleteObsoleteSegments()
+    {
+        journaledIn.keySet().removeIf(key -> !pendingWrites.containsKey(key));
+
+        if (journaledIn.isEmpty()) {
+            closeActiveSegment();
+        }
+
+        var oldestNeeded = journaledIn.values().stream() //
+                .min(Comparator.naturalOrder()) //
+                .orElse(Long.MAX_VALUE);
+        var i = segments.headMap(oldestNeeded).entrySet().iterator();
+        while (i.hasNext()) {
+            var segment = i.next();
+            if (activeChannel != null && segment.getKey() == activeSegment) {
+                continue;
+            }
+
+            deleteSegment(segment.getValue());
+            i.remove();
+        }
+    }
+
+    private File getSegmentFile(long aNumber)
+    {
+        return new File(journalFolder, String.format("%s%012d%s", JOURNAL_PREFIX, aNumber,
+                JOURNAL_EXTENSION));
+    }
+
+    private List<File> listSegments()
+    {
+        var files = journalFolder
+                .listFiles((dir, name) -> JOURNAL_SEGMENT_PATTERN.matcher(name).matches());
+        if (files == null) {
+            return List.of();
+        }
+
+        Arrays.sort(files, Comparator.comparingLong(CasWriteBehindQueue::getSegmentNumber));
+        return List.of(files);
+    }
+
+    private static long getSegmentNumber(File aFile)
+    {
+        var matcher = JOURNAL_SEGMENT_PATTERN.matcher(aFile.getName());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a CAS journal segment: " + aFile);
+        }
+
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private void deleteSegment(File aFile)
+    {
+        try {
+            Files.deleteIfExists(aFile.toPath());
+        }
+        catch (IOException e) {
+            LOG.error("Unable to delete CAS journal segment [{}]", aFile, e);
+        }
+    }
+
+    private static ByteBuffer encodeJournalRecord(JournalEntry aEntry) throws IOException
+    {
+        var key = aEntry.write().key();
+        var bos = new ByteArrayOutputStream(aEntry.casBytes().length + 256);
+        try (var out = new DataOutputStream(bos)) {
+            out.writeLong(key.getProjectId());
+            out.writeLong(key.getDocumentId());
+            out.writeUTF(key.getUserId());
+            out.writeLong(aEntry.write().timestamp());
+            out.write(aEntry.casBytes());
+        }
+
+        var payload = bos.toByteArray();
+        return ByteBuffer.allocate(Integer.BYTES + payload.length + Long.BYTES) //
+                .putInt(payload.length) //
+                .put(payload) //
+                .putLong(checksum(payload)) //
+                .flip();
+    }
+
+    private static JournalRecord readJournalRecord(DataInputStream aIn, File aFile, long aOffset)
+        throws IOException
+    {
+        int length;
+        try {
+            length = aIn.readInt();
+        }
+        catch (EOFException e) {
+            return null;
+        }
+
+        try {
+            if (length < 0) {
+                throw new IOException("Invalid record length: " + length);
+            }
+
+            var payload = new byte[length];
+            aIn.readFully(payload);
+            if (aIn.readLong() != checksum(payload)) {
+                throw new IOException("Checksum mismatch");
+            }
+
+            var in = new DataInputStream(new ByteArrayInputStream(payload));
+            var key = readJournalRecordHeader(in);
+            var timestamp = in.readLong();
+            return new JournalRecord(aFile, aOffset, Integer.BYTES + length + Long.BYTES, key,
+                    timestamp);
+        }
+        catch (IOException e) {
+            // The application was likely terminated while the record was being written. Since
+            // records are appended in the background, the save it belongs to may already have
+            // been confirmed to the user - that save and any later ones in the segment are lost.
+            LOG.warn("Ignoring incomplete CAS journal record at offset {} in [{}]: {}", aOffset,
+                    aFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void readJournalHeader(DataInputStream aIn) throws IOException
+    {
+        var magic = new byte[JOURNAL_MAGIC.length];
+        aIn.readFully(magic);
+        if (!Arrays.equals(magic, JOURNAL_MAGIC)) {
+            throw new IOException("Not a CAS journal segment");
+        }
+
+        var version = aIn.readShort();
+        if (version != JOURNAL_FORMAT_VERSION) {
+            throw new IOException("Unsupported CAS journal segment version: " + version);
+        }
+    }
+
+    private static CasKey readJournalRecordHeader(DataInputStream aIn) throws IOException
+    {
+        var projectId = aIn.readLong();
+        var documentId = aIn.readLong();
+        var user = aIn.readUTF();
+        return new CasKey(projectId, documentId, user);
+    }
+
+    private static long checksum(byte[] aData)
+    {
+        var crc = new CRC32();
+        crc.update(aData);
+        return crc.getValue();
+    }
+
+    /**
+     * Serializes a pending CAS for the journal.
+     */
+    @FunctionalInterface
+    public interface CasSerializer
+    {
+        /**
+         * @param aWrite
+         *            the pending write.
+         * @return the compressed serialized CAS or {@code null} if the write is no longer pending
+         *         or has been superseded by a newer write.
+         * @throws IOException
+         *             if the CAS could not be serialized.
+         */
+        byte[] serialize(PendingCasWrite aWrite) throws IOException;
+    }
+
+    /**
+     * A CAS that has been saved but not yet been written to the storage.
+     * 
+     * @param key
+     *            the CAS.
+     * @param document
+     *            the document the CAS belongs to.
+     * @param cas
+     *            the latest state of the CAS.
+     * @param timestamp
+     *            the timestamp the CAS should have in the storage once it has been written.
+     * @param firstSubmitted
+     *            when the oldest edit that has not been written yet was submitted.
+     */
+    public record PendingCasWrite(CasKey key, SourceDocument document, CAS cas, long timestamp,
+            long firstSubmitted)
+    {}
+
+    /**
+     * A journal record left over from a write which has not been completed.
+     * 
+     * @param file
+     *            the journal segment containing the record.
+     * @param offset
+     *            the position of the record in the segment.
+     * @param length
+     *            the size of the record in the segment.
+     * @param key
+     *            the CAS.
+     * @param timestamp
+     *            the timestamp the CAS should have in the storage once it has been written.
+     */
+    public record JournalRecord(File file, long offset, long length, CasKey key, long timestamp)
+    {}
+
+    private record JournalEntry(PendingCasWrite write, byte[] casBytes)
+    {}
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage;
+
+import java.lang.invoke.MethodHandles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+
+/**
+ * Writes the CASes left in the write-behind journal when the application starts - before users
+ * can access them.
+ * <p>
+ * This class is exposed as a Spring Component via {@link CasStorageServiceAutoConfiguration} if
+ * {@code cas-storage.cache.write-behind-enabled} is set.
+ * </p>
+ */
+public class ReplayCasJournalOnStartup
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final CasStorageServiceImpl casStorageService;
+    private final DocumentService documentService;
+
+    public ReplayCasJournalOnStartup(CasStorageServiceImpl aCasStorageService,
+            DocumentService aDocumentService)
+    {
+        casStorageService = aCasStorageService;
+        documentService = aDocumentService;
+    }
+
+    @EventListener
+    public void onContextRefreshedEvent(ContextRefreshedEvent aEvent)
+    {
+        var replayed = casStorageService
+                .replayWriteBehindJournal(documentService::getSourceDocument);
+
+        if (replayed > 0) {
+            LOG.info("Wrote {} CASes left in the write-behind journal", replayed);
+        }
+    }
+}
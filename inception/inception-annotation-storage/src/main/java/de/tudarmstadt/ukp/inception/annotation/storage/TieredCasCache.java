@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage;
+
+import static com.github.benmanes.caffeine.cache.RemovalCause.SIZE;
+
+import java.io.ByteArrayInputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xerial.snappy.SnappyFramedInputStream;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasPersistenceUtils;
+
+/**
+ * Two-tier cache for CASes accessed in shared read-only mode.
+ * <ul>
+ * <li>The <b>heap tier</b> holds the CAS objects. It is bounded by the estimated memory used by the
+ * CASes instead of by the number of CASes, so a few very large CASes cannot exhaust the heap while
+ * many small CASes can still be kept.</li>
+ * <li>The <b>compressed tier</b> receives CASes that are evicted from the heap tier because it is
+ * full. They are kept in compressed serialized form in off-heap buffers. Re-accessing such a CAS
+ * only requires decompressing it - reading it from disk and upgrading it is not necessary.</li>
+ * </ul>
+ * Both tiers expire entries which have not been accessed for some time and record their own
+ * statistics.
+ */
+public class TieredCasCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    // Rough estimates of the memory occupied by a CAS
+    private static final long WEIGHT_BASE = 64 * 1024;
+    private static final long WEIGHT_PER_CHAR = 2;
+    private static final long WEIGHT_PER_FS = 128;
+    private static final int WEIGHT_FAILED_LOAD = 1024;
+
+    private final Cache<CasKey, CasHolder> heapTier;
+    private final Cache<CasKey, ByteBuffer> compressedTier;
+    private final long heapTierMaxWeight;
+    private final long compressedTierMaxWeight;
+
+    /**
+     * @param aHeapTierMaxWeight
+     *            maximum estimated memory in bytes used by the CASes in the heap tier.
+     * @param aCompressedTierMaxWeight
+     *            maximum memory in bytes used by the compressed tier. If this is {@code 0}, the
+     *            compressed tier is disabled.
+     * @param aExpireAfterAccess
+     *            time after which CASes that have not been accessed are dropped from either tier.
+     */
+    public TieredCasCache(long aHeapTierMaxWeight, long aCompressedTierMaxWeight,
+            Duration aExpireAfterAccess)
+    {
+        this(aHeapTierMaxWeight, aCompressedTierMaxWeight, aExpireAfterAccess,
+                ForkJoinPool.commonPool());
+    }
+
+    TieredCasCache(long aHeapTierMaxWeight, long aCompressedTierMaxWeight,
+            Duration aExpireAfterAccess, Executor aExecutor)
+    {
+        heapTierMaxWeight = aHeapTierMaxWeight;
+        compressedTierMaxWeight = aCompressedTierMaxWeight;
+
+        if (aCompressedTierMaxWeight > 0) {
+            compressedTier = Caffeine.newBuilder() //
+                    .executor(aExecutor) //
+                    .scheduler(Scheduler.systemScheduler()) //
+                    .expireAfterAccess(aExpireAfterAccess) //
+                    .maximumWeight(aCompressedTierMaxWeight) //
+                    .weigher((CasKey key, ByteBuffer value) -> value.capacity()) //
+                    .recordStats() //
+                    .build();
+        }
+        else {
+            compressedTier = null;
+        }
+
+        heapTier = Caffeine.newBuilder() //
+                .executor(aExecutor) //
+                .scheduler(Scheduler.systemScheduler()) //
+                .expireAfterAccess(aExpireAfterAccess) //
+                .maximumWeight(aHeapTierMaxWeight) //
+                .weigher((CasKey key, CasHolder value) -> weigh(value)) //
+                .recordStats() //
+                // The eviction listener is called synchronously while the entry is removed, so an
+                // invalidation of the key cannot overtake moving the CAS to the compressed tier
+                .evictionListener(this::onEviction) //
+                .build();
+    }
+
+    public CasHolder get(CasKey aKey, Function<CasKey, CasHolder> aLoader)
+    {
+        return heapTier.get(aKey, key -> {
+            var restored = restore(key);
+            return restored != null ? restored : aLoader.apply(key);
+        });
+    }
+
+    public CasHolder getIfPresent(CasKey aKey)
+    {
+        return heapTier.getIfPresent(aKey);
+    }
+
+    public void invalidate(CasKey aKey)
+    {
+        heapTier.invalidate(aKey);
+        if (compressedTier != null) {
+            compressedTier.invalidate(aKey);
+        }
+    }
+
+    public void invalidateIf(Predicate<CasKey> aPredicate)
+    {
+        heapTier.asMap().keySet().removeIf(aPredicate);
+        if (compressedTier != null) {
+            compressedTier.asMap().keySet().removeIf(aPredicate);
+        }
+    }
+
+    public long getHeapTierSize()
+    {
+        return heapTier.estimatedSize();
+    }
+
+    public long getHeapTierWeight()
+    {
+        return heapTier.policy().eviction() //
+                .map(eviction -> eviction.weightedSize().orElse(0L)) //
+                .orElse(0L);
+    }
+
+    public long getHeapTierMaxWeight()
+    {
+        return heapTierMaxWeight;
+    }
+
+    public CacheStats getHeapTierStats()
+    {
+        return heapTier.stats();
+    }
+
+    public long getCompressedTierSize()
+    {
+        return compressedTier != null ? compressedTier.estimatedSize() : 0;
+    }
+
+    public long getCompressedTierWeight()
+    {
+        if (compressedTier == null) {
+            return 0;
+        }
+
+        return compressedTier.policy().eviction() //
+                .map(eviction -> eviction.weightedSize().orElse(0L)) //
+                .orElse(0L);
+    }
+
+    public long getCompressedTierMaxWeight()
+    {
+        return compressedTierMaxWeight;
+    }
+
+    public CacheStats getCompressedTierStats()
+    {
+        return compressedTier != null ? compressedTier.stats() : CacheStats.empty();
+    }
+
+    private void onEviction(CasKey aKey, CasHolder aHolder, RemovalCause aCause)
+    {
+        LOG.debug("Marked CAS for eviction from shared-access cache: {} [{}]", aHolder, aCause);
+
+        // Expired CASes have not been used for a while - no need to keep them around. But CASes
+        // which only had to make space for others are likely to be used again.
+        if (aCause == SIZE) {
+            demote(aKey, aHolder);
+        }
+    }
+
+    private void demote(CasKey aKey, CasHolder aHolder)
+    {
+        if (compressedTier == null || aKey == null || aHolder == null || !aHolder.isCasSet()
+                || aHolder.isDeleted() || aHolder.isTypeSystemOutdated()) {
+            return;
+        }
+
+        try {
+            var bytes = CasPersistenceUtils.writeToCompressedByteArray(aHolder.getCas());
+            var buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes);
+            buffer.flip();
+            compressedTier.put(aKey, buffer);
+            LOG.trace("Moved CAS to compressed tier: {} ({} bytes)", aKey, bytes.length);
+        }
+        catch (Exception e) {
+            LOG.warn("Unable to move CAS {} to compressed tier", aKey, e);
+        }
+    }
+
+    private CasHolder restore(CasKey aKey)
+    {
+        if (compressedTier == null) {
+            return null;
+        }
+
+        var buffer = compressedTier.getIfPresent(aKey);
+        if (buffer == null) {
+            return null;
+        }
+
+        // The CAS moves back to the heap tier
+        compressedTier.invalidate(aKey);
+
+        try {
+            var bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+
+            // Like for CASes loaded from disk, we cache the real CAS and not a proxy
+            CAS cas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+            CasPersistenceUtils.readSerializedCas(cas,
+                    new SnappyFramedInputStream(new ByteArrayInputStream(bytes)));
+            LOG.trace("Restored CAS from compressed tier: {}", aKey);
+            return new CasHolder(aKey, cas);
+        }
+        catch (Exception e) {
+            LOG.warn("Unable to restore CAS {} from compressed tier", aKey, e);
+            return null;
+        }
+    }
+
+    private static int weigh(CasHolder aHolder)
+    {
+        if (!aHolder.isCasSet()) {
+            return WEIGHT_FAILED_LOAD;
+        }
+
+        return estimateSize(aHolder.getCas());
+    }
+
+    static int estimateSize(CAS aCas)
+    {
+        var size = WEIGHT_BASE;
+        var views = aCas.getViewIterator();
+        while (views.hasNext()) {
+            var view = views.next();
+            var text = view.getDocumentText();
+            if (text != null) {
+                size += WEIGHT_PER_CHAR * text.length();
+            }
+            size += WEIGHT_PER_FS * view.select().count();
+        }
+
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+}
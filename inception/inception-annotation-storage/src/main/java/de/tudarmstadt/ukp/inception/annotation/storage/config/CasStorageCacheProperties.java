@@ -19,6 +19,8 @@ package de.tudarmstadt.ukp.inception.annotation.storage.config;
 
 import java.time.Duration;
 
+import org.springframework.util.unit.DataSize;
+
 public interface CasStorageCacheProperties
 {
     /**
@@ -28,20 +30,51 @@ public interface CasStorageCacheProperties
     Duration getCasBorrowWaitTimeout();
 
     /**
-     * @return time how often the exclusive-access pool is checked for idle CASes that can be
+     * @return time how often the exclusive-access CASes are checked for idle CASes that can be
      *         removed and how long shared-access CASes remain the cache when not being used.
      */
     Duration getIdleCasEvictionDelay();
 
     /**
-     * @return time that a CAS should remain in the exclusive-access pool before being evicted. This
+     * @return time that an idle CAS should remain in memory before being evicted. This
      *         is meant to ensure that CASes that are used regularly remain a while in the pool
      *         before we have to read them from disk again.
      */
     Duration getMinIdleCasTime();
 
     /**
-     * @return number of CAS instances that should be kept in memory for shared-read-only access.
+     * @return estimated memory that CAS instances kept in memory for shared-read-only access may
+     *         occupy.
+     */
+    DataSize getSharedCasCacheMemory();
+
+    /**
+     * @return memory that compressed CASes evicted from the shared-read-only cache may occupy. If
+     *         this is zero, evicted CASes are dropped.
+     */
+    DataSize getSharedCasCacheCompressedMemory();
+
+    /**
+     * @return whether saving a CAS only records it in a journal and the actual write to the
+     *         storage happens in the background.
+     */
+    boolean isWriteBehindEnabled();
+
+    /**
+     * @return time without further saves after which a CAS saved in write-behind mode is written
+     *         to the storage.
+     */
+    Duration getWriteBehindDelay();
+
+    /**
+     * @return maximum time a CAS saved in write-behind mode may wait before being written to the
+     *         storage, even if it keeps being saved.
+     */
+    Duration getWriteBehindMaxDelay();
+
+    /**
+     * @return how often writing a CAS saved in write-behind mode is attempted in the background
+     *         before giving up and reporting the failure when the CAS is saved the next time.
      */
-    long getSharedCasCacheSize();
+    int getWriteBehindMaxAttempts();
 }
@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.inception.annotation.storage.config;
 import java.time.Duration;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * <p>
@@ -33,7 +34,12 @@ public class CasStorageCachePropertiesImpl
     private Duration idleCasEvictionDelay = Duration.ofMinutes(5);
     private Duration minIdleCasTime = Duration.ofMinutes(5);
     private Duration casBorrowWaitTimeout = Duration.ofMinutes(3);
-    private long sharedCasCacheSize = getDefaultCasCacheSize();
+    private DataSize sharedCasCacheMemory = getDefaultCasCacheMemory();
+    private DataSize sharedCasCacheCompressedMemory = getDefaultCasCacheCompressedMemory();
+    private boolean writeBehindEnabled = false;
+    private Duration writeBehindDelay = Duration.ofSeconds(5);
+    private Duration writeBehindMaxDelay = Duration.ofMinutes(1);
+    private int writeBehindMaxAttempts = 5;
 
     @Override
     public Duration getIdleCasEvictionDelay()
@@ -58,14 +64,25 @@ public class CasStorageCachePropertiesImpl
     }
 
     @Override
-    public long getSharedCasCacheSize()
+    public DataSize getSharedCasCacheMemory()
     {
-        return sharedCasCacheSize;
+        return sharedCasCacheMemory;
     }
 
-    public void setSharedCasCacheSize(long aSharedCasCacheSize)
+    public void setSharedCasCacheMemory(DataSize aSharedCasCacheMemory)
     {
-        sharedCasCacheSize = aSharedCasCacheSize;
+        sharedCasCacheMemory = aSharedCasCacheMemory;
+    }
+
+    @Override
+    public DataSize getSharedCasCacheCompressedMemory()
+    {
+        return sharedCasCacheCompressedMemory;
+    }
+
+    public void setSharedCasCacheCompressedMemory(DataSize aSharedCasCacheCompressedMemory)
+    {
+        sharedCasCacheCompressedMemory = aSharedCasCacheCompressedMemory;
     }
 
     @Override
@@ -79,32 +96,59 @@ public class CasStorageCachePropertiesImpl
         minIdleCasTime = aMinIdleCasTime;
     }
 
-    private static final long MB = 1024 * 1024;
+    @Override
+    public boolean isWriteBehindEnabled()
+    {
+        return writeBehindEnabled;
+    }
 
-    public static long getDefaultCasCacheSize()
+    public void setWriteBehindEnabled(boolean aWriteBehindEnabled)
     {
-        long maxMemory = Runtime.getRuntime().maxMemory();
+        writeBehindEnabled = aWriteBehindEnabled;
+    }
 
-        if (maxMemory < 256 * MB) {
-            return 10;
-        }
+    @Override
+    public Duration getWriteBehindDelay()
+    {
+        return writeBehindDelay;
+    }
 
-        if (maxMemory < 512 * MB) {
-            return 50;
-        }
+    public void setWriteBehindDelay(Duration aWriteBehindDelay)
+    {
+        writeBehindDelay = aWriteBehindDelay;
+    }
 
-        if (maxMemory < 1024 * MB) {
-            return 250;
-        }
+    @Override
+    public Duration getWriteBehindMaxDelay()
+    {
+        return writeBehindMaxDelay;
+    }
 
-        if (maxMemory < 2048 * MB) {
-            return 750;
-        }
+    public void setWriteBehindMaxDelay(Duration aWriteBehindMaxDelay)
+    {
+        writeBehindMaxDelay = aWriteBehindMaxDelay;
+    }
 
-        if (maxMemory < 4096 * MB) {
-            return 1500;
-        }
+    @Override
+    public int getWriteBehindMaxAttempts()
+    {
+        return writeBehindMaxAttempts;
+    }
 
-        return 5000;
+    public void setWriteBehindMaxAttempts(int aWriteBehindMaxAttempts)
+    {
+        writeBehindMaxAttempts = aWriteBehindMaxAttempts;
+    }
+
+    public static DataSize getDefaultCasCacheMemory()
+    {
+        return DataSize.ofBytes(Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    public static DataSize getDefaultCasCacheCompressedMemory()
+    {
+        // The compressed tier lives off-heap, but we still size it relative to the heap since
+        // that is the only memory setting a typical installation has tuned
+        return DataSize.ofBytes(Runtime.getRuntime().maxMemory() / 10);
     }
 }
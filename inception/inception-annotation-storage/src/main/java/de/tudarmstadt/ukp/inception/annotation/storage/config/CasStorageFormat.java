@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.config;
+
+/**
+ * Format in which CASes are written to the file system. CASes are always read regardless of the
+ * format they have been written in.
+ */
+public enum CasStorageFormat
+{
+    /**
+     * Java-serialized {@code CASCompleteSerializer}, optionally Snappy-compressed. This is the
+     * default and the format used by older versions.
+     */
+    SERIALIZED,
+
+    /**
+     * Snappy-compressed UIMA binary form 0 with a small versioned header. Older versions and
+     * external tools expecting the serialized format cannot read files in this format, so it must
+     * be enabled explicitly.
+     */
+    BINARY;
+}
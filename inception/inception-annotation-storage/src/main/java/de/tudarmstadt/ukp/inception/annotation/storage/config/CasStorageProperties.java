@@ -27,5 +27,17 @@ public interface CasStorageProperties
 
     boolean isCompressedCasSerialization();
 
+    /**
+     * @return format in which CASes are written. CASes in another format are converted to this
+     *         format when they are written the next time.
+     */
+    CasStorageFormat getFormat();
+
+    /**
+     * @return whether immutable CAS files (initial CASes and history backups) with identical
+     *         content should share their storage through hard links.
+     */
+    boolean isDeduplication();
+
     Duration getFileSystemTimestampAccuracy();
 }
@@ -34,6 +34,8 @@ public class CasStoragePropertiesImpl
     implements CasStorageProperties
 {
     private boolean compressedCasSerialization = true;
+    private CasStorageFormat format = CasStorageFormat.SERIALIZED;
+    private boolean deduplication = false;
     private boolean paranoidCasSerialization = false;
     private boolean traceAccess = false;
     private Duration fileSystemTimestampAccuracy = Duration.ofMillis(0);
@@ -75,6 +77,31 @@ public class CasStoragePropertiesImpl
         return compressedCasSerialization;
     }
 
+    @ManagedAttribute
+    public void setFormat(CasStorageFormat aFormat)
+    {
+        format = aFormat;
+    }
+
+    @Override
+    @ManagedAttribute
+    public CasStorageFormat getFormat()
+    {
+        return format;
+    }
+
+    public void setDeduplication(boolean aDeduplication)
+    {
+        deduplication = aDeduplication;
+    }
+
+    @Override
+    @ManagedAttribute
+    public boolean isDeduplication()
+    {
+        return deduplication;
+    }
+
     @ManagedAttribute
     public void setFileSystemTimestampAccuracy(Duration aFileSystemTimestampAccuracy)
     {
@@ -18,6 +18,7 @@
 package de.tudarmstadt.ukp.inception.annotation.storage.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,10 +26,16 @@ import org.springframework.context.annotation.Configuration;
 import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
 import de.tudarmstadt.ukp.clarin.webanno.diag.CasDoctor;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageServiceImpl;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageServiceLeasesAdapter;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageServiceSharedAccessCacheAdapter;
+import de.tudarmstadt.ukp.inception.annotation.storage.ReplayCasJournalOnStartup;
 import de.tudarmstadt.ukp.inception.annotation.storage.driver.CasStorageDriver;
 import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.FileSystemCasStorageDriver;
+import de.tudarmstadt.ukp.inception.annotation.storage.tasks.MigrateCasFormatOnStartup;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 
 @Configuration
@@ -40,10 +47,11 @@ public class CasStorageServiceAutoConfiguration
     public CasStorageService casStorageService(CasStorageDriver aDriver,
             @Autowired(required = false) CasDoctor aCasDoctor,
             @Autowired(required = false) AnnotationSchemaService aSchemaService,
-            CasStorageCacheProperties aCasStorageProperties)
+            CasStorageCacheProperties aCasStorageProperties,
+            RepositoryProperties aRepositoryProperties)
     {
         return new CasStorageServiceImpl(aDriver, aCasStorageProperties, aCasDoctor,
-                aSchemaService);
+                aSchemaService, aRepositoryProperties);
     }
 
     @Bean
@@ -57,10 +65,33 @@ public class CasStorageServiceAutoConfiguration
 
     @Bean
     public CasStorageServiceSharedAccessCacheAdapter CasStorageServiceSharedAccessCacheAdapter(
-            CasStorageServiceImpl aCasStorageService,
-            CasStorageCacheProperties aCasStorageProperties)
+            CasStorageServiceImpl aCasStorageService)
     {
-        return new CasStorageServiceSharedAccessCacheAdapter(aCasStorageService,
-                aCasStorageProperties);
+        return new CasStorageServiceSharedAccessCacheAdapter(aCasStorageService);
+    }
+
+    @Bean
+    public CasStorageServiceLeasesAdapter casStorageServiceLeasesAdapter(
+            CasStorageServiceImpl aCasStorageService)
+    {
+        return new CasStorageServiceLeasesAdapter(aCasStorageService);
+    }
+
+    @ConditionalOnProperty(prefix = "cas-storage.cache", name = "write-behind-enabled", havingValue = "true", matchIfMissing = false)
+    @Bean
+    public ReplayCasJournalOnStartup replayCasJournalOnStartup(
+            CasStorageServiceImpl aCasStorageService, DocumentService aDocumentService)
+    {
+        return new ReplayCasJournalOnStartup(aCasStorageService, aDocumentService);
+    }
+
+    @ConditionalOnProperty(prefix = "cas-storage", name = "migrate-format-on-startup", havingValue = "true", matchIfMissing = false)
+    @Bean
+    public MigrateCasFormatOnStartup migrateCasFormatOnStartup(
+            CasStorageProperties aCasStorageProperties, ProjectService aProjectService,
+            SchedulingService aSchedulingService)
+    {
+        return new MigrateCasFormatOnStartup(aCasStorageProperties, aProjectService,
+                aSchedulingService);
     }
 }
@@ -34,6 +34,24 @@ public interface CasStorageDriver
 
     void writeCas(SourceDocument aDocument, String aUser, CAS aCas) throws IOException;
 
+    /**
+     * Writes the CAS and assigns the given timestamp to the stored CAS instead of the time of
+     * writing. This is used when the CAS has been saved some time before it is actually written.
+     * 
+     * @param aDocument
+     *            the document.
+     * @param aUser
+     *            the user.
+     * @param aCas
+     *            the CAS.
+     * @param aTimestamp
+     *            the timestamp of the stored CAS.
+     * @throws IOException
+     *             if the CAS could not be written.
+     */
+    void writeCas(SourceDocument aDocument, String aUser, CAS aCas, long aTimestamp)
+        throws IOException;
+
     void exportCas(SourceDocument aDocument, String aUser, OutputStream aStream) throws IOException;
 
     void importCas(SourceDocument aDocument, String aUser, InputStream aStream) throws IOException;
@@ -50,4 +68,16 @@ public interface CasStorageDriver
         throws IOException, ConcurentCasModificationException;
 
     Optional<Long> getCasFileSize(SourceDocument aDocument, String aUser) throws IOException;
+
+    /**
+     * @param aDocument
+     *            the document.
+     * @param aUser
+     *            the user.
+     * @return whether the stored CAS exists and is in a different format than the one new CASes
+     *         are written in.
+     * @throws IOException
+     *             if the stored CAS could not be inspected.
+     */
+    boolean isCasFormatOutdated(SourceDocument aDocument, String aUser) throws IOException;
 }
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed store for immutable CAS files. Every distinct content is kept once as a blob
+ * named after a SHA-256 hash of the content. Files in the repository which have the same content
+ * are hard links to the blob. The hash is either calculated over the raw bytes of a file or
+ * provided by the caller, e.g. to ignore parts of a file that do not affect its meaning.
+ * <p>
+ * The link count maintained by the file system serves as reference count: a blob that is no
+ * longer linked from anywhere in the repository has a link count of one and is removed by the
+ * {@link #collectGarbage() garbage collection}. Consequently, files managed by the store must never
+ * be modified in place - they may only be replaced or deleted.
+ * </p>
+ * <p>
+ * If the file system does not support hard links, the store is not {@link #isSupported()
+ * supported} and callers should fall back to copying files.
+ * </p>
+ */
+public class CasBlobStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+
+    private final Path root;
+    private final boolean supported;
+
+    // Linking takes the read lock, garbage collection takes the write lock. This ensures that the
+    // garbage collection does not remove a blob that is just being linked.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CasBlobStore(File aRoot)
+    {
+        root = aRoot.toPath();
+        supported = probeSupport();
+
+        if (!supported) {
+            LOG.warn("File system at [{}] does not support hard links - CAS deduplication disabled",
+                    root);
+        }
+    }
+
+    /**
+     * Schedules the {@link #collectGarbage() garbage collection} to run periodically.
+     * 
+     * @param aInterval
+     *            time between two runs.
+     */
+    public void scheduleGarbageCollection(Duration aInterval)
+    {
+        if (!supported) {
+            return;
+        }
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                collectGarbage();
+            }
+            catch (Exception e) {
+                LOG.error("CAS blob garbage collection failed", e);
+            }
+            scheduleGarbageCollection(aInterval);
+        }, CompletableFuture.delayedExecutor(aInterval.toMillis(), MILLISECONDS));
+    }
+
+    public boolean isSupported()
+    {
+        return supported;
+    }
+
+    /**
+     * Creates a link at the target location to the content of the given source file. If the
+     * content is already known, the target is linked to the existing blob. Otherwise, the source
+     * becomes the blob for its content. The source file itself is not changed.
+     * 
+     * @param aSource
+     *            the file to link to.
+     * @param aTarget
+     *            the link to create. Must not exist yet.
+     * @throws IOException
+     *             if the link could not be created.
+     */
+    public void link(File aSource, File aTarget) throws IOException
+    {
+        lock.readLock().lock();
+        try {
+            var source = aSource.toPath();
+            var blob = register(source, hash(source));
+            Files.createLink(aTarget.toPath(), blob);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the given file with a link to an existing blob with the same content hash. If there
+     * is no such blob yet, the file becomes the blob for its content.
+     * <p>
+     * <b>Note:</b> if the file is replaced, it shares the modification time of the blob. The
+     * modification time of a deduplicated file must not be changed because that would also change
+     * the modification time of all other files linked to the same blob.
+     * </p>
+     * 
+     * @param aFile
+     *            the file to deduplicate.
+     * @param aHash
+     *            the hash of the content of the file as a hex string. Files with the same hash must
+     *            be interchangeable.
+     * @return whether the file was replaced by a link to an existing blob.
+     * @throws IOException
+     *             if the file could not be deduplicated.
+     */
+    public boolean deduplicate(File aFile, String aHash) throws IOException
+    {
+        lock.readLock().lock();
+        try {
+            var file = aFile.toPath();
+            var blob = register(file, aHash);
+            if (Files.isSameFile(blob, file)) {
+                return false;
+            }
+
+            // Atomically replace the file with a link to the blob
+            var temp = file.resolveSibling(file.getFileName() + ".link");
+            Files.deleteIfExists(temp);
+            Files.createLink(temp, blob);
+            Files.move(temp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            return true;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all blobs which are no longer linked from anywhere.
+     * 
+     * @return number of removed blobs.
+     * @throws IOException
+     *             if the store could not be scanned.
+     */
+    public int collectGarbage() throws IOException
+    {
+        if (!supported || !Files.isDirectory(root)) {
+            return 0;
+        }
+
+        var start = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try (var blobs = Files.walk(root, 2)) {
+            var removed = blobs //
+                    .filter(Files::isRegularFile) //
+                    .filter(blob -> linkCount(blob) <= 1) //
+                    .mapToInt(blob -> {
+                        try {
+                            Files.delete(blob);
+                            return 1;
+                        }
+                        catch (IOException e) {
+                            LOG.warn("Unable to remove unused CAS blob [{}]", blob, e);
+                            return 0;
+                        }
+                    }) //
+                    .sum();
+
+            LOG.info("Removed {} unused CAS blobs in {}ms", removed,
+                    System.currentTimeMillis() - start);
+
+            return removed;
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of blobs in the store.
+     * @throws IOException
+     *             if the store could not be scanned.
+     */
+    public long size() throws IOException
+    {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+
+        try (var blobs = Files.walk(root, 2)) {
+            return blobs.filter(Files::isRegularFile).count();
+        }
+    }
+
+    Path getBlob(String aHash)
+    {
+        return root.resolve(aHash.substring(0, 2)).resolve(aHash);
+    }
+
+    /**
+     * @return the blob for the given content hash. If there is no blob for the hash yet, the file
+     *         is linked into the store as the blob.
+     */
+    private Path register(Path aFile, String aHash) throws IOException
+    {
+        var blob = getBlob(aHash);
+
+        if (Files.exists(blob)) {
+            return blob;
+        }
+
+        Files.createDirectories(blob.getParent());
+        try {
+            Files.createLink(blob, aFile);
+        }
+        catch (FileAlreadyExistsException e) {
+            // Somebody else registered the same content concurrently - fine
+        }
+
+        return blob;
+    }
+
+    static String hash(Path aFile) throws IOException
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (var is = new DigestInputStream(Files.newInputStream(aFile), digest)) {
+            is.transferTo(OutputStream.nullOutputStream());
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static int linkCount(Path aFile)
+    {
+        try {
+            return (Integer) Files.getAttribute(aFile, LINK_COUNT_ATTRIBUTE);
+        }
+        catch (NoSuchFileException e) {
+            return Integer.MAX_VALUE;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean probeSupport()
+    {
+        Path probe = null;
+        Path link = null;
+        try {
+            Files.createDirectories(root);
+            probe = Files.createTempFile(root, "probe", ".tmp");
+            link = probe.resolveSibling(probe.getFileName() + ".link");
+            Files.createLink(link, probe);
+            return linkCount(probe) == 2;
+        }
+        catch (IOException | UnsupportedOperationException | UncheckedIOException e) {
+            LOG.debug("Hard link probe failed", e);
+            return false;
+        }
+        finally {
+            if (link != null) {
+                FileUtils.deleteQuietly(link.toFile());
+            }
+            if (probe != null) {
+                FileUtils.deleteQuietly(probe.toFile());
+            }
+        }
+    }
+}
@@ -20,12 +20,19 @@ package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
 import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.getRealCas;
 import static java.io.ObjectInputFilter.Config.createFilter;
 import static java.lang.String.join;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparing;
+import static org.apache.uima.cas.SerialFormat.BINARY_TSI;
 import static org.apache.uima.cas.SerialFormat.XMI;
 import static org.apache.uima.cas.impl.Serialization.deserializeCASComplete;
 import static org.apache.uima.cas.impl.Serialization.serializeCASComplete;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -37,21 +44,34 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.uima.UIMAException;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.impl.CASCompleteSerializer;
 import org.apache.uima.cas.impl.CASImpl;
 import org.apache.uima.cas.impl.CASMgrSerializer;
 import org.apache.uima.cas.impl.CASSerializer;
 import org.apache.uima.util.CasIOUtils;
+import org.apache.uima.util.CasLoadMode;
 import org.apache.uima.util.TypeSystemUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xerial.snappy.SnappyFramedInputStream;
 import org.xerial.snappy.SnappyFramedOutputStream;
 
+import de.tudarmstadt.ukp.clarin.webanno.api.type.CASMetadata;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasMetadataUtils;
 import de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil;
 
 public final class CasPersistenceUtils
@@ -68,6 +88,25 @@ public final class CasPersistenceUtils
     private final static byte[] SNAPPY_MAGIC = new byte[] { (byte) 0xff, 0x06, 0x00, 0x00, 0x73,
             0x4e, 0x61, 0x50, 0x70, 0x59, };
 
+    /**
+     * Magic bytes at the start of CAS files in the {@link #writeBinaryCas binary format}. Files in
+     * the legacy format start either with the Java serialization or with the Snappy magic.
+     */
+    private final static byte[] BINARY_CAS_MAGIC = new byte[] { 'I', 'N', 'C', 'C', 'A', 'S' };
+
+    /**
+     * Version of the header and payload layout of the binary format. Increment this whenever the
+     * layout changes and keep the reading code for older versions.
+     * <ul>
+     * <li>1 - UIMA compressed binary form 6. This form does not preserve the feature structure
+     * addresses.</li>
+     * <li>2 - Snappy-compressed UIMA binary form 0.</li>
+     * </ul>
+     */
+    public final static int BINARY_CAS_FORMAT_VERSION = 2;
+
+    private final static int BINARY_CAS_FORMAT_VERSION_FORM_6 = 1;
+
     private CasPersistenceUtils()
     {
         // No instances
@@ -121,6 +160,230 @@ public final class CasPersistenceUtils
         }
     }
 
+    /**
+     * Writes the CAS in the binary format. The file starts with a small header consisting of
+     * {@link #BINARY_CAS_MAGIC magic bytes}, the {@link #BINARY_CAS_FORMAT_VERSION format version},
+     * a hash of the type system and the time of writing. The header is followed by the
+     * Snappy-compressed CAS in UIMA's binary form 0 including the type system and index
+     * definitions. This is faster to write and read than Java-serializing a
+     * {@link CASCompleteSerializer}. Like the Java serialization, form 0 preserves the feature
+     * structure addresses which are used e.g. by the UI to identify annotations. The more compact
+     * compressed forms renumber the feature structures when they are read.
+     * 
+     * @param aCas
+     *            the CAS to write.
+     * @param aFile
+     *            the target file.
+     * @param aParanoid
+     *            whether to check that the serialized CAS can be read again before overwriting the
+     *            target file.
+     * @throws IOException
+     *             if the CAS could not be written.
+     */
+    public static void writeBinaryCas(CAS aCas, File aFile, boolean aParanoid) throws IOException
+    {
+        FileUtils.forceMkdir(aFile.getParentFile());
+
+        var realCas = (CASImpl) getRealCas(aCas);
+        // UIMA-6162 Workaround: synchronize CAS during de/serialization
+        synchronized (realCas.getBaseCAS()) {
+            if (!aParanoid) {
+                try (var os = new BufferedOutputStream(new FileOutputStream(aFile))) {
+                    writeBinary(os, realCas);
+                }
+                return;
+            }
+
+            var bos = new ByteArrayOutputStream();
+            try {
+                writeBinary(bos, realCas);
+
+                // BEGIN SAFEGUARD --------------
+                // Safeguard that we do NOT write a CAS which can afterwards not be read and thus
+                // would render the document broken within the project
+                var dummy = getRealCas(WebAnnoCasUtil.createCas());
+                readBinary(dummy, new BufferedInputStream(
+                        new ByteArrayInputStream(bos.toByteArray())));
+                // END SAFEGUARD --------------
+            }
+            catch (Exception e) {
+                if (LOG.isDebugEnabled()) {
+                    preserveForDebugging(aFile, aCas, null);
+                }
+                throw new IOException(e);
+            }
+
+            try (var os = new FileOutputStream(aFile)) {
+                bos.writeTo(os);
+            }
+        }
+    }
+
+    private static void writeBinary(OutputStream aOut, CASImpl aCas) throws IOException
+    {
+        var header = new DataOutputStream(aOut);
+        header.write(BINARY_CAS_MAGIC);
+        header.writeShort(BINARY_CAS_FORMAT_VERSION);
+        header.writeUTF(typeSystemHash(aCas.getTypeSystem()));
+        header.writeLong(System.currentTimeMillis());
+        header.flush();
+
+        var os = new SnappyFramedOutputStream(aOut);
+        CasIOUtils.save(aCas, os, BINARY_TSI);
+        // Do not close the stream here - the caller owns the underlying stream
+        os.flush();
+    }
+
+    private static void readBinary(CAS aCas, BufferedInputStream aIn) throws IOException
+    {
+        var header = readBinaryHeader(aIn) //
+                .orElseThrow(() -> new IOException("Not a binary CAS file"));
+
+        if (header.version() > BINARY_CAS_FORMAT_VERSION) {
+            throw new IOException("Binary CAS format version [" + header.version()
+                    + "] is newer than the latest supported version ["
+                    + BINARY_CAS_FORMAT_VERSION + "]");
+        }
+
+        // The type system and index definitions are embedded in the data, so the CAS is fully
+        // re-initialized from it
+        if (header.version() == BINARY_CAS_FORMAT_VERSION_FORM_6) {
+            CasIOUtils.load(aIn, null, aCas, CasLoadMode.REINIT);
+        }
+        else {
+            CasIOUtils.load(new SnappyFramedInputStream(aIn), null, aCas, CasLoadMode.REINIT);
+        }
+
+        removeSpuriousDocumentAnnotations(aCas);
+    }
+
+    /**
+     * @param aFile
+     *            a CAS file.
+     * @return the header of the file if it is in the binary format or nothing if the file is in the
+     *         legacy format.
+     * @throws IOException
+     *             if the file could not be read.
+     */
+    public static Optional<BinaryCasHeader> readBinaryCasHeader(File aFile) throws IOException
+    {
+        try (var bis = new BufferedInputStream(new FileInputStream(aFile))) {
+            return readBinaryHeader(bis);
+        }
+    }
+
+    private static Optional<BinaryCasHeader> readBinaryHeader(BufferedInputStream aIn)
+        throws IOException
+    {
+        if (!isBinaryCasStream(aIn)) {
+            return Optional.empty();
+        }
+
+        var in = new DataInputStream(aIn);
+        in.skipNBytes(BINARY_CAS_MAGIC.length);
+        var version = in.readUnsignedShort();
+        var typeSystemHash = in.readUTF();
+        var timestamp = in.readLong();
+        return Optional.of(new BinaryCasHeader(version, typeSystemHash, timestamp));
+    }
+
+    public static boolean isBinaryCasFile(File aFile) throws IOException
+    {
+        try (var bis = new BufferedInputStream(new FileInputStream(aFile))) {
+            return isBinaryCasStream(bis);
+        }
+    }
+
+    private static boolean isBinaryCasStream(BufferedInputStream aIn) throws IOException
+    {
+        var buf = new byte[BINARY_CAS_MAGIC.length];
+        aIn.mark(buf.length);
+        var bytesRead = aIn.readNBytes(buf, 0, buf.length);
+        aIn.reset();
+
+        return bytesRead == BINARY_CAS_MAGIC.length && Arrays.equals(buf, BINARY_CAS_MAGIC);
+    }
+
+    /**
+     * Calculates a hash over the names, supertypes and features of all types in the given type
+     * system. Two type systems with the same hash are considered to be equivalent.
+     * 
+     * @param aTypeSystem
+     *            a type system.
+     * @return the hash as a hex string.
+     */
+    public static String typeSystemHash(TypeSystem aTypeSystem)
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        var types = new ArrayList<Type>();
+        aTypeSystem.getTypeIterator().forEachRemaining(types::add);
+        types.sort(comparing(Type::getName));
+
+        for (var type : types) {
+            digest.update(type.getName().getBytes(UTF_8));
+            var parent = aTypeSystem.getParent(type);
+            if (parent != null) {
+                digest.update(parent.getName().getBytes(UTF_8));
+            }
+
+            var features = new ArrayList<>(type.getFeatures());
+            features.sort(comparing(f -> f.getShortName()));
+            for (var feature : features) {
+                digest.update(feature.getShortName().getBytes(UTF_8));
+                digest.update(feature.getRange().getName().getBytes(UTF_8));
+            }
+            digest.update((byte) 0);
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Calculates a hash over the content of the given CAS file. The hash does not depend on the
+     * format the file has been written in and it ignores the {@link CASMetadata} which is updated
+     * whenever the file is written. Two files with the same hash can be used interchangeably.
+     * 
+     * @param aFile
+     *            a CAS file.
+     * @return the hash as a hex string.
+     * @throws IOException
+     *             if the file could not be read.
+     */
+    public static String contentHash(File aFile) throws IOException
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        CAS cas;
+        try {
+            cas = WebAnnoCasUtil.createCas();
+        }
+        catch (UIMAException e) {
+            throw new IOException("Unable to create empty CAS", e);
+        }
+
+        readSerializedCas(cas, aFile);
+        CasMetadataUtils.clearCasMetadata(cas);
+
+        try (var os = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            write(os, cas);
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
     public static byte[] writeToByteArray(CAS aCas) throws IOException
     {
         try (var bos = new ByteArrayOutputStream()) {
@@ -181,6 +444,10 @@ public final class CasPersistenceUtils
             LOG.error("Debug type system serialization failed: {}", ex.getMessage(), ex);
         }
 
+        if (aSerializer == null) {
+            return;
+        }
+
         try (var os = new ObjectOutputStream(
                 new FileOutputStream(new File(aFile.getPath() + ".borked-" + ts + ".ser")))) {
             os.writeObject(aSerializer);
@@ -196,7 +463,14 @@ public final class CasPersistenceUtils
         // UIMA-6162 Workaround: synchronize CAS during de/serialization
         synchronized (((CASImpl) realCas).getBaseCAS()) {
             try (var bis = new BufferedInputStream(new FileInputStream(aFile))) {
-                readSerializedCas(realCas, maybeUncompress(bis));
+                // Old and new formats can exist side by side - files are only converted to the
+                // binary format when they are written again
+                if (isBinaryCasStream(bis)) {
+                    readBinary(realCas, bis);
+                }
+                else {
+                    readSerializedCas(realCas, maybeUncompress(bis));
+                }
             }
         }
     }
@@ -208,21 +482,26 @@ public final class CasPersistenceUtils
             var serializer = (CASCompleteSerializer) ois.readObject();
             deserializeCASComplete(serializer, (CASImpl) aCas);
 
-            // Workaround for UIMA adding back deleted DocumentAnnotations
-            // https://issues.apache.org/jira/browse/UIMA-6199
-            // If there is a DocumentMetaData annotation, then we can drop any of the default UIMA
-            // DocumentAnnotation instances (excluding the DocumentMetaData of course)
-            if (!aCas.select(DocumentMetaData.class.getName()).isEmpty()) {
-                aCas.select(CAS.TYPE_NAME_DOCUMENT_ANNOTATION).filter(
-                        fs -> !DocumentMetaData.class.getName().equals(fs.getType().getName()))
-                        .forEach(aCas::removeFsFromIndexes);
-            }
+            removeSpuriousDocumentAnnotations(aCas);
         }
         catch (ClassNotFoundException e) {
             throw new IOException(e);
         }
     }
 
+    private static void removeSpuriousDocumentAnnotations(CAS aCas)
+    {
+        // Workaround for UIMA adding back deleted DocumentAnnotations
+        // https://issues.apache.org/jira/browse/UIMA-6199
+        // If there is a DocumentMetaData annotation, then we can drop any of the default UIMA
+        // DocumentAnnotation instances (excluding the DocumentMetaData of course)
+        if (!aCas.select(DocumentMetaData.class.getName()).isEmpty()) {
+            aCas.select(CAS.TYPE_NAME_DOCUMENT_ANNOTATION).filter(
+                    fs -> !DocumentMetaData.class.getName().equals(fs.getType().getName()))
+                    .forEach(aCas::removeFsFromIndexes);
+        }
+    }
+
     private static InputStream maybeUncompress(BufferedInputStream bis) throws IOException
     {
         byte[] buf = new byte[32];
@@ -251,4 +530,7 @@ public final class CasPersistenceUtils
 
         return true;
     }
+
+    public record BinaryCasHeader(int version, String typeSystemHash, long timestamp)
+    {}
 }
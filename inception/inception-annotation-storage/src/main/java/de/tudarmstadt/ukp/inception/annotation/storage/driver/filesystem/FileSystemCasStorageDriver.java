@@ -17,9 +17,11 @@
  */
 package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
 
+import static de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageFormat.BINARY;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.ANNOTATION_FOLDER;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.DOCUMENT_FOLDER;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.INITIAL_CAS_PSEUDO_USER;
 import static de.tudarmstadt.ukp.inception.support.logging.BaseLoggers.BOOT_LOG;
 import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.setDocumentId;
 import static java.lang.System.currentTimeMillis;
@@ -38,10 +40,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.regex.Matcher;
 
 import org.apache.commons.io.FileUtils;
@@ -73,6 +77,9 @@ public class FileSystemCasStorageDriver
 {
     public static final String SER_CAS_EXTENSION = ".ser";
     public static final String OLD_EXTENSION = ".old";
+    public static final String BLOB_FOLDER = "cas-blobs";
+
+    private static final Duration BLOB_GC_INTERVAL = Duration.ofHours(1);
 
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -80,6 +87,7 @@ public class FileSystemCasStorageDriver
     private final CasStorageProperties casStorageProperties;
     private final CasStorageBackupProperties backupProperties;
     private final LoadingCache<File, InternalMetadata> metadataCache;
+    private final CasBlobStore blobStore;
 
     public FileSystemCasStorageDriver(RepositoryProperties aRepositoryProperties,
             CasStorageBackupProperties aBackupProperties,
@@ -106,6 +114,22 @@ public class FileSystemCasStorageDriver
         else {
             BOOT_LOG.info("CAS backups disabled");
         }
+
+        BOOT_LOG.info("CAS storage format: {}", casStorageProperties.getFormat());
+
+        if (casStorageProperties.isDeduplication()) {
+            var store = new CasBlobStore(
+                    new File(repositoryProperties.getPath(), "/" + BLOB_FOLDER));
+            blobStore = store.isSupported() ? store : null;
+        }
+        else {
+            blobStore = null;
+        }
+
+        if (blobStore != null) {
+            blobStore.scheduleGarbageCollection(BLOB_GC_INTERVAL);
+            BOOT_LOG.info("CAS deduplication enabled");
+        }
     }
 
     @Override
@@ -166,6 +190,20 @@ public class FileSystemCasStorageDriver
 
     @Override
     public void writeCas(SourceDocument aDocument, String aUserName, CAS aCas) throws IOException
+    {
+        writeCas(aDocument, aUserName, aCas, OptionalLong.empty());
+    }
+
+    @Override
+    public void writeCas(SourceDocument aDocument, String aUserName, CAS aCas, long aTimestamp)
+        throws IOException
+    {
+        writeCas(aDocument, aUserName, aCas, OptionalLong.of(aTimestamp));
+    }
+
+    private void writeCas(SourceDocument aDocument, String aUserName, CAS aCas,
+            OptionalLong aTimestamp)
+        throws IOException
     {
         var t0 = currentTimeMillis();
 
@@ -194,7 +232,11 @@ public class FileSystemCasStorageDriver
 
             // Now write the new version to "<username>.ser" or CURATION_USER.ser
             setDocumentId(aCas, aUserName);
-            if (casStorageProperties.isParanoidCasSerialization()) {
+            if (casStorageProperties.getFormat() == BINARY) {
+                CasPersistenceUtils.writeBinaryCas(aCas, currentVersion,
+                        casStorageProperties.isParanoidCasSerialization());
+            }
+            else if (casStorageProperties.isParanoidCasSerialization()) {
                 CasPersistenceUtils.writeSerializedCasParanoid(aCas, currentVersion);
             }
             else if (casStorageProperties.isCompressedCasSerialization()) {
@@ -230,7 +272,7 @@ public class FileSystemCasStorageDriver
         }
 
         if (oldVersion.exists() && (currentVersion.length() < (oldVersion.length()
-                * (casStorageProperties.isCompressedCasSerialization() ? 0.95d : 1.0d)))) {
+                * (isCompressed() ? 0.95d : 1.0d)))) {
             // If compression is enabled, then it is not so uncommon that the file size may also
             // become smaller at times, so we allow a bit of slip
             LOG.debug(
@@ -245,6 +287,19 @@ public class FileSystemCasStorageDriver
             FileUtils.forceDelete(oldVersion);
         }
 
+        if (aTimestamp.isPresent()) {
+            // A deduplicated file shares its timestamp with all other files linked to the same
+            // blob, so we cannot deduplicate a file which needs to have a specific timestamp
+            Files.setLastModifiedTime(currentVersion.toPath(),
+                    FileTime.fromMillis(aTimestamp.getAsLong()));
+        }
+        else if (INITIAL_CAS_PSEUDO_USER.equals(aUserName)) {
+            // Initial CASes are never modified by users, so they are good candidates for sharing
+            // storage e.g. between projects using the same documents. This must happen before we
+            // obtain the timestamp, because deduplicated files share the timestamp of the blob.
+            deduplicate(currentVersion);
+        }
+
         // Update the timestamp in the CAS in case we attempt to save it a second time. This
         // happens for example in an annotation replacement operation (change layer of existing
         // annotation) which is implemented as a delete/create operation with an intermediate
@@ -261,10 +316,10 @@ public class FileSystemCasStorageDriver
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("Updated annotations for user [{}] on document {} in project {} " //
-                    + "{} bytes in {}ms (file timestamp: {}, compression: {})", aUserName,
-                    aDocument, aDocument.getProject(), currentVersion.length(), duration,
-                    formatTimestamp(lastModified),
-                    casStorageProperties.isCompressedCasSerialization());
+                    + "{} bytes in {}ms (file timestamp: {}, format: {}, compression: {})",
+                    aUserName, aDocument, aDocument.getProject(), currentVersion.length(),
+                    duration, formatTimestamp(lastModified), casStorageProperties.getFormat(),
+                    isCompressed());
         }
 
         WicketUtil.serverTiming("realWriteCas", duration);
@@ -327,14 +382,14 @@ public class FileSystemCasStorageDriver
         if (history.length == 0) {
             // If there is no history yet but we should keep history, then we create a
             // history file in any case.
-            FileUtils.copyFile(aCurrentVersion, historyFile);
+            backup(aCurrentVersion, historyFile);
             historyFileCreated = true;
         }
         else {
             // Check if the newest history file is significantly older than the current one
             var latestHistory = history[history.length - 1];
             if (latestHistory.lastModified() + (backupProperties.getInterval() * 1000) < now) {
-                FileUtils.copyFile(aCurrentVersion, historyFile);
+                backup(aCurrentVersion, historyFile);
                 historyFileCreated = true;
             }
         }
@@ -385,6 +440,39 @@ public class FileSystemCasStorageDriver
         }
     }
 
+    private void backup(File aCurrentVersion, File aHistoryFile) throws IOException
+    {
+        if (blobStore != null) {
+            try {
+                blobStore.link(aCurrentVersion, aHistoryFile);
+                return;
+            }
+            catch (IOException e) {
+                LOG.warn("Unable to link history file [{}] - copying instead", aHistoryFile, e);
+            }
+        }
+
+        FileUtils.copyFile(aCurrentVersion, aHistoryFile);
+    }
+
+    private void deduplicate(File aFile)
+    {
+        if (blobStore == null) {
+            return;
+        }
+
+        try {
+            // The content hash ignores the CAS metadata and the file format, otherwise the
+            // write timestamps contained in the file would make every file unique
+            if (blobStore.deduplicate(aFile, CasPersistenceUtils.contentHash(aFile))) {
+                LOG.debug("Deduplicated [{}]", aFile);
+            }
+        }
+        catch (IOException e) {
+            LOG.warn("Unable to deduplicate [{}]", aFile, e);
+        }
+    }
+
     // Public for testing
     public File getCasFile(SourceDocument aDocument, String aUser) throws IOException
     {
@@ -413,9 +501,19 @@ public class FileSystemCasStorageDriver
         Validate.notNull(aDocument, "Source document must be specified");
         Validate.notBlank(aUser, "User must be specified");
 
-        try (var os = Files.newOutputStream(getCasFile(aDocument, aUser).toPath())) {
+        var casFile = getCasFile(aDocument, aUser);
+
+        // The file may be linked to other files with the same content, so we must not overwrite
+        // it in place
+        Files.deleteIfExists(casFile.toPath());
+
+        try (var os = Files.newOutputStream(casFile.toPath())) {
             IOUtils.copyLarge(aStream, os);
         }
+
+        if (INITIAL_CAS_PSEUDO_USER.equals(aUser)) {
+            deduplicate(casFile);
+        }
     }
 
     public File getCasFile(long aProjectId, long aDocumentId, String aUser) throws IOException
@@ -452,6 +550,25 @@ public class FileSystemCasStorageDriver
         return Optional.empty();
     }
 
+    @Override
+    public boolean isCasFormatOutdated(SourceDocument aDocument, String aUser) throws IOException
+    {
+        var file = getCasFile(aDocument, aUser);
+        if (!file.exists()) {
+            return false;
+        }
+
+        var binary = CasPersistenceUtils.isBinaryCasFile(file);
+        return binary != (casStorageProperties.getFormat() == BINARY);
+    }
+
+    private boolean isCompressed()
+    {
+        // The binary format is always compressed
+        return casStorageProperties.getFormat() == BINARY
+                || casStorageProperties.isCompressedCasSerialization();
+    }
+
     @Override
     public Optional<CasStorageMetadata> getCasMetadata(SourceDocument aDocument, String aUser)
         throws IOException
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.tasks;
+
+import java.lang.invoke.MethodHandles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageProperties;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
+
+/**
+ * Schedules a {@link MigrateCasFormatTask} for every project once the application has started.
+ * <p>
+ * This class is exposed as a Spring Component via {@link CasStorageServiceAutoConfiguration} if
+ * {@code cas-storage.migrate-format-on-startup} is enabled.
+ * </p>
+ */
+public class MigrateCasFormatOnStartup
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final CasStorageProperties casStorageProperties;
+    private final ProjectService projectService;
+    private final SchedulingService schedulingService;
+
+    public MigrateCasFormatOnStartup(CasStorageProperties aCasStorageProperties,
+            ProjectService aProjectService, SchedulingService aSchedulingService)
+    {
+        casStorageProperties = aCasStorageProperties;
+        projectService = aProjectService;
+        schedulingService = aSchedulingService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady()
+    {
+        var projects = projectService.listProjects();
+
+        LOG.info("Scheduling migration of CASes in {} projects to format {}", projects.size(),
+                casStorageProperties.getFormat());
+
+        for (var project : projects) {
+            schedulingService.enqueue(MigrateCasFormatTask.builder() //
+                    .withProject(project) //
+                    .withTrigger("Startup") //
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.tasks;
+
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.DISCARD_OR_QUEUE_THIS;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.NO_MATCH;
+import static de.tudarmstadt.ukp.inception.scheduling.TaskScope.PROJECT;
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.CURATION_USER;
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.INITIAL_CAS_PSEUDO_USER;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.scheduling.MatchResult;
+import de.tudarmstadt.ukp.inception.scheduling.MatchableTask;
+import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.scheduling.TaskState;
+import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
+
+/**
+ * Converts all CASes of a project which are not yet stored in the configured format. CASes that
+ * are already in the right format are skipped, so the task can safely be run repeatedly.
+ */
+public class MigrateCasFormatTask
+    extends Task
+    implements MatchableTask
+{
+    public static final String TYPE = "MigrateCasFormatTask";
+
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private @Autowired DocumentService documentService;
+    private @Autowired CasStorageService casStorageService;
+
+    public MigrateCasFormatTask(Builder<? extends Builder<?>> aBuilder)
+    {
+        super(aBuilder.withType(TYPE).withScope(PROJECT));
+    }
+
+    @Override
+    public String getTitle()
+    {
+        return "Migrating annotation storage format...";
+    }
+
+    @Override
+    public void execute()
+    {
+        var monitor = getMonitor();
+        var project = getProject();
+
+        var docs = documentService.listSourceDocuments(project);
+
+        monitor.setProgressWithMessage(0, docs.size(),
+                LogMessage.info(this, "Migrating %d documents", docs.size()));
+
+        var processed = 0;
+        var migrated = 0;
+        var failed = 0;
+        for (var doc : docs) {
+            if (monitor.isCancelled()) {
+                monitor.setState(TaskState.CANCELLED);
+                return;
+            }
+
+            var users = new LinkedHashSet<String>();
+            users.add(INITIAL_CAS_PSEUDO_USER);
+            users.add(CURATION_USER);
+            documentService.listAllAnnotationDocuments(doc).stream() //
+                    .map(AnnotationDocument::getUser) //
+                    .forEach(users::add);
+
+            for (var user : new ArrayList<>(users)) {
+                try (var session = CasStorageSession.open()) {
+                    if (casStorageService.migrateCasFormat(doc, user)) {
+                        migrated++;
+                    }
+                }
+                catch (IOException e) {
+                    failed++;
+                    LOG.error("Unable to migrate CAS of user [{}] for document {} in project {}",
+                            user, doc, project, e);
+                    monitor.addMessage(LogMessage.error(this, "%s [%s]: %s", doc.getName(), user,
+                            ExceptionUtils.getRootCauseMessage(e)));
+                }
+            }
+
+            processed++;
+            monitor.setProgressWithMessage(processed, docs.size(), LogMessage.info(this,
+                    "%d of %d documents processed", processed, docs.size()));
+        }
+
+        LOG.info("Migrated {} CASes in project {} ({} failed)", migrated, project, failed);
+
+        monitor.addMessage(LogMessage.info(this, "%d CASes migrated", migrated));
+        if (failed > 0) {
+            monitor.setState(TaskState.FAILED);
+        }
+    }
+
+    @Override
+    public MatchResult matches(Task aTask)
+    {
+        // A migration which has not started yet will pick up all CASes anyway
+        if (aTask instanceof MigrateCasFormatTask) {
+            if (Objects.equals(aTask.getProject().getId(), getProject().getId())) {
+                return DISCARD_OR_QUEUE_THIS;
+            }
+        }
+
+        return NO_MATCH;
+    }
+
+    public static Builder<Builder<?>> builder()
+    {
+        return new Builder<>();
+    }
+
+    public static class Builder<T extends Builder<?>>
+        extends Task.Builder<T>
+    {
+        protected Builder()
+        {
+            withCancellable(true);
+        }
+
+        public MigrateCasFormatTask build()
+        {
+            return new MigrateCasFormatTask(this);
+        }
+    }
+}
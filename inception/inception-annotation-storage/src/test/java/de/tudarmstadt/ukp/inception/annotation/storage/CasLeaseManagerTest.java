@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import org.apache.uima.cas.CAS;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasSessionException;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasLeaseManager.LeaseMode;
+
+class CasLeaseManagerTest
+{
+    private CasLeaseManager sut;
+    private CasKey key;
+
+    @BeforeEach
+    void setup()
+    {
+        sut = new CasLeaseManager(Duration.ofMillis(200), Duration.ZERO, Duration.ofMinutes(1));
+        key = new CasKey(1, 1, "user");
+    }
+
+    @Test
+    void thatSharedLeasesCanBeHeldConcurrently() throws Exception
+    {
+        try (var lease1 = sut.borrowShared(key)) {
+            var executor = Executors.newSingleThreadExecutor();
+            try {
+                var lease2 = executor.submit(() -> sut.borrowShared(key)).get(5, SECONDS);
+                assertThat(sut.getLeases()) //
+                        .extracting(CasLeaseManager.CasLeaseInfo::getMode) //
+                        .containsExactly(LeaseMode.SHARED, LeaseMode.SHARED);
+                lease2.close();
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+
+        assertThat(sut.getLeases()).isEmpty();
+        assertThat(sut.size()).isZero();
+    }
+
+    @Test
+    void thatExclusiveLeaseExcludesOtherThreads() throws Exception
+    {
+        var holder = sut.borrowExclusive(key);
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var shared = executor.submit(() -> sut.borrowShared(key));
+            assertThat(shared).failsWithin(5, SECONDS) //
+                    .withThrowableOfType(Exception.class) //
+                    .withRootCauseInstanceOf(CasSessionException.class) //
+                    .withMessageContaining("held by thread [" + Thread.currentThread().getName());
+
+            var released = new CountDownLatch(1);
+            var exclusive = executor.submit(() -> {
+                released.await();
+                var h = sut.borrowExclusive(key);
+                sut.returnExclusive(key, h);
+                return h;
+            });
+
+            sut.returnExclusive(key, holder);
+            released.countDown();
+            assertThat(exclusive.get(5, SECONDS)).isNotNull();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void thatConflictingLeaseInSameThreadFailsImmediately()
+    {
+        var holder = sut.borrowExclusive(key);
+        try {
+            assertThatExceptionOfType(CasSessionException.class) //
+                    .isThrownBy(() -> sut.borrowExclusive(key)) //
+                    .withMessageContaining("current thread already holds");
+            assertThatExceptionOfType(CasSessionException.class) //
+                    .isThrownBy(() -> sut.borrowShared(key)) //
+                    .withMessageContaining("current thread already holds");
+        }
+        finally {
+            sut.returnExclusive(key, holder);
+        }
+    }
+
+    @Test
+    void thatLoadedCasIsKeptUntilIdleTimeExpires()
+    {
+        var holder = sut.borrowExclusive(key);
+        holder.setCas(mock(CAS.class));
+        sut.returnExclusive(key, holder);
+
+        assertThat(sut.getNumIdle()).isEqualTo(1);
+        assertThat(sut.borrowExclusive(key)).isSameAs(holder);
+        sut.returnExclusive(key, holder);
+
+        sut.cleanup();
+
+        assertThat(sut.size()).isZero();
+        assertThat(sut.borrowExclusive(key)).isNotSameAs(holder);
+    }
+
+    @Test
+    void thatOutdatedHolderIsReplaced()
+    {
+        var holder = sut.borrowExclusive(key);
+        holder.setCas(mock(CAS.class));
+        sut.returnExclusive(key, holder);
+
+        sut.forEachHolder(h -> h.setTypeSystemOutdated(true));
+
+        assertThat(sut.borrowExclusive(key)).isNotSameAs(holder);
+    }
+}
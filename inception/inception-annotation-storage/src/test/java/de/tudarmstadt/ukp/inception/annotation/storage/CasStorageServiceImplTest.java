@@ -28,6 +28,7 @@ import static de.tudarmstadt.ukp.inception.annotation.storage.CasMetadataUtils.g
 import static de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession.openNested;
 import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.INITIAL_CAS_PSEUDO_USER;
 import static java.lang.Thread.sleep;
+import static java.nio.file.StandardOpenOption.APPEND;
 import static java.util.Arrays.asList;
 import static org.apache.commons.lang3.StringUtils.repeat;
 import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTypeSystemDescription;
@@ -35,11 +36,22 @@ import static org.apache.uima.fit.util.JCasUtil.select;
 import static org.apache.uima.util.CasCreationUtils.mergeTypeSystems;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -66,7 +78,10 @@ import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageBackupProperties;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageCachePropertiesImpl;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageFormat;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStoragePropertiesImpl;
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasBlobStore;
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasPersistenceUtils;
 import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.FileSystemCasStorageDriver;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryPropertiesImpl;
@@ -168,6 +183,373 @@ public class CasStorageServiceImplTest
         }
     }
 
+    @Test
+    public void testMigrateCasFormat() throws Exception
+    {
+        var doc = makeSourceDocument(5l, 5l, "test");
+        var user = "test";
+        var text = "This is a test";
+
+        // Write a CAS in the legacy format
+        var legacyProperties = new CasStoragePropertiesImpl();
+        legacyProperties.setFormat(CasStorageFormat.SERIALIZED);
+        driver = new FileSystemCasStorageDriver(repositoryProperties,
+                new CasStorageBackupProperties(), legacyProperties);
+        sut = new CasStorageServiceImpl(driver, new CasStorageCachePropertiesImpl(), null, null);
+        try (var session = openNested(true)) {
+            createCasFile(doc, user, text);
+        }
+        assertThat(CasPersistenceUtils.isBinaryCasFile(driver.getCasFile(doc, user))).isFalse();
+
+        // Pretend the file has been written a while ago so we notice if migrating touches it
+        var timestamp = System.currentTimeMillis() - Duration.ofHours(1).toMillis();
+        assertThat(driver.getCasFile(doc, user).setLastModified(timestamp)).isTrue();
+        timestamp = driver.getCasFile(doc, user).lastModified();
+
+        // Switch to the binary format and migrate
+        var binaryProperties = new CasStoragePropertiesImpl();
+        binaryProperties.setFormat(CasStorageFormat.BINARY);
+        driver = new FileSystemCasStorageDriver(repositoryProperties,
+                new CasStorageBackupProperties(), binaryProperties);
+        sut = new CasStorageServiceImpl(driver, new CasStorageCachePropertiesImpl(), null, null);
+        try (var session = openNested(true)) {
+            assertThat(sut.migrateCasFormat(doc, user)).isTrue();
+            assertThat(sut.migrateCasFormat(doc, user)).isFalse();
+        }
+        assertThat(CasPersistenceUtils.isBinaryCasFile(driver.getCasFile(doc, user))).isTrue();
+
+        // Editors which have the CAS open must not see the migration as a concurrent modification
+        assertThat(driver.getCasFile(doc, user).lastModified()).isEqualTo(timestamp);
+
+        try (var session = openNested(true)) {
+            assertThat(sut.readCas(doc, user).getDocumentText()).isEqualTo(text);
+        }
+    }
+
+    @Test
+    public void testInitialCasDeduplication() throws Exception
+    {
+        assumeTrue(new CasBlobStore(new File(testFolder, "probe")).isSupported(),
+                "File system does not support hard links");
+
+        var properties = new CasStoragePropertiesImpl();
+        properties.setFormat(CasStorageFormat.BINARY);
+        properties.setDeduplication(true);
+        driver = new FileSystemCasStorageDriver(repositoryProperties,
+                new CasStorageBackupProperties(), properties);
+
+        var doc1 = makeSourceDocument(10l, 10l, "test");
+        var doc2 = makeSourceDocument(11l, 11l, "test");
+        var doc3 = makeSourceDocument(12l, 12l, "test");
+        var text = "This is a test";
+
+        // Writing the CAS a second time stores the CAS metadata of the first write in the file
+        var cas1 = createInitialCas(text);
+        driver.writeCas(doc1, INITIAL_CAS_PSEUDO_USER, cas1);
+        sleep(10);
+        driver.writeCas(doc1, INITIAL_CAS_PSEUDO_USER, cas1);
+
+        // The CAS metadata and the write timestamp in the header of the binary format differ,
+        // but the content is the same
+        var cas2 = createInitialCas(text);
+        driver.writeCas(doc2, INITIAL_CAS_PSEUDO_USER, cas2);
+        assertThat(Files.isSameFile(driver.getCasFile(doc1, INITIAL_CAS_PSEUDO_USER).toPath(),
+                driver.getCasFile(doc2, INITIAL_CAS_PSEUDO_USER).toPath())).isTrue();
+
+        // A file with an explicit timestamp is not linked because the timestamp would otherwise
+        // change the timestamp of all linked files
+        var timestamp = driver.getCasFile(doc1, INITIAL_CAS_PSEUDO_USER).lastModified() - 60_000;
+        var cas3 = createInitialCas(text);
+        driver.writeCas(doc3, INITIAL_CAS_PSEUDO_USER, cas3, timestamp);
+        var casFile3 = driver.getCasFile(doc3, INITIAL_CAS_PSEUDO_USER);
+        assertThat(Files.isSameFile(driver.getCasFile(doc1, INITIAL_CAS_PSEUDO_USER).toPath(),
+                casFile3.toPath())).isFalse();
+        assertThat(casFile3.lastModified()).isEqualTo(timestamp);
+        assertThat(driver.getCasFile(doc1, INITIAL_CAS_PSEUDO_USER).lastModified())
+                .isNotEqualTo(timestamp);
+
+        // A different content is not linked
+        driver.writeCas(makeSourceDocument(13l, 13l, "test"), INITIAL_CAS_PSEUDO_USER,
+                createInitialCas("Another test"));
+        assertThat(Files.isSameFile(driver.getCasFile(doc1, INITIAL_CAS_PSEUDO_USER).toPath(),
+                driver.getCasFile(13l, 13l, INITIAL_CAS_PSEUDO_USER).toPath())).isFalse();
+    }
+
+    private CAS createInitialCas(String aText) throws Exception
+    {
+        var cas = WebAnnoCasUtil.createCas(
+                mergeTypeSystems(asList(createTypeSystemDescription(), getInternalTypeSystem())));
+        cas.setDocumentText(aText);
+        return cas;
+    }
+
+    @Test
+    public void testWriteBehind() throws Exception
+    {
+        var doc = makeSourceDocument(6l, 6l, "test");
+        var user = "test";
+
+        var cacheProperties = new CasStorageCachePropertiesImpl();
+        cacheProperties.setWriteBehindEnabled(true);
+        cacheProperties.setWriteBehindDelay(Duration.ofHours(1));
+        cacheProperties.setWriteBehindMaxDelay(Duration.ofHours(1));
+        sut = new CasStorageServiceImpl(driver, cacheProperties, null, null,
+                repositoryProperties);
+
+        var journalFolder = new File(repositoryProperties.getPath(),
+                CasStorageServiceImpl.JOURNAL_FOLDER);
+
+        long diskTimestamp;
+        long savedTimestamp;
+        int annotationCount;
+        try (var session = openNested(true)) {
+            var cas = createCasFile(doc, user, "This is a test").getCas();
+            diskTimestamp = sut.getCasTimestamp(doc, user).get();
+
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 0, 4));
+            annotationCount = cas.getAnnotationIndex().size();
+            sut.writeCas(doc, cas, user);
+            savedTimestamp = sut.getCasTimestamp(doc, user).get();
+
+            // The CAS has only been queued, not written
+            assertThat(savedTimestamp).isGreaterThan(diskTimestamp);
+            assertThat(sut.getPendingWriteCount()).isEqualTo(1);
+            assertThat(driver.getCasMetadata(doc, user).get().getTimestamp())
+                    .isEqualTo(diskTimestamp);
+            assertThat(sut.verifyCasTimestamp(doc, user, savedTimestamp, "test"))
+                    .contains(savedTimestamp);
+
+            // The CAS is recorded in the journal in the background once the session releases it
+            assertThat(journalFolder.list()).isEmpty();
+        }
+
+        sut.awaitWriteBehindJournal();
+        assertThat(journalFolder.list()).hasSize(1);
+
+        // Simulate a restart without the pending write having been done
+        sut = new CasStorageServiceImpl(driver, cacheProperties, null, null,
+                repositoryProperties);
+        assertThat(sut.replayWriteBehindJournal((projectId, documentId) -> doc)).isEqualTo(1);
+        assertThat(journalFolder.list()).isEmpty();
+        assertThat(driver.getCasMetadata(doc, user).get().getTimestamp())
+                .isEqualTo(savedTimestamp);
+
+        try (var session = openNested(true)) {
+            var cas = sut.readCas(doc, user, UNMANAGED_ACCESS);
+            assertThat(cas.getAnnotationIndex().size()).isEqualTo(annotationCount);
+        }
+    }
+
+    @Test
+    public void testWriteBehindJournalCoalescesSaves() throws Exception
+    {
+        var doc1 = makeSourceDocument(14l, 14l, "test");
+        var doc2 = makeSourceDocument(14l, 15l, "test");
+        var user = "test";
+
+        var cacheProperties = new CasStorageCachePropertiesImpl();
+        cacheProperties.setWriteBehindEnabled(true);
+        cacheProperties.setWriteBehindDelay(Duration.ofHours(1));
+        cacheProperties.setWriteBehindMaxDelay(Duration.ofHours(1));
+        sut = new CasStorageServiceImpl(driver, cacheProperties, null, null,
+                repositoryProperties);
+
+        var journalFolder = new File(repositoryProperties.getPath(),
+                CasStorageServiceImpl.JOURNAL_FOLDER);
+
+        int annotationCount1;
+        try (var session = openNested(true)) {
+            var cas = createCasFile(doc1, user, "This is a test").getCas();
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 0, 4));
+            sut.writeCas(doc1, cas, user);
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 5, 7));
+            sut.writeCas(doc1, cas, user);
+            annotationCount1 = cas.getAnnotationIndex().size();
+        }
+
+        int annotationCount2;
+        try (var session = openNested(true)) {
+            var cas = createCasFile(doc2, user, "This is another test").getCas();
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 0, 4));
+            sut.writeCas(doc2, cas, user);
+            annotationCount2 = cas.getAnnotationIndex().size();
+        }
+
+        // All saves have been appended to the same journal segment
+        sut.awaitWriteBehindJournal();
+        assertThat(journalFolder.list()).hasSize(1);
+
+        // Simulate the application having been terminated while appending another record
+        var segment = journalFolder.listFiles()[0].toPath();
+        Files.write(segment, new byte[] { 0, 0, 1, 0, 1, 2, 3 }, APPEND);
+
+        sut = new CasStorageServiceImpl(driver, cacheProperties, null, null,
+                repositoryProperties);
+        assertThat(sut.replayWriteBehindJournal(
+                (projectId, documentId) -> documentId == 14l ? doc1 : doc2)).isEqualTo(2);
+        assertThat(journalFolder.list()).isEmpty();
+
+        try (var session = openNested(true)) {
+            assertThat(sut.readCas(doc1, user, UNMANAGED_ACCESS).getAnnotationIndex().size())
+                    .isEqualTo(annotationCount1);
+            assertThat(sut.readCas(doc2, user, UNMANAGED_ACCESS).getAnnotationIndex().size())
+                    .isEqualTo(annotationCount2);
+        }
+    }
+
+    @Test
+    public void testWriteBehindReplaySkipsRecordsAlreadyWritten() throws Exception
+    {
+        var doc = makeSourceDocument(8l, 8l, "test");
+        var user = "test";
+
+        var cacheProperties = new CasStorageCachePropertiesImpl();
+        cacheProperties.setWriteBehindEnabled(true);
+        cacheProperties.setWriteBehindDelay(Duration.ofHours(1));
+        cacheProperties.setWriteBehindMaxDelay(Duration.ofHours(1));
+        sut = new CasStorageServiceImpl(driver, cacheProperties, null, null,
+                repositoryProperties);
+
+        var journalFolder = new File(repositoryProperties.getPath(),
+                CasStorageServiceImpl.JOURNAL_FOLDER);
+
+        try (var session = openNested(true)) {
+            var cas = createCasFile(doc, user, "This is a test").getCas();
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 0, 4));
+            sut.writeCas(doc, cas, user);
+        }
+
+        sut.awaitWriteBehindJournal();
+        var segment = journalFolder.listFiles()[0].toPath();
+        var segmentData = Files.readAllBytes(segment);
+
+        // Writing the CAS makes the journal obsolete - asking for the size of the CAS file
+        // writes it
+        try (var session = openNested(true)) {
+            sut.getCasFileSize(doc, user);
+        }
+        sut.awaitWriteBehindJournal();
+        assertThat(journalFolder.list()).isEmpty();
+        var diskTimestamp = driver.getCasMetadata(doc, user).get().getTimestamp();
+
+        // Simulate the application having been terminated before the journal was cleaned up
+        Files.write(segment, segmentData);
+
+        sut = new CasStorageServiceImpl(driver, cacheProperties, null, null,
+                repositoryProperties);
+        assertThat(sut.replayWriteBehindJournal((projectId, documentId) -> doc)).isZero();
+        assertThat(journalFolder.list()).isEmpty();
+        assertThat(driver.getCasMetadata(doc, user).get().getTimestamp())
+                .isEqualTo(diskTimestamp);
+    }
+
+    @Test
+    public void testWriteBehindFailureIsReportedOnNextSave() throws Exception
+    {
+        var doc = makeSourceDocument(9l, 9l, "test");
+        var user = "test";
+
+        var cacheProperties = new CasStorageCachePropertiesImpl();
+        cacheProperties.setWriteBehindEnabled(true);
+        cacheProperties.setWriteBehindDelay(Duration.ofMillis(10));
+        cacheProperties.setWriteBehindMaxDelay(Duration.ofMillis(10));
+        cacheProperties.setWriteBehindMaxAttempts(2);
+        var failingDriver = spy(driver);
+        sut = new CasStorageServiceImpl(failingDriver, cacheProperties, null, null,
+                repositoryProperties);
+
+        try (var session = openNested(true)) {
+            createCasFile(doc, user, "This is a test");
+        }
+
+        doThrow(new IOException("Disk full")).when(failingDriver) //
+                .writeCas(any(), any(), any(), anyLong());
+
+        try (var session = openNested(true)) {
+            var cas = sut.readCas(doc, user);
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 0, 4));
+            sut.writeCas(doc, cas, user);
+        }
+
+        // The background writes give up after the maximum number of attempts
+        verify(failingDriver, timeout(5_000).times(2)).writeCas(any(), any(), any(), anyLong());
+        verify(failingDriver, after(500).times(2)).writeCas(any(), any(), any(), anyLong());
+        assertThat(sut.getPendingWriteCount()).isEqualTo(1);
+
+        // The next save writes directly and reports the problem
+        try (var session = openNested(true)) {
+            var cas = sut.readCas(doc, user);
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 5, 7));
+            assertThatExceptionOfType(IOException.class)
+                    .isThrownBy(() -> sut.writeCas(doc, cas, user))
+                    .withStackTraceContaining("Disk full");
+        }
+
+        // Once the storage works again, saving succeeds
+        doCallRealMethod().when(failingDriver).writeCas(any(), any(), any(), anyLong());
+
+        try (var session = openNested(true)) {
+            var cas = sut.readCas(doc, user);
+            sut.writeCas(doc, cas, user);
+            assertThat(sut.getPendingWriteCount()).isZero();
+            assertThat(sut.getCasTimestamp(doc, user))
+                    .contains(driver.getCasMetadata(doc, user).get().getTimestamp());
+        }
+
+        sut.destroy();
+    }
+
+    @Test
+    public void testWriteBehindIsVisibleToReaders() throws Exception
+    {
+        var doc = makeSourceDocument(7l, 7l, "test");
+        var user = "test";
+
+        var cacheProperties = new CasStorageCachePropertiesImpl();
+        cacheProperties.setWriteBehindEnabled(true);
+        cacheProperties.setWriteBehindDelay(Duration.ofHours(1));
+        cacheProperties.setWriteBehindMaxDelay(Duration.ofHours(1));
+        sut = new CasStorageServiceImpl(driver, cacheProperties, null, null,
+                repositoryProperties);
+
+        long diskTimestamp;
+        int annotationCount;
+        try (var session = openNested(true)) {
+            var cas = createCasFile(doc, user, "This is a test").getCas();
+            diskTimestamp = sut.getCasTimestamp(doc, user).get();
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 0, 4));
+            annotationCount = cas.getAnnotationIndex().size();
+            sut.writeCas(doc, cas, user);
+        }
+
+        // Readers from outside the session that saved the CAS see the saved state without the
+        // CAS being written
+        try (var session = openNested(true)) {
+            var sharedCas = sut.readCas(doc, user, SHARED_READ_ONLY_ACCESS);
+            assertThat(sharedCas.getAnnotationIndex().size()).isEqualTo(annotationCount);
+            var unmanagedCas = sut.readCas(doc, user, UNMANAGED_ACCESS);
+            assertThat(unmanagedCas.getAnnotationIndex().size()).isEqualTo(annotationCount);
+        }
+        assertThat(sut.getPendingWriteCount()).isEqualTo(1);
+        assertThat(driver.getCasMetadata(doc, user).get().getTimestamp())
+                .isEqualTo(diskTimestamp);
+
+        // Saving again replaces the state seen by shared readers
+        try (var session = openNested(true)) {
+            var cas = sut.readCas(doc, user);
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 5, 7));
+            annotationCount = cas.getAnnotationIndex().size();
+            sut.writeCas(doc, cas, user);
+        }
+
+        try (var session = openNested(true)) {
+            var sharedCas = sut.readCas(doc, user, SHARED_READ_ONLY_ACCESS);
+            assertThat(sharedCas.getAnnotationIndex().size()).isEqualTo(annotationCount);
+        }
+
+        sut.destroy();
+    }
+
     @Test
     public void testReadOrCreateCas() throws Exception
     {
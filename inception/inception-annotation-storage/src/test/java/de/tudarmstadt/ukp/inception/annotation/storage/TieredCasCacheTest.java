@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage;
+
+import static org.apache.commons.lang3.StringUtils.repeat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.junit.jupiter.api.Test;
+
+class TieredCasCacheTest
+{
+    private static final int TEXT_LENGTH = 10_000;
+
+    @Test
+    void thatCasesPushedOutOfHeapTierAreRestoredFromCompressedTier() throws Exception
+    {
+        var sut = new TieredCasCache(estimatedSize() + 1024, 10 * 1024 * 1024,
+                Duration.ofMinutes(1), Runnable::run);
+
+        var key1 = new CasKey(1, 1, "user");
+        var key2 = new CasKey(1, 2, "user");
+
+        sut.get(key1, key -> new CasHolder(key, createCas("a")));
+        sut.get(key2, key -> new CasHolder(key, createCas("b")));
+
+        assertThat(sut.getHeapTierSize()).isEqualTo(1);
+        assertThat(sut.getCompressedTierSize()).isEqualTo(1);
+
+        // Both CASes must be available without calling the loader again
+        assertThat(sut.get(key1, this::failingLoader).getCas().getDocumentText())
+                .isEqualTo(repeat("a", TEXT_LENGTH));
+        assertThat(sut.get(key2, this::failingLoader).getCas().getDocumentText())
+                .isEqualTo(repeat("b", TEXT_LENGTH));
+
+        assertThat(sut.getCompressedTierStats().hitCount()).isGreaterThan(0);
+    }
+
+    @Test
+    void thatInvalidationAffectsBothTiers() throws Exception
+    {
+        var sut = new TieredCasCache(estimatedSize() + 1024, 10 * 1024 * 1024,
+                Duration.ofMinutes(1), Runnable::run);
+
+        sut.get(new CasKey(1, 1, "user"), key -> new CasHolder(key, createCas("a")));
+        sut.get(new CasKey(1, 2, "user"), key -> new CasHolder(key, createCas("b")));
+        sut.get(new CasKey(2, 3, "user"), key -> new CasHolder(key, createCas("c")));
+
+        sut.invalidateIf(key -> key.getProjectId() == 1);
+
+        assertThat(sut.getHeapTierSize() + sut.getCompressedTierSize()).isLessThanOrEqualTo(1);
+        assertThat(sut.getIfPresent(new CasKey(1, 1, "user"))).isNull();
+        assertThat(sut.getIfPresent(new CasKey(1, 2, "user"))).isNull();
+    }
+
+    @Test
+    void thatCompressedTierCanBeDisabled() throws Exception
+    {
+        var sut = new TieredCasCache(estimatedSize() + 1024, 0, Duration.ofMinutes(1),
+                Runnable::run);
+
+        sut.get(new CasKey(1, 1, "user"), key -> new CasHolder(key, createCas("a")));
+        sut.get(new CasKey(1, 2, "user"), key -> new CasHolder(key, createCas("b")));
+
+        assertThat(sut.getHeapTierSize()).isEqualTo(1);
+        assertThat(sut.getCompressedTierSize()).isZero();
+    }
+
+    private CasHolder failingLoader(CasKey aKey)
+    {
+        throw new IllegalStateException("CAS should have been restored from the cache");
+    }
+
+    private static int estimatedSize() throws Exception
+    {
+        return TieredCasCache.estimateSize(createCas("x"));
+    }
+
+    private static CAS createCas(String aChar) throws Exception
+    {
+        var cas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+        cas.setDocumentText(repeat(aChar, TEXT_LENGTH));
+        return cas;
+    }
+}
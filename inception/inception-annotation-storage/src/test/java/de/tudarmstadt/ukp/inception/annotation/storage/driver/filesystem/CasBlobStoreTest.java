@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CasBlobStoreTest
+{
+    private @TempDir Path tempDir;
+
+    private CasBlobStore sut;
+
+    @BeforeEach
+    void setup()
+    {
+        sut = new CasBlobStore(tempDir.resolve("blobs").toFile());
+        assumeTrue(sut.isSupported(), "File system does not support hard links");
+    }
+
+    @Test
+    void thatIdenticalContentIsStoredOnce() throws Exception
+    {
+        var file1 = write("a.ser", "content");
+        var file2 = write("b.ser", "content");
+        var file3 = write("c.ser", "other content");
+
+        assertThat(dedup(file1)).isFalse();
+        assertThat(dedup(file2)).isTrue();
+        assertThat(dedup(file3)).isFalse();
+
+        assertThat(Files.isSameFile(file1.toPath(), file2.toPath())).isTrue();
+        assertThat(Files.readString(file2.toPath())).isEqualTo("content");
+        assertThat(sut.size()).isEqualTo(2);
+    }
+
+    @Test
+    void thatLinkDoesNotChangeSource() throws Exception
+    {
+        var source = write("a.ser", "content");
+        var target = tempDir.resolve("a.ser.1.bak").toFile();
+
+        sut.link(source, target);
+
+        assertThat(Files.isSameFile(source.toPath(), target.toPath())).isTrue();
+        assertThat(Files.readString(target.toPath())).isEqualTo("content");
+    }
+
+    @Test
+    void thatUnreferencedBlobsAreCollected() throws Exception
+    {
+        var file1 = write("a.ser", "content");
+        var file2 = write("b.ser", "content");
+        var file3 = write("c.ser", "other content");
+        dedup(file1);
+        dedup(file2);
+        dedup(file3);
+
+        // Blob still referenced by the second file
+        Files.delete(file1.toPath());
+        assertThat(sut.collectGarbage()).isZero();
+        assertThat(Files.readString(file2.toPath())).isEqualTo("content");
+
+        Files.delete(file2.toPath());
+        assertThat(sut.collectGarbage()).isEqualTo(1);
+        assertThat(sut.size()).isEqualTo(1);
+        assertThat(sut.getBlob(CasBlobStore.hash(file3.toPath()))).exists();
+    }
+
+    @Test
+    void thatFilesWithSameHashAreLinked() throws Exception
+    {
+        var file1 = write("a.ser", "header 1|content");
+        var file2 = write("b.ser", "header 2|content");
+        var hash = CasBlobStore.hash(file1.toPath());
+
+        assertThat(sut.deduplicate(file1, hash)).isFalse();
+        assertThat(sut.deduplicate(file2, hash)).isTrue();
+
+        assertThat(Files.isSameFile(file1.toPath(), file2.toPath())).isTrue();
+        assertThat(Files.readString(file2.toPath())).isEqualTo("header 1|content");
+        assertThat(sut.size()).isEqualTo(1);
+    }
+
+    private boolean dedup(File aFile) throws Exception
+    {
+        return sut.deduplicate(aFile, CasBlobStore.hash(aFile.toPath()));
+    }
+
+    private File write(String aName, String aContent) throws Exception
+    {
+        var file = tempDir.resolve(aName);
+        Files.writeString(file, aContent);
+        return file.toFile();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
+
+import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTypeSystemDescription;
+import static org.apache.uima.util.CasCreationUtils.mergeTypeSystems;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+
+/**
+ * Compares the legacy Java-serialized CAS format against the binary CAS format on a document with
+ * a realistic amount of annotations. Run explicitly to get the numbers - the results are logged.
+ */
+@Tag("slow")
+class CasPersistenceFormatBenchmarkTest
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int TOKENS = 100_000;
+    private static final int ROUNDS = 10;
+
+    private static final String[] WORDS = { "the", "annotation", "of", "documents", "is",
+            "performed", "by", "many", "annotators", "in", "parallel", "and", "curated", "later" };
+    private static final String[] TAGS = { "DET", "NOUN", "ADP", "VERB", "ADJ", "CONJ" };
+
+    private @TempDir Path tempDir;
+
+    @Test
+    void compareFormats() throws Exception
+    {
+        var cas = createRealisticCas();
+
+        var serialized = measure("serialized", cas, CasPersistenceUtils::writeSerializedCas);
+        var compressed = measure("serialized+snappy", cas,
+                CasPersistenceUtils::writeSerializedCasCompressed);
+        var binary = measure("binary", cas,
+                (aCas, aFile) -> CasPersistenceUtils.writeBinaryCas(aCas, aFile, false));
+
+        for (var result : List.of(serialized, compressed, binary)) {
+            LOG.info("{}: {} bytes, write {}ms, read {}ms (average of {} rounds)", result.name(),
+                    result.size(), result.writeMs(), result.readMs(), ROUNDS);
+        }
+
+        assertThat(binary.size()).isLessThan(compressed.size());
+    }
+
+    private Result measure(String aName, CAS aCas, Writer aWriter) throws Exception
+    {
+        var file = tempDir.resolve(aName + ".ser").toFile();
+
+        // Warm up
+        aWriter.write(aCas, file);
+        CasPersistenceUtils.readSerializedCas(emptyCas(), file);
+
+        var writeNanos = 0l;
+        var readNanos = 0l;
+        for (var i = 0; i < ROUNDS; i++) {
+            var t0 = System.nanoTime();
+            aWriter.write(aCas, file);
+            writeNanos += System.nanoTime() - t0;
+
+            var target = emptyCas();
+            t0 = System.nanoTime();
+            CasPersistenceUtils.readSerializedCas(target, file);
+            readNanos += System.nanoTime() - t0;
+
+            assertThat(target.getDocumentText()).isEqualTo(aCas.getDocumentText());
+        }
+
+        return new Result(aName, file.length(), writeNanos / ROUNDS / 1_000_000,
+                readNanos / ROUNDS / 1_000_000);
+    }
+
+    private static CAS emptyCas() throws Exception
+    {
+        return CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+    }
+
+    private static CAS createRealisticCas() throws Exception
+    {
+        var tsd = UIMAFramework.getResourceSpecifierFactory().createTypeSystemDescription();
+        var token = tsd.addType("bench.Token", "", CAS.TYPE_NAME_ANNOTATION);
+        token.addFeature("pos", "", CAS.TYPE_NAME_STRING);
+        token.addFeature("lemma", "", CAS.TYPE_NAME_STRING);
+        tsd.addType("bench.Sentence", "", CAS.TYPE_NAME_ANNOTATION);
+        var entity = tsd.addType("bench.NamedEntity", "", CAS.TYPE_NAME_ANNOTATION);
+        entity.addFeature("value", "", CAS.TYPE_NAME_STRING);
+
+        var cas = CasCreationUtils.createCas(
+                mergeTypeSystems(List.of(tsd, createTypeSystemDescription())), null, null);
+        var ts = cas.getTypeSystem();
+        var tokenType = ts.getType("bench.Token");
+        var posFeature = tokenType.getFeatureByBaseName("pos");
+        var lemmaFeature = tokenType.getFeatureByBaseName("lemma");
+        var sentenceType = ts.getType("bench.Sentence");
+        var entityType = ts.getType("bench.NamedEntity");
+        var valueFeature = entityType.getFeatureByBaseName("value");
+
+        var rnd = new Random(42);
+        var text = new StringBuilder();
+        var offsets = new int[TOKENS][2];
+        for (var i = 0; i < TOKENS; i++) {
+            var word = WORDS[rnd.nextInt(WORDS.length)];
+            offsets[i][0] = text.length();
+            text.append(word);
+            offsets[i][1] = text.length();
+            text.append(i % 20 == 19 ? ".\n" : " ");
+        }
+        cas.setDocumentText(text.toString());
+        DocumentMetaData.create(cas).setDocumentId("benchmark");
+
+        var sentenceBegin = 0;
+        for (var i = 0; i < TOKENS; i++) {
+            var t = cas.createAnnotation(tokenType, offsets[i][0], offsets[i][1]);
+            t.setStringValue(posFeature, TAGS[rnd.nextInt(TAGS.length)]);
+            t.setStringValue(lemmaFeature, t.getCoveredText());
+            cas.addFsToIndexes(t);
+
+            if (rnd.nextInt(10) == 0) {
+                var e = cas.createAnnotation(entityType, offsets[i][0], offsets[i][1]);
+                e.setStringValue(valueFeature, "ORG");
+                cas.addFsToIndexes(e);
+            }
+
+            if (i % 20 == 19) {
+                var begin = offsets[sentenceBegin][0];
+                cas.addFsToIndexes(cas.createAnnotation(sentenceType, begin, offsets[i][1]));
+                sentenceBegin = i + 1;
+            }
+        }
+
+        return cas;
+    }
+
+    @FunctionalInterface
+    private interface Writer
+    {
+        void write(CAS aCas, File aFile) throws Exception;
+    }
+
+    private record Result(String name, long size, long writeMs, long readMs)
+    {}
+}
@@ -19,9 +19,11 @@ package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
 
 import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTypeSystemDescription;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.impl.CASImpl;
@@ -33,6 +35,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.inception.support.uima.ICasUtil;
 import de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil;
 
 public class CasPersistenceUtilsTest
@@ -116,4 +119,96 @@ public class CasPersistenceUtilsTest
         assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
         assertThat(actualCas.getDocumentLanguage()).isEqualTo(originalCas.getDocumentLanguage());
     }
+
+    @Test
+    void thatBinaryCasCanBeSavedAndLoaded(@TempDir Path aTempDir) throws Exception
+    {
+        File target = aTempDir.resolve("out.ser").toFile();
+
+        CAS originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        originalCas.setDocumentLanguage("en");
+        DocumentMetaData.create(originalCas).setDocumentId("doc");
+        CasPersistenceUtils.writeBinaryCas(originalCas, target, false);
+
+        CAS actualCas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+        CasPersistenceUtils.readSerializedCas(actualCas, target);
+
+        assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
+        assertThat(actualCas.getDocumentLanguage()).isEqualTo(originalCas.getDocumentLanguage());
+        assertThat(actualCas.select(DocumentMetaData.class).asList()) //
+                .extracting(DocumentMetaData::getDocumentId) //
+                .containsExactly("doc");
+    }
+
+    @Test
+    void thatParanoidBinaryCasCanBeSavedAndLoaded(@TempDir Path aTempDir) throws Exception
+    {
+        File target = aTempDir.resolve("out.ser").toFile();
+
+        CAS originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        CasPersistenceUtils.writeBinaryCas(originalCas, target, true);
+
+        CAS actualCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        CasPersistenceUtils.readSerializedCas(actualCas, target);
+
+        assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
+    }
+
+    @Test
+    void thatBinaryCasPreservesAddresses(@TempDir Path aTempDir) throws Exception
+    {
+        File target = aTempDir.resolve("out.ser").toFile();
+
+        CAS originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        var tokens = new ArrayList<AnnotationFS>();
+        for (int i = 0; i < 10; i++) {
+            var token = originalCas.createAnnotation(originalCas.getAnnotationType(), i, i + 1);
+            originalCas.addFsToIndexes(token);
+            tokens.add(token);
+        }
+
+        // Deleting annotations leaves gaps in the addresses which must not be closed when the
+        // CAS is read again because the UI uses the addresses to identify annotations
+        originalCas.removeFsFromIndexes(tokens.get(2));
+        originalCas.removeFsFromIndexes(tokens.get(5));
+
+        CasPersistenceUtils.writeBinaryCas(originalCas, target, false);
+
+        CAS actualCas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+        CasPersistenceUtils.readSerializedCas(actualCas, target);
+
+        assertThat(actualCas.getAnnotationIndex().select().asList()) //
+                .extracting(ICasUtil::getAddr, AnnotationFS::getBegin) //
+                .containsExactlyElementsOf(originalCas.getAnnotationIndex().select().asList()
+                        .stream() //
+                        .map(fs -> tuple(ICasUtil.getAddr(fs), fs.getBegin())) //
+                        .toList());
+    }
+
+    @Test
+    void thatBinaryCasHeaderCanBeRead(@TempDir Path aTempDir) throws Exception
+    {
+        File binary = aTempDir.resolve("binary.ser").toFile();
+        File legacy = aTempDir.resolve("legacy.ser").toFile();
+
+        CAS cas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        cas.setDocumentText("This is a test.");
+        CasPersistenceUtils.writeBinaryCas(cas, binary, false);
+        CasPersistenceUtils.writeSerializedCasCompressed(cas, legacy);
+
+        assertThat(CasPersistenceUtils.readBinaryCasHeader(binary)).get() //
+                .satisfies(header -> {
+                    assertThat(header.version())
+                            .isEqualTo(CasPersistenceUtils.BINARY_CAS_FORMAT_VERSION);
+                    assertThat(header.typeSystemHash())
+                            .isEqualTo(CasPersistenceUtils.typeSystemHash(cas.getTypeSystem()));
+                    assertThat(header.timestamp()).isPositive();
+                });
+        assertThat(CasPersistenceUtils.readBinaryCasHeader(legacy)).isEmpty();
+        assertThat(CasPersistenceUtils.isBinaryCasFile(binary)).isTrue();
+        assertThat(CasPersistenceUtils.isBinaryCasFile(legacy)).isFalse();
+    }
 }
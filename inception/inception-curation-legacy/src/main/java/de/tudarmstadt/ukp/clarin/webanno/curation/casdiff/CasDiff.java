@@ -17,6 +17,7 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.curation.casdiff;
 
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_TARGET_AS_LABEL;
 import static de.tudarmstadt.ukp.clarin.webanno.model.LinkMode.NONE;
 import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.RELATION_TYPE;
 import static de.tudarmstadt.ukp.inception.support.uima.ICasUtil.selectFsByAddr;
@@ -35,6 +36,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -43,6 +45,7 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
@@ -90,6 +93,8 @@ public class CasDiff
 
     private boolean recurseIntoLinkFeatures = false;
 
+    private boolean useIndexes = true;
+
     private CasDiff(int aBegin, int aEnd, Iterable<? extends DiffAdapter> aAdapters,
             LinkCompareBehavior aLinkCompareBehavior)
     {
@@ -141,6 +146,18 @@ public class CasDiff
     public static CasDiff doDiff(Iterable<? extends DiffAdapter> aAdapters,
             LinkCompareBehavior aLinkCompareBehavior, Map<String, CAS> aCasMap, int aBegin,
             int aEnd)
+    {
+        return doDiff(aAdapters, aLinkCompareBehavior, aCasMap, aBegin, aEnd, true);
+    }
+
+    /**
+     * @param aUseIndexes
+     *            whether configurations are looked up via indexes or by comparing a feature
+     *            structure to each configuration of a position. Both must yield the same result.
+     */
+    static CasDiff doDiff(Iterable<? extends DiffAdapter> aAdapters,
+            LinkCompareBehavior aLinkCompareBehavior, Map<String, CAS> aCasMap, int aBegin,
+            int aEnd, boolean aUseIndexes)
     {
         if (aCasMap.isEmpty()) {
             return new CasDiff(0, 0, aAdapters, aLinkCompareBehavior);
@@ -149,6 +166,7 @@ public class CasDiff
         var startTime = System.currentTimeMillis();
 
         var diff = new CasDiff(aBegin, aEnd, aAdapters, aLinkCompareBehavior);
+        diff.useIndexes = aUseIndexes;
 
         for (Entry<String, CAS> e : aCasMap.entrySet()) {
             var cas = e.getValue();
@@ -158,6 +176,9 @@ public class CasDiff
             }
         }
 
+        // The lookup indexes are only required while building the diff
+        diff.configSets.values().forEach(ConfigurationSet::releaseIndexes);
+
         LOG.trace("CASDiff completed in {} ms", System.currentTimeMillis() - startTime);
 
         return diff;
@@ -289,22 +310,7 @@ public class CasDiff
         }
 
         if (aSet.position.getFeature() == null) {
-            // Check if this configuration is already present
-            Configuration configuration = null;
-            for (Configuration cfg : aSet.getConfigurations()) {
-                // Handle main positions
-                if (equalsFS(cfg.getRepresentative(cases), aFS)) {
-                    configuration = cfg;
-                    break;
-                }
-            }
-
-            // Not found, add new one
-            if (configuration == null) {
-                configuration = new Configuration(aSet.position);
-                aSet.addConfiguration(configuration);
-            }
-
+            var configuration = findOrCreateConfiguration(aSet, aFS);
             configuration.add(aCasGroupId, aFS);
         }
         else {
@@ -316,17 +322,16 @@ public class CasDiff
                 return;
             }
 
+            var adapter = getAdapter(aFS.getType().getName());
+            var decl = adapter.getLinkFeature(aSet.position.getFeature());
+
             // For each slot at the given position in the FS-to-be-added, we need find a
             // corresponding configuration
-
             var links = FSUtil.getFeature(aFS, feat, ArrayFS.class);
             for (var i = 0; i < links.size(); i++) {
                 var link = links.get(i);
-                var adapter = getAdapter(aFS.getType().getName());
-                var decl = adapter.getLinkFeature(aSet.position.getFeature());
 
-                // Check if this configuration is already present
-                Configuration configuration = null;
+                Configuration configuration;
                 switch (aSet.position.getLinkCompareBehavior()) {
                 case LINK_TARGET_AS_LABEL: {
                     String role = link.getStringValue(
@@ -338,20 +343,11 @@ public class CasDiff
                     AnnotationFS target = (AnnotationFS) link.getFeatureValue(
                             link.getType().getFeatureByBaseName(decl.getTargetFeature()));
 
-                    cfgLoop: for (Configuration cfg : aSet.configurations) {
-                        FeatureStructure repFS = cfg.getRepresentative(cases);
-                        AID repAID = cfg.getRepresentativeAID();
-                        FeatureStructure repLink = FSUtil.getFeature(repFS,
-                                repFS.getType().getFeatureByBaseName(decl.getName()), ArrayFS.class)
-                                .get(repAID.index);
-                        AnnotationFS repTarget = (AnnotationFS) repLink.getFeatureValue(
-                                repLink.getType().getFeatureByBaseName(decl.getTargetFeature()));
-
-                        // Compare targets
-                        if (equalsAnnotationFS(repTarget, target)) {
-                            configuration = cfg;
-                            break cfgLoop;
-                        }
+                    configuration = useIndexes ? findConfigurationByLinkTarget(aSet, target)
+                            : findConfigurationByLinkTargetLinear(aSet, decl, target);
+                    if (configuration == null) {
+                        configuration = new Configuration(aSet.position);
+                        aSet.configurations.add(configuration);
                     }
                     break;
                 }
@@ -366,19 +362,15 @@ public class CasDiff
                     String role = link.getStringValue(
                             link.getType().getFeatureByBaseName(decl.getRoleFeature()));
 
-                    cfgLoop: for (Configuration cfg : aSet.configurations) {
-                        FeatureStructure repFS = cfg.getRepresentative(cases);
-                        AID repAID = cfg.getRepresentativeAID();
-                        FeatureStructure repLink = FSUtil.getFeature(repFS,
-                                repFS.getType().getFeatureByBaseName(decl.getName()), ArrayFS.class)
-                                .get(repAID.index);
-                        String linkRole = repLink.getStringValue(
-                                repLink.getType().getFeatureByBaseName(decl.getRoleFeature()));
-
-                        // Compare roles
-                        if (role.equals(linkRole)) {
-                            configuration = cfg;
-                            break cfgLoop;
+                    // All slots in a configuration have the same role, so the role of the slot
+                    // which created the configuration can be used as the index key
+                    configuration = useIndexes ? aSet.getLinkRoleIndex().get(role)
+                            : findConfigurationByLinkRoleLinear(aSet, decl, role);
+                    if (configuration == null) {
+                        configuration = new Configuration(aSet.position);
+                        aSet.configurations.add(configuration);
+                        if (useIndexes) {
+                            aSet.getLinkRoleIndex().put(role, configuration);
                         }
                     }
                     break;
@@ -388,19 +380,275 @@ public class CasDiff
                             "Unknown link target comparison mode [" + linkCompareBehavior + "]");
                 }
 
-                // Not found, add new one
+                configuration.add(aCasGroupId, aFS, aSet.position.getFeature(), i);
+
+                if (useIndexes && aSet.position.getLinkCompareBehavior() == LINK_TARGET_AS_LABEL) {
+                    // Adding the slot may have changed the representative of the configuration
+                    updateLinkTargetIndex(aSet, decl, configuration);
+                }
+            }
+        }
+
+        aSet.casGroupIds.add(aCasGroupId);
+    }
+
+    /**
+     * Looks up the configuration of a slot with the given target. Targets are compared by their
+     * position as determined by the adapter of the target of the representative slot of a
+     * configuration. The set indexes the configurations by that position, so we only need to
+     * calculate the position of the given target once for each type of representative target.
+     * 
+     * @see #findConfigurationByLinkTargetLinear
+     */
+    private Configuration findConfigurationByLinkTarget(ConfigurationSet aSet,
+            AnnotationFS aTarget)
+    {
+        if (aTarget == null) {
+            return null;
+        }
+
+        Configuration result = null;
+        for (var e : aSet.getLinkTargetIndex().entrySet()) {
+            var candidates = e.getValue().get(getAdapter(e.getKey()).getPosition(aTarget));
+            if (candidates == null) {
+                continue;
+            }
+
+            // If there are multiple matches, the first configuration wins
+            for (var candidate : candidates) {
+                if (result == null || aSet.configurations.indexOf(candidate) < aSet.configurations
+                        .indexOf(result)) {
+                    result = candidate;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private Configuration findConfigurationByLinkTargetLinear(ConfigurationSet aSet,
+            LinkFeatureDecl aDecl, AnnotationFS aTarget)
+    {
+        for (Configuration cfg : aSet.configurations) {
+            if (equalsAnnotationFS(getRepresentativeLinkTarget(cfg, aDecl), aTarget)) {
+                return cfg;
+            }
+        }
+
+        return null;
+    }
+
+    private Configuration findConfigurationByLinkRoleLinear(ConfigurationSet aSet,
+            LinkFeatureDecl aDecl, String aRole)
+    {
+        for (Configuration cfg : aSet.configurations) {
+            var repLink = getRepresentativeLink(cfg, aDecl);
+            String linkRole = repLink
+                    .getStringValue(repLink.getType().getFeatureByBaseName(aDecl.getRoleFeature()));
+
+            if (aRole.equals(linkRole)) {
+                return cfg;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Indexes the configuration by the target of its representative slot. When a slot is added to
+     * a configuration, it may become the new representative and the configuration needs to be
+     * indexed under its target instead.
+     */
+    private void updateLinkTargetIndex(ConfigurationSet aSet, LinkFeatureDecl aDecl,
+            Configuration aConfiguration)
+    {
+        var casGroupId = aConfiguration.getRepresentativeCasGroupId();
+        var repAID = aConfiguration.getRepresentativeAID();
+
+        var oldKey = aSet.getLinkTargetKeys().get(aConfiguration);
+        if (oldKey != null) {
+            if (oldKey.casGroupId().equals(casGroupId) && oldKey.aid().equals(repAID)) {
+                return;
+            }
+
+            aSet.getLinkTargetIndex().get(oldKey.type()).get(oldKey.position())
+                    .remove(aConfiguration);
+            aSet.getLinkTargetKeys().remove(aConfiguration);
+        }
+
+        // A slot without a target does not match any other slot
+        var repTarget = getRepresentativeLinkTarget(aConfiguration, aDecl);
+        if (repTarget == null) {
+            return;
+        }
+
+        var type = repTarget.getType().getName();
+        var position = getAdapter(type).getPosition(repTarget);
+        aSet.getLinkTargetIndex() //
+                .computeIfAbsent(type, _type -> new TreeMap<>()) //
+                .computeIfAbsent(position, _pos -> new ArrayList<>()) //
+                .add(aConfiguration);
+        aSet.getLinkTargetKeys().put(aConfiguration,
+                new LinkTargetKey(casGroupId, repAID, type, position));
+    }
+
+    private FeatureStructure getRepresentativeLink(Configuration aConfiguration,
+            LinkFeatureDecl aDecl)
+    {
+        FeatureStructure repFS = aConfiguration.getRepresentative(cases);
+        AID repAID = aConfiguration.getRepresentativeAID();
+        return FSUtil.getFeature(repFS, repFS.getType().getFeatureByBaseName(aDecl.getName()),
+                ArrayFS.class).get(repAID.index);
+    }
+
+    private AnnotationFS getRepresentativeLinkTarget(Configuration aConfiguration,
+            LinkFeatureDecl aDecl)
+    {
+        var repLink = getRepresentativeLink(aConfiguration, aDecl);
+        return (AnnotationFS) repLink
+                .getFeatureValue(repLink.getType().getFeatureByBaseName(aDecl.getTargetFeature()));
+    }
+
+    /**
+     * Looks up the configuration equal to the given feature structure in the set or adds a new
+     * configuration if there is none. As long as all feature structures in the set have the same
+     * shape (type, compared features and their ranges) and only primitive feature values are
+     * compared, configurations are looked up via their {@link FSSignature}. Otherwise, we fall back
+     * to comparing the feature structure to each configuration using
+     * {@link #equalsFS(FeatureStructure, FeatureStructure)}.
+     */
+    private Configuration findOrCreateConfiguration(ConfigurationSet aSet, FeatureStructure aFS)
+    {
+        var signature = !useIndexes || aSet.linearScan ? null : signature(aFS);
+
+        if (signature != null) {
+            if (aSet.signatureIndex == null && aSet.configurations.isEmpty()) {
+                aSet.signatureIndex = new HashMap<>();
+                aSet.signatureShape = signature.shape();
+            }
+
+            if (aSet.signatureIndex != null && aSet.signatureShape.equals(signature.shape())) {
+                var configuration = aSet.signatureIndex.get(signature);
                 if (configuration == null) {
                     configuration = new Configuration(aSet.position);
-                    aSet.configurations.add(configuration);
+                    aSet.addConfiguration(configuration);
+                    aSet.signatureIndex.put(signature, configuration);
                 }
+                return configuration;
+            }
+        }
 
-                configuration.add(aCasGroupId, aFS, aSet.position.getFeature(), i);
+        // E.g. the CASes are at different levels of upgrading or a feature value is not primitive
+        aSet.linearScan = true;
+        aSet.signatureIndex = null;
+
+        for (Configuration cfg : aSet.getConfigurations()) {
+            if (equalsFS(cfg.getRepresentative(cases), aFS)) {
+                return cfg;
             }
         }
 
-        aSet.casGroupIds.add(aCasGroupId);
+        var configuration = new Configuration(aSet.position);
+        aSet.addConfiguration(configuration);
+        return configuration;
+    }
+
+    /**
+     * Calculates the signature of the given feature structure. Two feature structures with the same
+     * {@link FSSignature#shape() shape} have the same signature if and only if they are equal
+     * according to {@link #equalsFS(FeatureStructure, FeatureStructure)}.
+     * 
+     * @return the signature or {@code null} if the feature structure cannot be represented by a
+     *         signature.
+     */
+    private FSSignature signature(FeatureStructure aFS)
+    {
+        var type = aFS.getType();
+        var adapter = diffAdapters.get(type.getName());
+        if (adapter == null) {
+            return null;
+        }
+
+        var labelFeatures = adapter.getLabelFeatures();
+        List<String> sortedFeatures = type.getFeatures().stream() //
+                .map(Feature::getShortName) //
+                .filter(labelFeatures::contains) //
+                .sorted() //
+                .distinct() //
+                .collect(toList());
+
+        if (!recurseIntoLinkFeatures) {
+            sortedFeatures.removeIf(f -> adapter.getLinkFeature(f) != null);
+        }
+
+        var shape = new ArrayList<String>(sortedFeatures.size() + 1);
+        var values = new ArrayList<Object>(sortedFeatures.size());
+        shape.add(type.getName());
+        for (var feature : sortedFeatures) {
+            var f = type.getFeatureByBaseName(feature);
+            var range = f.getRange().getName();
+            shape.add(feature + ":" + range);
+
+            switch (range) {
+            case CAS.TYPE_NAME_STRING_ARRAY: {
+                var value = FSUtil.getFeature(aFS, f, Set.class);
+                values.add(value != null ? new HashSet<>(value) : emptySet());
+                break;
+            }
+            case CAS.TYPE_NAME_BOOLEAN:
+                values.add(aFS.getBooleanValue(f));
+                break;
+            case CAS.TYPE_NAME_BYTE:
+                values.add(aFS.getByteValue(f));
+                break;
+            case CAS.TYPE_NAME_DOUBLE: {
+                var value = aFS.getDoubleValue(f);
+                if (Double.isNaN(value)) {
+                    return null;
+                }
+                // Normalize -0.0 because it is == but not equals to 0.0
+                values.add(value == 0.0d ? 0.0d : value);
+                break;
+            }
+            case CAS.TYPE_NAME_FLOAT: {
+                var value = aFS.getFloatValue(f);
+                if (Float.isNaN(value)) {
+                    return null;
+                }
+                values.add(value == 0.0f ? 0.0f : value);
+                break;
+            }
+            case CAS.TYPE_NAME_INTEGER:
+                values.add(aFS.getIntValue(f));
+                break;
+            case CAS.TYPE_NAME_LONG:
+                values.add(aFS.getLongValue(f));
+                break;
+            case CAS.TYPE_NAME_SHORT:
+                values.add(aFS.getShortValue(f));
+                break;
+            case CAS.TYPE_NAME_STRING:
+                values.add(aFS.getStringValue(f));
+                break;
+            default:
+                // Feature structure values are compared structurally
+                return null;
+            }
+        }
+
+        return new FSSignature(shape, values);
     }
 
+    /**
+     * The values of the compared features of a feature structure.
+     */
+    private record FSSignature(List<String> shape, List<Object> values) {}
+
+    /**
+     * The key under which a configuration is indexed by the target of its representative slot.
+     */
+    private record LinkTargetKey(String casGroupId, AID aid, String type, Position position) {}
+
     /**
      * The set of configurations seen at a particular position.
      */
@@ -413,11 +661,57 @@ public class CasDiff
         private List<Configuration> configurations = new ArrayList<>();
         private Set<String> casGroupIds = new LinkedHashSet<>();
 
+        // Lookup indexes only used while building the diff
+        private transient Map<FSSignature, Configuration> signatureIndex;
+        private transient List<String> signatureShape;
+        private transient boolean linearScan;
+        private transient Map<String, Configuration> linkRoleIndex;
+        private transient Map<String, Map<Position, List<Configuration>>> linkTargetIndex;
+        private transient Map<Configuration, LinkTargetKey> linkTargetKeys;
+
         public ConfigurationSet(Position aPosition)
         {
             position = aPosition;
         }
 
+        private Map<String, Configuration> getLinkRoleIndex()
+        {
+            if (linkRoleIndex == null) {
+                linkRoleIndex = new HashMap<>();
+            }
+            return linkRoleIndex;
+        }
+
+        /**
+         * @return the configurations by type and position of the target of their representative
+         *         slot. Positions do not implement equals/hashCode but they are comparable, so the
+         *         inner maps need to be tree maps.
+         */
+        private Map<String, Map<Position, List<Configuration>>> getLinkTargetIndex()
+        {
+            if (linkTargetIndex == null) {
+                linkTargetIndex = new LinkedHashMap<>();
+            }
+            return linkTargetIndex;
+        }
+
+        private Map<Configuration, LinkTargetKey> getLinkTargetKeys()
+        {
+            if (linkTargetKeys == null) {
+                linkTargetKeys = new IdentityHashMap<>();
+            }
+            return linkTargetKeys;
+        }
+
+        private void releaseIndexes()
+        {
+            signatureIndex = null;
+            signatureShape = null;
+            linkRoleIndex = null;
+            linkTargetIndex = null;
+            linkTargetKeys = null;
+        }
+
         /**
          * @return the total number of configurations recorded in this set. If a configuration has
          *         been seen in multiple CASes, it will be counted multiple times.
@@ -876,9 +1170,11 @@ public class CasDiff
 
         private final Map<Position, ConfigurationSet> data;
         private final Set<String> casGroupIds;
-        private final Map<ConfigurationSet, Set<String>> unseenCasGroupIDsCache = new HashMap<>();
+        // Diff results may be cached and shared between threads
+        private final Map<ConfigurationSet, Set<String>> unseenCasGroupIDsCache = //
+                new ConcurrentHashMap<>();
 
-        private Boolean cachedHasDifferences;
+        private volatile Boolean cachedHasDifferences;
 
         private DiffResult(CasDiff aDiff)
         {
@@ -29,6 +29,7 @@ import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CurationTestUti
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CurationTestUtils.loadWebAnnoTsv3;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CurationTestUtils.makeLinkFS;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CurationTestUtils.makeLinkHostFS;
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CurationTestUtils.makeLinkHostMultiSPanFeatureFS;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_ROLE_AS_LABEL;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_TARGET_AS_LABEL;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.relation.RelationDiffAdapter.DEPENDENCY_DIFF_ADAPTER;
@@ -44,6 +45,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.uima.cas.CAS;
@@ -214,6 +216,145 @@ public class CasDiffTest
         // assertEquals(0, agreement.getIncompleteSetsByPosition().size());
     }
 
+    @Test
+    public void indexedAndLinearDiffAreSameForSpansAndRelationsTest() throws Exception
+    {
+        var casByUser = load( //
+                "casdiff/singleSpanDifference/user1.conll", //
+                "casdiff/singleSpanDifference/user2.conll");
+
+        assertIndexedAndLinearDiffAreSame(asList(POS_DIFF_ADAPTER, DEPENDENCY_DIFF_ADAPTER),
+                LINK_TARGET_AS_LABEL, casByUser);
+    }
+
+    @Test
+    public void indexedAndLinearDiffAreSameForStackedRelationsTest() throws Exception
+    {
+        var casByUser = load( //
+                "casdiff/someDifferences/user1.conll", //
+                "casdiff/someDifferences/user2.conll");
+
+        assertIndexedAndLinearDiffAreSame(asList(POS_DIFF_ADAPTER, DEPENDENCY_DIFF_ADAPTER),
+                LINK_TARGET_AS_LABEL, casByUser);
+    }
+
+    @Test
+    public void indexedAndLinearDiffAreSameForLinkFeaturesTest() throws Exception
+    {
+        var jcasA = JCasFactory.createJCas(createMultiLinkWithRoleTestTypeSystem());
+        makeLinkHostFS(jcasA, 0, 0, makeLinkFS(jcasA, "slot1", 0, 0),
+                makeLinkFS(jcasA, "slot1", 10, 10), makeLinkFS(jcasA, "slot2", 10, 10));
+
+        var jcasB = JCasFactory.createJCas(createMultiLinkWithRoleTestTypeSystem());
+        makeLinkHostFS(jcasB, 0, 0, makeLinkFS(jcasB, "slot1", 10, 10),
+                makeLinkFS(jcasB, "slot2", 0, 0));
+
+        var jcasC = JCasFactory.createJCas(createMultiLinkWithRoleTestTypeSystem());
+        makeLinkHostFS(jcasC, 0, 0, makeLinkFS(jcasC, "slot1", 0, 0),
+                makeLinkFS(jcasC, "slot1", 0, 0));
+
+        var casByUser = new LinkedHashMap<String, CAS>();
+        casByUser.put("user2", jcasB.getCas());
+        casByUser.put("user1", jcasA.getCas());
+        casByUser.put("user3", jcasC.getCas());
+
+        var adapter = new SpanDiffAdapter(HOST_TYPE);
+        adapter.addLinkFeature("links", "role", "target");
+
+        assertIndexedAndLinearDiffAreSame(asList(adapter), LINK_TARGET_AS_LABEL, casByUser);
+        assertIndexedAndLinearDiffAreSame(asList(adapter), LINK_ROLE_AS_LABEL, casByUser);
+    }
+
+    @Test
+    public void indexedAndLinearDiffAreSameForLinkTargetsOfDifferentTypesTest() throws Exception
+    {
+        var jcasA = JCasFactory.createJCas(createMultiLinkWithRoleTestTypeSystem());
+        makeLinkHostFS(jcasA, 0, 0, makeLinkFS(jcasA, "slot1", 0, 0));
+
+        // The target is a lemma instead of a token at the same position
+        var jcasB = JCasFactory.createJCas(createMultiLinkWithRoleTestTypeSystem());
+        var lemma = new Lemma(jcasB, 0, 0);
+        lemma.addToIndexes();
+        var link = makeLinkFS(jcasB, "slot1", 0, 0);
+        FSUtil.setFeature(link, "target", lemma);
+        makeLinkHostFS(jcasB, 0, 0, link);
+
+        var casByUser = new LinkedHashMap<String, CAS>();
+        casByUser.put("user1", jcasA.getCas());
+        casByUser.put("user2", jcasB.getCas());
+
+        var adapter = new SpanDiffAdapter(HOST_TYPE);
+        adapter.addLinkFeature("links", "role", "target");
+
+        assertIndexedAndLinearDiffAreSame(asList(adapter), LINK_TARGET_AS_LABEL, casByUser);
+
+        // Targets are compared using the adapter of the target of the first user, so the lemma
+        // is considered to be at the same position as the token
+        var result = doDiff(asList(adapter), LINK_TARGET_AS_LABEL, casByUser).toResult();
+        assertThat(result.getPositions()) //
+                .filteredOn(pos -> pos.getFeature() != null) //
+                .singleElement() //
+                .satisfies(pos -> assertThat(result.getConfigurationSet(pos).getConfigurations())
+                        .singleElement() //
+                        .satisfies(cfg -> assertThat(cfg.getCasGroupIds())
+                                .containsExactlyInAnyOrder("user1", "user2")));
+    }
+
+    @Test
+    public void indexedAndLinearDiffAreSameForCasesAtDifferentUpgradeLevelsTest() throws Exception
+    {
+        var jcasA = JCasFactory.createJCas(createMultiLinkWithRoleTestTypeSystem("f1"));
+        var f1 = jcasA.getTypeSystem().getType(HOST_TYPE).getFeatureByBaseName("f1");
+        makeLinkHostMultiSPanFeatureFS(jcasA, 0, 0, f1, "A");
+        makeLinkHostMultiSPanFeatureFS(jcasA, 0, 0, f1, "B");
+        makeLinkHostMultiSPanFeatureFS(jcasA, 10, 10, f1, null);
+
+        // Not upgraded yet, so the feature does not exist
+        var jcasB = JCasFactory.createJCas(createMultiLinkWithRoleTestTypeSystem());
+        makeLinkHostFS(jcasB, 0, 0);
+        makeLinkHostFS(jcasB, 10, 10);
+
+        var jcasC = JCasFactory.createJCas(createMultiLinkWithRoleTestTypeSystem("f1"));
+        var f1C = jcasC.getTypeSystem().getType(HOST_TYPE).getFeatureByBaseName("f1");
+        makeLinkHostMultiSPanFeatureFS(jcasC, 0, 0, f1C, "A");
+        makeLinkHostMultiSPanFeatureFS(jcasC, 10, 10, f1C, "C");
+
+        var casByUser = new LinkedHashMap<String, CAS>();
+        casByUser.put("user1", jcasA.getCas());
+        casByUser.put("user2", jcasB.getCas());
+        casByUser.put("user3", jcasC.getCas());
+
+        var adapter = new SpanDiffAdapter(HOST_TYPE, "f1");
+
+        assertIndexedAndLinearDiffAreSame(asList(adapter), LINK_TARGET_AS_LABEL, casByUser);
+    }
+
+    private static void assertIndexedAndLinearDiffAreSame(List<? extends DiffAdapter> aAdapters,
+            LinkCompareBehavior aLinkCompareBehavior, Map<String, CAS> aCasByUser)
+    {
+        var indexed = doDiff(aAdapters, aLinkCompareBehavior, aCasByUser, -1, -1, true)
+                .toResult();
+        var linear = doDiff(aAdapters, aLinkCompareBehavior, aCasByUser, -1, -1, false)
+                .toResult();
+
+        assertThat(indexed.getPositions()).hasSameSizeAs(linear.getPositions());
+        assertThat(indexed.getCasGroupIds()).containsExactlyElementsOf(linear.getCasGroupIds());
+        for (var pos : linear.getPositions()) {
+            var expected = linear.getConfigurationSet(pos);
+            var actual = indexed.getConfigurationSet(pos);
+            assertThat(actual).isNotNull();
+            assertThat(actual.getCasGroupIds()).isEqualTo(expected.getCasGroupIds());
+            assertThat(actual.getConfigurations()).extracting(Object::toString)
+                    .containsExactlyElementsOf(expected.getConfigurations().stream()
+                            .map(Object::toString).toList());
+        }
+        assertThat(indexed.getDifferingConfigurationSets().keySet())
+                .hasSameSizeAs(linear.getDifferingConfigurationSets().keySet());
+        assertThat(indexed.getIncompleteConfigurationSets().keySet())
+                .hasSameSizeAs(linear.getIncompleteConfigurationSets().keySet());
+        assertThat(calculateState(indexed)).isEqualTo(calculateState(linear));
+    }
+
     @Test
     public void singleDifferencesTest() throws Exception
     {
@@ -28,6 +28,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.DocumentImportExportService;
 import de.tudarmstadt.ukp.inception.curation.export.CuratedDocumentsExporter;
 import de.tudarmstadt.ukp.inception.curation.export.CurationWorkflowExporter;
@@ -38,6 +39,8 @@ import de.tudarmstadt.ukp.inception.curation.merge.MergeStrategyFactoryExtension
 import de.tudarmstadt.ukp.inception.curation.merge.MergeStrategyFactoryExtensionPointImpl;
 import de.tudarmstadt.ukp.inception.curation.merge.ThresholdBasedMergeStrategyFactory;
 import de.tudarmstadt.ukp.inception.curation.merge.ThresholdBasedMergeStrategyFactoryImpl;
+import de.tudarmstadt.ukp.inception.curation.service.CasDiffCache;
+import de.tudarmstadt.ukp.inception.curation.service.CasDiffCacheImpl;
 import de.tudarmstadt.ukp.inception.curation.service.CurationMergeService;
 import de.tudarmstadt.ukp.inception.curation.service.CurationMergeServiceImpl;
 import de.tudarmstadt.ukp.inception.curation.service.CurationService;
@@ -79,12 +82,19 @@ public class CurationServiceAutoConfiguration
         return new CurationServiceImpl(entityManager, aMergeStrategyFactoryExtensionPoint);
     }
 
+    @Bean
+    public CasDiffCache casDiffCache(CasStorageService aCasStorageService)
+    {
+        return new CasDiffCacheImpl(aCasStorageService);
+    }
+
     @Bean
     public CurationMergeService curationMergeService(AnnotationSchemaService aAnnotationService,
             AnnotationSchemaProperties aAnnotationEditorProperties,
-            ApplicationEventPublisher aApplicationEventPublisher)
+            ApplicationEventPublisher aApplicationEventPublisher, CasDiffCache aCasDiffCache)
     {
-        return new CurationMergeServiceImpl(aAnnotationService, aApplicationEventPublisher);
+        return new CurationMergeServiceImpl(aAnnotationService, aApplicationEventPublisher,
+                aCasDiffCache);
     }
 
     @Bean
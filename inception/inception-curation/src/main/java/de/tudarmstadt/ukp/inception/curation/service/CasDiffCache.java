@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.curation.service;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.cas.CAS;
+
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.DiffResult;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.DiffAdapter;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+
+/**
+ * Cache for {@link DiffResult diff results} shared by the curation page, the curation sidebar and
+ * the merge operations.
+ */
+public interface CasDiffCache
+{
+    /**
+     * Calculates the differences between the given CASes or returns a previously calculated result
+     * if none of the CASes has been changed since. The CASes must be the persisted CASes of the
+     * users they are mapped to. If any of them has not been persisted yet, the diff is calculated
+     * without caching.
+     * 
+     * @param aDocument
+     *            the document the CASes belong to.
+     * @param aAdapters
+     *            the diff adapters.
+     * @param aLinkCompareBehavior
+     *            how to compare link features.
+     * @param aCasses
+     *            the CASes to compare, mapped by the user name of their owners.
+     * @param aBegin
+     *            the begin of the window to compare.
+     * @param aEnd
+     *            the end of the window to compare.
+     * @return the diff result.
+     */
+    DiffResult getDiff(SourceDocument aDocument, List<? extends DiffAdapter> aAdapters,
+            LinkCompareBehavior aLinkCompareBehavior, Map<String, CAS> aCasses, int aBegin,
+            int aEnd);
+
+    /**
+     * Drops all cached results involving the CAS of the given user for the given document.
+     * 
+     * @param aDocument
+     *            the document.
+     * @param aUsername
+     *            the user owning the CAS.
+     */
+    void invalidate(SourceDocument aDocument, String aUsername);
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.curation.service;
+
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiff;
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.uima.cas.CAS;
+import org.slf4j.Logger;
+import org.springframework.context.event.EventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.DiffResult;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.DiffAdapter;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.curation.config.CurationServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
+import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
+
+/**
+ * <p>
+ * This class is exposed as a Spring Component via
+ * {@link CurationServiceAutoConfiguration#casDiffCache}.
+ * </p>
+ */
+public class CasDiffCacheImpl
+    implements CasDiffCache
+{
+    private final static Logger LOG = getLogger(lookup().lookupClass());
+
+    /**
+     * Upper bound of the estimated memory in bytes occupied by the cached results.
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 64 * 1024 * 1024;
+
+    // Rough estimates of the memory occupied by the parts of a diff result
+    private static final int WEIGHT_BASE = 512;
+    private static final int WEIGHT_CONFIGURATION_SET = 256;
+    private static final int WEIGHT_CONFIGURATION = 128;
+    private static final int WEIGHT_CAS_GROUP_ENTRY = 96;
+
+    private final CasStorageService casStorageService;
+    private final Cache<DiffKey, DiffResult> cache;
+
+    public CasDiffCacheImpl(CasStorageService aCasStorageService)
+    {
+        this(aCasStorageService, DEFAULT_MAXIMUM_WEIGHT);
+    }
+
+    public CasDiffCacheImpl(CasStorageService aCasStorageService, long aMaximumWeight)
+    {
+        casStorageService = aCasStorageService;
+        cache = Caffeine.newBuilder() //
+                .maximumWeight(aMaximumWeight) //
+                .weigher((DiffKey key, DiffResult value) -> weigh(value)) //
+                .build();
+    }
+
+    @Override
+    public DiffResult getDiff(SourceDocument aDocument, List<? extends DiffAdapter> aAdapters,
+            LinkCompareBehavior aLinkCompareBehavior, Map<String, CAS> aCasses, int aBegin,
+            int aEnd)
+    {
+        var key = createKey(aDocument, aAdapters, aLinkCompareBehavior, aCasses, aBegin, aEnd);
+
+        if (key == null) {
+            return doDiff(aAdapters, aLinkCompareBehavior, aCasses, aBegin, aEnd).toResult();
+        }
+
+        return cache.get(key,
+                k -> doDiff(aAdapters, aLinkCompareBehavior, aCasses, aBegin, aEnd).toResult());
+    }
+
+    @Override
+    public void invalidate(SourceDocument aDocument, String aUsername)
+    {
+        cache.asMap().keySet().removeIf(key -> Objects.equals(key.documentId, aDocument.getId())
+                && key.casTimestamps.containsKey(aUsername));
+    }
+
+    @EventListener
+    public void onAfterCasWritten(AfterCasWrittenEvent aEvent)
+    {
+        invalidate(aEvent.getDocument().getDocument(), aEvent.getDocument().getUser());
+    }
+
+    @EventListener
+    public void onBeforeDocumentRemoved(BeforeDocumentRemovedEvent aEvent)
+    {
+        var documentId = aEvent.getDocument().getId();
+        cache.asMap().keySet().removeIf(key -> Objects.equals(key.documentId, documentId));
+    }
+
+    @EventListener
+    public void onLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    {
+        // The layer configuration determines how annotations are compared, so we drop all results
+        // for the project
+        var projectId = aEvent.getProject().getId();
+        cache.asMap().keySet().removeIf(key -> Objects.equals(key.projectId, projectId));
+    }
+
+    /**
+     * @return the cache key or {@code null} if the result must not be cached because the timestamp
+     *         of one of the CASes could not be determined.
+     */
+    private DiffKey createKey(SourceDocument aDocument, List<? extends DiffAdapter> aAdapters,
+            LinkCompareBehavior aLinkCompareBehavior, Map<String, CAS> aCasses, int aBegin,
+            int aEnd)
+    {
+        if (aDocument == null || aDocument.getId() == null) {
+            return null;
+        }
+
+        var casTimestamps = new TreeMap<String, Long>();
+        for (var username : aCasses.keySet()) {
+            try {
+                var timestamp = casStorageService.getCasTimestamp(aDocument, username);
+                if (timestamp.isEmpty()) {
+                    return null;
+                }
+                casTimestamps.put(username, timestamp.get());
+            }
+            catch (IOException e) {
+                LOG.debug("Unable to determine timestamp of CAS for user [{}] on document {}",
+                        username, aDocument, e);
+                return null;
+            }
+        }
+
+        var adapterSignatures = new TreeSet<String>();
+        for (var adapter : aAdapters) {
+            adapterSignatures.add(adapter.getType() + new TreeSet<>(adapter.getLabelFeatures()));
+        }
+
+        return new DiffKey(aDocument.getProject().getId(), aDocument.getId(), aBegin, aEnd,
+                adapterSignatures, aLinkCompareBehavior, List.copyOf(aCasses.keySet()),
+                casTimestamps);
+    }
+
+    static int weigh(DiffResult aResult)
+    {
+        long weight = WEIGHT_BASE;
+        for (var cfgSet : aResult.getConfigurationSets()) {
+            weight += WEIGHT_CONFIGURATION_SET;
+            for (var cfg : cfgSet.getConfigurations()) {
+                weight += WEIGHT_CONFIGURATION
+                        + WEIGHT_CAS_GROUP_ENTRY * cfg.getCasGroupIds().size();
+            }
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    long estimatedSize()
+    {
+        return cache.estimatedSize();
+    }
+
+    private record DiffKey(Long projectId, Long documentId, int begin, int end,
+            SortedSet<String> adapterSignatures, LinkCompareBehavior linkCompareBehavior,
+            List<String> casGroupIds, SortedMap<String, Long> casTimestamps)
+    {}
+}
@@ -17,7 +17,6 @@
  */
 package de.tudarmstadt.ukp.inception.curation.service;
 
-import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiff;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.getDiffAdapters;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_ROLE_AS_LABEL;
 import static java.lang.Integer.MAX_VALUE;
@@ -60,12 +59,14 @@ public class CurationMergeServiceImpl
 
     private final AnnotationSchemaService annotationService;
     private final ApplicationEventPublisher applicationEventPublisher;
+    private final CasDiffCache casDiffCache;
 
     public CurationMergeServiceImpl(AnnotationSchemaService aAnnotationService,
-            ApplicationEventPublisher aApplicationEventPublisher)
+            ApplicationEventPublisher aApplicationEventPublisher, CasDiffCache aCasDiffCache)
     {
         annotationService = aAnnotationService;
         applicationEventPublisher = aApplicationEventPublisher;
+        casDiffCache = aCasDiffCache;
     }
 
     @Override
@@ -103,7 +104,8 @@ public class CurationMergeServiceImpl
 
         DiffResult diff;
         try (StopWatch watch = new StopWatch(LOG, "CasDiff")) {
-            diff = doDiff(adapters, LINK_ROLE_AS_LABEL, aCassesToMerge, 0, MAX_VALUE).toResult();
+            diff = casDiffCache.getDiff(aDocument, adapters, LINK_ROLE_AS_LABEL, aCassesToMerge, 0,
+                    MAX_VALUE);
         }
 
         try (StopWatch watch = new StopWatch(LOG, "CasMerge")) {
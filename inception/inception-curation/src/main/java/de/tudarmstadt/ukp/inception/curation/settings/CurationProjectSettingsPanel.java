@@ -28,11 +28,15 @@ import org.apache.wicket.model.LoadableDetachableModel;
 import org.apache.wicket.spring.injection.annot.SpringBean;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.clarin.webanno.ui.core.settings.ProjectSettingsPanelBase;
 import de.tudarmstadt.ukp.inception.curation.model.CurationWorkflow;
 import de.tudarmstadt.ukp.inception.curation.service.CurationService;
+import de.tudarmstadt.ukp.inception.curation.tasks.MergeProjectTask;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.support.lambda.LambdaAjaxButton;
+import de.tudarmstadt.ukp.inception.support.lambda.LambdaAjaxLink;
 
 public class CurationProjectSettingsPanel
     extends ProjectSettingsPanelBase
@@ -42,9 +46,12 @@ public class CurationProjectSettingsPanel
     private static final String MID_FORM = "form";
     private static final String MID_MERGE_STRATEGY = "mergeStrategy";
     private static final String MID_SAVE = "save";
+    private static final String MID_MERGE_ALL = "mergeAll";
 
     private @SpringBean CurationService curationService;
     private @SpringBean ProjectService projectService;
+    private @SpringBean SchedulingService schedulingService;
+    private @SpringBean UserDao userService;
 
     private IModel<CurationWorkflow> curationWorkflowModel;
 
@@ -66,6 +73,8 @@ public class CurationProjectSettingsPanel
         form.add(new CheckBox("anonymousCuration").setOutputMarkupPlaceholderTag(true));
 
         form.add(new LambdaAjaxButton<>(MID_SAVE, this::actionSave).triggerAfterSubmit());
+
+        form.add(new LambdaAjaxLink(MID_MERGE_ALL, this::actionMergeAll));
     }
 
     @Override
@@ -91,4 +100,16 @@ public class CurationProjectSettingsPanel
         success("Settings saved");
         aTarget.addChildren(getPage(), IFeedback.class);
     }
+
+    private void actionMergeAll(AjaxRequestTarget aTarget)
+    {
+        schedulingService.enqueue(MergeProjectTask.builder() //
+                .withSessionOwner(userService.getCurrentUser()) //
+                .withProject(getModelObject()) //
+                .withTrigger("Curation settings") //
+                .build());
+
+        info("Merging started in the background");
+        aTarget.addChildren(getPage(), IFeedback.class);
+    }
 }
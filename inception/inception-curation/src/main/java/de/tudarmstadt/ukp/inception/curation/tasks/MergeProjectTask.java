@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.curation.tasks;
+
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.UNMANAGED_ACCESS;
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.FORCE_CAS_UPGRADE;
+import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.CURATION_FINISHED;
+import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.CURATION_IN_PROGRESS;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.DISCARD_OR_QUEUE_THIS;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.NO_MATCH;
+import static de.tudarmstadt.ukp.inception.scheduling.TaskScope.PROJECT;
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.CURATION_USER;
+import static java.util.Comparator.comparing;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.uima.cas.CAS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
+import de.tudarmstadt.ukp.inception.curation.merge.strategy.MergeStrategy;
+import de.tudarmstadt.ukp.inception.curation.service.CurationDocumentService;
+import de.tudarmstadt.ukp.inception.curation.service.CurationMergeService;
+import de.tudarmstadt.ukp.inception.curation.service.CurationService;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.MatchResult;
+import de.tudarmstadt.ukp.inception.scheduling.MatchableTask;
+import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.scheduling.TaskState;
+import de.tudarmstadt.ukp.inception.support.logging.LogLevel;
+import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
+
+/**
+ * Merges the annotations of all documents in a project on which curation has not started yet into
+ * their curation CASes using the default merge strategy of the project. Documents are merged in
+ * parallel and the resulting curation CASes are written in batches. Documents for which none of
+ * the annotator CASes has changed since the last merge are skipped.
+ */
+public class MergeProjectTask
+    extends Task
+    implements MatchableTask
+{
+    public static final String TYPE = "MergeProjectTask";
+
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    static final String STATE_FILE = "curation-merge.properties";
+
+    public static final int DEFAULT_WORKERS = Math.max(1,
+            Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    public static final int DEFAULT_BATCH_SIZE = 10;
+
+    private @Autowired DocumentService documentService;
+    private @Autowired CurationDocumentService curationDocumentService;
+    private @Autowired CurationMergeService curationMergeService;
+    private @Autowired CurationService curationService;
+    private @Autowired CasStorageService casStorageService;
+    private @Autowired ProjectService projectService;
+
+    private final int workers;
+    private final int batchSize;
+
+    public MergeProjectTask(Builder<? extends Builder<?>> aBuilder)
+    {
+        super(aBuilder.withType(TYPE).withScope(PROJECT));
+
+        workers = aBuilder.workers;
+        batchSize = aBuilder.batchSize;
+    }
+
+    @Override
+    public String getTitle()
+    {
+        return "Merging annotations...";
+    }
+
+    @Override
+    public void execute()
+    {
+        var monitor = getMonitor();
+        var project = getProject();
+        var mergeStrategy = curationService.getDefaultMergeStrategy(project);
+
+        var stateFile = new File(projectService.getProjectFolder(project), STATE_FILE);
+        Properties mergeState;
+        try {
+            mergeState = loadState(stateFile);
+        }
+        catch (IOException e) {
+            LOG.warn("Unable to read merge state of project {} - merging all documents", project,
+                    e);
+            mergeState = new Properties();
+        }
+
+        var jobs = new ArrayList<MergeJob>();
+        var unchanged = 0;
+        for (var doc : curationDocumentService.listCuratableSourceDocuments(project)) {
+            // Do not override the work of curators
+            if (doc.getState() == CURATION_IN_PROGRESS || doc.getState() == CURATION_FINISHED) {
+                continue;
+            }
+
+            var annDocs = curationDocumentService.listCuratableAnnotationDocuments(doc);
+            if (annDocs.isEmpty()) {
+                continue;
+            }
+
+            try {
+                var fingerprint = fingerprint(doc, annDocs, mergeStrategy);
+                if (fingerprint.equals(mergeState.getProperty(String.valueOf(doc.getId())))
+                        && curationDocumentService.existsCurationCas(doc)) {
+                    unchanged++;
+                    continue;
+                }
+
+                jobs.add(new MergeJob(doc, annDocs, fingerprint));
+            }
+            catch (IOException e) {
+                monitor.addMessage(LogMessage.error(this, "%s: %s", doc.getName(),
+                        ExceptionUtils.getRootCauseMessage(e)));
+            }
+        }
+
+        LOG.info("Merging {} documents in project {} ({} unchanged documents skipped)",
+                jobs.size(), project, unchanged);
+
+        monitor.setProgressWithMessage(0, jobs.size(), LogMessage.info(this,
+                "Merging %d documents (%d unchanged)", jobs.size(), unchanged));
+
+        var merged = 0;
+        var totalConflicts = 0;
+        var executor = Executors.newFixedThreadPool(workers);
+        try {
+            for (var batchStart = 0; batchStart < jobs.size(); batchStart += batchSize) {
+                if (monitor.isCancelled()) {
+                    monitor.setState(TaskState.CANCELLED);
+                    return;
+                }
+
+                var batch = jobs.subList(batchStart, Math.min(batchStart + batchSize, jobs.size()));
+                var results = mergeBatch(executor, batch, mergeStrategy);
+
+                try (var session = CasStorageSession.open()) {
+                    for (var result : results) {
+                        curationDocumentService.writeCurationCas(result.cas(),
+                                result.job().document(), false);
+                        mergeState.setProperty(String.valueOf(result.job().document().getId()),
+                                result.job().fingerprint());
+
+                        merged++;
+                        totalConflicts += result.conflicts();
+                        if (result.conflicts() > 0) {
+                            monitor.addMessage(LogMessage.warn(this, "%s: %d conflicts",
+                                    result.job().document().getName(), result.conflicts()));
+                        }
+                    }
+                }
+
+                saveState(stateFile, mergeState);
+
+                monitor.setProgressWithMessage(batchStart + batch.size(), jobs.size(),
+                        LogMessage.info(this, "%d of %d documents merged", merged, jobs.size()));
+            }
+        }
+        catch (IOException e) {
+            LOG.error("Error merging documents in project {}", project, e);
+            monitor.addMessage(LogMessage.error(this, "Error merging documents: %s",
+                    ExceptionUtils.getRootCauseMessage(e)));
+            monitor.setState(TaskState.FAILED);
+            return;
+        }
+        finally {
+            shutdown(executor);
+        }
+
+        monitor.addMessage(LogMessage.info(this, "Merged %d documents with %d conflicts", merged,
+                totalConflicts));
+    }
+
+    private List<MergeResult> mergeBatch(ExecutorService aExecutor, List<MergeJob> aBatch,
+            MergeStrategy aMergeStrategy)
+    {
+        var futures = new ArrayList<Future<MergeResult>>();
+        for (var job : aBatch) {
+            futures.add(aExecutor.submit(() -> merge(job, aMergeStrategy)));
+        }
+
+        var results = new ArrayList<MergeResult>();
+        for (var i = 0; i < futures.size(); i++) {
+            var document = aBatch.get(i).document();
+            try {
+                results.add(futures.get(i).get());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                getMonitor().setState(TaskState.CANCELLED);
+                break;
+            }
+            catch (ExecutionException e) {
+                LOG.error("Error merging document {}", document, e.getCause());
+                getMonitor().addMessage(LogMessage.error(this, "%s: %s", document.getName(),
+                        ExceptionUtils.getRootCauseMessage(e.getCause())));
+            }
+        }
+
+        return results;
+    }
+
+    private MergeResult merge(MergeJob aJob, MergeStrategy aMergeStrategy) throws Exception
+    {
+        try (var session = CasStorageSession.open()) {
+            var casses = documentService.readAllCasesSharedNoUpgrade(aJob.annotationDocuments());
+
+            // We need a modifiable copy of some annotation document which we can use to initialize
+            // the curation CAS
+            var template = aJob.annotationDocuments().get(0);
+            var mergeCas = documentService.readAnnotationCas(template.getDocument(),
+                    template.getUser(), FORCE_CAS_UPGRADE, UNMANAGED_ACCESS);
+
+            var messages = curationMergeService.mergeCasses(aJob.document(), CURATION_USER,
+                    mergeCas, casses, aMergeStrategy);
+
+            var conflicts = (int) messages.stream() //
+                    .filter(msg -> msg.getLevel() == LogLevel.ERROR) //
+                    .count();
+
+            return new MergeResult(aJob, mergeCas, conflicts);
+        }
+    }
+
+    /**
+     * The fingerprint captures everything that affects the merge result: the merge strategy and
+     * the annotators with the timestamps of their CASes.
+     */
+    private String fingerprint(SourceDocument aDocument, List<AnnotationDocument> aAnnDocs,
+            MergeStrategy aMergeStrategy)
+        throws IOException
+    {
+        var sb = new StringBuilder();
+        sb.append(aMergeStrategy);
+        for (var annDoc : aAnnDocs.stream().sorted(comparing(AnnotationDocument::getUser))
+                .toList()) {
+            sb.append('|');
+            sb.append(annDoc.getUser());
+            sb.append(':');
+            sb.append(casStorageService.getCasTimestamp(aDocument, annDoc.getUser()).orElse(-1l));
+        }
+        return sb.toString();
+    }
+
+    private static Properties loadState(File aFile) throws IOException
+    {
+        var state = new Properties();
+        if (aFile.exists()) {
+            try (InputStream is = new FileInputStream(aFile)) {
+                state.load(is);
+            }
+        }
+        return state;
+    }
+
+    private static void saveState(File aFile, Properties aState) throws IOException
+    {
+        try (OutputStream os = new FileOutputStream(aFile)) {
+            aState.store(os, null);
+        }
+    }
+
+    private static void shutdown(ExecutorService aExecutor)
+    {
+        aExecutor.shutdownNow();
+        try {
+            aExecutor.awaitTermination(30, SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public MatchResult matches(Task aTask)
+    {
+        // A merge which has not started yet will pick up all changes anyway
+        if (aTask instanceof MergeProjectTask) {
+            if (Objects.equals(aTask.getProject().getId(), getProject().getId())) {
+                return DISCARD_OR_QUEUE_THIS;
+            }
+        }
+
+        return NO_MATCH;
+    }
+
+    private record MergeJob(SourceDocument document, List<AnnotationDocument> annotationDocuments,
+            String fingerprint)
+    {}
+
+    private record MergeResult(MergeJob job, CAS cas, int conflicts)
+    {}
+
+    public static Builder<Builder<?>> builder()
+    {
+        return new Builder<>();
+    }
+
+    public static class Builder<T extends Builder<?>>
+        extends Task.Builder<T>
+    {
+        private int workers = DEFAULT_WORKERS;
+        private int batchSize = DEFAULT_BATCH_SIZE;
+
+        protected Builder()
+        {
+            withCancellable(true);
+        }
+
+        @SuppressWarnings("unchecked")
+        public T withWorkers(int aWorkers)
+        {
+            workers = Math.max(1, aWorkers);
+            return (T) this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T withBatchSize(int aBatchSize)
+        {
+            batchSize = Math.max(1, aBatchSize);
+            return (T) this;
+        }
+
+        public MergeProjectTask build()
+        {
+            return new MergeProjectTask(this);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.curation.service;
+
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_ROLE_AS_LABEL;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.fit.factory.CasFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+
+class CasDiffCacheImplTest
+{
+    private CasStorageService casStorageService;
+    private CasDiffCacheImpl sut;
+    private SourceDocument document;
+    private Map<String, CAS> casses;
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        casStorageService = mock(CasStorageService.class);
+        sut = new CasDiffCacheImpl(casStorageService);
+
+        var project = new Project("test");
+        project.setId(1l);
+        document = new SourceDocument("doc", project, "text");
+        document.setId(2l);
+
+        casses = new LinkedHashMap<>();
+        casses.put("user1", CasFactory.createCas());
+        casses.put("user2", CasFactory.createCas());
+
+        when(casStorageService.getCasTimestamp(any(), eq("user1"))).thenReturn(Optional.of(10l));
+        when(casStorageService.getCasTimestamp(any(), eq("user2"))).thenReturn(Optional.of(20l));
+    }
+
+    @Test
+    void thatResultIsReusedWhileCassesAreUnchanged()
+    {
+        var diff1 = sut.getDiff(document, emptyList(), LINK_ROLE_AS_LABEL, casses, 0, 10);
+        var diff2 = sut.getDiff(document, emptyList(), LINK_ROLE_AS_LABEL, casses, 0, 10);
+
+        assertThat(diff2).isSameAs(diff1);
+    }
+
+    @Test
+    void thatDifferentWindowsAreCachedSeparately()
+    {
+        var diff1 = sut.getDiff(document, emptyList(), LINK_ROLE_AS_LABEL, casses, 0, 10);
+        var diff2 = sut.getDiff(document, emptyList(), LINK_ROLE_AS_LABEL, casses, 10, 20);
+
+        assertThat(diff2).isNotSameAs(diff1);
+    }
+
+    @Test
+    void thatChangedCasTimestampProducesNewResult() throws Exception
+    {
+        var diff1 = sut.getDiff(document, emptyList(), LINK_ROLE_AS_LABEL, casses, 0, 10);
+
+        when(casStorageService.getCasTimestamp(any(), eq("user2"))).thenReturn(Optional.of(30l));
+
+        var diff2 = sut.getDiff(document, emptyList(), LINK_ROLE_AS_LABEL, casses, 0, 10);
+
+        assertThat(diff2).isNotSameAs(diff1);
+    }
+
+    @Test
+    void thatUnpersistedCasIsNotCached() throws Exception
+    {
+        when(casStorageService.getCasTimestamp(any(), eq("user2"))).thenReturn(Optional.empty());
+
+        sut.getDiff(document, emptyList(), LINK_ROLE_AS_LABEL, casses, 0, 10);
+
+        assertThat(sut.estimatedSize()).isZero();
+    }
+
+    @Test
+    void thatInvalidationOnlyAffectsResultsInvolvingTheUser()
+    {
+        sut.getDiff(document, emptyList(), LINK_ROLE_AS_LABEL, casses, 0, 10);
+        sut.getDiff(document, emptyList(), LINK_ROLE_AS_LABEL, Map.of("user1", casses.get("user1")),
+                0, 10);
+
+        sut.invalidate(document, "user2");
+
+        assertThat(sut.estimatedSize()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.curation.tasks;
+
+import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.CURATION_IN_PROGRESS;
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.CURATION_USER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.cas.CAS;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode;
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.curation.merge.strategy.MergeStrategy;
+import de.tudarmstadt.ukp.inception.curation.service.CurationDocumentService;
+import de.tudarmstadt.ukp.inception.curation.service.CurationMergeService;
+import de.tudarmstadt.ukp.inception.curation.service.CurationService;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.TaskState;
+import de.tudarmstadt.ukp.inception.support.logging.LogLevel;
+
+@ExtendWith(MockitoExtension.class)
+class MergeProjectTaskTest
+{
+    private @TempDir File projectFolder;
+
+    private @Mock DocumentService documentService;
+    private @Mock CurationDocumentService curationDocumentService;
+    private @Mock CurationMergeService curationMergeService;
+    private @Mock CurationService curationService;
+    private @Mock CasStorageService casStorageService;
+    private @Mock ProjectService projectService;
+    private @Mock MergeStrategy mergeStrategy;
+
+    private final Project project = new Project("test");
+
+    private @InjectMocks MergeProjectTask sut = MergeProjectTask.builder() //
+            .withProject(project) //
+            .withTrigger("test") //
+            .withWorkers(1) //
+            .withBatchSize(1) //
+            .build();
+
+    private SourceDocument doc1;
+    private SourceDocument doc2;
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        project.setId(1l);
+
+        doc1 = new SourceDocument("doc1.txt", project, "text");
+        doc1.setId(1l);
+        doc2 = new SourceDocument("doc2.txt", project, "text");
+        doc2.setId(2l);
+
+        sut.afterPropertiesSet();
+
+        when(curationService.getDefaultMergeStrategy(project)).thenReturn(mergeStrategy);
+        when(projectService.getProjectFolder(project)).thenReturn(projectFolder);
+        when(curationDocumentService.listCuratableSourceDocuments(project))
+                .thenReturn(List.of(doc1, doc2));
+        when(curationDocumentService.listCuratableAnnotationDocuments(any()))
+                .then(call -> annotationDocuments(call.getArgument(0)));
+        when(casStorageService.getCasTimestamp(any(), anyString())).thenReturn(Optional.of(1l));
+        when(documentService.readAllCasesSharedNoUpgrade(anyList())).thenReturn(Map.of());
+        when(documentService.readAnnotationCas(any(SourceDocument.class), anyString(),
+                any(CasUpgradeMode.class), any(CasAccessMode.class)))
+                        .then(call -> mock(CAS.class));
+        when(curationMergeService.mergeCasses(any(), eq(CURATION_USER), any(), any(),
+                eq(mergeStrategy))).thenReturn(Set.of());
+    }
+
+    @Test
+    void thatUnchangedDocumentsAreSkipped() throws Exception
+    {
+        when(curationDocumentService.existsCurationCas(any())).thenReturn(true);
+
+        sut.execute();
+        sut.execute();
+
+        verify(curationDocumentService, times(1)).writeCurationCas(any(), eq(doc1), eq(false));
+        verify(curationDocumentService, times(1)).writeCurationCas(any(), eq(doc2), eq(false));
+        assertThat(loadState()) //
+                .containsOnlyKeys("1", "2");
+    }
+
+    @Test
+    void thatDocumentsWithoutCurationCasAreMergedAgain() throws Exception
+    {
+        when(curationDocumentService.existsCurationCas(doc1)).thenReturn(false);
+        when(curationDocumentService.existsCurationCas(doc2)).thenReturn(true);
+
+        sut.execute();
+        sut.execute();
+
+        verify(curationDocumentService, times(2)).writeCurationCas(any(), eq(doc1), eq(false));
+        verify(curationDocumentService, times(1)).writeCurationCas(any(), eq(doc2), eq(false));
+    }
+
+    @Test
+    void thatChangedDocumentsAreMergedAgain() throws Exception
+    {
+        when(curationDocumentService.existsCurationCas(any())).thenReturn(true);
+
+        sut.execute();
+
+        when(casStorageService.getCasTimestamp(doc1, "anno1")).thenReturn(Optional.of(2l));
+
+        sut.execute();
+
+        verify(curationDocumentService, times(2)).writeCurationCas(any(), eq(doc1), eq(false));
+        verify(curationDocumentService, times(1)).writeCurationCas(any(), eq(doc2), eq(false));
+    }
+
+    @Test
+    void thatDocumentsInCurationAreNotTouched() throws Exception
+    {
+        doc1.setState(CURATION_IN_PROGRESS);
+
+        sut.execute();
+
+        verify(curationDocumentService, never()).writeCurationCas(any(), eq(doc1), eq(false));
+        verify(curationDocumentService, times(1)).writeCurationCas(any(), eq(doc2), eq(false));
+    }
+
+    @Test
+    void thatFailedMergeIsReportedAndRetriedOnNextRun() throws Exception
+    {
+        when(curationDocumentService.existsCurationCas(any())).thenReturn(true);
+        doThrow(new UIMAException()).when(curationMergeService).mergeCasses(eq(doc1),
+                eq(CURATION_USER), any(), any(), eq(mergeStrategy));
+
+        sut.execute();
+
+        verify(curationDocumentService, never()).writeCurationCas(any(), eq(doc1), eq(false));
+        verify(curationDocumentService, times(1)).writeCurationCas(any(), eq(doc2), eq(false));
+        assertThat(sut.getMonitor().getState()).isNotEqualTo(TaskState.FAILED);
+        assertThat(sut.getMonitor().getMessages()) //
+                .anyMatch(msg -> msg.getLevel() == LogLevel.ERROR
+                        && msg.getMessage().startsWith("doc1.txt"));
+        assertThat(loadState()) //
+                .containsOnlyKeys("2");
+
+        doReturn(Set.of()).when(curationMergeService).mergeCasses(eq(doc1), eq(CURATION_USER),
+                any(), any(), eq(mergeStrategy));
+
+        sut.execute();
+
+        verify(curationDocumentService, times(1)).writeCurationCas(any(), eq(doc1), eq(false));
+        verify(curationDocumentService, times(1)).writeCurationCas(any(), eq(doc2), eq(false));
+    }
+
+    @Test
+    void thatFailedWriteFailsTaskAndKeepsStateOfCompletedBatches() throws Exception
+    {
+        doThrow(new IOException("disk full")).when(curationDocumentService)
+                .writeCurationCas(any(), eq(doc2), eq(false));
+
+        sut.execute();
+
+        assertThat(sut.getMonitor().getState()).isEqualTo(TaskState.FAILED);
+        assertThat(loadState()) //
+                .containsOnlyKeys("1");
+    }
+
+    private List<AnnotationDocument> annotationDocuments(SourceDocument aDocument)
+    {
+        return List.of( //
+                new AnnotationDocument("anno1", aDocument), //
+                new AnnotationDocument("anno2", aDocument));
+    }
+
+    private Properties loadState() throws IOException
+    {
+        var state = new Properties();
+        var file = new File(projectFolder, MergeProjectTask.STATE_FILE);
+        if (file.exists()) {
+            try (var is = new FileInputStream(file)) {
+                state.load(is);
+            }
+        }
+        return state;
+    }
+}
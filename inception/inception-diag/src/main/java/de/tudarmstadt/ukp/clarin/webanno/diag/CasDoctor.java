@@ -17,22 +17,35 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.diag;
 
+import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.getRealCas;
 import static de.tudarmstadt.ukp.inception.support.wicket.WicketUtil.serverTiming;
 import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
 import static java.util.Arrays.asList;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASRuntimeException;
+import org.apache.uima.cas.Marker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
 
 import de.tudarmstadt.ukp.clarin.webanno.diag.checks.Check;
 import de.tudarmstadt.ukp.clarin.webanno.diag.config.CasDoctorProperties;
@@ -41,6 +54,7 @@ import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.inception.support.SettingsUtil;
 import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
 
+@ManagedResource("de.tudarmstadt.ukp.clarin.webanno.diag:type=CasDoctor")
 public class CasDoctor
 {
     private static final Logger LOG = LoggerFactory.getLogger(CasDoctor.class);
@@ -54,6 +68,21 @@ public class CasDoctor
     private boolean fatalChecks = true;
     private boolean disableAutoScan = false;
 
+    private boolean incremental = false;
+    private int fullCheckInterval = 1;
+    private final AtomicLong analysisCounter = new AtomicLong();
+
+    /**
+     * Markers set when a CAS instance was first read or written. UIMA allows only a single marker
+     * per CAS, so the marker is created once and then reused for the lifetime of the CAS instance.
+     * The journal of the marker is thus bounded by the size of the CAS. The marker is only weakly
+     * referenced because it refers back to its CAS which would otherwise never be released.
+     */
+    private final Map<CAS, WeakReference<Marker>> markers = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private final Map<String, CheckStatistics> statistics = new ConcurrentHashMap<>();
+
     public CasDoctor(CasDoctorProperties aProperties, ChecksRegistry aChecksRegistry,
             RepairsRegistry aRepairsRegistry)
     {
@@ -62,6 +91,8 @@ public class CasDoctor
 
         fatalChecks = aProperties.isFatal();
         disableAutoScan = aProperties.isForceReleaseBehavior();
+        incremental = aProperties.isIncremental();
+        fullCheckInterval = Math.max(1, aProperties.getFullCheckInterval());
 
         activeChecks = new LinkedHashSet<>();
         if (isNotEmpty(aProperties.getChecks())) {
@@ -101,6 +132,59 @@ public class CasDoctor
         return fatalChecks;
     }
 
+    public void setIncremental(boolean aIncremental)
+    {
+        incremental = aIncremental;
+    }
+
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    public void setFullCheckInterval(int aFullCheckInterval)
+    {
+        fullCheckInterval = Math.max(1, aFullCheckInterval);
+    }
+
+    /**
+     * Sets a marker on the given CAS unless it already has one. On subsequent calls to
+     * {@link #analyzeChanges}, the incremental checks only validate the feature structures created
+     * or modified after the CAS was first marked. This should be called whenever the CAS has been
+     * fully analyzed, i.e. after it has been read or written.
+     * 
+     * @param aCas
+     *            the CAS
+     */
+    public void markAnalyzed(CAS aCas)
+    {
+        if (!incremental || activeChecks.isEmpty()) {
+            return;
+        }
+
+        var cas = getRealCas(aCas);
+        var marker = getMarker(cas);
+        if (marker != null && marker.isValid()) {
+            // Changes made since the marker was created remain tracked - keep using it
+            return;
+        }
+
+        try {
+            markers.put(cas, new WeakReference<>(cas.createMarker()));
+        }
+        catch (CASRuntimeException e) {
+            // Someone else has already set a marker on the CAS - fall back to full analysis
+            LOG.debug("Unable to set marker on CAS: {}", e.getMessage());
+            markers.remove(cas);
+        }
+    }
+
+    private Marker getMarker(CAS aCas)
+    {
+        var ref = markers.get(aCas);
+        return ref != null ? ref.get() : null;
+    }
+
     public void repair(Project aProject, CAS aCas)
     {
         List<LogMessage> messages = new ArrayList<>();
@@ -162,6 +246,46 @@ public class CasDoctor
     public boolean analyze(Project aProject, CAS aCas, List<LogMessage> aMessages,
             boolean aFatalChecks)
         throws CasDoctorException
+    {
+        return analyze(aProject, aCas, null, aMessages, aFatalChecks);
+    }
+
+    /**
+     * Analyzes the changes made to the given CAS since {@link #markAnalyzed} was first called for
+     * it. If incremental mode is disabled, if there is no valid marker for the CAS or if a full
+     * analysis is due according to the full check interval, all active checks are run. Otherwise,
+     * only the incremental checks are run.
+     * 
+     * @param aProject
+     *            the project
+     * @param aCas
+     *            the CAS
+     * @return whether all checks passed
+     * @throws CasDoctorException
+     *             if a check failed and checks are fatal
+     */
+    public boolean analyzeChanges(Project aProject, CAS aCas) throws CasDoctorException
+    {
+        Marker marker = null;
+        if (incremental) {
+            marker = getMarker(getRealCas(aCas));
+            if (marker != null && (!marker.isValid()
+                    || analysisCounter.incrementAndGet() % fullCheckInterval == 0)) {
+                marker = null;
+            }
+        }
+
+        List<LogMessage> messages = new ArrayList<>();
+        boolean result = analyze(aProject, aCas, marker, messages, isFatalChecks());
+        if (LOG.isDebugEnabled()) {
+            messages.forEach(s -> LOG.debug("{}", s));
+        }
+        return result;
+    }
+
+    private boolean analyze(Project aProject, CAS aCas, Marker aMarker, List<LogMessage> aMessages,
+            boolean aFatalChecks)
+        throws CasDoctorException
     {
         if (activeChecks.isEmpty()) {
             return true;
@@ -170,16 +294,31 @@ public class CasDoctor
         long tStart = currentTimeMillis();
 
         boolean ok = true;
+        int checksRun = 0;
         for (String checkId : activeChecks) {
             try {
                 Check check = checksRegistry.getExtension(checkId).orElseThrow(
                         () -> new NoSuchElementException("Unknown check [" + checkId + "]"));
 
-                long tStartTask = currentTimeMillis();
+                // Non-incremental checks are deferred to the next full analysis
+                if (aMarker != null && !check.isIncremental()) {
+                    continue;
+                }
+
+                long tStartTask = nanoTime();
                 LOG.debug("CasDoctor analysis [" + check.getId() + "] running...");
-                ok &= check.check(aProject, aCas, aMessages);
+                if (aMarker != null) {
+                    ok &= check.checkIncremental(aProject, aCas, aMarker, aMessages);
+                }
+                else {
+                    ok &= check.check(aProject, aCas, aMessages);
+                }
+                long checkDuration = nanoTime() - tStartTask;
+                checksRun++;
+                statistics.computeIfAbsent(checkId, CheckStatistics::new) //
+                        .record(aMarker != null, checkDuration);
                 LOG.debug("CasDoctor analysis [" + check.getId() + "] completed in "
-                        + (currentTimeMillis() - tStartTask) + "ms");
+                        + (checkDuration / 1_000_000) + "ms");
             }
             catch (Exception e) {
                 LOG.error("Cannot apply check [" + checkId + "]", e);
@@ -195,12 +334,33 @@ public class CasDoctor
         }
 
         long duration = currentTimeMillis() - tStart;
-        LOG.debug("CasDoctor completed {} checks in {}ms", activeChecks.size(), duration);
+        LOG.debug("CasDoctor completed {} {} checks in {}ms", checksRun,
+                aMarker != null ? "incremental" : "full", duration);
         serverTiming("CasDoctor", "CasDoctor (analyze)", duration);
 
         return ok;
     }
 
+    public Map<String, CheckStatistics> getCheckStatistics()
+    {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    @ManagedAttribute(description = "Time spent per check")
+    public String[] getCheckTimings()
+    {
+        return statistics.values().stream() //
+                .sorted((a, b) -> Long.compare(b.getTotalTimeMillis(), a.getTotalTimeMillis())) //
+                .map(CheckStatistics::toString) //
+                .toArray(String[]::new);
+    }
+
+    @ManagedOperation(description = "Reset the check timings")
+    public void resetCheckTimings()
+    {
+        statistics.clear();
+    }
+
     public void setActiveChecks(String... aActiveChecks)
     {
         activeChecks = new LinkedHashSet<>(asList(aActiveChecks));
@@ -27,11 +27,21 @@ import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Marker;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.impl.LowLevelCAS;
 
 public class CasDoctorUtils
 {
+    /**
+     * @return whether the given feature structure was created or modified after the given marker
+     *         has been set.
+     */
+    public static boolean isTouched(Marker aMarker, FeatureStructure aFS)
+    {
+        return aMarker.isNew(aFS) || aMarker.isModified(aFS);
+    }
+
     public static Set<FeatureStructure> collectIndexed(CAS aCas)
     {
         LowLevelCAS llcas = aCas.getLowLevelCAS();
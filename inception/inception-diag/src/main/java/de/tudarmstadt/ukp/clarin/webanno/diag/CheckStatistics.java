@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.diag;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.tudarmstadt.ukp.clarin.webanno.diag.checks.Check;
+
+/**
+ * Accumulates the time spent by a single {@link Check} so that operators can decide which checks
+ * are worth running.
+ */
+public class CheckStatistics
+{
+    private final String checkId;
+    private final LongAdder fullRuns = new LongAdder();
+    private final LongAdder incrementalRuns = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final AtomicLong maxTime = new AtomicLong();
+
+    public CheckStatistics(String aCheckId)
+    {
+        checkId = aCheckId;
+    }
+
+    void record(boolean aIncremental, long aDurationNanos)
+    {
+        if (aIncremental) {
+            incrementalRuns.increment();
+        }
+        else {
+            fullRuns.increment();
+        }
+
+        totalTime.add(aDurationNanos);
+        maxTime.accumulateAndGet(aDurationNanos, Math::max);
+    }
+
+    public String getCheckId()
+    {
+        return checkId;
+    }
+
+    public long getFullRuns()
+    {
+        return fullRuns.sum();
+    }
+
+    public long getIncrementalRuns()
+    {
+        return incrementalRuns.sum();
+    }
+
+    public long getTotalTimeMillis()
+    {
+        return NANOSECONDS.toMillis(totalTime.sum());
+    }
+
+    public long getMaxTimeMillis()
+    {
+        return NANOSECONDS.toMillis(maxTime.get());
+    }
+
+    public double getAverageTimeMillis()
+    {
+        var runs = getFullRuns() + getIncrementalRuns();
+        return runs == 0 ? 0.0 : (totalTime.sum() / (double) runs) / 1_000_000.0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+                "%s: %d full runs, %d incremental runs, total %dms, avg %.2fms, max %dms", checkId,
+                getFullRuns(), getIncrementalRuns(), getTotalTimeMillis(), getAverageTimeMillis(),
+                getMaxTimeMillis());
+    }
+}
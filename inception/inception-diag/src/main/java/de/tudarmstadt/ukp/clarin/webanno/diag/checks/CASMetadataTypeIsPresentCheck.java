@@ -43,4 +43,11 @@ public class CASMetadataTypeIsPresentCheck
         // This is an informative check - not critical, so we always pass it.
         return true;
     }
+
+    @Override
+    public boolean isIncremental()
+    {
+        // Does not walk the CAS, so it is cheap enough to run on every write
+        return true;
+    }
 }
@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.clarin.webanno.diag.checks;
 import java.util.List;
 
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Marker;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.inception.support.extensionpoint.Extension;
@@ -30,6 +31,38 @@ public interface Check
 {
     boolean check(Project aProject, CAS aCas, List<LogMessage> aMessages);
 
+    /**
+     * Checks only those feature structures which have been created or modified since the given
+     * marker has been set. This is only called if {@link #isIncremental()} returns {@code true}.
+     * By default, the full check is performed.
+     * 
+     * @param aProject
+     *            the project
+     * @param aCas
+     *            the CAS to check
+     * @param aMarker
+     *            marker set when the CAS instance was first read or written
+     * @param aMessages
+     *            list to which messages are added
+     * @return whether the check passed
+     */
+    default boolean checkIncremental(Project aProject, CAS aCas, Marker aMarker,
+            List<LogMessage> aMessages)
+    {
+        return check(aProject, aCas, aMessages);
+    }
+
+    /**
+     * @return whether the check is able to validate only the changes made to a CAS (or is cheap
+     *         enough to be run on every write). Checks which are not incremental are only run
+     *         when the {@link de.tudarmstadt.ukp.clarin.webanno.diag.CasDoctor} performs a full
+     *         analysis.
+     */
+    default boolean isIncremental()
+    {
+        return false;
+    }
+
     @Override
     default String getId()
     {
@@ -17,11 +17,13 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.diag.checks;
 
+import static de.tudarmstadt.ukp.clarin.webanno.diag.CasDoctorUtils.isTouched;
 import static de.tudarmstadt.ukp.inception.support.logging.LogMessage.error;
 
 import java.util.List;
 
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Marker;
 import org.apache.uima.jcas.tcas.Annotation;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
@@ -32,10 +34,32 @@ public class NegativeSizeAnnotationsCheck
 {
     @Override
     public boolean check(Project aProject, CAS aCas, List<LogMessage> aMessages)
+    {
+        return check(aCas, null, aMessages);
+    }
+
+    @Override
+    public boolean checkIncremental(Project aProject, CAS aCas, Marker aMarker,
+            List<LogMessage> aMessages)
+    {
+        return check(aCas, aMarker, aMessages);
+    }
+
+    @Override
+    public boolean isIncremental()
+    {
+        return true;
+    }
+
+    private boolean check(CAS aCas, Marker aMarker, List<LogMessage> aMessages)
     {
         boolean ok = true;
 
         for (Annotation ann : aCas.select(Annotation.class)) {
+            if (aMarker != null && !isTouched(aMarker, ann)) {
+                continue;
+            }
+
             if (ann.getBegin() > ann.getEnd()) {
                 aMessages.add(error(this, "[%s] at [%d-%d] has negative size (starts after ending)",
                         ann.getType().getName(), ann.getBegin(), ann.getEnd()));
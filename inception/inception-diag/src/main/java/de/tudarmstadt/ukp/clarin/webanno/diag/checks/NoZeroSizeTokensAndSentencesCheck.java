@@ -17,12 +17,14 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.diag.checks;
 
+import static de.tudarmstadt.ukp.clarin.webanno.diag.CasDoctorUtils.isTouched;
 import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.selectSentences;
 import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.selectTokens;
 
 import java.util.List;
 
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Marker;
 import org.apache.uima.cas.text.AnnotationFS;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
@@ -34,10 +36,32 @@ public class NoZeroSizeTokensAndSentencesCheck
 {
     @Override
     public boolean check(Project aProject, CAS aCas, List<LogMessage> aMessages)
+    {
+        return check(aCas, null, aMessages);
+    }
+
+    @Override
+    public boolean checkIncremental(Project aProject, CAS aCas, Marker aMarker,
+            List<LogMessage> aMessages)
+    {
+        return check(aCas, aMarker, aMessages);
+    }
+
+    @Override
+    public boolean isIncremental()
+    {
+        return true;
+    }
+
+    private boolean check(CAS aCas, Marker aMarker, List<LogMessage> aMessages)
     {
         boolean ok = true;
 
         for (AnnotationFS t : selectTokens(aCas)) {
+            if (aMarker != null && !isTouched(aMarker, t)) {
+                continue;
+            }
+
             if (t.getBegin() >= t.getEnd()) {
                 aMessages.add(
                         new LogMessage(this, LogLevel.ERROR, "Token with illegal span: %s", t));
@@ -46,6 +70,10 @@ public class NoZeroSizeTokensAndSentencesCheck
         }
 
         for (AnnotationFS s : selectSentences(aCas)) {
+            if (aMarker != null && !isTouched(aMarker, s)) {
+                continue;
+            }
+
             if (s.getBegin() >= s.getEnd()) {
                 aMessages.add(
                         new LogMessage(this, LogLevel.ERROR, "Sentence with illegal span: %s", s));
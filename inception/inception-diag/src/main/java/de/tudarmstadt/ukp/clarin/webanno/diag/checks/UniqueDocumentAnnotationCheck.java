@@ -41,4 +41,11 @@ public class UniqueDocumentAnnotationCheck
 
         return true;
     }
+
+    @Override
+    public boolean isIncremental()
+    {
+        // Does not walk the CAS, so it is cheap enough to run on every write
+        return true;
+    }
 }
@@ -28,4 +28,15 @@ public interface CasDoctorProperties
     boolean isFatal();
 
     boolean isForceReleaseBehavior();
+
+    /**
+     * @return whether only incremental checks should be run when a CAS is written. Full checks
+     *         are then only run on a sampling basis.
+     */
+    boolean isIncremental();
+
+    /**
+     * @return in incremental mode, every n-th analysis is a full analysis running all checks.
+     */
+    int getFullCheckInterval();
 }
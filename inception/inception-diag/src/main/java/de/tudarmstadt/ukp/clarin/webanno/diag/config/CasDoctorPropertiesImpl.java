@@ -30,6 +30,8 @@ public class CasDoctorPropertiesImpl
     private List<String> repairs = Collections.emptyList();
     private boolean fatal = true;
     private boolean forceReleaseBehavior = false;
+    private boolean incremental = false;
+    private int fullCheckInterval = 10;
 
     @Override
     public List<String> getChecks()
@@ -74,4 +76,26 @@ public class CasDoctorPropertiesImpl
     {
         forceReleaseBehavior = aForceReleaseBehavior;
     }
+
+    @Override
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    public void setIncremental(boolean aIncremental)
+    {
+        incremental = aIncremental;
+    }
+
+    @Override
+    public int getFullCheckInterval()
+    {
+        return fullCheckInterval;
+    }
+
+    public void setFullCheckInterval(int aFullCheckInterval)
+    {
+        fullCheckInterval = aFullCheckInterval;
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.diag;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.diag.checks.NegativeSizeAnnotationsCheck;
+import de.tudarmstadt.ukp.clarin.webanno.diag.config.CasDoctorPropertiesImpl;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+
+class CasDoctorTest
+{
+    private static final String CHECK = NegativeSizeAnnotationsCheck.class.getSimpleName();
+
+    private CasDoctor sut;
+    private Project project;
+    private JCas jCas;
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        var checksRegistry = new ChecksRegistryImpl(asList(new NegativeSizeAnnotationsCheck()));
+        checksRegistry.init();
+        var repairsRegistry = new RepairsRegistryImpl(emptyList());
+        repairsRegistry.init();
+
+        var properties = new CasDoctorPropertiesImpl();
+        properties.setChecks(asList(CHECK));
+        properties.setFatal(false);
+        properties.setIncremental(true);
+        properties.setFullCheckInterval(1000);
+
+        sut = new CasDoctor(properties, checksRegistry, repairsRegistry);
+        project = new Project();
+        jCas = JCasFactory.createJCas();
+    }
+
+    @Test
+    void thatRepeatedWritesReuseTheMarker() throws Exception
+    {
+        // A broken annotation that was already present when the CAS was read is only picked up
+        // by a full analysis
+        new Annotation(jCas, 10, 9).addToIndexes();
+        var annotation = new Annotation(jCas, 0, 5);
+        annotation.addToIndexes();
+
+        // Read
+        sut.markAnalyzed(jCas.getCas());
+
+        // First write - modify a pre-existing annotation so that the CAS journals the change
+        resize(annotation, 0, 4);
+        new Annotation(jCas, 0, 1).addToIndexes();
+        assertThat(sut.analyzeChanges(project, jCas.getCas())).isTrue();
+        sut.markAnalyzed(jCas.getCas());
+
+        // Second write
+        resize(annotation, 0, 3);
+        new Annotation(jCas, 2, 3).addToIndexes();
+        assertThat(sut.analyzeChanges(project, jCas.getCas())).isTrue();
+        sut.markAnalyzed(jCas.getCas());
+
+        // Third write - breaking a pre-existing annotation is detected incrementally
+        resize(annotation, 3, 0);
+        assertThat(sut.analyzeChanges(project, jCas.getCas())).isFalse();
+        sut.markAnalyzed(jCas.getCas());
+
+        assertThat(sut.getCheckStatistics().get(CHECK)) //
+                .extracting(CheckStatistics::getIncrementalRuns, CheckStatistics::getFullRuns) //
+                .containsExactly(3l, 0l);
+        assertThat(sut.analyze(project, jCas.getCas())).isFalse();
+    }
+
+    @Test
+    void thatChangesAreFullyAnalyzedWithoutMarker() throws Exception
+    {
+        new Annotation(jCas, 10, 9).addToIndexes();
+
+        assertThat(sut.analyzeChanges(project, jCas.getCas())).isFalse();
+        assertThat(sut.getCheckStatistics().get(CHECK).getFullRuns()).isEqualTo(1l);
+    }
+
+    @Test
+    void thatMarkerIsRecreatedAfterReset() throws Exception
+    {
+        sut.markAnalyzed(jCas.getCas());
+
+        jCas.reset();
+        jCas.setDocumentText("Dummy");
+        new Annotation(jCas, 10, 9).addToIndexes();
+
+        // The marker has been invalidated by the reset, so a full analysis is performed
+        assertThat(sut.analyzeChanges(project, jCas.getCas())).isFalse();
+        assertThat(sut.getCheckStatistics().get(CHECK).getFullRuns()).isEqualTo(1l);
+
+        sut.markAnalyzed(jCas.getCas());
+        new Annotation(jCas, 0, 1).addToIndexes();
+
+        assertThat(sut.analyzeChanges(project, jCas.getCas())).isTrue();
+        assertThat(sut.getCheckStatistics().get(CHECK).getIncrementalRuns()).isEqualTo(1l);
+    }
+
+    private void resize(Annotation aAnnotation, int aBegin, int aEnd)
+    {
+        aAnnotation.removeFromIndexes();
+        aAnnotation.setBegin(aBegin);
+        aAnnotation.setEnd(aEnd);
+        aAnnotation.addToIndexes();
+    }
+}
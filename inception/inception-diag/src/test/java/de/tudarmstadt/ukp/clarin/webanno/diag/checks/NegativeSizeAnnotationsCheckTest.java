@@ -63,4 +63,24 @@ class NegativeSizeAnnotationsCheckTest
         assertThat(messages.get(0).getMessage()) //
                 .contains("[uima.tcas.Annotation] at [10-9] has negative size");
     }
+
+    @Test
+    void testIncremental()
+    {
+        new Annotation(jCas, 10, 9).addToIndexes();
+
+        var marker = jCas.getCas().createMarker();
+
+        new Annotation(jCas, 20, 19).addToIndexes();
+        new Annotation(jCas, 20, 21).addToIndexes();
+
+        var messages = new ArrayList<LogMessage>();
+
+        var result = sut.checkIncremental(project, jCas.getCas(), marker, messages);
+
+        assertThat(result).isFalse();
+        assertThat(messages).hasSize(1);
+        assertThat(messages.get(0).getMessage()) //
+                .contains("[uima.tcas.Annotation] at [20-19] has negative size");
+    }
 }
@@ -0,0 +1,447 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import de.tudarmstadt.ukp.inception.log.config.EventLoggingAutoConfiguration;
+import de.tudarmstadt.ukp.inception.log.config.EventLoggingOverflowPolicy;
+import de.tudarmstadt.ukp.inception.log.config.EventLoggingProperties;
+import de.tudarmstadt.ukp.inception.log.model.LoggedEvent;
+import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
+
+/**
+ * Writes logged events to the database on a dedicated thread. Events are buffered in a bounded
+ * queue and are written in batches. If the queue is full, the configured
+ * {@link EventLoggingOverflowPolicy} decides whether the publishing thread blocks, whether the
+ * event is dropped or whether it is spilled to disk.
+ * <p>
+ * This class is exposed as a Spring Component via
+ * {@link EventLoggingAutoConfiguration#eventLogWriter}.
+ * </p>
+ */
+@ManagedResource("de.tudarmstadt.ukp.inception.log:type=EventLogWriter,name=eventLogWriter")
+public class EventLogWriter
+    implements DisposableBean
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final long IDLE_INTERVAL = 1000; // ms
+    private static final String SPILL_FILE = "events.jsonl";
+    private static final String DRAINING_SUFFIX = ".draining";
+    private static final String PROGRESS_SUFFIX = ".progress";
+
+    private final EventRepository repo;
+    private final EventLoggingProperties properties;
+    private final File spillFolder;
+    private final BlockingQueue<LoggedEvent> queue;
+    private final Thread writerThread;
+    private final Object spillLock = new Object();
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushTime = new AtomicLong();
+    private volatile long lastFlushTime;
+    private volatile long maxFlushTime;
+
+    private volatile boolean running = true;
+
+    public EventLogWriter(EventRepository aRepo, EventLoggingProperties aProperties,
+            File aSpillFolder)
+    {
+        repo = aRepo;
+        properties = aProperties;
+        spillFolder = aSpillFolder;
+
+        queue = new ArrayBlockingQueue<>(properties.getQueueSize());
+
+        writerThread = new Thread(this::run, "Event log writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queue the given event for writing. If the queue is full, the overflow policy is applied.
+     * 
+     * @param aEvent
+     *            the event to write.
+     */
+    public void enqueue(LoggedEvent aEvent)
+    {
+        if (queue.offer(aEvent)) {
+            return;
+        }
+
+        switch (properties.getOverflowPolicy()) {
+        case DROP:
+            if (isDroppable(aEvent.getEvent())) {
+                if (droppedCount.incrementAndGet() % 1000 == 1) {
+                    LOG.warn("Event log queue is full - dropping events ({} dropped so far)",
+                            droppedCount.get());
+                }
+                return;
+            }
+            put(aEvent);
+            break;
+        case SPILL:
+            spill(aEvent);
+            break;
+        case BLOCK: // fall-through
+        default:
+            put(aEvent);
+            break;
+        }
+    }
+
+    boolean isDroppable(String aEventName)
+    {
+        var patterns = properties.getDroppablePatterns();
+
+        // Nothing is dropped unless explicitly configured
+        if (CollectionUtils.isEmpty(patterns)) {
+            return false;
+        }
+
+        return patterns.stream().anyMatch(pattern -> Pattern.matches(pattern, aEventName));
+    }
+
+    private void put(LoggedEvent aEvent)
+    {
+        try {
+            // Do not block forever if the writer has already been shut down
+            while (!queue.offer(aEvent, IDLE_INTERVAL, MILLISECONDS)) {
+                if (!running) {
+                    droppedCount.incrementAndGet();
+                    LOG.warn("Event log writer is shut down - dropping event [{}]", aEvent);
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedCount.incrementAndGet();
+            LOG.warn("Interrupted while waiting for event log queue - dropping event [{}]",
+                    aEvent);
+        }
+    }
+
+    private void spill(LoggedEvent aEvent)
+    {
+        synchronized (spillLock) {
+            try {
+                Files.createDirectories(spillFolder.toPath());
+                var line = JSONUtil.toJsonString(SpilledEvent.of(aEvent)) + "\n";
+                Files.writeString(new File(spillFolder, SPILL_FILE).toPath(), line, UTF_8,
+                        CREATE, APPEND);
+                spilledCount.incrementAndGet();
+            }
+            catch (IOException e) {
+                droppedCount.incrementAndGet();
+                LOG.error("Unable to spill event [{}] to disk - dropping it", aEvent, e);
+            }
+        }
+    }
+
+    private void run()
+    {
+        var batch = new ArrayList<LoggedEvent>(properties.getBatchSize());
+        var lastSpillDrain = System.currentTimeMillis();
+
+        // Keep going after shutdown was requested until the queue has been drained
+        while (running || !queue.isEmpty()) {
+            try {
+                var event = queue.poll(IDLE_INTERVAL, MILLISECONDS);
+
+                if (event == null) {
+                    // When we are idle, it is a good time to pick up any spilled events
+                    drainSpilledEvents(Long.MAX_VALUE);
+                    lastSpillDrain = System.currentTimeMillis();
+                    continue;
+                }
+
+                batch.add(event);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                write(batch);
+
+                // Under constant load, the writer never becomes idle. Still pick up spilled events
+                // every now and then, but only one batch at a time to keep up with the queue.
+                if (System.currentTimeMillis() - lastSpillDrain >= properties
+                        .getSpillDrainInterval().toMillis()) {
+                    drainSpilledEvents(properties.getBatchSize());
+                    lastSpillDrain = System.currentTimeMillis();
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            catch (Exception e) {
+                LOG.error("Unable to write {} events to the database", batch.size(), e);
+            }
+            finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<LoggedEvent> aBatch)
+    {
+        if (aBatch.isEmpty()) {
+            return;
+        }
+
+        var start = System.currentTimeMillis();
+
+        repo.create(aBatch.toArray(LoggedEvent[]::new));
+
+        var duration = System.currentTimeMillis() - start;
+        lastFlushTime = duration;
+        maxFlushTime = Math.max(maxFlushTime, duration);
+        totalFlushTime.addAndGet(duration);
+        flushCount.incrementAndGet();
+        writtenCount.addAndGet(aBatch.size());
+    }
+
+    /**
+     * Writes spilled events to the database.
+     * 
+     * @param aMaxEvents
+     *            the maximum number of events to write. The remaining events are written on the
+     *            next call.
+     */
+    private void drainSpilledEvents(long aMaxEvents)
+    {
+        if (spillFolder == null || !spillFolder.isDirectory()) {
+            return;
+        }
+
+        // Move the spill file out of the way so new events can be spilled while we are draining
+        synchronized (spillLock) {
+            var spillFile = new File(spillFolder, SPILL_FILE);
+            if (spillFile.exists()) {
+                var drainingFile = new File(spillFolder,
+                        SPILL_FILE + "." + System.currentTimeMillis() + DRAINING_SUFFIX);
+                if (!spillFile.renameTo(drainingFile)) {
+                    LOG.error("Unable to rename spill file [{}]", spillFile);
+                    return;
+                }
+            }
+        }
+
+        var drainingFiles = spillFolder
+                .listFiles((dir, name) -> name.endsWith(DRAINING_SUFFIX));
+        if (drainingFiles == null) {
+            return;
+        }
+
+        // The names contain the time the spill file was moved out of the way, so this drains the
+        // oldest file first
+        Arrays.sort(drainingFiles);
+
+        var remaining = aMaxEvents;
+        for (var file : drainingFiles) {
+            if (remaining <= 0) {
+                return;
+            }
+
+            // The progress file records how many lines of the spill file have already been
+            // written to the database, so a failure part-way through the file does not cause the
+            // batches written before the failure to be written again on the next attempt.
+            var progressFile = new File(file.getPath() + PROGRESS_SUFFIX);
+            try {
+                var linesDone = readProgress(progressFile);
+                var linesRead = 0L;
+                var batch = new ArrayList<LoggedEvent>(properties.getBatchSize());
+                try (var lines = Files.lines(file.toPath(), UTF_8)) {
+                    var iterator = lines.iterator();
+                    while (iterator.hasNext() && remaining > 0) {
+                        var line = iterator.next();
+                        linesRead++;
+                        if (linesRead <= linesDone || line.isBlank()) {
+                            continue;
+                        }
+
+                        batch.add(JSONUtil.fromJsonString(SpilledEvent.class, line).toEvent());
+                        remaining--;
+                        if (batch.size() >= properties.getBatchSize()) {
+                            write(batch);
+                            batch.clear();
+                            writeProgress(progressFile, linesRead);
+                        }
+                    }
+
+                    if (iterator.hasNext()) {
+                        // Enough for now - continue from here next time
+                        write(batch);
+                        writeProgress(progressFile, linesRead);
+                        return;
+                    }
+                }
+                write(batch);
+
+                Files.delete(file.toPath());
+                Files.deleteIfExists(progressFile.toPath());
+                LOG.info("Recovered spilled events from [{}]", file);
+            }
+            catch (Exception e) {
+                LOG.error("Unable to recover spilled events from [{}]", file, e);
+            }
+        }
+    }
+
+    private static long readProgress(File aProgressFile) throws IOException
+    {
+        if (!aProgressFile.exists()) {
+            return 0;
+        }
+
+        return Long.parseLong(Files.readString(aProgressFile.toPath(), UTF_8).trim());
+    }
+
+    private static void writeProgress(File aProgressFile, long aLinesDone) throws IOException
+    {
+        var tmpFile = new File(aProgressFile.getPath() + ".tmp");
+        Files.writeString(tmpFile.toPath(), Long.toString(aLinesDone), UTF_8);
+        Files.move(tmpFile.toPath(), aProgressFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    @ManagedAttribute
+    public int getQueueDepth()
+    {
+        return queue.size();
+    }
+
+    @ManagedAttribute
+    public int getQueueCapacity()
+    {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    @ManagedAttribute
+    public long getWrittenCount()
+    {
+        return writtenCount.get();
+    }
+
+    @ManagedAttribute
+    public long getDroppedCount()
+    {
+        return droppedCount.get();
+    }
+
+    @ManagedAttribute
+    public long getSpilledCount()
+    {
+        return spilledCount.get();
+    }
+
+    @ManagedAttribute
+    public long getFlushCount()
+    {
+        return flushCount.get();
+    }
+
+    @ManagedAttribute
+    public long getLastFlushLatency()
+    {
+        return lastFlushTime;
+    }
+
+    @ManagedAttribute
+    public long getMaxFlushLatency()
+    {
+        return maxFlushTime;
+    }
+
+    @ManagedAttribute
+    public double getAverageFlushLatency()
+    {
+        var count = flushCount.get();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        return (double) totalFlushTime.get() / count;
+    }
+
+    @Override
+    public void destroy() throws Exception
+    {
+        // Signal the writer to stop once the queue has been drained and wait for it. Any spilled
+        // events remain on disk and are picked up again after the next start.
+        running = false;
+        writerThread.join(10_000);
+
+        if (writerThread.isAlive()) {
+            LOG.warn("Event log writer did not finish in time - {} events may be lost",
+                    queue.size());
+        }
+    }
+
+    static record SpilledEvent(String event, long created, String user, long project,
+            long document, String annotator, String details)
+    {
+        static SpilledEvent of(LoggedEvent aEvent)
+        {
+            return new SpilledEvent(aEvent.getEvent(), aEvent.getCreated().getTime(),
+                    aEvent.getUser(), aEvent.getProject(), aEvent.getDocument(),
+                    aEvent.getAnnotator(), aEvent.getDetails());
+        }
+
+        LoggedEvent toEvent()
+        {
+            var e = new LoggedEvent();
+            e.setEvent(event);
+            e.setCreated(new Date(created));
+            e.setUser(user);
+            e.setProject(project);
+            e.setDocument(document);
+            e.setAnnotator(annotator);
+            e.setDetails(details);
+            return e;
+        }
+    }
+}
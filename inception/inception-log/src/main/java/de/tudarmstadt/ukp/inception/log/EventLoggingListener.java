@@ -18,20 +18,13 @@
 package de.tudarmstadt.ukp.inception.log;
 
 import java.lang.invoke.MethodHandles;
-import java.util.ArrayList;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.event.EventListener;
@@ -49,32 +42,22 @@ import de.tudarmstadt.ukp.inception.support.spring.StartupProgressInfoEvent;
  * </p>
  */
 public class EventLoggingListener
-    implements DisposableBean
 {
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private final EventRepository repo;
-    private final ScheduledExecutorService scheduler;
-    private final Deque<LoggedEvent> queue;
+    private final EventLogWriter writer;
     private final EventLoggingProperties properties;
     private final EventLoggingAdapterRegistry adapterRegistry;
 
     private Map<String, Boolean> eventCache = new HashMap<>();
 
-    private volatile boolean flushing = false;
-
     @Autowired
-    public EventLoggingListener(EventRepository aRepo, EventLoggingProperties aProperties,
+    public EventLoggingListener(EventLogWriter aWriter, EventLoggingProperties aProperties,
             EventLoggingAdapterRegistry aAdapterRegistry)
     {
-        repo = aRepo;
+        writer = aWriter;
         properties = aProperties;
         adapterRegistry = aAdapterRegistry;
-
-        queue = new ConcurrentLinkedDeque<>();
-
-        scheduler = Executors.newSingleThreadScheduledExecutor();
-        scheduler.scheduleAtFixedRate(() -> flush(), 1, 1, TimeUnit.SECONDS);
     }
 
     boolean shouldLogEvent(String aEventName)
@@ -132,50 +115,7 @@ public class EventLoggingListener
             return;
         }
 
-        // Add to the writing queue which gets flushed regularly by a timer
-        queue.add(e);
-
-        // If the queue gets too large, force a flush even if the timer is not there yet
-        if (queue.size() > 1000) {
-            flush();
-        }
-    }
-
-    public void flush()
-    {
-        // If a flushing process is already in progress, we can abort here already. No need to
-        // wait for obtaining a synchronize lock. This also avoids a deadlock situation that was
-        // observed when importing huge tagsets with HSQLDB.
-        if (flushing) {
-            return;
-        }
-
-        synchronized (queue) {
-            try {
-                flushing = true;
-
-                // Fetch all items that are currently in the queue
-                var batch = new ArrayList<LoggedEvent>();
-                while (!queue.isEmpty()) {
-                    batch.add(queue.pop());
-                }
-
-                // And dump them into the database
-                repo.create(batch.toArray(new LoggedEvent[batch.size()]));
-            }
-            finally {
-                flushing = false;
-            }
-        }
-    }
-
-    @Override
-    public void destroy() throws Exception
-    {
-        // Kill the flush scheduler
-        scheduler.shutdownNow();
-
-        // Make sure and pending events are flushed before the application shuts down
-        flush();
+        // Hand over to the writer which persists the events on its own thread
+        writer.enqueue(e);
     }
 }
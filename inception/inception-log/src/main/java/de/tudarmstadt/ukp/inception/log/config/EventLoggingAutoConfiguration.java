@@ -17,6 +17,7 @@
  */
 package de.tudarmstadt.ukp.inception.log.config;
 
+import java.io.File;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -30,6 +31,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.log.EventLogWriter;
 import de.tudarmstadt.ukp.inception.log.EventLoggingListener;
 import de.tudarmstadt.ukp.inception.log.EventRepository;
 import de.tudarmstadt.ukp.inception.log.EventRepositoryImpl;
@@ -67,10 +70,20 @@ public class EventLoggingAutoConfiguration
     @ConditionalOnWebApplication
     @Bean
     @Autowired
-    public EventLoggingListener eventLoggingListener(EventRepository aRepo,
+    public EventLogWriter eventLogWriter(EventRepository aRepo, EventLoggingProperties aProperties,
+            RepositoryProperties aRepositoryProperties)
+    {
+        return new EventLogWriter(aRepo, aProperties,
+                new File(aRepositoryProperties.getPath(), "event-log-spill"));
+    }
+
+    @ConditionalOnWebApplication
+    @Bean
+    @Autowired
+    public EventLoggingListener eventLoggingListener(EventLogWriter aWriter,
             EventLoggingAdapterRegistry aAdapterRegistry, EventLoggingProperties aProperties)
     {
-        return new EventLoggingListener(aRepo, aProperties, aAdapterRegistry);
+        return new EventLoggingListener(aWriter, aProperties, aAdapterRegistry);
     }
 
     @Bean
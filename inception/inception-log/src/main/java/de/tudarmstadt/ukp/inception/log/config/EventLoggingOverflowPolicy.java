@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.log.config;
+
+/**
+ * Determines what happens to a logged event if the event log writer queue is full.
+ */
+public enum EventLoggingOverflowPolicy
+{
+    /**
+     * Block the publishing thread until there is space in the queue again.
+     */
+    BLOCK,
+
+    /**
+     * Drop events matching the droppable patterns. Other events block until there is space in the
+     * queue again.
+     */
+    DROP,
+
+    /**
+     * Append events to a spill file on disk. These are written to the database once the queue is
+     * idle again.
+     */
+    SPILL;
+}
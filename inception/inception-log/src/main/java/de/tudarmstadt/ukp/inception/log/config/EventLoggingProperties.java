@@ -17,6 +17,7 @@
  */
 package de.tudarmstadt.ukp.inception.log.config;
 
+import java.time.Duration;
 import java.util.Set;
 
 public interface EventLoggingProperties
@@ -46,4 +47,31 @@ public interface EventLoggingProperties
      *            Set of regex exclude patterns
      */
     void setExcludePatterns(Set<String> excludePatterns);
+
+    /**
+     * @return maximum number of events waiting to be written to the database
+     */
+    int getQueueSize();
+
+    /**
+     * @return maximum number of events written to the database in a single transaction
+     */
+    int getBatchSize();
+
+    /**
+     * @return what to do with events if the queue is full
+     */
+    EventLoggingOverflowPolicy getOverflowPolicy();
+
+    /**
+     * @return Set of regex patterns of events that may be dropped under the
+     *         {@link EventLoggingOverflowPolicy#DROP} policy. If empty, no event is dropped.
+     */
+    Set<String> getDroppablePatterns();
+
+    /**
+     * @return how often spilled events are picked up while the writer is busy. When the writer is
+     *         idle, spilled events are picked up right away.
+     */
+    Duration getSpillDrainInterval();
 }
@@ -17,6 +17,7 @@
  */
 package de.tudarmstadt.ukp.inception.log.config;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Set;
 
@@ -44,6 +45,16 @@ public class EventLoggingPropertiesImpl
             "BrokerAvailabilityEvent", //
             "ShutdownDialogAvailableEvent");
 
+    private int queueSize = 10_000;
+
+    private int batchSize = 1_000;
+
+    private EventLoggingOverflowPolicy overflowPolicy = EventLoggingOverflowPolicy.BLOCK;
+
+    private Set<String> droppablePatterns = Collections.emptySet(); // Default drop nothing
+
+    private Duration spillDrainInterval = Duration.ofSeconds(10);
+
     @Override
     public boolean isEnabled()
     {
@@ -79,4 +90,59 @@ public class EventLoggingPropertiesImpl
     {
         this.excludePatterns = aExcludePatterns;
     }
+
+    @Override
+    public int getQueueSize()
+    {
+        return queueSize;
+    }
+
+    public void setQueueSize(int aQueueSize)
+    {
+        queueSize = aQueueSize;
+    }
+
+    @Override
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(int aBatchSize)
+    {
+        batchSize = aBatchSize;
+    }
+
+    @Override
+    public EventLoggingOverflowPolicy getOverflowPolicy()
+    {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(EventLoggingOverflowPolicy aOverflowPolicy)
+    {
+        overflowPolicy = aOverflowPolicy;
+    }
+
+    @Override
+    public Set<String> getDroppablePatterns()
+    {
+        return droppablePatterns;
+    }
+
+    public void setDroppablePatterns(Set<String> aDroppablePatterns)
+    {
+        droppablePatterns = aDroppablePatterns;
+    }
+
+    @Override
+    public Duration getSpillDrainInterval()
+    {
+        return spillDrainInterval;
+    }
+
+    public void setSpillDrainInterval(Duration aSpillDrainInterval)
+    {
+        spillDrainInterval = aSpillDrainInterval;
+    }
 }
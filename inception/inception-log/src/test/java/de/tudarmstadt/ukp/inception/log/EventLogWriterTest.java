@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.tudarmstadt.ukp.inception.log.EventLogWriter.SpilledEvent;
+import de.tudarmstadt.ukp.inception.log.config.EventLoggingOverflowPolicy;
+import de.tudarmstadt.ukp.inception.log.config.EventLoggingPropertiesImpl;
+import de.tudarmstadt.ukp.inception.log.model.LoggedEvent;
+import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
+
+class EventLogWriterTest
+{
+    private @TempDir File spillFolder;
+
+    private EventRepository repo;
+    private EventLoggingPropertiesImpl properties;
+    private List<LoggedEvent> written;
+    private CountDownLatch blocker;
+    private EventLogWriter writer;
+
+    @BeforeEach
+    void setUp()
+    {
+        written = new ArrayList<>();
+        blocker = new CountDownLatch(0);
+
+        repo = mock(EventRepository.class);
+        doAnswer(call -> {
+            blocker.await();
+            synchronized (written) {
+                for (var arg : call.getArguments()) {
+                    written.add((LoggedEvent) arg);
+                }
+            }
+            return null;
+        }).when(repo).create(any(LoggedEvent[].class));
+
+        properties = new EventLoggingPropertiesImpl();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        blocker.countDown();
+        if (writer != null) {
+            writer.destroy();
+        }
+    }
+
+    @Test
+    void thatEventsAreWritten()
+    {
+        writer = new EventLogWriter(repo, properties, spillFolder);
+
+        for (int i = 0; i < 100; i++) {
+            writer.enqueue(event("TestEvent"));
+        }
+
+        await().atMost(10, SECONDS).until(() -> writer.getWrittenCount() == 100);
+        assertThat(written).hasSize(100);
+        assertThat(writer.getFlushCount()).isPositive();
+    }
+
+    @Test
+    void thatDroppableEventsAreDroppedWhenQueueIsFull()
+    {
+        blocker = new CountDownLatch(1);
+        properties.setQueueSize(1);
+        properties.setOverflowPolicy(EventLoggingOverflowPolicy.DROP);
+        properties.setDroppablePatterns(Set.of("Test.*"));
+        writer = new EventLogWriter(repo, properties, spillFolder);
+
+        for (int i = 0; i < 10; i++) {
+            writer.enqueue(event("TestEvent"));
+        }
+
+        assertThat(writer.getDroppedCount()).isGreaterThanOrEqualTo(8);
+
+        blocker.countDown();
+
+        await().atMost(10, SECONDS)
+                .until(() -> writer.getWrittenCount() + writer.getDroppedCount() == 10);
+    }
+
+    @Test
+    void thatSpilledEventsAreEventuallyWritten()
+    {
+        blocker = new CountDownLatch(1);
+        properties.setQueueSize(1);
+        properties.setOverflowPolicy(EventLoggingOverflowPolicy.SPILL);
+        writer = new EventLogWriter(repo, properties, spillFolder);
+
+        for (int i = 0; i < 10; i++) {
+            writer.enqueue(event("TestEvent"));
+        }
+
+        assertThat(writer.getSpilledCount()).isGreaterThanOrEqualTo(8);
+        assertThat(writer.getDroppedCount()).isZero();
+
+        blocker.countDown();
+
+        await().atMost(10, SECONDS).until(() -> writer.getWrittenCount() == 10);
+        assertThat(written) //
+                .extracting(LoggedEvent::getEvent) //
+                .containsOnly("TestEvent");
+    }
+
+    @Test
+    void thatDroppablePatternsAreRespected()
+    {
+        properties.setDroppablePatterns(Set.of(".*Opened.*"));
+        writer = new EventLogWriter(repo, properties, spillFolder);
+
+        assertThat(writer.isDroppable("AfterDocumentOpenedEvent")).isTrue();
+        assertThat(writer.isDroppable("DocumentStateChangedEvent")).isFalse();
+    }
+
+    @Test
+    void thatNothingIsDroppableWithoutPatterns()
+    {
+        writer = new EventLogWriter(repo, properties, spillFolder);
+
+        assertThat(writer.isDroppable("AfterDocumentOpenedEvent")).isFalse();
+        assertThat(writer.isDroppable("DocumentStateChangedEvent")).isFalse();
+    }
+
+    @Test
+    void thatDrainingResumesAfterLastWrittenBatch() throws Exception
+    {
+        var lines = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            lines.add(JSONUtil.toJsonString(SpilledEvent.of(event("Event" + i))));
+        }
+        Files.write(new File(spillFolder, "events.jsonl.1.draining").toPath(), lines, UTF_8);
+
+        // Let the second batch fail once
+        var calls = new AtomicInteger();
+        doAnswer(call -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("Database not available");
+            }
+            synchronized (written) {
+                for (var arg : call.getArguments()) {
+                    written.add((LoggedEvent) arg);
+                }
+            }
+            return null;
+        }).when(repo).create(any(LoggedEvent[].class));
+
+        properties.setBatchSize(2);
+        writer = new EventLogWriter(repo, properties, spillFolder);
+
+        await().atMost(10, SECONDS).until(() -> writer.getWrittenCount() == 5);
+        assertThat(written) //
+                .extracting(LoggedEvent::getEvent) //
+                .containsExactly("Event0", "Event1", "Event2", "Event3", "Event4");
+        await().atMost(10, SECONDS).until(() -> spillFolder.list().length == 0);
+    }
+
+    @Test
+    void thatSpilledEventsAreWrittenWhileWriterIsBusy() throws Exception
+    {
+        var lines = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            lines.add(JSONUtil.toJsonString(SpilledEvent.of(event("Event" + i))));
+        }
+        Files.write(new File(spillFolder, "events.jsonl.1.draining").toPath(), lines, UTF_8);
+
+        properties.setBatchSize(2);
+        properties.setSpillDrainInterval(Duration.ofMillis(100));
+        writer = new EventLogWriter(repo, properties, spillFolder);
+
+        // Keep the writer from ever becoming idle
+        var feeder = Executors.newSingleThreadScheduledExecutor();
+        try {
+            feeder.scheduleAtFixedRate(() -> writer.enqueue(event("TestEvent")), 0, 50,
+                    MILLISECONDS);
+
+            await().atMost(10, SECONDS).until(() -> spillFolder.list().length == 0);
+        }
+        finally {
+            feeder.shutdownNow();
+        }
+
+        synchronized (written) {
+            assertThat(written) //
+                    .extracting(LoggedEvent::getEvent) //
+                    .filteredOn(name -> name.startsWith("Event")) //
+                    .containsExactly("Event0", "Event1", "Event2", "Event3", "Event4");
+        }
+    }
+
+    private static LoggedEvent event(String aName)
+    {
+        var event = new LoggedEvent();
+        event.setEvent(aName);
+        event.setCreated(new Date());
+        event.setUser("user");
+        event.setProject(1);
+        event.setDocument(-1);
+        return event;
+    }
+}
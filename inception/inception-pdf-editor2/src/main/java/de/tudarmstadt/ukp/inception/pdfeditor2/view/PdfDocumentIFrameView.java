@@ -17,6 +17,10 @@
  */
 package de.tudarmstadt.ukp.inception.pdfeditor2.view;
 
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.substringAfter;
+import static org.apache.commons.lang3.StringUtils.substringBefore;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
@@ -49,6 +53,7 @@ import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.pdfeditor2.PdfAnnotationEditor;
 import de.tudarmstadt.ukp.inception.pdfeditor2.format.VisualPdfReader;
 import de.tudarmstadt.ukp.inception.pdfeditor2.view.pdfjs.PdfJsViewerPage;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.VModelCache;
 import de.tudarmstadt.ukp.inception.pdfeditor2.visual.VisualPDFTextStripper;
 import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VModel;
 import de.tudarmstadt.ukp.inception.schema.api.adapter.AnnotationException;
@@ -61,7 +66,11 @@ public class PdfDocumentIFrameView
 
     private static final long serialVersionUID = 4202869513273132875L;
 
+    private static final String PARAM_INDEX = "index";
+    private static final String PARAM_PAGES = "pages";
+
     private @SpringBean DocumentService documentService;
+    private @SpringBean VModelCache vModelCache;
 
     private AbstractAjaxBehavior pdfProvider;
     private AbstractAjaxBehavior vModelProvider;
@@ -116,15 +125,24 @@ public class PdfDocumentIFrameView
     private void sendVModel(IModel<SourceDocument> aDoc, AjaxRequestTarget aTarget)
     {
         try {
-            CAS cas = documentService.createOrReadInitialCas(aDoc.getObject());
+            var params = getRequest().getRequestParameters();
+            var pageRange = params.getParameterValue(PARAM_PAGES).toOptionalString();
 
             VModel vModel;
-            var pdfPages = cas.select(PdfPage.class).asList();
-            if (!pdfPages.isEmpty()) {
-                vModel = VisualPdfReader.visualModelFromCas(cas, pdfPages);
+            if (params.getParameterValue(PARAM_INDEX).toBoolean(false)) {
+                vModel = vModelCache.getPageIndex(aDoc.getObject(), this::extractVisualModel);
+            }
+            else if (isNotBlank(pageRange)) {
+                var firstPage = Integer.parseInt(substringBefore(pageRange, "-"));
+                var lastPage = pageRange.contains("-")
+                        ? Integer.parseInt(substringAfter(pageRange, "-"))
+                        : firstPage;
+                vModel = vModelCache.getPages(aDoc.getObject(), firstPage, lastPage,
+                        this::extractVisualModel);
             }
             else {
-                vModel = visualModelFromPdfSource();
+                vModel = vModelCache.getPages(aDoc.getObject(), 0, Integer.MAX_VALUE,
+                        this::extractVisualModel);
             }
 
             String json = JSONUtil.toJsonString(vModel);
@@ -138,12 +156,24 @@ public class PdfDocumentIFrameView
 
             getRequestCycle().scheduleRequestHandlerAfterCurrent(handler);
         }
-        catch (IOException e) {
+        catch (IOException | NumberFormatException e) {
             handleError("Unable to create visual model for [" + aDoc.getObject().getName() + "]", e,
                     aTarget);
         }
     }
 
+    private VModel extractVisualModel() throws IOException
+    {
+        CAS cas = documentService.createOrReadInitialCas(getModel().getObject());
+
+        var pdfPages = cas.select(PdfPage.class).asList();
+        if (!pdfPages.isEmpty()) {
+            return VisualPdfReader.visualModelFromCas(cas, pdfPages);
+        }
+
+        return visualModelFromPdfSource();
+    }
+
     private VModel visualModelFromPdfSource() throws IOException
     {
         LOG.info("Loading visual model from source");
@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.pdfeditor2.visual;
+
+import static de.tudarmstadt.ukp.inception.project.api.ProjectService.DOCUMENT_FOLDER;
+import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.emptyList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VChunk;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VGlyph;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VModel;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VPage;
+
+/**
+ * Persists the visual model of a PDF document in a compact binary form next to the source
+ * document so that it does not need to be re-extracted every time the document is opened. The
+ * file starts with a page index (page number, size and text range of every page) followed by one
+ * compressed block per page, so that individual pages can be loaded without reading the whole
+ * file.
+ * <p>
+ * The cache is keyed by the {@link #EXTRACTION_VERSION} as well as the size and modification time
+ * of the source file. Increase the version whenever the visual model extraction changes in a way
+ * that should invalidate previously cached models.
+ */
+public class VModelCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VModelCache.class);
+
+    public static final int EXTRACTION_VERSION = 1;
+
+    private static final int MAGIC = 0x564d4f44; // VMOD
+    private static final String CACHE_FOLDER = "vmodel";
+
+    private final DocumentService documentService;
+    private final RepositoryProperties repositoryProperties;
+
+    public VModelCache(DocumentService aDocumentService,
+            RepositoryProperties aRepositoryProperties)
+    {
+        documentService = aDocumentService;
+        repositoryProperties = aRepositoryProperties;
+    }
+
+    /**
+     * @return the visual model with all pages but without any chunks. This is sufficient to map
+     *         text offsets to pages.
+     */
+    public VModel getPageIndex(SourceDocument aDocument, Extractor aExtractor) throws IOException
+    {
+        var cacheFile = ensureCached(aDocument, aExtractor);
+        try (var in = new RandomAccessFile(cacheFile, "r")) {
+            var pages = new ArrayList<VPage>();
+            for (var entry : readIndex(in)) {
+                pages.add(new VPage(entry.index, entry.width, entry.height, entry.begin, entry.end,
+                        "", emptyList()));
+            }
+            return new VModel(pages);
+        }
+    }
+
+    /**
+     * @return the visual model restricted to the pages with an index between the given first and
+     *         last page (inclusive).
+     */
+    public VModel getPages(SourceDocument aDocument, int aFirstPage, int aLastPage,
+            Extractor aExtractor)
+        throws IOException
+    {
+        var cacheFile = ensureCached(aDocument, aExtractor);
+        try (var in = new RandomAccessFile(cacheFile, "r")) {
+            var pages = new ArrayList<VPage>();
+            for (var entry : readIndex(in)) {
+                if (entry.index < aFirstPage || entry.index > aLastPage) {
+                    continue;
+                }
+
+                var block = new byte[entry.length];
+                in.seek(entry.offset);
+                in.readFully(block);
+                pages.add(readPage(entry, block));
+            }
+            return new VModel(pages);
+        }
+    }
+
+    private File ensureCached(SourceDocument aDocument, Extractor aExtractor) throws IOException
+    {
+        var sourceFile = documentService.getSourceDocumentFile(aDocument);
+        var cacheFile = getCacheFile(aDocument);
+
+        if (cacheFile.exists() && isUpToDate(cacheFile, sourceFile)) {
+            return cacheFile;
+        }
+
+        var startTime = System.currentTimeMillis();
+        var vModel = aExtractor.extract();
+        write(vModel, sourceFile, cacheFile);
+        LOG.debug("Cached visual model of {} ({} pages) in {}ms", aDocument,
+                vModel.getPages().size(), System.currentTimeMillis() - startTime);
+        return cacheFile;
+    }
+
+    private File getCacheFile(SourceDocument aDocument)
+    {
+        // We place the cache in the document folder so it is removed together with the document
+        return repositoryProperties.getPath().toPath() //
+                .toAbsolutePath() //
+                .resolve(PROJECT_FOLDER) //
+                .resolve(Long.toString(aDocument.getProject().getId())) //
+                .resolve(DOCUMENT_FOLDER) //
+                .resolve(Long.toString(aDocument.getId())) //
+                .resolve(CACHE_FOLDER) //
+                .resolve("vmodel.bin") //
+                .toFile();
+    }
+
+    private boolean isUpToDate(File aCacheFile, File aSourceFile)
+    {
+        try (var in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(aCacheFile.toPath())))) {
+            return in.readInt() == MAGIC //
+                    && in.readInt() == EXTRACTION_VERSION //
+                    && in.readLong() == aSourceFile.length() //
+                    && in.readLong() == aSourceFile.lastModified();
+        }
+        catch (IOException e) {
+            LOG.warn("Unable to read visual model cache {} - re-extracting", aCacheFile, e);
+            return false;
+        }
+    }
+
+    private void write(VModel aVModel, File aSourceFile, File aCacheFile) throws IOException
+    {
+        var blocks = new ArrayList<byte[]>();
+        for (var page : aVModel.getPages()) {
+            var buf = new ByteArrayOutputStream();
+            try (var out = new DataOutputStream(new DeflaterOutputStream(buf))) {
+                writePage(out, page);
+            }
+            blocks.add(buf.toByteArray());
+        }
+
+        // Header, page count and 7 values per page
+        long offset = 4 + 4 + 8 + 8 + 4 + aVModel.getPages().size() * (4 * 6 + 8);
+
+        aCacheFile.getParentFile().mkdirs();
+        var tempFile = File.createTempFile("vmodel", ".tmp", aCacheFile.getParentFile());
+        try {
+            try (var out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(EXTRACTION_VERSION);
+                out.writeLong(aSourceFile.length());
+                out.writeLong(aSourceFile.lastModified());
+                out.writeInt(aVModel.getPages().size());
+                for (int i = 0; i < blocks.size(); i++) {
+                    var page = aVModel.getPages().get(i);
+                    out.writeInt(page.getIndex());
+                    out.writeFloat(page.getWidth());
+                    out.writeFloat(page.getHeight());
+                    out.writeInt(page.getBegin());
+                    out.writeInt(page.getEnd());
+                    out.writeLong(offset);
+                    out.writeInt(blocks.get(i).length);
+                    offset += blocks.get(i).length;
+                }
+                for (var block : blocks) {
+                    out.write(block);
+                }
+            }
+
+            Files.move(tempFile.toPath(), aCacheFile.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private List<PageIndexEntry> readIndex(RandomAccessFile aIn) throws IOException
+    {
+        aIn.seek(0);
+        if (aIn.readInt() != MAGIC) {
+            throw new IOException("Not a visual model cache file");
+        }
+        aIn.readInt(); // version
+        aIn.readLong(); // source length
+        aIn.readLong(); // source last modified
+
+        var pageCount = aIn.readInt();
+        var entries = new ArrayList<PageIndexEntry>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            entries.add(new PageIndexEntry(aIn.readInt(), aIn.readFloat(), aIn.readFloat(),
+                    aIn.readInt(), aIn.readInt(), aIn.readLong(), aIn.readInt()));
+        }
+        return entries;
+    }
+
+    private static void writePage(DataOutput aOut, VPage aPage) throws IOException
+    {
+        writeString(aOut, aPage.getText());
+        aOut.writeInt(aPage.getChunks().size());
+        for (var chunk : aPage.getChunks()) {
+            aOut.writeInt(chunk.getBegin());
+            aOut.writeInt(chunk.getEnd());
+            writeString(aOut, chunk.getText());
+            aOut.writeFloat(chunk.getDir());
+            aOut.writeFloat(chunk.getX());
+            aOut.writeFloat(chunk.getY());
+            aOut.writeFloat(chunk.getW());
+            aOut.writeFloat(chunk.getH());
+            aOut.writeInt(chunk.getGlyphs().size());
+            for (var glyph : chunk.getGlyphs()) {
+                aOut.writeInt(glyph.getBegin());
+                writeString(aOut, glyph.getUnicode());
+                aOut.writeFloat(glyph.getDir());
+                aOut.writeFloat(glyph.getFontX());
+                aOut.writeFloat(glyph.getFontY());
+                aOut.writeFloat(glyph.getFontWidth());
+                aOut.writeFloat(glyph.getFontHeight());
+            }
+        }
+    }
+
+    private static VPage readPage(PageIndexEntry aEntry, byte[] aBlock) throws IOException
+    {
+        try (var in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(aBlock)))) {
+            var text = readString(in);
+            var chunkCount = in.readInt();
+            var chunks = new ArrayList<VChunk>(chunkCount);
+            for (int c = 0; c < chunkCount; c++) {
+                var begin = in.readInt();
+                var end = in.readInt();
+                var chunkText = readString(in);
+                var dir = in.readFloat();
+                var x = in.readFloat();
+                var y = in.readFloat();
+                var w = in.readFloat();
+                var h = in.readFloat();
+                var glyphCount = in.readInt();
+                var glyphs = new ArrayList<VGlyph>(glyphCount);
+                for (int g = 0; g < glyphCount; g++) {
+                    glyphs.add(new VGlyph(in.readInt(), aEntry.index, readString(in),
+                            in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(),
+                            in.readFloat()));
+                }
+                chunks.add(new VChunk(begin, end, chunkText, dir, x, y, w, h, glyphs));
+            }
+            return new VPage(aEntry.index, aEntry.width, aEntry.height, aEntry.begin, aEntry.end,
+                    text, chunks);
+        }
+    }
+
+    private static void writeString(DataOutput aOut, String aString) throws IOException
+    {
+        var bytes = aString != null ? aString.getBytes(UTF_8) : new byte[0];
+        aOut.writeInt(bytes.length);
+        aOut.write(bytes);
+    }
+
+    private static String readString(DataInput aIn) throws IOException
+    {
+        var bytes = new byte[aIn.readInt()];
+        aIn.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    @FunctionalInterface
+    public static interface Extractor
+    {
+        VModel extract() throws IOException;
+    }
+
+    private static record PageIndexEntry(int index, float width, float height, int begin, int end,
+            long offset, int length)
+    {}
+}
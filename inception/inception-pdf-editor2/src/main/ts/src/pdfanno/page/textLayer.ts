@@ -11,11 +11,65 @@ import { VPage } from '../../vmodel/VPage'
  */
 let pages: VPage[] = []
 
+/**
+ * URL from which the glyphs of individual pages are loaded.
+ */
+let vModelUrl: string | undefined
+
+/**
+ * Page loads are serialized so that concurrent requests do not fetch the same pages twice.
+ */
+let pendingLoad: Promise<void> = Promise.resolve()
+
 /**
  * Setup text layers.
+ *
+ * @param pageIndex - the visual model containing only the page ranges but no glyphs.
+ * @param url - the URL from which the glyphs of individual pages can be loaded.
+ */
+export function setup (pageIndex: string, url: string) {
+  pages = deserializeVModelFromJson(pageIndex, false)
+  vModelUrl = url
+}
+
+/**
+ * Make sure that the glyphs of the given pages (inclusive) are loaded.
+ *
+ * @param first - the number of the first page (1-based).
+ * @param last - the number of the last page (1-based).
  */
-export function setup (analyzeData: string) {
-  pages = deserializeVModelFromJson(analyzeData)
+export function ensurePagesLoaded (first: number, last: number): Promise<void> {
+  pendingLoad = pendingLoad.then(() => loadPages(first, last))
+  return pendingLoad
+}
+
+async function loadPages (first: number, last: number): Promise<void> {
+  const missing = pages.filter(p => first <= p.index && p.index <= last && !p.loaded)
+  if (!missing.length || !vModelUrl) {
+    return
+  }
+
+  // Server-side page indexes are 0-based
+  const from = missing[0].index - 1
+  const to = missing[missing.length - 1].index - 1
+  // add noise to the query parameters so caching is prevented
+  const url = `${vModelUrl}&pages=${from}-${to}&time=${new Date().getTime()}`
+
+  try {
+    const response = await fetch(url, { method: 'GET', mode: 'cors' })
+    if (!response.ok) {
+      throw new Error(`HTTP ${response.status} - visual model`)
+    }
+
+    for (const page of deserializeVModelFromJson(await response.text())) {
+      const i = pages.findIndex(p => p.index === page.index)
+      if (i >= 0) {
+        pages[i] = page
+      }
+    }
+  } catch (err) {
+    console.error(`Unable to load visual model for pages ${first}-${last}`, err)
+  }
 }
 
 export function getPage (num: number): VPage | undefined {
@@ -105,8 +105,13 @@ function onPageRendered (ev) {
   }
 
   adjustPageGaps()
-  removeAnnoLayer()
-  renderAnno()
+
+  // The glyphs of the page may not have been loaded yet, so we can only render the annotations
+  // once they are available
+  textLayer.ensurePagesLoaded(ev.pageNumber, ev.pageNumber).then(() => {
+    removeAnnoLayer()
+    renderAnno()
+  })
 }
 
 function onScaleChange (ev) {
@@ -233,6 +238,10 @@ export function scrollTo (args: { offset: number, position?: string, pingRanges?
     return
   }
 
+  textLayer.ensurePagesLoaded(page, page).then(() => scrollToPage(page, args))
+}
+
+function scrollToPage (page: number, args: { offset: number, position?: string, pingRanges?: Offsets[] }): void {
   const pingRange: Offsets = args.pingRanges && args.pingRanges.length > 0 ? args.pingRanges[0] : [args.offset, args.offset + 1]
 
   const rectangles = mapToDocumentCoordinates(getGlyphsInRange(pingRange).map(g => g.bbox))
@@ -286,10 +295,12 @@ export function getAnnotations () {
     format: 'compact_v2'
   }
 
-  diamAjax.loadAnnotations(options).then((doc: CompactAnnotatedText) => {
-    data = unpackCompactAnnotatedTextV2(doc)
-    renderAnnotations(data)
-  })
+  textLayer.ensurePagesLoaded(currentFocusPage - 1, currentFocusPage + 1)
+    .then(() => diamAjax.loadAnnotations(options))
+    .then((doc: CompactAnnotatedText) => {
+      data = unpackCompactAnnotatedTextV2(doc)
+      renderAnnotations(data)
+    })
 }
 
 function renderAnnotations (doc: AnnotatedText): void {
@@ -430,7 +441,7 @@ async function displayViewer (): Promise<void> {
 
   // Load a PDF file.
   return Promise.all([
-    annoPage.loadVisualModel(vModelUrl),
+    annoPage.loadVisualModel(vModelUrl + '&index=true'),
     annoPage.displayViewer(getPDFName(pdfUrl), pdfUrl)
   ])
     .then(([vModel]) => {
@@ -438,7 +449,7 @@ async function displayViewer (): Promise<void> {
 
       try {
         // Init textLayers.
-        textLayer.setup(vModel)
+        textLayer.setup(vModel, vModelUrl)
 
         pagechangeEventCounter = 0
         currentFocusPage = 1
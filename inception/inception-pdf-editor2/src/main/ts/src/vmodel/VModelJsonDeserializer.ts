@@ -45,7 +45,7 @@ interface JsonVModel {
   pages : JsonVPage[];
 }
 
-export function deserializeVModelFromJson (vModel: string) : VPage[] {
+export function deserializeVModelFromJson (vModel: string, loaded = true) : VPage[] {
   const jsonVModel = JSON.parse(vModel) as JsonVModel
-  return jsonVModel.pages.map(p => new VPage(p))
+  return jsonVModel.pages.map(p => new VPage(p, loaded))
 }
@@ -24,10 +24,12 @@ export class VPage {
   index: number
   glyphs: VGlyph[]
   range: Offsets
+  loaded: boolean
 
-  constructor (aPage : JsonVPage) {
+  constructor (aPage : JsonVPage, aLoaded = true) {
     this.index = aPage[0] + 1
     this.range = [aPage[1], aPage[2]]
     this.glyphs = aPage[3].flatMap(l => l[5].map(g => new VGlyph(this, l, g)))
+    this.loaded = aLoaded
   }
 }
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.pdfeditor2.visual;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryPropertiesImpl;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VChunk;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VGlyph;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VModel;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VPage;
+
+class VModelCacheTest
+{
+    final String testFilesBase = "src/test/resources/pdfbox-testfiles/";
+
+    @TempDir
+    Path tempDir;
+
+    SourceDocument document;
+    File sourceFile;
+    VModelCache sut;
+    AtomicInteger extractions;
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        sourceFile = tempDir.resolve("source").resolve("eu-001.pdf").toFile();
+        Files.createDirectories(sourceFile.getParentFile().toPath());
+        Files.copy(Path.of(testFilesBase, "eu-001.pdf"), sourceFile.toPath());
+
+        var project = new Project("test");
+        project.setId(1l);
+        document = new SourceDocument("eu-001.pdf", project, null);
+        document.setId(2l);
+
+        var documentService = mock(DocumentService.class);
+        when(documentService.getSourceDocumentFile(any())).thenReturn(sourceFile);
+
+        var repositoryProperties = new RepositoryPropertiesImpl();
+        repositoryProperties.setPath(tempDir.resolve("repository").toFile());
+
+        sut = new VModelCache(documentService, repositoryProperties);
+        extractions = new AtomicInteger();
+    }
+
+    @Test
+    void thatPagesRoundTripThroughCache() throws Exception
+    {
+        var expected = extract();
+
+        var actual = sut.getPages(document, 0, Integer.MAX_VALUE, this::extract);
+
+        assertThat(actual.getPages()).hasSameSizeAs(expected.getPages());
+        for (int i = 0; i < expected.getPages().size(); i++) {
+            assertSamePage(actual.getPages().get(i), expected.getPages().get(i));
+        }
+    }
+
+    @Test
+    void thatModelIsExtractedOnlyOnce() throws Exception
+    {
+        sut.getPageIndex(document, this::extract);
+        sut.getPages(document, 0, 0, this::extract);
+        sut.getPages(document, 1, 2, this::extract);
+
+        assertThat(extractions).hasValue(1);
+    }
+
+    @Test
+    void thatPageIndexContainsAllPagesWithoutChunks() throws Exception
+    {
+        var expected = extract();
+
+        var index = sut.getPageIndex(document, this::extract);
+
+        assertThat(index.getPages()) //
+                .extracting(VPage::getIndex, VPage::getBegin, VPage::getEnd) //
+                .containsExactlyElementsOf(expected.getPages().stream() //
+                        .map(p -> tuple(p.getIndex(), p.getBegin(), p.getEnd())) //
+                        .toList());
+        assertThat(index.getPages()).allMatch(p -> p.getChunks().isEmpty());
+    }
+
+    @Test
+    void thatPageRangeIsRespected() throws Exception
+    {
+        var pages = sut.getPages(document, 1, 1, this::extract);
+
+        assertThat(pages.getPages()).extracting(VPage::getIndex).containsExactly(1);
+    }
+
+    @Test
+    void thatChangedSourceInvalidatesCache() throws Exception
+    {
+        sut.getPageIndex(document, this::extract);
+
+        sourceFile.setLastModified(sourceFile.lastModified() - 10_000);
+        sut.getPageIndex(document, this::extract);
+
+        assertThat(extractions).hasValue(2);
+    }
+
+    private VModel extract() throws IOException
+    {
+        extractions.incrementAndGet();
+        try (PDDocument doc = PDDocument.load(sourceFile)) {
+            var extractor = new VisualPDFTextStripper();
+            extractor.writeText(doc, new StringWriter());
+            return extractor.getVisualModel();
+        }
+    }
+
+    private void assertSamePage(VPage aActual, VPage aExpected)
+    {
+        assertThat(aActual.getIndex()).isEqualTo(aExpected.getIndex());
+        assertThat(aActual.getBegin()).isEqualTo(aExpected.getBegin());
+        assertThat(aActual.getEnd()).isEqualTo(aExpected.getEnd());
+        assertThat(aActual.getWidth()).isEqualTo(aExpected.getWidth());
+        assertThat(aActual.getHeight()).isEqualTo(aExpected.getHeight());
+        assertThat(aActual.getChunks()) //
+                .extracting(VChunk::getBegin, VChunk::getEnd, VChunk::getDir, VChunk::getX,
+                        VChunk::getY, VChunk::getW, VChunk::getH)
+                .containsExactlyElementsOf(aExpected.getChunks().stream() //
+                        .map(c -> tuple(c.getBegin(), c.getEnd(), c.getDir(), c.getX(),
+                                c.getY(), c.getW(), c.getH())) //
+                        .toList());
+        assertThat(aActual.getChunks().stream().flatMap(c -> c.getGlyphs().stream())) //
+                .extracting(VGlyph::getBegin, VGlyph::getUnicode, VGlyph::getBase,
+                        VGlyph::getExtent)
+                .containsExactlyElementsOf(aExpected.getChunks().stream() //
+                        .flatMap(c -> c.getGlyphs().stream()) //
+                        .map(g -> tuple(g.getBegin(), g.getUnicode(), g.getBase(),
+                                g.getExtent())) //
+                        .toList());
+    }
+}
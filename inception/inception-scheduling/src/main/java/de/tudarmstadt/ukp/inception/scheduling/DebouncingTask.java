@@ -19,28 +19,69 @@ package de.tudarmstadt.ukp.inception.scheduling;
 
 import java.time.Duration;
 
+/**
+ * Task which only becomes ready to start after a debounce delay. While it waits in the queue, it
+ * can be superseded by a matching task. Optionally, the time a task may be postponed by
+ * superseding tasks can be capped.
+ */
 public abstract class DebouncingTask
     extends Task
 {
-    private final long runnableAfter;
+    private final long created;
+    private final long debounceMillis;
+    private final long maxDebounceMillis;
+
+    private volatile long firstRequested;
 
     protected DebouncingTask(Builder<? extends Builder<?>> aBuilder)
     {
         super(aBuilder);
 
-        runnableAfter = System.currentTimeMillis() + aBuilder.debounceMillis;
+        created = System.currentTimeMillis();
+        firstRequested = created;
+        debounceMillis = aBuilder.debounceMillis;
+        maxDebounceMillis = aBuilder.maxDebounceMillis;
     }
 
     @Override
     public boolean isReadyToStart()
     {
-        return System.currentTimeMillis() > runnableAfter;
+        // A task without a debounce delay is ready right away
+        if (debounceMillis <= 0) {
+            return true;
+        }
+
+        return System.currentTimeMillis() > getRunnableAfter();
+    }
+
+    long getRunnableAfter()
+    {
+        var runnableAfter = created + debounceMillis;
+
+        if (maxDebounceMillis >= 0) {
+            runnableAfter = Math.min(runnableAfter, firstRequested + maxDebounceMillis);
+        }
+
+        return runnableAfter;
+    }
+
+    /**
+     * Called when this task replaces the given task in the queue. The maximum debounce delay of
+     * this task then counts from the time the replaced task was requested.
+     * 
+     * @param aSuperseded
+     *            the task that is replaced.
+     */
+    void supersede(DebouncingTask aSuperseded)
+    {
+        firstRequested = Math.min(firstRequested, aSuperseded.firstRequested);
     }
 
     public static abstract class Builder<T extends Builder<?>>
         extends Task.Builder<T>
     {
         private long debounceMillis;
+        private long maxDebounceMillis = -1;
 
         public T withDebounceMillis(Duration aDebounceDelay)
         {
@@ -53,5 +94,17 @@ public abstract class DebouncingTask
             debounceMillis = aDebounceMillis;
             return (T) this;
         }
+
+        /**
+         * @param aMaxDebounceDelay
+         *            maximum time the task may be postponed by superseding tasks, counted from
+         *            the time the first of them was requested. By default, there is no limit.
+         * @return the builder.
+         */
+        public T withMaxDebounceMillis(Duration aMaxDebounceDelay)
+        {
+            maxDebounceMillis = aMaxDebounceDelay.toMillis();
+            return (T) this;
+        }
     }
 }
@@ -237,6 +237,12 @@ public class SchedulingServiceImpl
             LOG.debug("Matching task already queued - unqueuing exsting: [{}] in favor of "
                     + "incoming [{}]", taskToUnqueue, aTask);
             enqueuedTasks.remove(taskToUnqueue);
+
+            // The incoming task must not postpone the work of the unqueued task indefinitely
+            if (aTask instanceof DebouncingTask incoming
+                    && taskToUnqueue instanceof DebouncingTask superseded) {
+                incoming.supersede(superseded);
+            }
         }
 
         if (containsMatchingTask(getScheduledTasks(), aTask)) {
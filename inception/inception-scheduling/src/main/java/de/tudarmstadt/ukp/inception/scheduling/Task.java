@@ -19,6 +19,7 @@ package de.tudarmstadt.ukp.inception.scheduling;
 
 import static de.tudarmstadt.ukp.inception.support.logging.Logging.KEY_PROJECT_ID;
 import static de.tudarmstadt.ukp.inception.support.logging.Logging.KEY_REPOSITORY_PATH;
+import static de.tudarmstadt.ukp.inception.support.logging.Logging.KEY_TASK;
 import static de.tudarmstadt.ukp.inception.support.logging.Logging.KEY_USERNAME;
 import static org.apache.commons.lang3.Validate.notNull;
 
@@ -170,12 +171,15 @@ public abstract class Task
                 MDC.put(KEY_PROJECT_ID, String.valueOf(getProject().getId()));
             }
 
+            MDC.put(KEY_TASK, getType() + " (" + getId() + ")");
+
             runSync();
         }
         finally {
             MDC.remove(KEY_REPOSITORY_PATH);
             MDC.remove(KEY_USERNAME);
             MDC.remove(KEY_PROJECT_ID);
+            MDC.remove(KEY_TASK);
         }
     }
 
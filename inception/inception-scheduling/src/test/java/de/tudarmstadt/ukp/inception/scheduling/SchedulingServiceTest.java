@@ -17,14 +17,18 @@
  */
 package de.tudarmstadt.ukp.inception.scheduling;
 
+import static java.lang.Thread.sleep;
+import static java.time.Duration.ofHours;
+import static java.time.Duration.ofMillis;
 import static java.time.Duration.ofSeconds;
 import static java.util.Arrays.asList;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
@@ -50,7 +54,8 @@ public class SchedulingServiceTest
     @BeforeEach
     public void setUp()
     {
-        when(mockContext.getAutowireCapableBeanFactory())
+        // Not all tests schedule tasks and need the bean factory
+        lenient().when(mockContext.getAutowireCapableBeanFactory())
                 .thenReturn(mock(AutowireCapableBeanFactory.class));
 
         sut = new SchedulingServiceImpl(mockContext, new SchedulingProperties(), null);
@@ -113,6 +118,59 @@ public class SchedulingServiceTest
                 .doesNotContain(tasksToRemove);
     }
 
+    @Test
+    public void thatQueuedDebouncingTaskIsReplacedBySupersedingTask()
+    {
+        var user = buildUser("testUser");
+        var project = buildProject("project1");
+
+        var first = buildDebouncedTask(user, project, null);
+        var second = buildDebouncedTask(user, project, null);
+
+        sut.enqueue(first);
+        sut.enqueue(second);
+
+        assertThat(sut.getEnqueuedTasks()) //
+                .as("The second task supersedes the first one while it waits") //
+                .containsExactly(second);
+        assertThat(sut.getScheduledAndRunningTasks()).isEmpty();
+    }
+
+    @Test
+    public void thatDebouncingIsCappedByMaxDelay() throws Exception
+    {
+        var user = buildUser("testUser");
+        var project = buildProject("project1");
+
+        var first = buildDebouncedTask(user, project, ofMillis(50));
+        sut.enqueue(first);
+        assertThat(sut.getEnqueuedTasks()).containsExactly(first);
+
+        sleep(100);
+
+        // On its own, the second task would wait for its full debounce delay...
+        var second = buildDebouncedTask(user, project, ofMillis(50));
+        assertThat(second.isReadyToStart()).isFalse();
+
+        // ... but since it supersedes the first task, it must not wait longer than the maximum
+        // delay counted from when the first task was requested
+        sut.enqueue(second);
+        assertThat(sut.getEnqueuedTasks()).isEmpty();
+        assertThat(sut.getScheduledAndRunningTasks()).containsExactly(second);
+    }
+
+    @Test
+    public void thatTaskWithoutDebounceDelayIsReadyImmediately()
+    {
+        var task = DebouncedDummyTask.builder() //
+                .withDebounceMillis(0) //
+                .withSessionOwner(buildUser("testUser")) //
+                .withProject(buildProject("project1")) //
+                .build();
+
+        assertThat(task.isReadyToStart()).isTrue();
+    }
+
     private User buildUser(String aUsername)
     {
         return new User(aUsername);
@@ -134,6 +192,20 @@ public class SchedulingServiceTest
         return task;
     }
 
+    private Task buildDebouncedTask(User aUser, Project aProject, Duration aMaxDelay)
+    {
+        var builder = DebouncedDummyTask.builder() //
+                .withDebounceMillis(ofHours(1)) //
+                .withSessionOwner(aUser) //
+                .withProject(aProject);
+        if (aMaxDelay != null) {
+            builder.withMaxDebounceMillis(aMaxDelay);
+        }
+        var task = builder.build();
+        task.afterPropertiesSet();
+        return task;
+    }
+
     /**
      * DummyTask is a task that does nothing and just sleeps until interrupted. if interrupted, it
      * just finishes running and returns.
@@ -180,4 +252,45 @@ public class SchedulingServiceTest
             }
         }
     }
+
+    /**
+     * Like {@link DummyTask}, but only ready to start after its debounce delay.
+     */
+    private static class DebouncedDummyTask
+        extends DebouncingTask
+    {
+        private static final String TYPE = "DebouncedDummyTask";
+
+        DebouncedDummyTask(Builder<? extends Builder<?>> aBuilder)
+        {
+            super(aBuilder.withType(TYPE).withTrigger("test"));
+        }
+
+        @Override
+        public void execute()
+        {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(1000);
+                }
+                catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+
+        public static Builder<Builder<?>> builder()
+        {
+            return new Builder<>();
+        }
+
+        public static class Builder<T extends Builder<?>>
+            extends DebouncingTask.Builder<T>
+        {
+            public DebouncedDummyTask build()
+            {
+                return new DebouncedDummyTask(this);
+            }
+        }
+    }
 }
@@ -17,8 +17,12 @@
  */
 package de.tudarmstadt.ukp.inception.schema.api.event;
 
+import java.util.Optional;
+
 import org.springframework.context.ApplicationEvent;
 
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 
 public class LayerConfigurationChangedEvent
@@ -27,15 +31,126 @@ public class LayerConfigurationChangedEvent
     private static final long serialVersionUID = -6859433860519240811L;
 
     private final Project project;
+    private final AnnotationLayer layer;
+    private final AnnotationFeature feature;
+    private final boolean compatible;
 
+    /**
+     * Signals a change to the layer configuration of the project which cannot be attributed to a
+     * particular layer, e.g. the application of a project initializer.
+     * 
+     * @param aSource
+     *            the event source.
+     * @param aProject
+     *            the project whose layer configuration changed.
+     */
     public LayerConfigurationChangedEvent(Object aSource, Project aProject)
     {
         super(aSource);
         project = aProject;
+        layer = null;
+        feature = null;
+        compatible = false;
+    }
+
+    /**
+     * Signals that the given layer was created, changed or removed.
+     * 
+     * @param aSource
+     *            the event source.
+     * @param aLayer
+     *            the layer which changed.
+     */
+    public LayerConfigurationChangedEvent(Object aSource, AnnotationLayer aLayer)
+    {
+        this(aSource, aLayer, true);
+    }
+
+    /**
+     * Signals that the given layer was created, changed or removed.
+     * 
+     * @param aSource
+     *            the event source.
+     * @param aLayer
+     *            the layer which changed.
+     * @param aCompatible
+     *            whether existing annotations remain valid under the new configuration. This is
+     *            not the case e.g. if the layer has been removed.
+     */
+    public LayerConfigurationChangedEvent(Object aSource, AnnotationLayer aLayer,
+            boolean aCompatible)
+    {
+        super(aSource);
+        project = aLayer.getProject();
+        layer = aLayer;
+        feature = null;
+        compatible = aCompatible;
+    }
+
+    /**
+     * Signals that the given feature was created, changed or removed.
+     * 
+     * @param aSource
+     *            the event source.
+     * @param aFeature
+     *            the feature which changed.
+     */
+    public LayerConfigurationChangedEvent(Object aSource, AnnotationFeature aFeature)
+    {
+        this(aSource, aFeature, true);
+    }
+
+    /**
+     * Signals that the given feature was created, changed or removed.
+     * 
+     * @param aSource
+     *            the event source.
+     * @param aFeature
+     *            the feature which changed.
+     * @param aCompatible
+     *            whether existing annotations remain valid under the new configuration. This is
+     *            not the case e.g. if the type of the feature has changed.
+     */
+    public LayerConfigurationChangedEvent(Object aSource, AnnotationFeature aFeature,
+            boolean aCompatible)
+    {
+        super(aSource);
+        project = aFeature.getProject();
+        layer = aFeature.getLayer();
+        feature = aFeature;
+        compatible = aCompatible;
     }
 
     public Project getProject()
     {
         return project;
     }
+
+    /**
+     * @return the layer which changed or the layer of the feature which changed. If the change
+     *         cannot be attributed to a particular layer, the result is empty.
+     */
+    public Optional<AnnotationLayer> getLayer()
+    {
+        return Optional.ofNullable(layer);
+    }
+
+    /**
+     * @return the feature which changed or empty if the change was not specific to a feature.
+     */
+    public Optional<AnnotationFeature> getFeature()
+    {
+        return Optional.ofNullable(feature);
+    }
+
+    /**
+     * @return whether annotations created under the previous layer configuration remain valid. If
+     *         not, anything derived from them (e.g. a search index) needs to be rebuilt from
+     *         scratch. Changes which cannot be attributed to a particular layer are never
+     *         considered compatible.
+     */
+    public boolean isCompatible()
+    {
+        return compatible;
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.tudarmstadt.ukp.inception.search.SearchServiceImpl.IndexingOperation;
+import de.tudarmstadt.ukp.inception.search.index.IndexRebuildRequiredException;
+import de.tudarmstadt.ukp.inception.search.model.BulkIndexingContext;
+import de.tudarmstadt.ukp.inception.search.model.Monitor;
+
+/**
+ * Turns documents into index entries during a re-index. If an indexing worker pool is available,
+ * the calling thread loads the CASes while the workers analyze them and add them to the index.
+ * Otherwise, the documents are indexed on the calling thread right away. Each document is
+ * submitted only once per batch and {@link #await()} waits for all of them to be indexed. Since
+ * the indexing task which owns the batch keeps running until then, the scheduler holds back any
+ * task indexing the same documents, so the order of updates to a document is retained.
+ */
+class IndexingBatch
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final BulkIndexingContext context;
+    private final Monitor monitor;
+    private final BooleanSupplier cancelled;
+    private final List<Future<?>> pending = new ArrayList<>();
+    private final AtomicBoolean rebuildRequired = new AtomicBoolean();
+
+    /**
+     * @param aExecutor
+     *            the indexing workers or {@code null} to index on the calling thread.
+     * @param aPermits
+     *            bounds the number of documents waiting for a worker.
+     * @param aContext
+     *            the context of the re-index which is attached to the workers.
+     * @param aMonitor
+     *            counts the indexed documents.
+     * @param aCancelled
+     *            whether documents which have not been indexed yet should be skipped.
+     */
+    IndexingBatch(ExecutorService aExecutor, Semaphore aPermits, BulkIndexingContext aContext,
+            Monitor aMonitor, BooleanSupplier aCancelled)
+    {
+        executor = aExecutor;
+        permits = aPermits;
+        context = aContext;
+        monitor = aMonitor;
+        cancelled = aCancelled;
+    }
+
+    public void submit(Object aDocument, IndexingOperation aOperation)
+        throws InterruptedIOException
+    {
+        // The context is already attached to the calling thread
+        if (executor == null) {
+            run(aDocument, aOperation);
+            return;
+        }
+
+        try {
+            permits.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for indexing worker");
+        }
+
+        try {
+            pending.add(executor.submit(() -> {
+                context.attach();
+                try {
+                    run(aDocument, aOperation);
+                }
+                finally {
+                    BulkIndexingContext.clear();
+                    permits.release();
+                }
+            }));
+        }
+        catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void run(Object aDocument, IndexingOperation aOperation)
+    {
+        try {
+            if (!cancelled.getAsBoolean() && !rebuildRequired.get()) {
+                aOperation.run();
+            }
+        }
+        catch (IndexRebuildRequiredException e) {
+            rebuildRequired.set(true);
+        }
+        catch (Exception e) {
+            LOG.error("Error indexing document {} in project {}", aDocument, context.getProject(),
+                    e);
+        }
+        finally {
+            monitor.incDone();
+        }
+    }
+
+    public void await() throws InterruptedIOException
+    {
+        for (var future : pending) {
+            try {
+                future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for indexing");
+            }
+            catch (ExecutionException e) {
+                // Not expected since run() handles all exceptions
+                LOG.error("Error indexing document in project {}", context.getProject(),
+                        e.getCause());
+            }
+        }
+        pending.clear();
+    }
+
+    public boolean isRebuildRequired()
+    {
+        return rebuildRequired.get();
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+/**
+ * Thrown when trying to fetch results from a search cursor which has been closed, e.g. because it
+ * has not been used for longer than the configured keep-open time.
+ */
+public class SearchCursorExpiredException
+    extends ExecutionException
+{
+    private static final long serialVersionUID = -1603845203746419850L;
+
+    public SearchCursorExpiredException(String aMessage)
+    {
+        super(aMessage);
+    }
+}
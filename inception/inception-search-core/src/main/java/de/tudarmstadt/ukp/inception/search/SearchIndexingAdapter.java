@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource("de.tudarmstadt.ukp.inception.search:type=SearchServiceImpl,name=indexing")
+public class SearchIndexingAdapter
+{
+    private final SearchServiceImpl searchService;
+
+    @Autowired
+    public SearchIndexingAdapter(SearchServiceImpl aSearchService)
+    {
+        searchService = aSearchService;
+    }
+
+    @ManagedAttribute
+    public long getIndexingRequestCount()
+    {
+        return searchService.getIndexingRequestCount();
+    }
+
+    @ManagedAttribute
+    public long getCoalescedIndexingRequestCount()
+    {
+        return searchService.getCoalescedIndexingRequestCount();
+    }
+
+    @ManagedAttribute
+    public double getCoalescingRate()
+    {
+        long requests = getIndexingRequestCount();
+
+        if (requests == 0) {
+            return 0;
+        }
+
+        return (double) getCoalescedIndexingRequestCount() / requests;
+    }
+}
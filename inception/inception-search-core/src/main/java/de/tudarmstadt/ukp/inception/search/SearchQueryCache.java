@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+import static java.util.stream.Collectors.toCollection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState;
+
+/**
+ * Caches the results of queries and statistics requests. The keys include the generation of the
+ * index the result was obtained from. When a change to the index becomes visible to queries, the
+ * generation advances and cached results from the previous generation are no longer used. They
+ * are eventually evicted by the size limit or the expiration time.
+ */
+public class SearchQueryCache
+{
+    // Rough estimates of the memory used by objects in the cache
+    private static final int ENTRY_OVERHEAD = 256;
+    private static final int RESULT_OVERHEAD = 96;
+    private static final int STATISTICS_OVERHEAD = 192;
+
+    private final long maxWeight;
+    private final Cache<Key, Object> cache;
+
+    public SearchQueryCache(long aMaxWeight, Duration aExpireAfterAccess)
+    {
+        maxWeight = aMaxWeight;
+        cache = Caffeine.newBuilder() //
+                .maximumWeight(aMaxWeight) //
+                .expireAfterAccess(aExpireAfterAccess) //
+                .weigher((Key key, Object value) -> weigh(key, value)) //
+                .recordStats() //
+                .build();
+    }
+
+    public Map<String, List<SearchResult>> getResults(Key aKey,
+            Loader<Map<String, List<SearchResult>>> aLoader)
+        throws IOException, ExecutionException
+    {
+        @SuppressWarnings("unchecked")
+        var results = (Map<String, List<SearchResult>>) get(aKey, aLoader);
+
+        // Search results are mutable (e.g. the UI tracks whether they are selected), so callers
+        // get their own copies
+        var copy = new LinkedHashMap<String, List<SearchResult>>();
+        for (var group : results.entrySet()) {
+            copy.put(group.getKey(), group.getValue().stream() //
+                    .map(SearchResult::new) //
+                    .collect(toCollection(ArrayList::new)));
+        }
+        return copy;
+    }
+
+    public long getCount(Key aKey, Loader<Long> aLoader) throws IOException, ExecutionException
+    {
+        return (Long) get(aKey, aLoader);
+    }
+
+    public StatisticsResult getStatistics(Key aKey, Loader<StatisticsResult> aLoader)
+        throws IOException, ExecutionException
+    {
+        return (StatisticsResult) get(aKey, aLoader);
+    }
+
+    private Object get(Key aKey, Loader<?> aLoader) throws IOException, ExecutionException
+    {
+        var value = cache.getIfPresent(aKey);
+        if (value != null) {
+            return value;
+        }
+
+        // The loader may throw checked exceptions, so we cannot use the loading function of the
+        // cache. Concurrent requests for the same key may compute the value twice which is fine.
+        value = aLoader.load();
+        cache.put(aKey, value);
+        return value;
+    }
+
+    public void invalidateProject(long aProjectId)
+    {
+        cache.asMap().keySet().removeIf(key -> key.projectId() == aProjectId);
+    }
+
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+
+    public long getSize()
+    {
+        return cache.estimatedSize();
+    }
+
+    public long getWeight()
+    {
+        return cache.policy().eviction() //
+                .map(eviction -> eviction.weightedSize().orElse(0L)) //
+                .orElse(0L);
+    }
+
+    public long getMaxWeight()
+    {
+        return maxWeight;
+    }
+
+    private static int weigh(Key aKey, Object aValue)
+    {
+        long weight = ENTRY_OVERHEAD + length(aKey.query());
+
+        if (aValue instanceof Map<?, ?> results) {
+            for (var group : results.entrySet()) {
+                weight += length((String) group.getKey());
+                for (var result : (Collection<?>) group.getValue()) {
+                    weight += weigh((SearchResult) result);
+                }
+            }
+        }
+        else if (aValue instanceof StatisticsResult statistics) {
+            for (var entry : statistics.getResults().entrySet()) {
+                weight += STATISTICS_OVERHEAD + length(entry.getKey());
+            }
+        }
+
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static long weigh(SearchResult aResult)
+    {
+        return RESULT_OVERHEAD + length(aResult.getText()) + length(aResult.getLeftContext())
+                + length(aResult.getRightContext()) + length(aResult.getDocumentTitle());
+    }
+
+    private static long length(String aString)
+    {
+        // Java strings use (at least) one byte per character
+        return aString != null ? aString.length() : 0;
+    }
+
+    /**
+     * Normalizes whitespace in a query so that trivially different spellings of the same query
+     * share a cache entry. Whitespace within quotes is left alone since it may be significant.
+     */
+    static String normalizeQuery(String aQuery)
+    {
+        if (aQuery == null) {
+            return null;
+        }
+
+        var sb = new StringBuilder(aQuery.length());
+        boolean inQuotes = false;
+        boolean pendingSpace = false;
+        for (int i = 0; i < aQuery.length(); i++) {
+            char c = aQuery.charAt(i);
+
+            if (!inQuotes && Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+
+            sb.append(c);
+
+            if (c == '\\' && i + 1 < aQuery.length()) {
+                sb.append(aQuery.charAt(++i));
+            }
+            else if (c == '"') {
+                inQuotes = !inQuotes;
+            }
+        }
+
+        return sb.toString();
+    }
+
+    public static Key queryKey(long aGeneration, User aUser, Project aProject, String aQuery,
+            SourceDocument aDocument, AnnotationLayer aLayer, AnnotationFeature aFeature,
+            AnnotationSearchState aPrefs, long aOffset, long aCount)
+    {
+        return new Key(Kind.QUERY, aProject.getId(), aGeneration, aUser.getUsername(),
+                normalizeQuery(aQuery), aDocument != null ? aDocument.getId() : null,
+                aLayer != null ? aLayer.getId() : null, aFeature != null ? aFeature.getId() : null,
+                isCaseSensitive(aPrefs), aOffset, aCount, 0, 0, null);
+    }
+
+    public static Key countKey(long aGeneration, User aUser, Project aProject, String aQuery,
+            SourceDocument aDocument, AnnotationLayer aLayer, AnnotationFeature aFeature,
+            AnnotationSearchState aPrefs)
+    {
+        return new Key(Kind.COUNT, aProject.getId(), aGeneration, aUser.getUsername(),
+                normalizeQuery(aQuery), aDocument != null ? aDocument.getId() : null,
+                aLayer != null ? aLayer.getId() : null, aFeature != null ? aFeature.getId() : null,
+                isCaseSensitive(aPrefs), 0, 0, 0, 0, null);
+    }
+
+    public static Key statisticsKey(long aGeneration, User aUser, Project aProject, String aQuery,
+            int aMinTokenPerDoc, int aMaxTokenPerDoc, Set<AnnotationFeature> aFeatures,
+            AnnotationSearchState aPrefs)
+    {
+        var featureIds = aFeatures != null ? aFeatures.stream() //
+                .map(AnnotationFeature::getId) //
+                .filter(Objects::nonNull) //
+                .collect(toCollection(TreeSet::new)) : null;
+
+        return new Key(aQuery != null ? Kind.QUERY_STATISTICS : Kind.PROJECT_STATISTICS,
+                aProject.getId(), aGeneration, aUser.getUsername(), normalizeQuery(aQuery), null,
+                null, null, isCaseSensitive(aPrefs), 0, 0, aMinTokenPerDoc, aMaxTokenPerDoc,
+                featureIds);
+    }
+
+    private static boolean isCaseSensitive(AnnotationSearchState aPrefs)
+    {
+        return aPrefs == null || aPrefs.isCaseSensitive();
+    }
+
+    enum Kind
+    {
+        QUERY, COUNT, PROJECT_STATISTICS, QUERY_STATISTICS
+    }
+
+    public record Key(Kind kind, long projectId, long generation, String user, String query,
+            Long documentId, Long layerId, Long featureId, boolean caseSensitive, long offset,
+            long count, int minTokenPerDoc, int maxTokenPerDoc, Set<Long> featureIds)
+    {}
+
+    @FunctionalInterface
+    public interface Loader<T>
+    {
+        T load() throws IOException, ExecutionException;
+    }
+}
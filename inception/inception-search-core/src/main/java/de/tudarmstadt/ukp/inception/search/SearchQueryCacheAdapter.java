@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+@ManagedResource("de.tudarmstadt.ukp.inception.search:type=SearchServiceImpl,name=queryCache")
+public class SearchQueryCacheAdapter
+{
+    private final SearchServiceImpl searchService;
+
+    @Autowired
+    public SearchQueryCacheAdapter(SearchServiceImpl aSearchService)
+    {
+        searchService = aSearchService;
+    }
+
+    private CacheStats stats()
+    {
+        var cache = searchService.getQueryCache();
+        return cache != null ? cache.getStats() : CacheStats.empty();
+    }
+
+    @ManagedAttribute
+    public boolean isEnabled()
+    {
+        return searchService.getQueryCache() != null;
+    }
+
+    @ManagedAttribute
+    public long getHitCount()
+    {
+        return stats().hitCount();
+    }
+
+    @ManagedAttribute
+    public long getMissCount()
+    {
+        return stats().missCount();
+    }
+
+    @ManagedAttribute
+    public double getHitRate()
+    {
+        return stats().hitRate();
+    }
+
+    @ManagedAttribute
+    public double getMissRate()
+    {
+        return stats().missRate();
+    }
+
+    @ManagedAttribute
+    public long getRequestCount()
+    {
+        return stats().requestCount();
+    }
+
+    @ManagedAttribute
+    public long getEvictionCount()
+    {
+        return stats().evictionCount();
+    }
+
+    @ManagedAttribute
+    public long getEvictionWeight()
+    {
+        return stats().evictionWeight();
+    }
+
+    @ManagedAttribute
+    public long getActiveCount()
+    {
+        var cache = searchService.getQueryCache();
+        return cache != null ? cache.getSize() : 0;
+    }
+
+    @ManagedAttribute
+    public long getActiveWeight()
+    {
+        var cache = searchService.getQueryCache();
+        return cache != null ? cache.getWeight() : 0;
+    }
+
+    @ManagedAttribute
+    public long getMaxWeight()
+    {
+        var cache = searchService.getQueryCache();
+        return cache != null ? cache.getMaxWeight() : 0;
+    }
+
+    @ManagedAttribute
+    public double getUtilizationRate()
+    {
+        long max = getMaxWeight();
+
+        if (max == 0) {
+            return 0;
+        }
+
+        return (double) getActiveWeight() / max;
+    }
+}
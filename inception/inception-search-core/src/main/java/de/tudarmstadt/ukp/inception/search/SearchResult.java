@@ -46,6 +46,21 @@ public class SearchResult
         // Nothing to do here
     }
 
+    public SearchResult(SearchResult aOther)
+    {
+        tokenStart = aOther.tokenStart;
+        tokenLength = aOther.tokenLength;
+        offsetStart = aOther.offsetStart;
+        offsetEnd = aOther.offsetEnd;
+        text = aOther.text;
+        leftContext = aOther.leftContext;
+        rightContext = aOther.rightContext;
+        documentId = aOther.documentId;
+        documentTitle = aOther.documentTitle;
+        readOnly = aOther.readOnly;
+        isSelectedForAnnotation = aOther.isSelectedForAnnotation;
+    }
+
     public int getTokenStart()
     {
         return tokenStart;
@@ -18,17 +18,22 @@
 package de.tudarmstadt.ukp.inception.search;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
+import org.apache.uima.cas.CAS;
+
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState;
+import de.tudarmstadt.ukp.inception.search.model.IndexStatistics;
 import de.tudarmstadt.ukp.inception.search.model.Monitor;
 import de.tudarmstadt.ukp.inception.search.model.Progress;
 
@@ -91,8 +96,79 @@ public interface SearchService
             AnnotationFeature aAnnotationFeature, long aOffset, long aCount)
         throws IOException, ExecutionException;
 
+    /**
+     * Opens a server-side cursor over the results of the given query. Fetching consecutive pages
+     * of results from the cursor continues where the previous page ended instead of re-running
+     * the query, so deep pages are as cheap as the first one. Cursors which are not used for
+     * longer than the configured keep-open time are closed automatically.
+     * 
+     * @param aUser
+     *            the current user
+     * @param aProject
+     *            the project to search in
+     * @param aQuery
+     *            the search query
+     * @param aDocument
+     *            limit search to this document or search in the whole project if null
+     * @param aAnnotationLayer
+     *            the layer that the grouping feature belongs to
+     * @param aAnnotationFeature
+     *            the feature that is used to group the results
+     * @return the ID of the cursor.
+     * @throws IOException
+     *             if there was an I/O-level problem
+     * @throws ExecutionException
+     *             if there was a search-level problem
+     * @see #fetch(String, long, long)
+     * @see #closeCursor(String)
+     */
+    String openCursor(User aUser, Project aProject, String aQuery, SourceDocument aDocument,
+            AnnotationLayer aAnnotationLayer, AnnotationFeature aAnnotationFeature)
+        throws IOException, ExecutionException;
+
+    /**
+     * Fetches results from a cursor. If the offset is the current position of the cursor, the
+     * results are read directly from there. Seeking backwards re-opens the cursor.
+     * 
+     * @param aCursorId
+     *            the ID of the cursor
+     * @param aOffset
+     *            the index of the first search result to return
+     * @param aCount
+     *            number of search results to be returned, starting from aOffset
+     * @return the search results grouped as by
+     *         {@link #query(User, Project, String, SourceDocument, AnnotationLayer,
+     *         AnnotationFeature, long, long)}
+     * @throws SearchCursorExpiredException
+     *             if the cursor does not exist (anymore)
+     * @throws IOException
+     *             if there was an I/O-level problem
+     * @throws ExecutionException
+     *             if there was a search-level problem
+     */
+    Map<String, List<SearchResult>> fetch(String aCursorId, long aOffset, long aCount)
+        throws IOException, ExecutionException;
+
+    void closeCursor(String aCursorId);
+
     void reindex(Project aproject, Monitor aMonitor) throws IOException;
 
+    /**
+     * Re-indexes all documents in the project which contain annotations on any of the given
+     * layers. The index remains valid and can be queried while this is in progress.
+     * 
+     * @param aProject
+     *            the project
+     * @param aLayers
+     *            the layers to re-index
+     * @param aMonitor
+     *            the progress monitor
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    void reindex(Project aProject, Collection<AnnotationLayer> aLayers, Monitor aMonitor)
+        throws IOException;
+
     /**
      * This method is only for testing. It allows waiting until the indexing process has completed
      * before issuing a query.
@@ -103,12 +179,49 @@ public interface SearchService
      */
     boolean isIndexValid(Project aProject);
 
-    void indexDocument(SourceDocument aSourceDocument, byte[] aBinaryCas);
+    /**
+     * Indexes the given initial CAS of a source document. The CAS must not be modified while it
+     * is being indexed, e.g. it should be a shared read-only CAS.
+     * 
+     * @param aSourceDocument
+     *            the source document
+     * @param aCas
+     *            the initial CAS
+     */
+    void indexDocument(SourceDocument aSourceDocument, CAS aCas);
 
-    void indexDocument(AnnotationDocument aAnnotationDocument, byte[] aBinaryCas);
+    /**
+     * Indexes the given CAS of an annotation document. The CAS must not be modified while it is
+     * being indexed, e.g. it should be a shared read-only CAS.
+     * 
+     * @param aAnnotationDocument
+     *            the annotation document
+     * @param aCas
+     *            the annotation CAS
+     */
+    void indexDocument(AnnotationDocument aAnnotationDocument, CAS aCas);
 
     Optional<Progress> getIndexProgress(Project aProject);
 
+    /**
+     * @param aProject
+     *            the project
+     * @return information about the physical layout of the index of the project or nothing if the
+     *         index has not been created yet or does not report such information.
+     */
+    Optional<IndexStatistics> getIndexStatistics(Project aProject);
+
+    /**
+     * Performs maintenance on the index of the given project if it is currently loaded. Indexes
+     * that are not loaded are skipped.
+     * 
+     * @param aProject
+     *            the project
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    void maintainIndex(Project aProject) throws IOException;
+
     long determineNumOfQueryResults(User aUser, Project aProject, String aQuery,
             SourceDocument aDocument, AnnotationLayer aAnnotationLayer,
             AnnotationFeature aAnnotationFeature)
@@ -167,4 +280,16 @@ public interface SearchService
         throws ExecutionException, IOException;
 
     void enqueueReindexTask(Project aProject, User aUser, String aTrigger);
+
+    /**
+     * Saves the settings used when indexing documents of the given project. The settings apply to
+     * documents indexed afterwards. Documents which are already in the index are only affected
+     * when the index is rebuilt.
+     * 
+     * @param aProject
+     *            the project
+     * @param aSettings
+     *            the indexing settings
+     */
+    void saveIndexingSettings(Project aProject, AnnotationSearchState aSettings);
 }
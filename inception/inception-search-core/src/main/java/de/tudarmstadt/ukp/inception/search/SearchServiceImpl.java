@@ -20,9 +20,10 @@ package de.tudarmstadt.ukp.inception.search;
 import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.UNMANAGED_ACCESS;
 import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.UNMANAGED_NON_INITIALIZING_ACCESS;
 import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.NO_CAS_UPGRADE;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.NO_MATCH;
 import static de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState.KEY_SEARCH_STATE;
-import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.casToByteArray;
 import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toUnmodifiableSet;
@@ -30,22 +31,33 @@ import static java.util.stream.Collectors.toUnmodifiableSet;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.uima.cas.CAS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
@@ -64,11 +76,14 @@ import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
 import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentCreatedEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AnnotationStateChangeEvent;
 import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
+import de.tudarmstadt.ukp.inception.documents.event.DocumentStateChangedEvent;
 import de.tudarmstadt.ukp.inception.preferences.PreferencesService;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
 import de.tudarmstadt.ukp.inception.project.api.event.AfterProjectRemovedEvent;
 import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
+import de.tudarmstadt.ukp.inception.project.api.event.ProjectPermissionsChangedEvent;
 import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
@@ -78,13 +93,18 @@ import de.tudarmstadt.ukp.inception.search.index.IndexRebuildRequiredException;
 import de.tudarmstadt.ukp.inception.search.index.PhysicalIndex;
 import de.tudarmstadt.ukp.inception.search.index.PhysicalIndexFactory;
 import de.tudarmstadt.ukp.inception.search.index.PhysicalIndexRegistry;
+import de.tudarmstadt.ukp.inception.search.index.SearchResultCursor;
+import de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState;
 import de.tudarmstadt.ukp.inception.search.model.BulkIndexingContext;
 import de.tudarmstadt.ukp.inception.search.model.Index;
+import de.tudarmstadt.ukp.inception.search.model.IndexStatistics;
 import de.tudarmstadt.ukp.inception.search.model.Monitor;
 import de.tudarmstadt.ukp.inception.search.model.Progress;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.IndexAnnotationDocumentTask;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.IndexSourceDocumentTask;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.IndexingTask_ImplBase;
+import de.tudarmstadt.ukp.inception.search.scheduling.tasks.MaintainIndexTask;
+import de.tudarmstadt.ukp.inception.search.scheduling.tasks.ReindexLayersTask;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.ReindexTask;
 
 /**
@@ -115,6 +135,27 @@ public class SearchServiceImpl
 
     private boolean shutdown = false;
 
+    // Open search cursors in least-recently-used order
+    private final Map<String, PooledCursor> cursors = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Results of queries and statistics requests - null if disabled
+    private final SearchQueryCache queryCache;
+
+    // Indexing requests which were merged into an already queued request for the same document
+    private final AtomicLong coalescedIndexingRequests = new AtomicLong();
+    private final AtomicLong indexingRequests = new AtomicLong();
+
+    // Schema information used by the parser when indexing individual documents
+    private final Map<Long, BulkIndexingContext> indexingContexts = new ConcurrentHashMap<>();
+
+    // Workers turning CASes into index entries during re-indexing - created on first use and
+    // only if more than one indexing thread is configured. The permits bound the number of CASes
+    // waiting for a worker.
+    private final int indexingThreads;
+    private final Semaphore indexingPermits;
+    private final Object indexingExecutorLock = new Object();
+    private ExecutorService indexingExecutor;
+
     @Autowired
     public SearchServiceImpl(DocumentService aDocumentService,
             AnnotationSchemaService aSchemaService, ProjectService aProjectService,
@@ -131,8 +172,40 @@ public class SearchServiceImpl
         properties = aProperties;
         log.debug("Index keep-open time: {}", properties.getIndexKeepOpenTime());
 
+        if (properties.isQueryCacheEnabled()) {
+            queryCache = new SearchQueryCache(properties.getQueryCacheSize().toBytes(),
+                    properties.getQueryCacheExpireAfterAccess());
+        }
+        else {
+            queryCache = null;
+        }
+
+        indexingThreads = Math.max(1, properties.getIndexingThreads());
+        indexingPermits = new Semaphore(indexingThreads * 2);
+
         indexClosingScheduler = new ScheduledThreadPoolExecutor(0);
         indexClosingScheduler.scheduleWithFixedDelay(this::closeIdleIndexes, 10, 10, SECONDS);
+        indexClosingScheduler.scheduleWithFixedDelay(this::closeExpiredCursors, 10, 10, SECONDS);
+        indexClosingScheduler.scheduleWithFixedDelay(this::scheduleIndexMaintenance, 15, 15,
+                MINUTES);
+    }
+
+    private void scheduleIndexMaintenance()
+    {
+        List<Project> projects;
+        synchronized (indexes) {
+            projects = indexes.values().stream() //
+                    .filter(index -> !index.isTombstone() && !index.isDead()) //
+                    .map(index -> index.get().getProject()) //
+                    .collect(toList());
+        }
+
+        for (var project : projects) {
+            schedulingService.enqueue(MaintainIndexTask.builder() //
+                    .withProject(project) //
+                    .withTrigger("Periodic index maintenance") //
+                    .build());
+        }
     }
 
     private void closeIdleIndexes()
@@ -166,9 +239,12 @@ public class SearchServiceImpl
 
         indexClosingScheduler.shutdown();
 
+        closeCursors(cursor -> true);
+
         // We'll just wait a bit for any running indexing tasks to finish up before we close
         // all the indexes
-        schedulingService.stopAllTasksMatching(task -> task instanceof IndexingTask_ImplBase);
+        schedulingService.stopAllTasksMatching(task -> task instanceof IndexingTask_ImplBase
+                || task instanceof MaintainIndexTask);
         long t0 = currentTimeMillis();
         while (isBusy() && currentTimeMillis() - t0 < 10_000) {
             try {
@@ -179,6 +255,14 @@ public class SearchServiceImpl
             }
         }
 
+        // Queued indexing work is skipped quickly once we are shutting down. It is not discarded
+        // because the re-indexing tasks are waiting for it to complete.
+        synchronized (indexingExecutorLock) {
+            if (indexingExecutor != null) {
+                indexingExecutor.shutdown();
+            }
+        }
+
         while (!indexes.isEmpty()) {
             synchronized (indexes) {
                 List<PooledIndex> pooledIndexesSnapshot = new ArrayList<>(indexes.values());
@@ -205,6 +289,14 @@ public class SearchServiceImpl
 
         log.trace("Unloading index for project {}", index.getProject());
 
+        // Cursors hold on to a snapshot of the physical index, so they need to go as well
+        long projectId = index.getProject().getId();
+        closeCursors(cursor -> cursor.getProjectId() == projectId);
+
+        // A re-created index may start counting generations from scratch
+        invalidateQueryCache(projectId);
+        indexingContexts.remove(projectId);
+
         synchronized (indexes) {
             try {
                 if (!aIndex.isTombstone()) {
@@ -423,6 +515,51 @@ public class SearchServiceImpl
         enqueueIndexDocument(aEvent.getDocument(), "afterAnnotationUpdate");
     }
 
+    // Query results depend on the document states and permissions (e.g. whether a result is
+    // read-only) which are not part of the index, so cached results need to be dropped when
+    // they change
+
+    @EventListener
+    public void onAnnotationStateChange(AnnotationStateChangeEvent aEvent)
+    {
+        invalidateQueryCache(aEvent.getDocument().getProject().getId());
+    }
+
+    @EventListener
+    public void onDocumentStateChanged(DocumentStateChangedEvent aEvent)
+    {
+        invalidateQueryCache(aEvent.getDocument().getProject().getId());
+    }
+
+    @EventListener
+    public void onProjectPermissionsChanged(ProjectPermissionsChangedEvent aEvent)
+    {
+        invalidateQueryCache(aEvent.getProject().getId());
+    }
+
+    private void invalidateQueryCache(long aProjectId)
+    {
+        if (queryCache != null) {
+            queryCache.invalidateProject(aProjectId);
+        }
+    }
+
+    /**
+     * @return the query cache or {@code null} if query caching is disabled.
+     */
+    public SearchQueryCache getQueryCache()
+    {
+        return queryCache;
+    }
+
+    @EventListener
+    public void onLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    {
+        // Stop handing out the cached schema right away - the index is only updated once the
+        // change has been committed (see below)
+        indexingContexts.remove(aEvent.getProject().getId());
+    }
+
     @TransactionalEventListener(fallbackExecution = true)
     @Transactional
     public void beforeLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
@@ -430,10 +567,21 @@ public class SearchServiceImpl
         log.trace("Starting beforeLayerConfigurationChanged");
 
         Project project = aEvent.getProject();
+        // Contexts created while the change was being committed may still hold the old schema
+        indexingContexts.remove(project.getId());
 
         try (PooledIndex pooledIndex = acquireIndex(project.getId())) {
-            pooledIndex.forceRecycle();
             Index index = pooledIndex.get();
+
+            // If possible, we only need to re-index the documents containing annotations on the
+            // changed layer. The index remains usable while that happens.
+            var layers = getLayersToReindex(aEvent, index);
+            if (layers.isPresent()) {
+                enqueueReindexLayersTask(project, layers.get(), "beforeLayerConfigurationChanged");
+                return;
+            }
+
+            pooledIndex.forceRecycle();
             index.setInvalid(true);
             entityManager.merge(index);
         }
@@ -442,16 +590,52 @@ public class SearchServiceImpl
         enqueueReindexTask(aEvent.getProject(), "beforeLayerConfigurationChanged");
     }
 
+    /**
+     * @return the layers whose documents need to be re-indexed to reflect the given change or
+     *         nothing if the whole index needs to be rebuilt.
+     */
+    Optional<List<AnnotationLayer>> getLayersToReindex(LayerConfigurationChangedEvent aEvent,
+            Index aIndex)
+    {
+        // If the change cannot be attributed to a particular layer, we cannot tell which
+        // documents are affected
+        if (aEvent.getLayer().isEmpty()) {
+            return Optional.empty();
+        }
+
+        // If the index is not in a good state, it needs to be rebuilt anyway
+        if (aIndex.getInvalid() || aIndex.getPhysicalIndex() == null
+                || !aIndex.getPhysicalIndex().isCreated()) {
+            return Optional.empty();
+        }
+
+        // The affected documents are chosen by looking for annotations of the layer in the CASes.
+        // When a layer is deleted, the CASes have already been upgraded by the time the event
+        // arrives, so they no longer contain such annotations. Changes like this require a full
+        // rebuild.
+        var layer = aEvent.getLayer().get();
+        if (!aEvent.isCompatible()
+                || !schemaService.existsLayer(layer.getName(), aEvent.getProject())) {
+            return Optional.empty();
+        }
+
+        var layers = new ArrayList<AnnotationLayer>();
+        layers.add(layer);
+        // Relation layers attached to the changed layer also produce index entries derived from it
+        layers.addAll(schemaService.listAttachedRelationLayers(layer));
+        return Optional.of(layers);
+    }
+
     @Override
-    public void indexDocument(SourceDocument aSourceDocument, byte[] aBinaryCas)
+    public void indexDocument(SourceDocument aSourceDocument, CAS aCas)
     {
         try (PooledIndex pooledIndex = acquireIndex(aSourceDocument.getProject().getId())) {
-            indexDocument(pooledIndex, aSourceDocument, aBinaryCas);
+            indexDocument(pooledIndex, aSourceDocument, aCas);
         }
     }
 
     private void indexDocument(PooledIndex aPooledIndex, SourceDocument aSourceDocument,
-            byte[] aBinaryCas)
+            CAS aCas)
     {
         Project project = aSourceDocument.getProject();
 
@@ -468,11 +652,9 @@ public class SearchServiceImpl
             return;
         }
 
-        // FIXME: This can probably be pulled out of the synchronized block to allow multiple
-        // threads to update the index concurrently. The underlying index code should hopefully
-        // be thread-safe...
         try {
-            index.getPhysicalIndex().indexDocument(aSourceDocument, aBinaryCas);
+            withIndexingContext(project,
+                    () -> index.getPhysicalIndex().indexDocument(aSourceDocument, aCas));
         }
         catch (IndexRebuildRequiredException e) {
             invalidateIndexAndForceIndexRebuild(project, index, "indexDocument[error]");
@@ -484,12 +666,68 @@ public class SearchServiceImpl
     }
 
     @Override
-    public void indexDocument(AnnotationDocument aAnnotationDocument, byte[] aBinaryCas)
+    public void indexDocument(AnnotationDocument aAnnotationDocument, CAS aCas)
     {
         Project project = aAnnotationDocument.getProject();
 
         try (PooledIndex pooledIndex = acquireIndex(project.getId())) {
-            indexDocument(pooledIndex, aAnnotationDocument, "indexDocument", aBinaryCas);
+            indexDocument(pooledIndex, aAnnotationDocument, "indexDocument", aCas);
+        }
+    }
+
+    /**
+     * Runs the given operation with an indexing context providing the layers and features to be
+     * indexed. During bulk indexing, the context of the bulk operation is used. Otherwise, the
+     * context is cached per project, so the parser does not need to look up the schema again for
+     * every document. The cached context is dropped when the layer configuration or the indexing
+     * settings change or the project is re-indexed.
+     */
+    private void withIndexingContext(Project aProject, IndexingOperation aOperation)
+        throws IOException
+    {
+        if (BulkIndexingContext.get().isPresent()) {
+            aOperation.run();
+            return;
+        }
+
+        var context = getIndexingContext(aProject);
+        context.attach();
+        try {
+            aOperation.run();
+        }
+        finally {
+            BulkIndexingContext.clear();
+        }
+    }
+
+    BulkIndexingContext getIndexingContext(Project aProject)
+    {
+        return indexingContexts.computeIfAbsent(aProject.getId(),
+                id -> BulkIndexingContext.create(aProject, schemaService, false,
+                        preferencesService.loadDefaultTraitsForProject(KEY_SEARCH_STATE,
+                                aProject)));
+    }
+
+    /**
+     * @return the indexing worker pool or {@code null} if documents should be indexed on the
+     *         calling thread because only a single indexing thread is configured.
+     */
+    private ExecutorService getIndexingExecutor()
+    {
+        if (indexingThreads <= 1) {
+            return null;
+        }
+
+        synchronized (indexingExecutorLock) {
+            if (indexingExecutor == null) {
+                indexingExecutor = Executors.newFixedThreadPool(indexingThreads,
+                        new BasicThreadFactory.Builder() //
+                                .daemon(true) //
+                                .namingPattern("search-indexer-%d") //
+                                .build());
+            }
+
+            return indexingExecutor;
         }
     }
 
@@ -503,7 +741,7 @@ public class SearchServiceImpl
     }
 
     private void indexDocument(PooledIndex aPooledIndex, AnnotationDocument aAnnotationDocument,
-            String aTrigger, byte[] aBinaryCas)
+            String aTrigger, CAS aCas)
     {
         Project project = aAnnotationDocument.getProject();
 
@@ -533,7 +771,8 @@ public class SearchServiceImpl
             // Add annotation document to the index again
             log.trace("Indexing new version of annotation document {} in project {}",
                     aAnnotationDocument, project);
-            index.getPhysicalIndex().indexDocument(aAnnotationDocument, aBinaryCas);
+            withIndexingContext(project,
+                    () -> index.getPhysicalIndex().indexDocument(aAnnotationDocument, aCas));
         }
         catch (IndexRebuildRequiredException e) {
             invalidateIndexAndForceIndexRebuild(project, index, "indexDocument[error]");
@@ -580,8 +819,128 @@ public class SearchServiceImpl
             ensureIndexIsCreatedAndValid(aProject, index);
 
             var prefs = preferencesService.loadDefaultTraitsForProject(KEY_SEARCH_STATE, aProject);
-            return index.getPhysicalIndex().executeQuery(new SearchQueryRequest(aProject, aUser,
-                    aQuery, aDocument, aAnnotationLayer, aAnnotationFeature, offset, count, prefs));
+            var physicalIndex = index.getPhysicalIndex();
+            var request = new SearchQueryRequest(aProject, aUser, aQuery, aDocument,
+                    aAnnotationLayer, aAnnotationFeature, offset, count, prefs);
+
+            if (queryCache == null) {
+                return physicalIndex.executeQuery(request);
+            }
+
+            var key = SearchQueryCache.queryKey(physicalIndex.getGeneration(), aUser, aProject,
+                    aQuery, aDocument, aAnnotationLayer, aAnnotationFeature, prefs, offset, count);
+            return queryCache.getResults(key, () -> physicalIndex.executeQuery(request));
+        }
+    }
+
+    @Override
+    @Transactional
+    public String openCursor(User aUser, Project aProject, String aQuery,
+            SourceDocument aDocument, AnnotationLayer aAnnotationLayer,
+            AnnotationFeature aAnnotationFeature)
+        throws IOException, ExecutionException
+    {
+        log.trace("Opening cursor for query [{}] for user {} in project {}", aQuery, aUser,
+                aProject);
+
+        try (PooledIndex pooledIndex = acquireIndex(aProject.getId())) {
+            Index index = pooledIndex.get();
+            ensureIndexIsCreatedAndValid(aProject, index);
+
+            var prefs = preferencesService.loadDefaultTraitsForProject(KEY_SEARCH_STATE, aProject);
+            var request = new SearchQueryRequest(aProject, aUser, aQuery, aDocument,
+                    aAnnotationLayer, aAnnotationFeature, 0, Integer.MAX_VALUE, prefs);
+            var cursor = new PooledCursor(request, index.getPhysicalIndex().openCursor(request));
+
+            List<PooledCursor> evicted = new ArrayList<>();
+            synchronized (cursors) {
+                cursors.put(cursor.getId(), cursor);
+
+                Iterator<PooledCursor> i = cursors.values().iterator();
+                while (cursors.size() > properties.getMaxOpenCursors() && i.hasNext()) {
+                    evicted.add(i.next());
+                    i.remove();
+                }
+            }
+            evicted.forEach(PooledCursor::close);
+
+            return cursor.getId();
+        }
+    }
+
+    @Override
+    public Map<String, List<SearchResult>> fetch(String aCursorId, long aOffset, long aCount)
+        throws IOException, ExecutionException
+    {
+        PooledCursor cursor;
+        synchronized (cursors) {
+            cursor = cursors.get(aCursorId);
+        }
+
+        if (cursor == null) {
+            throw new SearchCursorExpiredException("Search cursor has expired");
+        }
+
+        // Acquiring the index keeps it from being closed while we read from the cursor. If it
+        // was recycled in the meantime, the cursor has been closed along with it.
+        try (PooledIndex pooledIndex = acquireIndex(cursor.getProjectId())) {
+            synchronized (cursor) {
+                if (cursor.isClosed()) {
+                    throw new SearchCursorExpiredException("Search cursor has expired");
+                }
+
+                cursor.touch();
+
+                // Cursors only move forward, so seeking backwards requires re-opening the cursor
+                if (aOffset < cursor.get().getPosition()) {
+                    cursor.reset(
+                            pooledIndex.get().getPhysicalIndex().openCursor(cursor.getRequest()));
+                }
+
+                cursor.get().skip(aOffset - cursor.get().getPosition());
+                return cursor.get().next(aCount);
+            }
+        }
+    }
+
+    @Override
+    public void closeCursor(String aCursorId)
+    {
+        PooledCursor cursor;
+        synchronized (cursors) {
+            cursor = cursors.remove(aCursorId);
+        }
+
+        if (cursor != null) {
+            cursor.close();
+        }
+    }
+
+    private void closeExpiredCursors()
+    {
+        long now = currentTimeMillis();
+        long idleAllowed = properties.getCursorKeepOpenTime().toMillis();
+
+        closeCursors(cursor -> now - cursor.getLastAccess() > idleAllowed);
+    }
+
+    private void closeCursors(Predicate<PooledCursor> aFilter)
+    {
+        List<PooledCursor> closed = new ArrayList<>();
+        synchronized (cursors) {
+            Iterator<PooledCursor> i = cursors.values().iterator();
+            while (i.hasNext()) {
+                PooledCursor cursor = i.next();
+                if (aFilter.test(cursor)) {
+                    closed.add(cursor);
+                    i.remove();
+                }
+            }
+        }
+
+        for (PooledCursor cursor : closed) {
+            log.trace("Closing search cursor {}", cursor.getId());
+            cursor.close();
         }
     }
 
@@ -595,8 +954,18 @@ public class SearchServiceImpl
             ensureIndexIsCreatedAndValid(aProject, index);
 
             var prefs = preferencesService.loadDefaultTraitsForProject(KEY_SEARCH_STATE, aProject);
-            return index.getPhysicalIndex().getAnnotationStatistics(new StatisticRequest(aProject,
-                    aUser, aMinTokenPerDoc, aMaxTokenPerDoc, aFeatures, null, prefs));
+            var physicalIndex = index.getPhysicalIndex();
+            var request = new StatisticRequest(aProject, aUser, aMinTokenPerDoc, aMaxTokenPerDoc,
+                    aFeatures, null, prefs);
+
+            if (queryCache == null) {
+                return physicalIndex.getAnnotationStatistics(request);
+            }
+
+            var key = SearchQueryCache.statisticsKey(physicalIndex.getGeneration(), aUser,
+                    aProject, null, aMinTokenPerDoc, aMaxTokenPerDoc, aFeatures, prefs);
+            return queryCache.getStatistics(key,
+                    () -> physicalIndex.getAnnotationStatistics(request));
         }
     }
 
@@ -613,19 +982,32 @@ public class SearchServiceImpl
             var prefs = preferencesService.loadDefaultTraitsForProject(KEY_SEARCH_STATE, aProject);
             StatisticRequest statRequest = new StatisticRequest(aProject, aUser, aMinTokenPerDoc,
                     aMaxTokenPerDoc, aFeatures, aQuery, prefs);
-            LayerStatistics statistics = physicalIndex.getLayerStatistics(statRequest,
-                    statRequest.getQuery(), physicalIndex.getUniqueDocuments(statRequest));
-
-            statistics.setQuery(aQuery);
-            Map<String, LayerStatistics> statisticsMap = new HashMap<String, LayerStatistics>();
-            statisticsMap.put("query." + aQuery, statistics);
 
-            StatisticsResult results = new StatisticsResult(statRequest, statisticsMap, aFeatures);
+            if (queryCache == null) {
+                return getQueryStatistics(physicalIndex, statRequest, aQuery, aFeatures);
+            }
 
-            return results;
+            var key = SearchQueryCache.statisticsKey(physicalIndex.getGeneration(), aUser,
+                    aProject, aQuery, aMinTokenPerDoc, aMaxTokenPerDoc, aFeatures, prefs);
+            return queryCache.getStatistics(key,
+                    () -> getQueryStatistics(physicalIndex, statRequest, aQuery, aFeatures));
         }
     }
 
+    private StatisticsResult getQueryStatistics(PhysicalIndex aPhysicalIndex,
+            StatisticRequest aStatRequest, String aQuery, Set<AnnotationFeature> aFeatures)
+        throws IOException, ExecutionException
+    {
+        LayerStatistics statistics = aPhysicalIndex.getLayerStatistics(aStatRequest,
+                aStatRequest.getQuery(), aPhysicalIndex.getUniqueDocuments(aStatRequest));
+
+        statistics.setQuery(aQuery);
+        Map<String, LayerStatistics> statisticsMap = new HashMap<String, LayerStatistics>();
+        statisticsMap.put("query." + aQuery, statistics);
+
+        return new StatisticsResult(aStatRequest, statisticsMap, aFeatures);
+    }
+
     /**
      * Re-index the project. If there is no physical index, create a new one.
      */
@@ -644,6 +1026,8 @@ public class SearchServiceImpl
 
             Index index = pooledIndex.get();
             index.setInvalid(true);
+            invalidateQueryCache(aProject.getId());
+            indexingContexts.remove(aProject.getId());
 
             // Clear the index
             try {
@@ -653,74 +1037,164 @@ public class SearchServiceImpl
                 // We can ignore this since we are rebuilding the index already anyway
             }
 
-            Set<String> usersWithPermissions = projectService
-                    .listProjectUsersWithPermissions(aProject).stream() //
-                    .map(User::getUsername) //
-                    .collect(toUnmodifiableSet());
-            List<AnnotationDocument> annotationDocuments = documentService
-                    .listAnnotationDocuments(aProject).stream()
-                    .filter(annDoc -> usersWithPermissions.contains(annDoc.getUser())) //
-                    .collect(toList());
-            List<SourceDocument> sourceDocuments = documentService.listSourceDocuments(aProject);
-
-            monitor.setTodo(annotationDocuments.size() + sourceDocuments.size());
-
-            // We do not need write access and do not want to add to the exclusive access CAS cache,
-            // so we would normally use SHARED_READ_ONLY_ACCESS. However, that mode can only be used
-            // with AUTO_CAS_UPGRADE which makes things slow. We want NO_CAS_UPGRADE.
-            // So we use UNMANAGED_NON_INITIALIZING_ACCESS for the annotation CASes to avoid
-            // initializing CASes for users who have not started working on a document but for which
-            // an AnnotationDocument item exists (e.g. locked documents).
-            // For INITIAL_CASes, we use UNMANAGED_ACCESS since the INITIAL_CAS should always
-            // exist.
-            final var accessModeAnnotationCas = UNMANAGED_NON_INITIALIZING_ACCESS;
-            final var accessModeInitialCas = UNMANAGED_ACCESS;
-            final var casUpgradeMode = NO_CAS_UPGRADE;
+            if (!indexDocuments(pooledIndex, aProject, monitor, true, cas -> true)) {
+                return;
+            }
 
-            var prefs = preferencesService.loadDefaultTraitsForProject(KEY_SEARCH_STATE, aProject);
-            try (var indexContext = BulkIndexingContext.init(aProject, schemaService, true,
-                    prefs)) {
+            // After re-indexing, reset the invalid flag
+            index.setInvalid(false);
+            entityManager.merge(index);
+        }
+
+        log.info("Re-indexing project {} complete!", aProject);
+    }
+
+    /**
+     * Re-index those documents of the project which contain annotations on any of the given
+     * layers. The index is neither cleared nor invalidated, so it can still be queried while the
+     * affected documents are re-indexed.
+     */
+    @Override
+    @Transactional
+    public void reindex(Project aProject, Collection<AnnotationLayer> aLayers, Monitor aMonitor)
+        throws IOException
+    {
+        Set<String> typeNames = aLayers.stream() //
+                .map(AnnotationLayer::getName) //
+                .collect(toUnmodifiableSet());
+
+        log.info("Re-indexing layers {} in project {}", typeNames, aProject);
+
+        Monitor monitor = aMonitor != null ? aMonitor : new Monitor();
+
+        try (PooledIndex pooledIndex = acquireIndex(aProject.getId())) {
+            if (isPerformNoMoreActions(pooledIndex)) {
+                return;
+            }
+
+            Index index = pooledIndex.get();
+
+            // If the index got invalidated in the meantime, a full re-index is going to happen
+            // anyway
+            if (index.getInvalid() || !index.getPhysicalIndex().isCreated()) {
+                return;
+            }
+
+            indexDocuments(pooledIndex, aProject, monitor, false,
+                    cas -> containsAnnotationsOfAnyType(cas, typeNames));
+        }
+
+        log.info("Re-indexing layers {} in project {} complete!", typeNames, aProject);
+    }
+
+    private static boolean containsAnnotationsOfAnyType(CAS aCas, Set<String> aTypeNames)
+    {
+        for (var typeName : aTypeNames) {
+            var type = aCas.getTypeSystem().getType(typeName);
+            if (type != null && !aCas.select(type).isEmpty()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Index all documents in the project that are accepted by the given filter. If this is not
+     * part of a full re-index, existing index entries of the documents are replaced.
+     * 
+     * @return {@code false} if the operation was aborted.
+     */
+    private boolean indexDocuments(PooledIndex aPooledIndex, Project aProject, Monitor aMonitor,
+            boolean aFullReindex, Predicate<CAS> aFilter)
+        throws IOException
+    {
+        Set<String> usersWithPermissions = projectService
+                .listProjectUsersWithPermissions(aProject).stream() //
+                .map(User::getUsername) //
+                .collect(toUnmodifiableSet());
+        List<AnnotationDocument> annotationDocuments = documentService
+                .listAnnotationDocuments(aProject).stream()
+                .filter(annDoc -> usersWithPermissions.contains(annDoc.getUser())) //
+                .collect(toList());
+        List<SourceDocument> sourceDocuments = documentService.listSourceDocuments(aProject);
+
+        aMonitor.setTodo(annotationDocuments.size() + sourceDocuments.size());
+
+        // We do not need write access and do not want to add to the exclusive access CAS cache,
+        // so we would normally use SHARED_READ_ONLY_ACCESS. However, that mode can only be used
+        // with AUTO_CAS_UPGRADE which makes things slow. We want NO_CAS_UPGRADE.
+        // So we use UNMANAGED_NON_INITIALIZING_ACCESS for the annotation CASes to avoid
+        // initializing CASes for users who have not started working on a document but for which
+        // an AnnotationDocument item exists (e.g. locked documents).
+        // For INITIAL_CASes, we use UNMANAGED_ACCESS since the INITIAL_CAS should always
+        // exist.
+        final var accessModeAnnotationCas = UNMANAGED_NON_INITIALIZING_ACCESS;
+        final var accessModeInitialCas = UNMANAGED_ACCESS;
+        final var casUpgradeMode = NO_CAS_UPGRADE;
+
+        var prefs = preferencesService.loadDefaultTraitsForProject(KEY_SEARCH_STATE, aProject);
+        try (var indexContext = BulkIndexingContext.init(aProject, schemaService, aFullReindex,
+                prefs)) {
+            var batch = new IndexingBatch(getIndexingExecutor(), indexingPermits, indexContext,
+                    aMonitor, () -> isPerformNoMoreActions(aPooledIndex));
+            var physicalIndex = aPooledIndex.get().getPhysicalIndex();
+
+            try {
                 // Index all the source documents
                 for (var doc : sourceDocuments) {
-                    if (isPerformNoMoreActions(pooledIndex)) {
-                        return;
+                    if (isPerformNoMoreActions(aPooledIndex)) {
+                        return false;
                     }
 
                     try (var session = CasStorageSession.openNested()) {
-                        var casAsByteArray = casToByteArray(documentService
-                                .createOrReadInitialCas(doc, casUpgradeMode, accessModeInitialCas));
-                        indexDocument(pooledIndex, doc, casAsByteArray);
+                        var cas = documentService.createOrReadInitialCas(doc, casUpgradeMode,
+                                accessModeInitialCas);
+                        // The CAS is not managed by the session, so we can hand it to the worker
+                        if (aFilter.test(cas)) {
+                            batch.submit(doc, () -> physicalIndex.indexDocument(doc, cas));
+                            continue;
+                        }
                     }
 
-                    monitor.incDone();
+                    aMonitor.incDone();
                 }
 
                 // Index all the annotation documents
                 for (var doc : annotationDocuments) {
-                    if (isPerformNoMoreActions(pooledIndex)) {
-                        return;
+                    if (isPerformNoMoreActions(aPooledIndex)) {
+                        return false;
                     }
 
                     try (var session = CasStorageSession.openNested()) {
-                        var casAsByteArray = casToByteArray(
-                                documentService.readAnnotationCas(doc.getDocument(), doc.getUser(),
-                                        casUpgradeMode, accessModeAnnotationCas));
-                        indexDocument(pooledIndex, doc, "reindex", casAsByteArray);
+                        var cas = documentService.readAnnotationCas(doc.getDocument(),
+                                doc.getUser(), casUpgradeMode, accessModeAnnotationCas);
+                        // The CAS is not managed by the session, so we can hand it to the worker
+                        if (aFilter.test(cas)) {
+                            batch.submit(doc, () -> physicalIndex.indexDocument(doc, cas));
+                            continue;
+                        }
                     }
                     catch (FileNotFoundException e) {
                         // Ignore it if a annotation CAS does not exist yet
                     }
 
-                    monitor.incDone();
+                    aMonitor.incDone();
                 }
             }
+            finally {
+                // Even if we stop early, the workers must be done with the index before we return
+                batch.await();
+            }
 
-            // After re-indexing, reset the invalid flag
-            index.setInvalid(false);
-            entityManager.merge(index);
+            if (batch.isRebuildRequired()) {
+                invalidateIndexAndForceIndexRebuild(aProject, aPooledIndex.get(),
+                        "indexDocuments[error]");
+                return false;
+            }
         }
 
-        log.info("Re-indexing project {} complete!", aProject);
+        return true;
     }
 
     /**
@@ -766,6 +1240,54 @@ public class SearchServiceImpl
         return Optional.of(new Progress(done, total));
     }
 
+    @Override
+    public Optional<IndexStatistics> getIndexStatistics(Project aProject)
+    {
+        Validate.notNull(aProject, "Project cannot be null");
+
+        try (PooledIndex pooledIndex = acquireIndex(aProject.getId())) {
+            var physicalIndex = pooledIndex.get().getPhysicalIndex();
+            if (physicalIndex == null || !physicalIndex.isCreated()) {
+                return Optional.empty();
+            }
+
+            return physicalIndex.getIndexStatistics();
+        }
+        catch (IOException e) {
+            log.error("Unable to obtain statistics for index of project {}", aProject, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void maintainIndex(Project aProject) throws IOException
+    {
+        Validate.notNull(aProject, "Project cannot be null");
+
+        PooledIndex pooledIndex;
+        synchronized (indexes) {
+            pooledIndex = indexes.get(aProject.getId());
+            // Only maintain indexes which are currently loaded - there is no point in loading an
+            // index just to optimize it
+            if (pooledIndex == null || pooledIndex.isTombstone() || pooledIndex.isDead()
+                    || pooledIndex.isForceRecycle()) {
+                return;
+            }
+
+            pooledIndex.borrow();
+        }
+
+        try {
+            var physicalIndex = pooledIndex.get().getPhysicalIndex();
+            if (physicalIndex != null && physicalIndex.isOpen()) {
+                physicalIndex.maintain();
+            }
+        }
+        finally {
+            pooledIndex.close();
+        }
+    }
+
     @Override
     public long determineNumOfQueryResults(User aUser, Project aProject, String aQuery,
             SourceDocument aDocument, AnnotationLayer aAnnotationLayer,
@@ -782,8 +1304,17 @@ public class SearchServiceImpl
 
             // Index is valid, try to execute the query
             var prefs = preferencesService.loadDefaultTraitsForProject(KEY_SEARCH_STATE, aProject);
-            return index.getPhysicalIndex().numberOfQueryResults(new SearchQueryRequest(aProject,
-                    aUser, aQuery, aDocument, aAnnotationLayer, aAnnotationFeature, 0L, 0L, prefs));
+            var physicalIndex = index.getPhysicalIndex();
+            var request = new SearchQueryRequest(aProject, aUser, aQuery, aDocument,
+                    aAnnotationLayer, aAnnotationFeature, 0L, 0L, prefs);
+
+            if (queryCache == null) {
+                return physicalIndex.numberOfQueryResults(request);
+            }
+
+            var key = SearchQueryCache.countKey(physicalIndex.getGeneration(), aUser, aProject,
+                    aQuery, aDocument, aAnnotationLayer, aAnnotationFeature, prefs);
+            return queryCache.getCount(key, () -> physicalIndex.numberOfQueryResults(request));
         }
     }
 
@@ -844,6 +1375,16 @@ public class SearchServiceImpl
                 .build());
     }
 
+    private void enqueueReindexLayersTask(Project aProject, Collection<AnnotationLayer> aLayers,
+            String aTrigger)
+    {
+        enqueue(ReindexLayersTask.builder() //
+                .withProject(aProject) //
+                .withLayers(aLayers) //
+                .withTrigger(aTrigger) //
+                .build());
+    }
+
     @Override
     @Transactional
     public void enqueueReindexTask(Project aProject, User aUser, String aTrigger)
@@ -855,6 +1396,14 @@ public class SearchServiceImpl
                 .build());
     }
 
+    @Override
+    @Transactional
+    public void saveIndexingSettings(Project aProject, AnnotationSearchState aSettings)
+    {
+        preferencesService.saveDefaultTraitsForProject(KEY_SEARCH_STATE, aProject, aSettings);
+        indexingContexts.remove(aProject.getId());
+    }
+
     private void enqueueIndexDocument(SourceDocument aSourceDocument, String aTrigger)
     {
         enqueue(IndexSourceDocumentTask.builder() //
@@ -865,10 +1414,42 @@ public class SearchServiceImpl
 
     private void enqueueIndexDocument(AnnotationDocument aAnnotationDocument, String aTrigger)
     {
-        enqueue(IndexAnnotationDocumentTask.builder() //
+        // The task reads the CAS only when it runs. While it waits for the debounce delay, it
+        // is superseded by tasks for subsequent saves of the same document - but only up to the
+        // maximum delay, so continuous editing does not keep the document from being indexed.
+        var task = IndexAnnotationDocumentTask.builder() //
                 .withAnnotationDocument(aAnnotationDocument) //
                 .withTrigger(aTrigger) //
-                .build());
+                .withDebounceMillis(properties.getIndexingDebounceDelay()) //
+                .withMaxDebounceMillis(properties.getIndexingDebounceMaxDelay()) //
+                .build();
+
+        indexingRequests.incrementAndGet();
+        if (schedulingService.getEnqueuedTasks().stream()
+                .anyMatch(queued -> task.matches(queued) != NO_MATCH)) {
+            coalescedIndexingRequests.incrementAndGet();
+            log.trace("Coalescing indexing request for {} with queued request",
+                    aAnnotationDocument);
+        }
+
+        enqueue(task);
+    }
+
+    /**
+     * @return the number of annotation document indexing requests received.
+     */
+    public long getIndexingRequestCount()
+    {
+        return indexingRequests.get();
+    }
+
+    /**
+     * @return the number of annotation document indexing requests which did not result in an
+     *         index operation of their own because they were merged with a queued request.
+     */
+    public long getCoalescedIndexingRequestCount()
+    {
+        return coalescedIndexingRequests.get();
     }
 
     /**
@@ -893,6 +1474,81 @@ public class SearchServiceImpl
                 .anyMatch(task -> task instanceof IndexingTask_ImplBase);
     }
 
+    @FunctionalInterface
+    interface IndexingOperation
+    {
+        void run() throws IOException;
+    }
+
+    private static class PooledCursor
+        implements AutoCloseable
+    {
+        private final String id;
+        private final SearchQueryRequest request;
+        private final AtomicLong lastAccess;
+
+        private SearchResultCursor delegate;
+        private boolean closed;
+
+        public PooledCursor(SearchQueryRequest aRequest, SearchResultCursor aDelegate)
+        {
+            id = UUID.randomUUID().toString();
+            request = aRequest;
+            delegate = aDelegate;
+            lastAccess = new AtomicLong(currentTimeMillis());
+        }
+
+        public String getId()
+        {
+            return id;
+        }
+
+        public long getProjectId()
+        {
+            return request.getProject().getId();
+        }
+
+        public SearchQueryRequest getRequest()
+        {
+            return request;
+        }
+
+        public SearchResultCursor get()
+        {
+            return delegate;
+        }
+
+        public synchronized void reset(SearchResultCursor aDelegate)
+        {
+            delegate.close();
+            delegate = aDelegate;
+        }
+
+        public void touch()
+        {
+            lastAccess.set(currentTimeMillis());
+        }
+
+        public long getLastAccess()
+        {
+            return lastAccess.get();
+        }
+
+        public synchronized boolean isClosed()
+        {
+            return closed;
+        }
+
+        @Override
+        public synchronized void close()
+        {
+            if (!closed) {
+                closed = true;
+                delegate.close();
+            }
+        }
+    }
+
     private class PooledIndex
         implements AutoCloseable
     {
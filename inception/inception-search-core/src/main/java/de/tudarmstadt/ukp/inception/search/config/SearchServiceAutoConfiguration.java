@@ -36,6 +36,8 @@ import de.tudarmstadt.ukp.inception.search.FeatureIndexingSupport;
 import de.tudarmstadt.ukp.inception.search.FeatureIndexingSupportRegistry;
 import de.tudarmstadt.ukp.inception.search.FeatureIndexingSupportRegistryImpl;
 import de.tudarmstadt.ukp.inception.search.PrimitiveUimaIndexingSupport;
+import de.tudarmstadt.ukp.inception.search.SearchIndexingAdapter;
+import de.tudarmstadt.ukp.inception.search.SearchQueryCacheAdapter;
 import de.tudarmstadt.ukp.inception.search.SearchService;
 import de.tudarmstadt.ukp.inception.search.SearchServiceImpl;
 import de.tudarmstadt.ukp.inception.search.index.PhysicalIndexFactory;
@@ -58,6 +60,18 @@ public class SearchServiceAutoConfiguration
                 aPhysicalIndexRegistry, aSchedulingService, aProperties, aPreferencesService);
     }
 
+    @Bean
+    public SearchQueryCacheAdapter searchQueryCacheAdapter(SearchServiceImpl aSearchService)
+    {
+        return new SearchQueryCacheAdapter(aSearchService);
+    }
+
+    @Bean
+    public SearchIndexingAdapter searchIndexingAdapter(SearchServiceImpl aSearchService)
+    {
+        return new SearchIndexingAdapter(aSearchService);
+    }
+
     @Bean
     public SearchQueryEventAdapter searchQueryEventAdapter()
     {
@@ -19,6 +19,8 @@ package de.tudarmstadt.ukp.inception.search.config;
 
 import java.time.Duration;
 
+import org.springframework.util.unit.DataSize;
+
 public interface SearchServiceProperties
 {
     boolean isEnabled();
@@ -27,4 +29,47 @@ public interface SearchServiceProperties
      * @return time to keep an index open after it has last been used.
      */
     Duration getIndexKeepOpenTime();
+
+    /**
+     * @return time to keep a search cursor open after it has last been used.
+     */
+    Duration getCursorKeepOpenTime();
+
+    /**
+     * @return maximum number of search cursors kept open at the same time. If exceeded, the least
+     *         recently used cursors are closed.
+     */
+    int getMaxOpenCursors();
+
+    /**
+     * @return whether the results of queries and statistics requests are cached.
+     */
+    boolean isQueryCacheEnabled();
+
+    /**
+     * @return approximate amount of memory which the query cache may use.
+     */
+    DataSize getQueryCacheSize();
+
+    /**
+     * @return time to keep a cached query result after it has last been used.
+     */
+    Duration getQueryCacheExpireAfterAccess();
+
+    /**
+     * @return time to wait before indexing an annotation document after it has been saved. If
+     *         the document is saved again in the meantime, only the latest state is indexed.
+     */
+    Duration getIndexingDebounceDelay();
+
+    /**
+     * @return maximum time indexing an annotation document may be postponed by further saves of
+     *         the document.
+     */
+    Duration getIndexingDebounceMaxDelay();
+
+    /**
+     * @return number of threads used to index documents while re-indexing a project.
+     */
+    int getIndexingThreads();
 }
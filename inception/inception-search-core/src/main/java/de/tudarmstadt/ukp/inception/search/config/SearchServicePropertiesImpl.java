@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.inception.search.config;
 import java.time.Duration;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 @ConfigurationProperties("search")
 public class SearchServicePropertiesImpl
@@ -29,6 +30,22 @@ public class SearchServicePropertiesImpl
 
     private Duration indexKeepOpenTime = Duration.ofMinutes(10);
 
+    private Duration cursorKeepOpenTime = Duration.ofMinutes(5);
+
+    private int maxOpenCursors = 100;
+
+    private boolean queryCacheEnabled = true;
+
+    private DataSize queryCacheSize = DataSize.ofMegabytes(32);
+
+    private Duration queryCacheExpireAfterAccess = Duration.ofMinutes(10);
+
+    private Duration indexingDebounceDelay = Duration.ofSeconds(2);
+
+    private Duration indexingDebounceMaxDelay = Duration.ofSeconds(30);
+
+    private int indexingThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
     @Override
     public boolean isEnabled()
     {
@@ -50,4 +67,92 @@ public class SearchServicePropertiesImpl
     {
         indexKeepOpenTime = aIndexKeepOpenTime;
     }
+
+    @Override
+    public Duration getCursorKeepOpenTime()
+    {
+        return cursorKeepOpenTime;
+    }
+
+    public void setCursorKeepOpenTime(Duration aCursorKeepOpenTime)
+    {
+        cursorKeepOpenTime = aCursorKeepOpenTime;
+    }
+
+    @Override
+    public int getMaxOpenCursors()
+    {
+        return maxOpenCursors;
+    }
+
+    public void setMaxOpenCursors(int aMaxOpenCursors)
+    {
+        maxOpenCursors = aMaxOpenCursors;
+    }
+
+    @Override
+    public boolean isQueryCacheEnabled()
+    {
+        return queryCacheEnabled;
+    }
+
+    public void setQueryCacheEnabled(boolean aQueryCacheEnabled)
+    {
+        queryCacheEnabled = aQueryCacheEnabled;
+    }
+
+    @Override
+    public DataSize getQueryCacheSize()
+    {
+        return queryCacheSize;
+    }
+
+    public void setQueryCacheSize(DataSize aQueryCacheSize)
+    {
+        queryCacheSize = aQueryCacheSize;
+    }
+
+    @Override
+    public Duration getQueryCacheExpireAfterAccess()
+    {
+        return queryCacheExpireAfterAccess;
+    }
+
+    public void setQueryCacheExpireAfterAccess(Duration aQueryCacheExpireAfterAccess)
+    {
+        queryCacheExpireAfterAccess = aQueryCacheExpireAfterAccess;
+    }
+
+    @Override
+    public Duration getIndexingDebounceDelay()
+    {
+        return indexingDebounceDelay;
+    }
+
+    public void setIndexingDebounceDelay(Duration aIndexingDebounceDelay)
+    {
+        indexingDebounceDelay = aIndexingDebounceDelay;
+    }
+
+    @Override
+    public Duration getIndexingDebounceMaxDelay()
+    {
+        return indexingDebounceMaxDelay;
+    }
+
+    public void setIndexingDebounceMaxDelay(Duration aIndexingDebounceMaxDelay)
+    {
+        indexingDebounceMaxDelay = aIndexingDebounceMaxDelay;
+    }
+
+    @Override
+    public int getIndexingThreads()
+    {
+        return indexingThreads;
+    }
+
+    public void setIndexingThreads(int aIndexingThreads)
+    {
+        indexingThreads = aIndexingThreads;
+    }
 }
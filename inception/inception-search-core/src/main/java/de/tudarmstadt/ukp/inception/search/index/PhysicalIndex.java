@@ -22,6 +22,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.apache.uima.cas.CAS;
+
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.inception.search.ExecutionException;
@@ -30,6 +32,7 @@ import de.tudarmstadt.ukp.inception.search.SearchQueryRequest;
 import de.tudarmstadt.ukp.inception.search.SearchResult;
 import de.tudarmstadt.ukp.inception.search.StatisticRequest;
 import de.tudarmstadt.ukp.inception.search.StatisticsResult;
+import de.tudarmstadt.ukp.inception.search.model.IndexStatistics;
 
 public interface PhysicalIndex
 {
@@ -59,12 +62,58 @@ public interface PhysicalIndex
     long numberOfQueryResults(SearchQueryRequest aSearchQueryRequest)
         throws IOException, ExecutionException;
 
+    /**
+     * Opens a cursor over the results of the given query. The offset and count of the request are
+     * ignored. The caller must close the cursor when it is no longer needed.
+     * 
+     * @param aRequest
+     *            the query request
+     * @return the cursor.
+     * @throws IOException
+     *             if there was an I/O-level problem
+     * @throws ExecutionException
+     *             if there was a search-level problem
+     */
+    SearchResultCursor openCursor(SearchQueryRequest aRequest)
+        throws IOException, ExecutionException;
+
     public LayerStatistics getLayerStatistics(StatisticRequest aStatisticRequest,
             String aFeatureQuery, List<Integer> aFullDocSet)
         throws IOException, ExecutionException;
 
     public List<Integer> getUniqueDocuments(StatisticRequest aStatisticRequest) throws IOException;
 
+    /**
+     * @return a number identifying the state of the index as seen by queries. It changes whenever
+     *         a change to the index becomes visible to queries.
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    long getGeneration() throws IOException;
+
+    /**
+     * @return information about the physical layout of the index, e.g. the number of segments and
+     *         their size on disk - or nothing if the index does not support reporting these.
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    default Optional<IndexStatistics> getIndexStatistics() throws IOException
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Performs periodic maintenance of the index, e.g. optimizing its on-disk layout. It is up to
+     * the index to decide whether any maintenance is actually due.
+     * 
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    default void maintain() throws IOException
+    {
+        // No maintenance by default
+    }
+
     public StatisticsResult getAnnotationStatistics(StatisticRequest aStatisticRequest)
         throws IOException, ExecutionException;
 
@@ -77,6 +126,19 @@ public interface PhysicalIndex
 
     void indexDocument(AnnotationDocument aDocument, byte[] aBinaryCas) throws IOException;
 
+    /**
+     * Indexes the given CAS directly without serializing it first. The CAS must not be modified
+     * while it is being indexed, e.g. it should be a shared read-only CAS or a private copy.
+     * 
+     * @param aDocument
+     *            the annotation document
+     * @param aCas
+     *            the CAS of the annotation document
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    void indexDocument(AnnotationDocument aDocument, CAS aCas) throws IOException;
+
     void clear() throws IOException;
 
     /**
@@ -94,4 +156,17 @@ public interface PhysicalIndex
     public Optional<String> getTimestamp(long aSrcDocId, long aAnnoDocId) throws IOException;
 
     void indexDocument(SourceDocument aSourceDocument, byte[] aBinaryCas) throws IOException;
+
+    /**
+     * Indexes the given CAS directly without serializing it first. The CAS must not be modified
+     * while it is being indexed, e.g. it should be a shared read-only CAS or a private copy.
+     * 
+     * @param aSourceDocument
+     *            the source document
+     * @param aCas
+     *            the initial CAS of the source document
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    void indexDocument(SourceDocument aSourceDocument, CAS aCas) throws IOException;
 }
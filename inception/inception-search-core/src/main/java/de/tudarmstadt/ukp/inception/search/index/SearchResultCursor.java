@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import de.tudarmstadt.ukp.inception.search.SearchResult;
+
+/**
+ * A server-side cursor over the results of a query on a {@link PhysicalIndex}. The cursor keeps
+ * its position and a snapshot of the index it was opened on, so fetching the next page of results
+ * continues where the previous page ended instead of re-running the query from the start.
+ */
+public interface SearchResultCursor
+    extends AutoCloseable
+{
+    /**
+     * @return the number of results the cursor has already moved past.
+     */
+    long getPosition();
+
+    /**
+     * Moves the cursor forward without materializing the skipped results.
+     * 
+     * @param aCount
+     *            the number of results to skip.
+     * @return the number of results actually skipped which is less than requested if the end of
+     *         the results has been reached.
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    long skip(long aCount) throws IOException;
+
+    /**
+     * @param aCount
+     *            the maximum number of results to return.
+     * @return the next results grouped in the same way as by
+     *         {@link PhysicalIndex#executeQuery}.
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    Map<String, List<SearchResult>> next(long aCount) throws IOException;
+
+    /**
+     * Releases the index snapshot held by the cursor.
+     */
+    @Override
+    void close();
+}
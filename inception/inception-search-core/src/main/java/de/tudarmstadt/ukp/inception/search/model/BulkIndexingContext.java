@@ -79,6 +79,20 @@ public class BulkIndexingContext
 
     public static BulkIndexingContext init(Project aProject, AnnotationSchemaService aSchemaService,
             boolean aFullReindex, AnnotationSearchState aPrefs)
+    {
+        var indexingContext = create(aProject, aSchemaService, aFullReindex, aPrefs);
+        INSTANCE.set(indexingContext);
+        return indexingContext;
+    }
+
+    /**
+     * Creates a context without making it available to the calling thread.
+     * 
+     * @see #attach()
+     */
+    public static BulkIndexingContext create(Project aProject,
+            AnnotationSchemaService aSchemaService, boolean aFullReindex,
+            AnnotationSearchState aPrefs)
     {
         var features = aSchemaService.listSupportedFeatures(aProject);
         features.removeIf(f -> !f.isEnabled() || !f.getLayer().isEnabled());
@@ -86,10 +100,17 @@ public class BulkIndexingContext
         var layers = aSchemaService.listSupportedLayers(aProject);
         layers.removeIf(l -> !l.isEnabled());
 
-        var indexingContext = new BulkIndexingContext(aProject, layers, features, aFullReindex,
-                aPrefs);
-        INSTANCE.set(indexingContext);
-        return indexingContext;
+        return new BulkIndexingContext(aProject, layers, features, aFullReindex, aPrefs);
+    }
+
+    /**
+     * Makes this context available to the calling thread. This allows worker threads to index
+     * documents on behalf of the thread which initialized the context. The worker thread must
+     * {@link #clear()} the context when it is done.
+     */
+    public void attach()
+    {
+        INSTANCE.set(this);
     }
 
     public static Optional<BulkIndexingContext> get()
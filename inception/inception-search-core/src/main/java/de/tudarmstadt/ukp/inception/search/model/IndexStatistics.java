@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.model;
+
+import java.io.Serializable;
+
+public class IndexStatistics
+    implements Serializable
+{
+    private static final long serialVersionUID = -6425829361583096637L;
+
+    private final int segments;
+    private final long sizeInBytes;
+    private final int documents;
+    private final int deletedDocuments;
+
+    public IndexStatistics(int aSegments, long aSizeInBytes, int aDocuments,
+            int aDeletedDocuments)
+    {
+        segments = aSegments;
+        sizeInBytes = aSizeInBytes;
+        documents = aDocuments;
+        deletedDocuments = aDeletedDocuments;
+    }
+
+    public int getSegments()
+    {
+        return segments;
+    }
+
+    public long getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+    public int getDocuments()
+    {
+        return documents;
+    }
+
+    public int getDeletedDocuments()
+    {
+        return deletedDocuments;
+    }
+}
@@ -42,7 +42,6 @@ import de.tudarmstadt.ukp.inception.scheduling.MatchResult;
 import de.tudarmstadt.ukp.inception.scheduling.Task;
 import de.tudarmstadt.ukp.inception.search.SearchService;
 import de.tudarmstadt.ukp.inception.search.model.Progress;
-import de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil;
 
 /**
  * (Re)indexes the annotation document for a specific user.
@@ -79,7 +78,7 @@ public class IndexAnnotationDocumentTask
             var aDoc = getAnnotationDocument();
             var cas = documentService.readAnnotationCas(aDoc.getDocument(), aDoc.getUser(),
                     AUTO_CAS_UPGRADE, SHARED_READ_ONLY_ACCESS);
-            searchService.indexDocument(aDoc, WebAnnoCasUtil.casToByteArray(cas));
+            searchService.indexDocument(aDoc, cas);
         }
         catch (IOException e) {
             LOG.error("Error indexing annotation document {}", getSourceDocument(), e);
@@ -21,15 +21,16 @@ import java.util.Objects;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.scheduling.DebouncingTask;
 import de.tudarmstadt.ukp.inception.scheduling.MatchableTask;
-import de.tudarmstadt.ukp.inception.scheduling.Task;
 import de.tudarmstadt.ukp.inception.search.model.Progress;
 
 /**
- * Abstract search task
+ * Abstract search task. By default, indexing tasks are ready to start immediately. A debounce
+ * delay can be set to give superseding tasks a chance to replace the task while it is queued.
  */
 public abstract class IndexingTask_ImplBase
-    extends Task
+    extends DebouncingTask
     implements MatchableTask
 {
     private final SourceDocument sourceDocument;
@@ -97,7 +98,7 @@ public abstract class IndexingTask_ImplBase
     }
 
     public static abstract class Builder<T extends Builder<?>>
-        extends Task.Builder<T>
+        extends DebouncingTask.Builder<T>
     {
         protected SourceDocument sourceDocument;
         protected AnnotationDocument annotationDocument;
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.scheduling.tasks;
+
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.DISCARD_OR_QUEUE_THIS;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.NO_MATCH;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import de.tudarmstadt.ukp.inception.scheduling.MatchResult;
+import de.tudarmstadt.ukp.inception.scheduling.MatchableTask;
+import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.search.SearchService;
+
+/**
+ * Periodic maintenance task. Gives the index of a given project the chance to optimize itself.
+ */
+public class MaintainIndexTask
+    extends Task
+    implements MatchableTask
+{
+    public static final String TYPE = "MaintainIndexTask";
+
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private @Autowired SearchService searchService;
+
+    public MaintainIndexTask(Builder<? extends Builder<?>> aBuilder)
+    {
+        super(aBuilder.withType(TYPE));
+    }
+
+    @Override
+    public String getTitle()
+    {
+        return "Optimizing index...";
+    }
+
+    @Override
+    public void execute()
+    {
+        try {
+            searchService.maintainIndex(getProject());
+        }
+        catch (IOException e) {
+            LOG.error("Unable to maintain index of project [{}]({})", getProject().getName(),
+                    getProject().getId(), e);
+        }
+    }
+
+    @Override
+    public MatchResult matches(Task aTask)
+    {
+        // There is no point in maintaining the same index twice in a row
+        if (aTask instanceof MaintainIndexTask) {
+            if (Objects.equals(getProject().getId(), aTask.getProject().getId())) {
+                return DISCARD_OR_QUEUE_THIS;
+            }
+        }
+
+        return NO_MATCH;
+    }
+
+    public static Builder<Builder<?>> builder()
+    {
+        return new Builder<>();
+    }
+
+    public static class Builder<T extends Builder<?>>
+        extends Task.Builder<T>
+    {
+        public MaintainIndexTask build()
+        {
+            return new MaintainIndexTask(this);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.scheduling.tasks;
+
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.DISCARD_OR_QUEUE_THIS;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.NO_MATCH;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.UNQUEUE_EXISTING_AND_QUEUE_THIS;
+import static java.util.stream.Collectors.toUnmodifiableSet;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.inception.scheduling.MatchResult;
+import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.search.SearchService;
+import de.tudarmstadt.ukp.inception.search.model.Monitor;
+import de.tudarmstadt.ukp.inception.search.model.Progress;
+
+/**
+ * Search indexer task. Re-indexes those documents of a project which contain annotations on the
+ * given layers. Unlike the {@link ReindexTask}, the index remains available for querying while
+ * this task runs.
+ */
+public class ReindexLayersTask
+    extends IndexingTask_ImplBase
+{
+    public static final String TYPE = "ReindexLayersTask";
+
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private @Autowired SearchService searchService;
+
+    private final List<AnnotationLayer> layers;
+
+    private Monitor monitor = new Monitor();
+
+    public ReindexLayersTask(Builder<? extends Builder<?>> aBuilder)
+    {
+        super(aBuilder.withType(TYPE));
+
+        layers = List.copyOf(aBuilder.layers);
+    }
+
+    @Override
+    public String getTitle()
+    {
+        return "Updating index...";
+    }
+
+    public List<AnnotationLayer> getLayers()
+    {
+        return layers;
+    }
+
+    @Override
+    public void execute()
+    {
+        try {
+            searchService.reindex(getProject(), layers, monitor);
+        }
+        catch (IOException e) {
+            LOG.error("Unable to reindex layers {} in project [{}]({})", layers,
+                    getProject().getName(), getProject().getId(), e);
+        }
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return monitor.toProgress();
+    }
+
+    @Override
+    public MatchResult matches(Task aTask)
+    {
+        if (!Objects.equals(getProject().getId(), aTask.getProject().getId())) {
+            return NO_MATCH;
+        }
+
+        // If the whole project is going to be re-indexed anyway, we do not need to re-index
+        // individual layers
+        if (aTask instanceof ReindexTask) {
+            return DISCARD_OR_QUEUE_THIS;
+        }
+
+        // If the incoming task covers all the layers of an enqueued task, it supersedes it
+        if (aTask instanceof ReindexLayersTask reindexLayersTask) {
+            if (layerIds(layers).containsAll(layerIds(reindexLayersTask.getLayers()))) {
+                return UNQUEUE_EXISTING_AND_QUEUE_THIS;
+            }
+        }
+
+        return NO_MATCH;
+    }
+
+    private static Set<Long> layerIds(Collection<AnnotationLayer> aLayers)
+    {
+        return aLayers.stream().map(AnnotationLayer::getId).collect(toUnmodifiableSet());
+    }
+
+    public static Builder<Builder<?>> builder()
+    {
+        return new Builder<>();
+    }
+
+    public static class Builder<T extends Builder<?>>
+        extends IndexingTask_ImplBase.Builder<T>
+    {
+        private Collection<AnnotationLayer> layers;
+
+        @SuppressWarnings("unchecked")
+        public T withLayers(Collection<AnnotationLayer> aLayers)
+        {
+            layers = aLayers;
+            return (T) this;
+        }
+
+        public ReindexLayersTask build()
+        {
+            return new ReindexLayersTask(this);
+        }
+    }
+}
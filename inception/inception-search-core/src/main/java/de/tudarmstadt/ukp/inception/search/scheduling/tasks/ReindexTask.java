@@ -85,8 +85,10 @@ public class ReindexTask
     public MatchResult matches(Task aTask)
     {
         // If a re-indexing task for a project is coming in, we can throw out any scheduled tasks
-        // for re-indexing and for indexing individual source/annotation documents in the project.
-        if (aTask instanceof ReindexTask || aTask instanceof IndexSourceDocumentTask
+        // for re-indexing (also of individual layers) and for indexing individual source/annotation
+        // documents in the project.
+        if (aTask instanceof ReindexTask || aTask instanceof ReindexLayersTask
+                || aTask instanceof IndexSourceDocumentTask
                 || aTask instanceof IndexAnnotationDocumentTask) {
             if (Objects.equals(getProject().getId(), aTask.getProject().getId())) {
                 return UNQUEUE_EXISTING_AND_QUEUE_THIS;
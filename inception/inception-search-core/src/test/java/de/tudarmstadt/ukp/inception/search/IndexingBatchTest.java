@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.search.index.IndexRebuildRequiredException;
+import de.tudarmstadt.ukp.inception.search.model.BulkIndexingContext;
+import de.tudarmstadt.ukp.inception.search.model.Monitor;
+
+class IndexingBatchTest
+{
+    private ExecutorService executor;
+    private BulkIndexingContext context;
+    private Monitor monitor;
+    private AtomicBoolean cancelled;
+
+    @BeforeEach
+    void setup()
+    {
+        executor = Executors.newFixedThreadPool(2);
+        context = new BulkIndexingContext(Project.builder().withId(1L).withName("test").build(),
+                List.of(), List.of(), true, null);
+        monitor = new Monitor();
+        cancelled = new AtomicBoolean();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        executor.shutdownNow();
+        BulkIndexingContext.clear();
+    }
+
+    @Test
+    void thatAwaitReturnsOnlyOnceAllDocumentsAreIndexed() throws Exception
+    {
+        var sut = new IndexingBatch(executor, new Semaphore(4), context, monitor, cancelled::get);
+
+        var release = new CountDownLatch(1);
+        var indexed = new CopyOnWriteArrayList<String>();
+        sut.submit("doc1", () -> indexed.add("doc1"));
+        sut.submit("doc2", () -> {
+            awaitUninterruptibly(release);
+            indexed.add("doc2");
+        });
+
+        var awaiting = new Thread(() -> {
+            try {
+                sut.await();
+            }
+            catch (Exception e) {
+                // Checked below via the indexed documents
+            }
+        });
+        awaiting.start();
+
+        awaiting.join(200);
+        assertThat(awaiting.isAlive()) //
+                .as("Batch must not complete while a document is still being indexed") //
+                .isTrue();
+
+        release.countDown();
+        awaiting.join(SECONDS.toMillis(10));
+        assertThat(awaiting.isAlive()).isFalse();
+        assertThat(indexed).containsExactlyInAnyOrder("doc1", "doc2");
+        assertThat(monitor.toProgress().getDone()).isEqualTo(2);
+    }
+
+    @Test
+    void thatWorkersUseContextOfBatch() throws Exception
+    {
+        var sut = new IndexingBatch(executor, new Semaphore(4), context, monitor, cancelled::get);
+
+        var seenContexts = new CopyOnWriteArrayList<BulkIndexingContext>();
+        for (var i = 0; i < 4; i++) {
+            sut.submit("doc" + i, () -> seenContexts.add(BulkIndexingContext.get().get()));
+        }
+        sut.await();
+
+        assertThat(seenContexts).hasSize(4).containsOnly(context);
+    }
+
+    @Test
+    void thatRebuildRequiredSkipsRemainingDocuments() throws Exception
+    {
+        var singleWorker = Executors.newSingleThreadExecutor();
+        try {
+            var sut = new IndexingBatch(singleWorker, new Semaphore(4), context, monitor,
+                    cancelled::get);
+
+            var indexed = new CopyOnWriteArrayList<String>();
+            sut.submit("doc1", () -> {
+                throw new IndexRebuildRequiredException("Index is broken", null);
+            });
+            sut.submit("doc2", () -> indexed.add("doc2"));
+            sut.submit("doc3", () -> indexed.add("doc3"));
+            sut.await();
+
+            assertThat(sut.isRebuildRequired()).isTrue();
+            assertThat(indexed).isEmpty();
+            assertThat(monitor.toProgress().getDone()).isEqualTo(3);
+        }
+        finally {
+            singleWorker.shutdownNow();
+        }
+    }
+
+    @Test
+    void thatFailingDocumentDoesNotStopBatch() throws Exception
+    {
+        var sut = new IndexingBatch(executor, new Semaphore(4), context, monitor, cancelled::get);
+
+        var indexed = new CopyOnWriteArrayList<String>();
+        sut.submit("doc1", () -> {
+            throw new IllegalStateException("Broken document");
+        });
+        sut.submit("doc2", () -> indexed.add("doc2"));
+        sut.await();
+
+        assertThat(sut.isRebuildRequired()).isFalse();
+        assertThat(indexed).containsExactly("doc2");
+    }
+
+    @Test
+    void thatCancelledBatchSkipsQueuedDocuments() throws Exception
+    {
+        var singleWorker = Executors.newSingleThreadExecutor();
+        try {
+            var sut = new IndexingBatch(singleWorker, new Semaphore(4), context, monitor,
+                    cancelled::get);
+
+            var indexed = new CopyOnWriteArrayList<String>();
+            sut.submit("doc1", () -> {
+                indexed.add("doc1");
+                cancelled.set(true);
+            });
+            sut.submit("doc2", () -> indexed.add("doc2"));
+            sut.submit("doc3", () -> indexed.add("doc3"));
+            sut.await();
+
+            assertThat(indexed).containsExactly("doc1");
+            assertThat(monitor.toProgress().getDone()).isEqualTo(3);
+        }
+        finally {
+            singleWorker.shutdownNow();
+        }
+    }
+
+    @Test
+    void thatDocumentsAreIndexedOnCallingThreadWithoutWorkers() throws Exception
+    {
+        context.attach();
+        var sut = new IndexingBatch(null, new Semaphore(1), context, monitor, cancelled::get);
+
+        var threads = new CopyOnWriteArrayList<Thread>();
+        sut.submit("doc1", () -> threads.add(Thread.currentThread()));
+        sut.submit("doc2", () -> threads.add(Thread.currentThread()));
+
+        // Documents are indexed as soon as they are submitted
+        assertThat(threads).containsExactly(Thread.currentThread(), Thread.currentThread());
+
+        sut.await();
+
+        // The context of the calling thread remains in place
+        assertThat(BulkIndexingContext.get()).contains(context);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch aLatch)
+    {
+        try {
+            aLatch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
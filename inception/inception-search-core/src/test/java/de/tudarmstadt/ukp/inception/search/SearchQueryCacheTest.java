@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+import static de.tudarmstadt.ukp.inception.search.SearchQueryCache.normalizeQuery;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+
+class SearchQueryCacheTest
+{
+    private SearchQueryCache sut;
+    private Project project;
+    private User user;
+
+    @BeforeEach
+    void setup()
+    {
+        sut = new SearchQueryCache(1024 * 1024, Duration.ofMinutes(1));
+        project = Project.builder().withId(1L).withName("test").build();
+        user = new User("user");
+    }
+
+    @Test
+    void thatWhitespaceOutsideQuotesIsNormalized()
+    {
+        assertThat(normalizeQuery("  [Token =  \"a  b\"]\n\t[] ")) //
+                .isEqualTo("[Token = \"a  b\"] []");
+        assertThat(normalizeQuery("\"a \\\"  b\"  c")) //
+                .isEqualTo("\"a \\\"  b\" c");
+    }
+
+    @Test
+    void thatResultsAreReusedWithinGeneration() throws Exception
+    {
+        var loads = new AtomicInteger();
+        SearchQueryCache.Loader<Long> loader = () -> (long) loads.incrementAndGet();
+
+        var key = SearchQueryCache.countKey(1, user, project, "\"a\"", null, null, null, null);
+        var sameKey = SearchQueryCache.countKey(1, user, project, " \"a\" ", null, null, null,
+                null);
+        var nextGenerationKey = SearchQueryCache.countKey(2, user, project, "\"a\"", null, null,
+                null, null);
+
+        assertThat(sut.getCount(key, loader)).isEqualTo(1);
+        assertThat(sut.getCount(sameKey, loader)).isEqualTo(1);
+        assertThat(sut.getCount(nextGenerationKey, loader)).isEqualTo(2);
+        assertThat(sut.getStats().hitCount()).isEqualTo(1);
+
+        sut.invalidateProject(project.getId());
+
+        assertThat(sut.getCount(nextGenerationKey, loader)).isEqualTo(3);
+    }
+
+    @Test
+    void thatCachedResultsAreCopied() throws Exception
+    {
+        var result = new SearchResult();
+        result.setText("a");
+        var key = SearchQueryCache.queryKey(1, user, project, "\"a\"", null, null, null, null, 0,
+                10);
+        SearchQueryCache.Loader<Map<String, List<SearchResult>>> loader = () -> Map.of("doc",
+                new ArrayList<>(List.of(result)));
+
+        sut.getResults(key, loader).get("doc").get(0).setSelectedForAnnotation(false);
+
+        assertThat(sut.getResults(key, loader).get("doc").get(0).isSelectedForAnnotation())
+                .isTrue();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search;
+
+import static de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState.KEY_SEARCH_STATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.preferences.PreferencesService;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
+import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
+import de.tudarmstadt.ukp.inception.search.config.SearchServicePropertiesImpl;
+import de.tudarmstadt.ukp.inception.search.index.PhysicalIndex;
+import de.tudarmstadt.ukp.inception.search.index.PhysicalIndexRegistry;
+import de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState;
+import de.tudarmstadt.ukp.inception.search.model.Index;
+
+@ExtendWith(MockitoExtension.class)
+class SearchServiceImplTest
+{
+    private @Mock DocumentService documentService;
+    private @Mock AnnotationSchemaService schemaService;
+    private @Mock ProjectService projectService;
+    private @Mock PhysicalIndexRegistry physicalIndexRegistry;
+    private @Mock SchedulingService schedulingService;
+    private @Mock PreferencesService preferencesService;
+    private @Mock PhysicalIndex physicalIndex;
+
+    private SearchServiceImpl sut;
+    private Project project;
+    private AnnotationLayer layer;
+    private AnnotationLayer relationLayer;
+    private Index index;
+
+    @BeforeEach
+    void setup()
+    {
+        sut = new SearchServiceImpl(documentService, schemaService, projectService,
+                physicalIndexRegistry, schedulingService, new SearchServicePropertiesImpl(),
+                preferencesService);
+
+        project = Project.builder().withId(1l).withName("test").build();
+        layer = AnnotationLayer.builder() //
+                .withId(1l) //
+                .withName("custom.Span") //
+                .withProject(project) //
+                .build();
+        relationLayer = AnnotationLayer.builder() //
+                .withId(2l) //
+                .withName("custom.Relation") //
+                .withProject(project) //
+                .withAttachType(layer) //
+                .build();
+
+        index = new Index();
+        index.setProject(project);
+        index.setInvalid(false);
+        index.setPhysicalIndex(physicalIndex);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        sut.destroy();
+    }
+
+    @Test
+    void thatCompatibleLayerChangeReindexesOnlyAffectedLayers()
+    {
+        when(physicalIndex.isCreated()).thenReturn(true);
+        when(schemaService.existsLayer(layer.getName(), project)).thenReturn(true);
+        when(schemaService.listAttachedRelationLayers(layer)).thenReturn(List.of(relationLayer));
+
+        var event = new LayerConfigurationChangedEvent(this, layer);
+
+        assertThat(sut.getLayersToReindex(event, index)) //
+                .hasValueSatisfying(layers -> assertThat(layers) //
+                        .containsExactly(layer, relationLayer));
+    }
+
+    @Test
+    void thatCompatibleFeatureChangeReindexesOnlyAffectedLayers()
+    {
+        when(physicalIndex.isCreated()).thenReturn(true);
+        when(schemaService.existsLayer(layer.getName(), project)).thenReturn(true);
+        when(schemaService.listAttachedRelationLayers(layer)).thenReturn(List.of());
+
+        var feature = new AnnotationFeature(project, layer, "value", "Value", "uima.cas.String");
+        var event = new LayerConfigurationChangedEvent(this, feature);
+
+        assertThat(sut.getLayersToReindex(event, index)) //
+                .hasValueSatisfying(layers -> assertThat(layers).containsExactly(layer));
+    }
+
+    @Test
+    void thatDeletedLayerRequiresFullRebuild()
+    {
+        when(physicalIndex.isCreated()).thenReturn(true);
+
+        var event = new LayerConfigurationChangedEvent(this, layer, false);
+
+        assertThat(sut.getLayersToReindex(event, index)).isEmpty();
+    }
+
+    @Test
+    void thatLayerNoLongerInSchemaRequiresFullRebuild()
+    {
+        when(physicalIndex.isCreated()).thenReturn(true);
+        when(schemaService.existsLayer(layer.getName(), project)).thenReturn(false);
+
+        var event = new LayerConfigurationChangedEvent(this, layer);
+
+        assertThat(sut.getLayersToReindex(event, index)).isEmpty();
+    }
+
+    @Test
+    void thatFeatureTypeChangeRequiresFullRebuild()
+    {
+        when(physicalIndex.isCreated()).thenReturn(true);
+
+        var feature = new AnnotationFeature(project, layer, "value", "Value", "uima.cas.Integer");
+        var event = new LayerConfigurationChangedEvent(this, feature, false);
+
+        assertThat(sut.getLayersToReindex(event, index)).isEmpty();
+    }
+
+    @Test
+    void thatProjectWideChangeRequiresFullRebuild()
+    {
+        var event = new LayerConfigurationChangedEvent(this, project);
+
+        assertThat(sut.getLayersToReindex(event, index)).isEmpty();
+    }
+
+    @Test
+    void thatIndexingContextIsRebuiltAfterLayerConfigurationChange()
+    {
+        var context = sut.getIndexingContext(project);
+        assertThat(sut.getIndexingContext(project)).isSameAs(context);
+
+        sut.onLayerConfigurationChanged(new LayerConfigurationChangedEvent(this, layer));
+
+        assertThat(sut.getIndexingContext(project)).isNotSameAs(context);
+    }
+
+    @Test
+    void thatIndexingContextIsRebuiltAfterIndexingSettingsChange()
+    {
+        var context = sut.getIndexingContext(project);
+
+        var settings = new AnnotationSearchState();
+        settings.setCaseSensitive(false);
+        sut.saveIndexingSettings(project, settings);
+
+        verify(preferencesService).saveDefaultTraitsForProject(KEY_SEARCH_STATE, project,
+                settings);
+        assertThat(sut.getIndexingContext(project)).isNotSameAs(context);
+    }
+
+    @Test
+    void thatInvalidIndexRequiresFullRebuild()
+    {
+        index.setInvalid(true);
+
+        var event = new LayerConfigurationChangedEvent(this, layer);
+
+        assertThat(sut.getLayersToReindex(event, index)).isEmpty();
+    }
+}
@@ -22,11 +22,12 @@
 package de.tudarmstadt.ukp.inception.search.index.mtas;
 
 import static de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState.FINISHED;
-import static de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState.IGNORE;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
 import static de.tudarmstadt.ukp.inception.search.Metrics.VIRTUAL_FEATURE_SENTENCE;
 import static de.tudarmstadt.ukp.inception.search.Metrics.VIRTUAL_FEATURE_TOKEN;
 import static de.tudarmstadt.ukp.inception.search.Metrics.VIRTUAL_LAYER_SEGMENTATION;
+import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUimaParser.MTAS_SENTENCE_LABEL;
+import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUimaParser.MTAS_TOKEN_LABEL;
 import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUimaParser.PARAM_PROJECT_ID;
 import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUimaParser.getIndexedName;
 import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUtils.decodeFSAddress;
@@ -42,47 +43,72 @@ import static org.apache.lucene.search.ScoreMode.COMPLETE_NO_SCORES;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.lang.reflect.InvocationTargetException;
 import java.text.BreakIterator;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.custom.CustomAnalyzer;
 import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
@@ -93,7 +119,11 @@ import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.spans.SpanWeight;
 import org.apache.lucene.search.spans.Spans;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.uima.cas.CAS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -118,8 +148,12 @@ import de.tudarmstadt.ukp.inception.search.StatisticRequest;
 import de.tudarmstadt.ukp.inception.search.StatisticsResult;
 import de.tudarmstadt.ukp.inception.search.index.IndexRebuildRequiredException;
 import de.tudarmstadt.ukp.inception.search.index.PhysicalIndex;
+import de.tudarmstadt.ukp.inception.search.index.SearchResultCursor;
+import de.tudarmstadt.ukp.inception.search.index.mtas.ShardedSearcherManager.ShardedReader;
 import de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState;
 import de.tudarmstadt.ukp.inception.search.model.BulkIndexingContext;
+import de.tudarmstadt.ukp.inception.search.model.IndexStatistics;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
@@ -144,6 +178,11 @@ public class MtasDocumentIndex
 {
     private static final String INDEX = "indexMtas";
 
+    /**
+     * Prefix of the folders holding the shards if the index is sharded.
+     */
+    private static final String SHARD_PREFIX = "shard-";
+
     /**
      * Constant for the field which carries the unique identifier for the index document consisting:
      * {@code [sourceDocumentId]/[annotationDocumentId]}
@@ -153,12 +192,12 @@ public class MtasDocumentIndex
     /**
      * Constant for the field which carries the source document id;
      */
-    private static final String FIELD_SOURCE_DOCUMENT_ID = "sourceDocumentId";
+    static final String FIELD_SOURCE_DOCUMENT_ID = "sourceDocumentId";
 
     /**
      * Constant for the field which carries the source document id;
      */
-    private static final String FIELD_ANNOTATION_DOCUMENT_ID = "annotationDocumentId";
+    static final String FIELD_ANNOTATION_DOCUMENT_ID = "annotationDocumentId";
 
     /** The Constant FIELD_TITLE. */
     private static final String FIELD_TITLE = "title";
@@ -169,11 +208,34 @@ public class MtasDocumentIndex
     /**
      * Constant for the field which carries the annotator's username.
      */
-    private static final String FIELD_USER = "user";
+    static final String FIELD_USER = "user";
 
     /** The Constant FIELD_TIMESTAMP. */
     private static final String FIELD_TIMESTAMP = "timestamp";
 
+    /**
+     * Constant for the field which uniquely identifies a particular indexed version of a document.
+     * It is used to attach the statistics to the document after it has been analyzed.
+     */
+    private static final String FIELD_VERSION = "version";
+
+    /**
+     * Constant for the binary doc values field which carries the {@link MtasDocumentStatistics}.
+     */
+    private static final String FIELD_STATISTICS = "statistics";
+
+    /**
+     * Constant for the binary doc values field which carries the {@link MtasTokenTable}.
+     */
+    private static final String FIELD_TOKENS = "tokens";
+
+    /**
+     * Content of the {@link #FIELD_CONTENT} field if the document is indexed directly from a CAS.
+     * The parser then obtains the CAS from the {@link MtasIndexingCollector} and ignores the
+     * field content.
+     */
+    private static final String CAS_HANDOFF_CONTENT = "cas";
+
     // Default prefix for CQL queries
     private static final String DEFAULT_PREFIX = "Token";
 
@@ -181,6 +243,18 @@ public class MtasDocumentIndex
 
     private static final String EMPTY_FEATURE_VALUE_KEY = "<Empty>";
 
+    /**
+     * Number of merges that may be pending before indexing threads are stalled. Merges are only
+     * executed by a single thread.
+     */
+    private static final int MAX_PENDING_MERGES = 6;
+
+    /**
+     * Force-merging is I/O intensive. Sharing a single lock between all indexes ensures that at
+     * most one index is force-merged at any time.
+     */
+    private static final Lock FORCE_MERGE_LOCK = new ReentrantLock();
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final FeatureIndexingSupportRegistry featureIndexingSupportRegistry;
@@ -189,35 +263,93 @@ public class MtasDocumentIndex
     private final Project project;
     private final File repositoryDir;
     private final ScheduledExecutorService schedulerService;
+    private final MtasDocumentIndexSettings settings;
+    private final int shards;
+    private final ExecutorService queryExecutor;
+    private final SearchableDocumentCache searchableDocumentCache;
 
-    private IndexWriter _indexWriter;
+    private List<IndexWriter> _indexWriters;
     private ReferenceManager<IndexSearcher> _searcherManager;
     private ScheduledFuture<?> _commitFuture;
+    private volatile Instant _lastForceMerge;
 
     public MtasDocumentIndex(Project aProject, DocumentService aDocumentService, String aDir,
             FeatureIndexingSupportRegistry aFeatureIndexingSupportRegistry,
             FeatureSupportRegistry aFeatureSupportRegistry)
+    {
+        this(aProject, aDocumentService, aDir, aFeatureIndexingSupportRegistry,
+                aFeatureSupportRegistry, 1);
+    }
+
+    /**
+     * @param aShards
+     *            the number of shards to split the index into. Documents are assigned to a shard
+     *            by the hash of their source document ID, so a source document and all its
+     *            annotation documents end up in the same shard. Queries are executed on all shards
+     *            in parallel.
+     */
+    public MtasDocumentIndex(Project aProject, DocumentService aDocumentService, String aDir,
+            FeatureIndexingSupportRegistry aFeatureIndexingSupportRegistry,
+            FeatureSupportRegistry aFeatureSupportRegistry, int aShards)
+    {
+        this(aProject, aDocumentService, aDir, aFeatureIndexingSupportRegistry,
+                aFeatureSupportRegistry, withShards(aShards), null);
+    }
+
+    /**
+     * @param aSettings
+     *            the sharding, merge and maintenance settings of the index.
+     * @param aSearchableDocumentCache
+     *            the cache of the documents visible to users in search results or {@code null} to
+     *            always obtain them from the {@link DocumentService}.
+     */
+    public MtasDocumentIndex(Project aProject, DocumentService aDocumentService, String aDir,
+            FeatureIndexingSupportRegistry aFeatureIndexingSupportRegistry,
+            FeatureSupportRegistry aFeatureSupportRegistry, MtasDocumentIndexSettings aSettings,
+            SearchableDocumentCache aSearchableDocumentCache)
     {
         documentService = aDocumentService;
+        searchableDocumentCache = aSearchableDocumentCache;
         project = aProject;
         featureIndexingSupportRegistry = aFeatureIndexingSupportRegistry;
         featureSupportRegistry = aFeatureSupportRegistry;
         repositoryDir = new File(aDir);
+        settings = aSettings;
+        shards = Math.max(1, aSettings.getShards());
 
         schedulerService = new ScheduledThreadPoolExecutor(0);
+
+        if (shards > 1) {
+            queryExecutor = Executors.newFixedThreadPool(
+                    Math.min(shards, Runtime.getRuntime().availableProcessors()),
+                    new BasicThreadFactory.Builder() //
+                            .namingPattern("mtas-query-" + project.getId() + "-%d") //
+                            .daemon(true) //
+                            .build());
+        }
+        else {
+            queryExecutor = null;
+        }
     }
 
-    private synchronized IndexWriter getIndexWriter() throws IOException
+    private static MtasDocumentIndexSettings withShards(int aShards)
     {
-        if (_indexWriter != null) {
-            return _indexWriter;
+        var settings = new MtasDocumentIndexSettings();
+        settings.setShards(aShards);
+        return settings;
+    }
+
+    private synchronized List<IndexWriter> getIndexWriters() throws IOException
+    {
+        if (_indexWriters != null) {
+            return _indexWriters;
         }
 
         try {
-            // After the index has been initialized, assign the _indexWriter - this is also used
-            // by isOpen() to check if the index writer is available.
-            _indexWriter = createIndexWriter();
-            return _indexWriter;
+            // After the index has been initialized, assign the _indexWriters - this is also used
+            // by isOpen() to check if the index writers are available.
+            _indexWriters = createIndexWriters();
+            return _indexWriters;
         }
         catch (IOException e) {
             if (log.isDebugEnabled()) {
@@ -232,12 +364,75 @@ public class MtasDocumentIndex
             // If the index is corrupt, delete it so it can be rebuilt from scratch
             delete();
 
-            _indexWriter = null;
+            _indexWriters = null;
             throw new IndexRebuildRequiredException(e);
         }
     }
 
-    private IndexWriter createIndexWriter() throws IOException
+    /**
+     * @return the writer of the shard holding the given source document and its annotation
+     *         documents.
+     */
+    private IndexWriter getIndexWriter(long aSourceDocumentId) throws IOException
+    {
+        return getIndexWriters().get(getShard(aSourceDocumentId));
+    }
+
+    private List<IndexWriter> createIndexWriters() throws IOException
+    {
+        checkShardLayout();
+
+        var writers = new ArrayList<IndexWriter>();
+        try {
+            for (int i = 0; i < shards; i++) {
+                writers.add(createIndexWriter(getShardDir(i)));
+            }
+        }
+        catch (IOException e) {
+            for (var writer : writers) {
+                try {
+                    writer.close();
+                }
+                catch (IOException e1) {
+                    log.error("Error while trying to close shard after another shard could not be"
+                            + " initialized", e1);
+                }
+            }
+            throw e;
+        }
+
+        return writers;
+    }
+
+    /**
+     * Ensures that an existing index has been created with the configured number of shards. If
+     * the number of shards has been changed in the meantime, the index needs to be rebuilt.
+     */
+    private void checkShardLayout() throws IOException
+    {
+        var indexDir = getIndexDir();
+        if (!indexDir.isDirectory()) {
+            return;
+        }
+
+        var shardDirs = indexDir.list((dir, name) -> name.startsWith(SHARD_PREFIX));
+        var segmentFiles = indexDir
+                .list((dir, name) -> name.startsWith(IndexFileNames.SEGMENTS));
+
+        if (shardDirs.length == 0 && segmentFiles.length == 0) {
+            // Nothing has been indexed yet
+            return;
+        }
+
+        var layoutMatches = shards == 1 ? shardDirs.length == 0
+                : shardDirs.length == shards && segmentFiles.length == 0;
+        if (!layoutMatches) {
+            throw new IOException("Index does not have the configured number of shards ["
+                    + shards + "]");
+        }
+    }
+
+    private IndexWriter createIndexWriter(File aDir) throws IOException
     {
         // Add the project id to the configuration
         JSONObject jsonParserConfiguration = new JSONObject();
@@ -259,12 +454,28 @@ public class MtasDocumentIndex
                 analyzerPerField);
 
         // Build IndexWriter
-        FileUtils.forceMkdir(getIndexDir());
+        FileUtils.forceMkdir(aDir);
         IndexWriterConfig config = new IndexWriterConfig(analyzer);
         config.setCodec(Codec.forName(MTAS_CODEC_NAME));
 
+        var mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(Math.max(2, settings.getSegmentsPerTier()));
+        mergePolicy.setMaxMergedSegmentMB(Math.max(1, settings.getMaxMergedSegmentMb()));
+        mergePolicy.setFloorSegmentMB(Math.max(1, settings.getFloorSegmentMb()));
+        config.setMergePolicy(mergePolicy);
+
+        // Merge in a single background thread and throttle the I/O of merges so that merging does
+        // not compete with interactive queries
+        var mergeScheduler = new ConcurrentMergeScheduler();
+        mergeScheduler.setMaxMergesAndThreads(MAX_PENDING_MERGES, 1);
+        mergeScheduler.enableAutoIOThrottle();
+        if (settings.getForceMergeMbPerSec() > 0) {
+            mergeScheduler.setForceMergeMBPerSec(settings.getForceMergeMbPerSec());
+        }
+        config.setMergeScheduler(mergeScheduler);
+
         @SuppressWarnings("resource")
-        IndexWriter indexWriter = new IndexWriter(FSDirectory.open(getIndexDir().toPath()), config);
+        IndexWriter indexWriter = new IndexWriter(FSDirectory.open(aDir.toPath()), config);
 
         // Initialize the index
         try {
@@ -300,13 +511,18 @@ public class MtasDocumentIndex
             }
         }
 
-        if (_indexWriter != null) {
-            try {
-                _indexWriter.commit();
-            }
-            catch (IOException e) {
-                log.error("Error committing changes to index for project [{}]({})",
-                        project.getName(), project.getId());
+        if (_indexWriters != null) {
+            for (var writer : _indexWriters) {
+                try {
+                    // Only the shards that have actually been changed need to be committed
+                    if (writer.hasUncommittedChanges()) {
+                        writer.commit();
+                    }
+                }
+                catch (IOException e) {
+                    log.error("Error committing changes to index for project [{}]({})",
+                            project.getName(), project.getId());
+                }
             }
         }
     }
@@ -318,23 +534,29 @@ public class MtasDocumentIndex
             schedulerService.shutdown();
         }
 
+        if (queryExecutor != null) {
+            queryExecutor.shutdown();
+        }
+
         closeIndex();
     }
 
     private synchronized void closeIndex()
     {
         try {
-            try {
-                if (!isOpen()) {
-                    return;
-                }
+            if (!isOpen()) {
+                return;
+            }
 
-                ensureAllIsCommitted();
+            ensureAllIsCommitted();
 
-                _indexWriter.close();
-            }
-            catch (IOException e) {
-                log.error("Error closing index for project {}", project, e);
+            for (var writer : _indexWriters) {
+                try {
+                    writer.close();
+                }
+                catch (IOException e) {
+                    log.error("Error closing index for project {}", project, e);
+                }
             }
 
             if (_searcherManager != null) {
@@ -347,7 +569,7 @@ public class MtasDocumentIndex
             }
         }
         finally {
-            _indexWriter = null;
+            _indexWriters = null;
             _searcherManager = null;
             log.debug("Closed index for project {}", project);
         }
@@ -356,8 +578,14 @@ public class MtasDocumentIndex
     private synchronized ReferenceManager<IndexSearcher> getSearcherManager() throws IOException
     {
         if (_searcherManager == null) {
-            _searcherManager = new SearcherManager(getIndexWriter(), true, true,
-                    new SearcherFactory());
+            var writers = getIndexWriters();
+            if (writers.size() == 1) {
+                _searcherManager = new SearcherManager(writers.get(0), true, true,
+                        new SearcherFactory());
+            }
+            else {
+                _searcherManager = new ShardedSearcherManager(writers);
+            }
         }
 
         return _searcherManager;
@@ -376,15 +604,22 @@ public class MtasDocumentIndex
 
         log.debug("Enqueuing new future to index for project {}", project);
 
-        _commitFuture = schedulerService.schedule(this::commit, 3, SECONDS);
+        _commitFuture = schedulerService.schedule(this::commit,
+                Math.max(0, settings.getCommitDelay()), SECONDS);
     }
 
     private void commit()
     {
         try {
             log.debug("Executing future to index for project {}", project);
-            if (_indexWriter != null && _indexWriter.isOpen()) {
-                _indexWriter.commit();
+            var writers = _indexWriters;
+            if (writers != null && writers.stream().allMatch(IndexWriter::isOpen)) {
+                for (var writer : writers) {
+                    // Commit shard-by-shard and only where something has actually been changed
+                    if (writer.hasUncommittedChanges()) {
+                        writer.commit();
+                    }
+                }
                 log.debug("Committed changes to index for project {}", project);
 
                 if (_searcherManager != null) {
@@ -397,6 +632,129 @@ public class MtasDocumentIndex
         }
     }
 
+    /**
+     * Force-merges the shards of the index if the current time is within the configured off-peak
+     * window and the index has not yet been force-merged during the window. This method does not
+     * lock the index, so queries and indexing can continue while merging. If another index is
+     * being force-merged at the moment, this index is force-merged during the next maintenance.
+     */
+    @Override
+    public void maintain()
+    {
+        if (settings.getForceMergeMaxSegments() < 1) {
+            return;
+        }
+
+        var start = settings.getForceMergeWindowStart();
+        var end = settings.getForceMergeWindowEnd();
+        if (start == end || !isInForceMergeWindow(start, end, LocalTime.now().getHour())) {
+            return;
+        }
+
+        var now = Instant.now();
+        var windowLength = Duration.ofHours(Math.floorMod(end - start, 24));
+        var lastForceMerge = _lastForceMerge;
+        if (lastForceMerge != null
+                && Duration.between(lastForceMerge, now).compareTo(windowLength) < 0) {
+            return;
+        }
+
+        var writers = _indexWriters;
+        if (writers == null) {
+            return;
+        }
+
+        if (!FORCE_MERGE_LOCK.tryLock()) {
+            log.debug("Another index is being force-merged - postponing force-merge of index for "
+                    + "project {}", project);
+            return;
+        }
+
+        try {
+            _lastForceMerge = now;
+            forceMerge(writers);
+        }
+        catch (AlreadyClosedException e) {
+            log.debug("Index for project {} was closed while being force-merged", project);
+        }
+        catch (Exception e) {
+            log.error("Unable to force-merge index of project {}", project, e);
+        }
+        finally {
+            FORCE_MERGE_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Force-merges the shards of the index regardless of the off-peak window. This method is only
+     * for testing.
+     */
+    void forceMerge() throws IOException
+    {
+        forceMerge(getIndexWriters());
+    }
+
+    private void forceMerge(List<IndexWriter> aWriters) throws IOException
+    {
+        var maxSegments = settings.getForceMergeMaxSegments();
+        if (maxSegments < 1) {
+            return;
+        }
+
+        for (int i = 0; i < aWriters.size(); i++) {
+            var writer = aWriters.get(i);
+            if (!writer.isOpen()) {
+                return;
+            }
+
+            // Commit pending changes first so the latest commit reflects all segments
+            writer.commit();
+            var segments = SegmentInfos.readLatestCommit(writer.getDirectory()).size();
+            var docStats = writer.getDocStats();
+            if (segments <= maxSegments && docStats.maxDoc == docStats.numDocs) {
+                continue;
+            }
+
+            log.info("Force-merging shard {} of index for project {} from {} to {} segments", i,
+                    project, segments, maxSegments);
+
+            var startTime = System.currentTimeMillis();
+            writer.forceMerge(maxSegments, true);
+            writer.commit();
+
+            var searcherManager = _searcherManager;
+            if (searcherManager != null) {
+                searcherManager.maybeRefresh();
+            }
+
+            log.info("Force-merged shard {} of index for project {} in {}ms", i, project,
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * @param aStart
+     *            the hour at which the window starts.
+     * @param aEnd
+     *            the hour at which the window ends (exclusive). If it is before the start, the
+     *            window spans midnight.
+     * @param aHour
+     *            the current hour.
+     * @return whether the hour is within the window.
+     */
+    static boolean isInForceMergeWindow(int aStart, int aEnd, int aHour)
+    {
+        if (aStart == aEnd) {
+            return false;
+        }
+
+        if (aStart < aEnd) {
+            return aStart <= aHour && aHour < aEnd;
+        }
+
+        return aHour >= aStart || aHour < aEnd;
+    }
+
     /**
      * Checks if a project index is open
      * 
@@ -405,13 +763,94 @@ public class MtasDocumentIndex
     @Override
     public boolean isOpen()
     {
-        return _indexWriter != null ? _indexWriter.isOpen() : false;
+        var writers = _indexWriters;
+        return writers != null ? writers.stream().allMatch(IndexWriter::isOpen) : false;
     }
 
     @Override
     public void open() throws IOException
     {
-        getIndexWriter();
+        getIndexWriters();
+    }
+
+    /**
+     * @return the number of shards the index is split into.
+     */
+    public int getShardCount()
+    {
+        return shards;
+    }
+
+    /**
+     * @param aSourceDocumentId
+     *            a source document ID.
+     * @return the shard holding the given source document and its annotation documents.
+     */
+    public int getShard(long aSourceDocumentId)
+    {
+        return Math.floorMod(Long.hashCode(aSourceDocumentId), shards);
+    }
+
+    /**
+     * Applies the given task to the leaves of every shard. If the index is sharded, the shards are
+     * processed in parallel.
+     * 
+     * @return the results of the task in the order of the shards.
+     */
+    private <T> List<T> fanOut(IndexReader aReader, ShardTask<T> aTask) throws IOException
+    {
+        var leavesByShard = groupLeavesByShard(aReader);
+
+        var results = new ArrayList<T>();
+        if (queryExecutor == null || leavesByShard.size() < 2) {
+            for (var leaves : leavesByShard) {
+                results.add(aTask.run(leaves));
+            }
+            return results;
+        }
+
+        var futures = new ArrayList<Future<T>>();
+        for (var leaves : leavesByShard) {
+            futures.add(queryExecutor.submit(() -> aTask.run(leaves)));
+        }
+
+        try {
+            for (var future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while querying shards");
+        }
+        catch (java.util.concurrent.ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+        finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private List<List<LeafReaderContext>> groupLeavesByShard(IndexReader aReader)
+    {
+        if (!(aReader instanceof ShardedReader shardedReader)) {
+            return List.of(aReader.leaves());
+        }
+
+        var leavesByShard = new ArrayList<List<LeafReaderContext>>();
+        for (int i = 0; i < shardedReader.getShardCount(); i++) {
+            leavesByShard.add(new ArrayList<>());
+        }
+
+        for (var leaf : shardedReader.leaves()) {
+            leavesByShard.get(shardedReader.getShard(leaf)).add(leaf);
+        }
+
+        return leavesByShard;
     }
 
     @Override
@@ -432,18 +871,20 @@ public class MtasDocumentIndex
     public StatisticsResult getAnnotationStatistics(StatisticRequest aStatisticRequest)
         throws IOException, ExecutionException
     {
-        List<Integer> fullDocSet = getUniqueDocuments(aStatisticRequest);
+        List<Integer> fullDocSet = new ArrayList<>();
+        Optional<List<MtasDocumentStatistics>> docStats = loadDocumentStatistics(
+                aStatisticRequest, fullDocSet);
         Map<String, LayerStatistics> allStats = new HashMap<String, LayerStatistics>();
         Map<String, LayerStatistics> nonNullStats = new HashMap<String, LayerStatistics>();
         Set<AnnotationFeature> features = aStatisticRequest.getFeatures();
 
         for (AnnotationFeature feature : features) {
             AnnotationLayer layer = feature.getLayer();
-            String searchString = "<" + MtasUimaParser.getIndexedName(layer.getUiName()) + "."
-                    + MtasUimaParser.getIndexedName(feature.getUiName()) + "=\"\"/>";
+            String prefix = getIndexedName(layer.getUiName()) + "."
+                    + getIndexedName(feature.getUiName());
 
-            LayerStatistics results = getLayerStatistics(aStatisticRequest, searchString,
-                    fullDocSet);
+            LayerStatistics results = getPrefixStatistics(aStatisticRequest, prefix, fullDocSet,
+                    docStats);
             results.setFeature(feature);
             if (results.getMaximum() > 0) {
                 nonNullStats.put(layer.getUiName() + "." + feature.getUiName(), results);
@@ -461,14 +902,15 @@ public class MtasDocumentIndex
         sentence.setUiName(VIRTUAL_FEATURE_SENTENCE);
         sentence.setLayer(rawText);
 
-        LayerStatistics results = getLayerStatistics(aStatisticRequest, "<Token=\"\"/>",
-                fullDocSet);
+        LayerStatistics results = getPrefixStatistics(aStatisticRequest, MTAS_TOKEN_LABEL,
+                fullDocSet, docStats);
 
         results.setFeature(token);
         allStats.put(VIRTUAL_LAYER_SEGMENTATION + "." + VIRTUAL_FEATURE_TOKEN, results);
         nonNullStats.put(VIRTUAL_LAYER_SEGMENTATION + "." + VIRTUAL_FEATURE_TOKEN, results);
 
-        results = getLayerStatistics(aStatisticRequest, "<s=\"\"/>", fullDocSet);
+        results = getPrefixStatistics(aStatisticRequest, MTAS_SENTENCE_LABEL, fullDocSet,
+                docStats);
         results.setFeature(sentence);
         allStats.put(VIRTUAL_LAYER_SEGMENTATION + "." + VIRTUAL_FEATURE_SENTENCE, results);
         nonNullStats.put(VIRTUAL_LAYER_SEGMENTATION + "." + VIRTUAL_FEATURE_SENTENCE, results);
@@ -477,34 +919,69 @@ public class MtasDocumentIndex
                 aStatisticRequest.getFeatures());
     }
 
-    @Override
-    public List<Integer> getUniqueDocuments(StatisticRequest aStatisticRequest) throws IOException
+    private LayerStatistics getPrefixStatistics(StatisticRequest aStatisticRequest,
+            String aPrefix, List<Integer> aFullDocSet,
+            Optional<List<MtasDocumentStatistics>> aDocStats)
+        throws IOException, ExecutionException
     {
-        IndexSearcher searcher = null;
-        Map<Long, Long> annotatableDocuments = listAnnotatableDocuments(
-                aStatisticRequest.getProject(), aStatisticRequest.getUser());
+        if (aDocStats.isPresent()) {
+            return aggregateStatistics(aPrefix, aDocStats.get());
+        }
 
-        List<Integer> fullDocSet = new ArrayList<Integer>();
+        return getLayerStatistics(aStatisticRequest, "<" + aPrefix + "=\"\"/>", aFullDocSet);
+    }
 
+    /**
+     * Loads the statistics which were recorded for the documents relevant to the given request
+     * while they were indexed. The relevant documents are also added to the given document set
+     * such that the caller can fall back to calculating the statistics using MTAS.
+     * 
+     * @return the statistics of all relevant documents within the token range of the request or
+     *         nothing if any of the documents has been indexed without statistics.
+     */
+    private Optional<List<MtasDocumentStatistics>> loadDocumentStatistics(
+            StatisticRequest aStatisticRequest, List<Integer> aFullDocSet)
+        throws IOException
+    {
+        long minToken = aStatisticRequest.getMinTokenPerDoc();
+        long maxToken = aStatisticRequest.getMaxTokenPerDoc();
+
+        IndexSearcher searcher = null;
         try {
             searcher = getSearcherManager().acquire();
             IndexReader reader = searcher.getIndexReader();
 
-            for (int i = 0; i < reader.maxDoc(); i++) {
-                String sourceID = reader.document(i).get(FIELD_SOURCE_DOCUMENT_ID);
-                String annotationID = reader.document(i).get(FIELD_ANNOTATION_DOCUMENT_ID);
-                // a -1 indicates source document
-                if (Long.valueOf(annotationID) != -1L) {
-                    if (reader.document(i).get(FIELD_USER)
-                            .equals(aStatisticRequest.getUser().getUsername())) {
-                        fullDocSet.add(i);
-                    }
+            aFullDocSet.addAll(getUniqueDocuments(reader, aStatisticRequest));
+
+            List<LeafReaderContext> leaves = reader.leaves();
+            List<MtasDocumentStatistics> docStats = new ArrayList<>();
+            int currentLeaf = -1;
+            BinaryDocValues values = null;
+            for (int docId : aFullDocSet) {
+                int leaf = ReaderUtil.subIndex(docId, leaves);
+                if (leaf != currentLeaf) {
+                    currentLeaf = leaf;
+                    values = DocValues.getBinary(leaves.get(leaf).reader(), FIELD_STATISTICS);
+                }
+
+                int leafDocId = docId - leaves.get(leaf).docBase;
+                if (!values.advanceExact(leafDocId)) {
+                    return Optional.empty();
+                }
+
+                Optional<MtasDocumentStatistics> stats = MtasDocumentStatistics
+                        .decode(values.binaryValue());
+                if (stats.isEmpty()) {
+                    return Optional.empty();
                 }
-                // source document without annotation layer? then user is not relevant
-                else if (!annotatableDocuments.containsKey(Long.valueOf(sourceID))) {
-                    fullDocSet.add(i);
+
+                long tokens = stats.get().getCount(MTAS_TOKEN_LABEL);
+                if (tokens >= minToken && tokens <= maxToken) {
+                    docStats.add(stats.get());
                 }
             }
+
+            return Optional.of(docStats);
         }
         finally {
             if (searcher != null) {
@@ -514,6 +991,148 @@ public class MtasDocumentIndex
                 searcher = null;
             }
         }
+    }
+
+    private LayerStatistics aggregateStatistics(String aPrefix,
+            List<MtasDocumentStatistics> aDocStats)
+    {
+        DoubleArrayList perDocument = new DoubleArrayList(aDocStats.size());
+        DoubleArrayList perSentence = new DoubleArrayList(aDocStats.size());
+        for (MtasDocumentStatistics stats : aDocStats) {
+            long count = stats.getCount(aPrefix);
+            perDocument.add(count);
+
+            // Documents without sentences do not contribute to the per-sentence statistics
+            long sentences = stats.getCount(MTAS_SENTENCE_LABEL);
+            if (sentences > 0) {
+                perSentence.add((double) count / sentences);
+            }
+        }
+
+        double[] doc = summarize(perDocument);
+        double[] sent = summarize(perSentence);
+        return new LayerStatistics(doc[0], doc[1], doc[2], doc[3], doc[4], doc[5], sent[0],
+                sent[1], sent[2], sent[3], sent[4], sent[5], perDocument.size());
+    }
+
+    /**
+     * @return sum, maximum, minimum, mean, median and (sample) standard deviation of the values.
+     */
+    private static double[] summarize(DoubleArrayList aValues)
+    {
+        int n = aValues.size();
+        if (n == 0) {
+            return new double[6];
+        }
+
+        double[] values = aValues.toDoubleArray();
+        Arrays.sort(values);
+
+        double sum = 0.0;
+        for (double value : values) {
+            sum += value;
+        }
+        double mean = sum / n;
+
+        double squares = 0.0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        double standardDeviation = n > 1 ? Math.sqrt(squares / (n - 1)) : 0.0;
+
+        double median = n % 2 == 1 ? values[n / 2]
+                : (values[n / 2 - 1] + values[n / 2]) / 2.0;
+
+        return new double[] { sum, values[n - 1], values[0], mean, median, standardDeviation };
+    }
+
+    @Override
+    public long getGeneration() throws IOException
+    {
+        IndexSearcher searcher = null;
+        try {
+            searcher = getSearcherManager().acquire();
+            var reader = searcher.getIndexReader();
+            if (reader instanceof ShardedReader shardedReader) {
+                return shardedReader.getVersion();
+            }
+            return ((DirectoryReader) reader).getVersion();
+        }
+        finally {
+            if (searcher != null) {
+                getSearcherManager().release(searcher);
+                searcher = null;
+            }
+        }
+    }
+
+    @Override
+    public Optional<IndexStatistics> getIndexStatistics() throws IOException
+    {
+        IndexSearcher searcher = null;
+        try {
+            getSearcherManager().maybeRefresh();
+            searcher = getSearcherManager().acquire();
+            var reader = searcher.getIndexReader();
+
+            long sizeInBytes = 0;
+            for (var leaf : reader.leaves()) {
+                if (leaf.reader() instanceof SegmentReader segmentReader) {
+                    sizeInBytes += segmentReader.getSegmentInfo().sizeInBytes();
+                }
+            }
+
+            return Optional.of(new IndexStatistics(reader.leaves().size(), sizeInBytes,
+                    reader.numDocs(), reader.numDeletedDocs()));
+        }
+        finally {
+            if (searcher != null) {
+                getSearcherManager().release(searcher);
+                searcher = null;
+            }
+        }
+    }
+
+    @Override
+    public List<Integer> getUniqueDocuments(StatisticRequest aStatisticRequest) throws IOException
+    {
+        IndexSearcher searcher = null;
+        try {
+            searcher = getSearcherManager().acquire();
+            return getUniqueDocuments(searcher.getIndexReader(), aStatisticRequest);
+        }
+        finally {
+            if (searcher != null) {
+                // Releasing and setting to null per recommendation in JavaDoc of
+                // release(searcher) method
+                getSearcherManager().release(searcher);
+                searcher = null;
+            }
+        }
+    }
+
+    private List<Integer> getUniqueDocuments(IndexReader aReader,
+            StatisticRequest aStatisticRequest)
+        throws IOException
+    {
+        SearchableDocuments searchableDocuments = getSearchableDocuments(
+                aStatisticRequest.getProject(), aStatisticRequest.getUser());
+
+        List<Integer> fullDocSet = new ArrayList<Integer>();
+        for (LeafReaderContext leaf : aReader.leaves()) {
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            Bits visibleDocs = searchableDocuments.getVisibleDocuments(leaf.reader());
+            for (int i = 0; i < leaf.reader().maxDoc(); i++) {
+                // Skip documents which have been deleted but not yet been merged away
+                if (liveDocs != null && !liveDocs.get(i)) {
+                    continue;
+                }
+
+                if (visibleDocs.get(i)) {
+                    fullDocSet.add(leaf.docBase + i);
+                }
+            }
+        }
         return fullDocSet;
     }
 
@@ -767,87 +1386,69 @@ public class MtasDocumentIndex
             MtasSpanQuery q)
         throws IOException
     {
-        ListIterator<LeafReaderContext> leafReaderContextIterator = searcher.getIndexReader()
-                .leaves().listIterator();
-
-        Map<Long, Long> annotatableDocuments = listAnnotatableDocuments(aRequest.getProject(),
+        SearchableDocuments searchableDocuments = getSearchableDocuments(aRequest.getProject(),
                 aRequest.getUser());
 
         final float boost = 0;
         SpanWeight spanweight = q.rewrite(searcher.getIndexReader()).createWeight(searcher,
                 COMPLETE_NO_SCORES, boost);
 
+        long numResults = 0;
+        for (long shardResults : fanOut(searcher.getIndexReader(),
+                leaves -> countResults(leaves, spanweight, aRequest, searchableDocuments))) {
+            if (shardResults < 0) {
+                return -1;
+            }
+            numResults += shardResults;
+        }
+        return numResults;
+    }
+
+    private long countResults(List<LeafReaderContext> aLeaves, SpanWeight aSpanWeight,
+            SearchQueryRequest aRequest, SearchableDocuments aSearchableDocuments)
+    {
+        // If the query is limited to a given document, skip any results which are not in the
+        // given document
+        Optional<SourceDocument> limitedToDocument = aRequest.getLimitedToDocument();
+
         long numResults = 0;
 
-        while (leafReaderContextIterator.hasNext()) {
-            LeafReaderContext leafReaderContext = leafReaderContextIterator.next();
+        for (LeafReaderContext leafReaderContext : aLeaves) {
             try {
-                Spans spans = spanweight.getSpans(leafReaderContext, SpanWeight.Postings.POSITIONS);
+                Spans spans = aSpanWeight.getSpans(leafReaderContext,
+                        SpanWeight.Postings.POSITIONS);
                 SegmentReader segmentReader = (SegmentReader) leafReaderContext.reader();
-                if (spans != null) {
-                    while (spans.nextDoc() != Spans.NO_MORE_DOCS) {
-                        if (segmentReader.numDocs() == segmentReader.maxDoc()
-                                || segmentReader.getLiveDocs().get(spans.docID())) {
-                            Document document = segmentReader.document(spans.docID());
-
-                            // Retrieve user
-                            String user = document.get(FIELD_USER);
-
-                            // Retrieve source and annotation document ids
-                            String rawSourceDocumentId = document.get(FIELD_SOURCE_DOCUMENT_ID);
-                            String rawAnnotationDocumentId = document
-                                    .get(FIELD_ANNOTATION_DOCUMENT_ID);
-                            if (rawSourceDocumentId == null || rawAnnotationDocumentId == null) {
-                                log.trace(
-                                        "Indexed document lacks source/annotation document IDs"
-                                                + " - source: {}, annotation: {}",
-                                        rawSourceDocumentId, rawAnnotationDocumentId);
-                                continue;
-
-                            }
-                            long sourceDocumentId = Long.valueOf(rawSourceDocumentId);
-                            long annotationDocumentId = Long.valueOf(rawAnnotationDocumentId);
-
-                            // If the query is limited to a given document, skip any results
-                            // which are not in the given document
-                            Optional<SourceDocument> limitedToDocument = aRequest
-                                    .getLimitedToDocument();
-                            if (limitedToDocument.isPresent() && !Objects
-                                    .equals(limitedToDocument.get().getId(), sourceDocumentId)) {
-                                log.trace(
-                                        "Query limited to document {}, skipping results for "
-                                                + "document {}",
-                                        limitedToDocument.get().getId(), sourceDocumentId);
-                                continue;
-                            }
-
-                            if (annotatableDocuments.containsKey(sourceDocumentId)
-                                    && annotationDocumentId == -1) {
-                                // Exclude result if the retrieved document is a sourcedocument
-                                // (that is, has annotationDocument = -1) AND it has a
-                                // corresponding annotation document for this user
-                                log.trace("Skipping results from indexed source document {} in"
-                                        + "favor of results from the corresponding annotation "
-                                        + "document", sourceDocumentId);
-                                continue;
-                            }
-                            else if (annotationDocumentId != -1
-                                    && !aRequest.getUser().getUsername().equals(user)) {
-                                // Exclude result if the retrieved document is an annotation
-                                // document (that is, annotationDocument != -1 and its username
-                                // is different from the querying user
-                                log.trace(
-                                        "Skipping results from annotation document for user {} "
-                                                + "which does not match the requested user {}",
-                                        user, aRequest.getUser().getUsername());
-                                continue;
-                            }
-
-                            while (spans.nextStartPosition() != Spans.NO_MORE_POSITIONS) {
-                                numResults++;
-                            }
+                if (spans == null) {
+                    continue;
+                }
+
+                Bits visibleDocs = aSearchableDocuments.getVisibleDocuments(segmentReader);
+                NumericDocValues sourceDocumentIds = segmentReader
+                        .getNumericDocValues(FIELD_SOURCE_DOCUMENT_ID);
+                while (spans.nextDoc() != Spans.NO_MORE_DOCS) {
+                    int docId = spans.docID();
+                    if (segmentReader.numDocs() != segmentReader.maxDoc()
+                            && !segmentReader.getLiveDocs().get(docId)) {
+                        continue;
+                    }
+
+                    // Skip documents which the user cannot see - e.g. source documents for which
+                    // the user has an annotation document or annotation documents of other users
+                    if (!visibleDocs.get(docId)) {
+                        continue;
+                    }
+
+                    if (limitedToDocument.isPresent()) {
+                        long sourceDocumentId = getSourceDocumentId(segmentReader,
+                                sourceDocumentIds, docId);
+                        if (!Objects.equals(limitedToDocument.get().getId(), sourceDocumentId)) {
+                            continue;
                         }
                     }
+
+                    while (spans.nextStartPosition() != Spans.NO_MORE_POSITIONS) {
+                        numResults++;
+                    }
                 }
             }
             catch (Exception e) {
@@ -858,14 +1459,26 @@ public class MtasDocumentIndex
         return numResults;
     }
 
-    private Map<Long, Long> listAnnotatableDocuments(Project aProject, User aUser)
+    private long getSourceDocumentId(SegmentReader aReader, NumericDocValues aSourceDocumentIds,
+            int aDocId)
+        throws IOException
     {
-        Map<Long, Long> annotateableDocuments = new HashMap<>();
-        documentService.listAnnotatableDocuments(aProject, aUser).entrySet().stream()
-                .filter(e -> e.getValue() != null) // only include entries where the annodoc is not
-                                                   // null
-                .forEach(e -> annotateableDocuments.put(e.getKey().getId(), e.getValue().getId()));
-        return annotateableDocuments;
+        if (aSourceDocumentIds != null && aSourceDocumentIds.advanceExact(aDocId)) {
+            return aSourceDocumentIds.longValue();
+        }
+
+        // Documents indexed before the metadata was added as doc values
+        return Long.valueOf(aReader.document(aDocId, Set.of(FIELD_SOURCE_DOCUMENT_ID))
+                .get(FIELD_SOURCE_DOCUMENT_ID));
+    }
+
+    private SearchableDocuments getSearchableDocuments(Project aProject, User aUser)
+    {
+        if (searchableDocumentCache != null) {
+            return searchableDocumentCache.get(aProject, aUser);
+        }
+
+        return SearchableDocumentCache.load(documentService, aProject, aUser);
     }
 
     private List<LeafReaderContext> sortLeaves(List<LeafReaderContext> aLeaves,
@@ -882,9 +1495,28 @@ public class MtasDocumentIndex
         SpanWeight spanweight = aQuery.rewrite(aSearcher.getIndexReader()).createWeight(aSearcher,
                 COMPLETE_NO_SCORES, 0);
 
+        // Collect the document ids of the leaves of all shards in parallel
+        for (var shardDocIds : fanOut(aSearcher.getIndexReader(),
+                leaves -> mapToDocIds(leaves, spanweight))) {
+            mapToDocIds.addAll(shardDocIds);
+        }
+
+        // Sort according to docId; take the smallest value in the list
+        mapToDocIds.sort(comparingLong(s -> s.getValue().get(0)));
+
+        // Only return the leaves
+        return mapToDocIds.stream().map(Pair::getKey).collect(Collectors.toList());
+    }
+
+    private List<Pair<LeafReaderContext, List<Long>>> mapToDocIds(
+            List<LeafReaderContext> aLeaves, SpanWeight aSpanWeight)
+        throws IOException
+    {
+        List<Pair<LeafReaderContext, List<Long>>> mapToDocIds = new ArrayList<>();
+
         // cycle through all the leaves
         for (LeafReaderContext leafReaderContext : aLeaves) {
-            Spans spans = spanweight.getSpans(leafReaderContext, SpanWeight.Postings.POSITIONS);
+            Spans spans = aSpanWeight.getSpans(leafReaderContext, SpanWeight.Postings.POSITIONS);
             SegmentReader segmentReader = (SegmentReader) leafReaderContext.reader();
             LongList idList = new LongArrayList();
             // no spans -> no docs
@@ -913,248 +1545,417 @@ public class MtasDocumentIndex
                 mapToDocIds.add(Pair.of(leafReaderContext, idList));
             }
         }
-        // Sort according to docId; take the smallest value in the list
-        mapToDocIds.sort(comparingLong(s -> s.getValue().get(0)));
-
-        // Only return the leaves
-        return mapToDocIds.stream().map(Pair::getKey).collect(Collectors.toList());
+        return mapToDocIds;
     }
 
     private Map<String, List<SearchResult>> doQuery(IndexSearcher searcher,
             SearchQueryRequest aRequest, MtasSpanQuery q)
         throws IOException
     {
-        Map<String, List<SearchResult>> results = new LinkedHashMap<>();
+        // The searcher is managed by the caller, so the cursor does not need to be closed here
+        MtasSearchCursor cursor = new MtasSearchCursor(null, searcher, aRequest, q);
+        cursor.skip(aRequest.getOffset());
+        return cursor.next(aRequest.getCount());
+    }
 
-        ListIterator<LeafReaderContext> leafReaderContextIterator = sortLeaves(
-                searcher.getIndexReader().leaves(), searcher, q).listIterator();
+    @Override
+    public SearchResultCursor openCursor(SearchQueryRequest aRequest)
+        throws IOException, ExecutionException
+    {
+        log.debug("Opening cursor for query [{}] on index [{}]", aRequest, getIndexDir());
 
-        Map<SourceDocument, AnnotationDocument> sourceAnnotationDocPairs = documentService
-                .listAnnotatableDocuments(aRequest.getProject(), aRequest.getUser());
-        Map<Long, SourceDocument> sourceDocumentIndex = new HashMap<>();
-        sourceAnnotationDocPairs.entrySet().stream()
-                .forEach(e -> sourceDocumentIndex.put(e.getKey().getId(), e.getKey()));
+        ensureAllIsCommitted();
 
-        final float boost = 0;
-        SpanWeight spanweight = q.rewrite(searcher.getIndexReader()).createWeight(searcher,
-                COMPLETE_NO_SCORES, boost);
+        MtasSpanQuery mtasSpanQuery = parseQuery(aRequest.getQuery(),
+                aRequest.getSearchSettings());
 
-        long offset = aRequest.getOffset();
-        long count = aRequest.getCount();
-        long current = 0;
+        ReferenceManager<IndexSearcher> searcherManager = getSearcherManager();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return new MtasSearchCursor(searcherManager, searcher, aRequest, mtasSpanQuery);
+        }
+        catch (IOException | RuntimeException e) {
+            searcherManager.release(searcher);
+            throw e;
+        }
+    }
 
-        resultIteration: while (leafReaderContextIterator.hasNext()) {
-            LeafReaderContext leafReaderContext = leafReaderContextIterator.next();
+    /**
+     * Walks the matches of a query document by document. The cursor keeps the leaf it is in, the
+     * spans of that leaf and the searcher it was opened on, so fetching the next page of results
+     * continues where the previous one ended instead of re-walking all earlier matches.
+     */
+    private class MtasSearchCursor
+        implements SearchResultCursor
+    {
+        private final ReferenceManager<IndexSearcher> searcherManager;
+        private final IndexSearcher searcher;
+        private final SearchQueryRequest request;
+        private final SpanWeight spanWeight;
+        private final Iterator<LeafReaderContext> leafIterator;
+        private final SearchableDocuments searchableDocuments;
+
+        private SegmentReader segmentReader;
+        private CodecInfo mtasCodecInfo;
+        private Spans spans;
+        private MatchedDocument document;
+        private long position;
+        private boolean closed;
+
+        // Doc values of the current leaf - null if the leaf has been indexed without them
+        private NumericDocValues sourceDocumentIds;
+        private SortedDocValues titles;
+        private BinaryDocValues tokenTables;
+        private Bits visibleDocs;
+
+        // Token table of the current document - loaded on demand
+        private Optional<MtasTokenTable> tokenTable;
+
+        /**
+         * @param aSearcherManager
+         *            the manager to release the searcher to when the cursor is closed or
+         *            {@code null} if the searcher is managed by the caller.
+         */
+        MtasSearchCursor(ReferenceManager<IndexSearcher> aSearcherManager,
+                IndexSearcher aSearcher, SearchQueryRequest aRequest, MtasSpanQuery aQuery)
+            throws IOException
+        {
+            searcherManager = aSearcherManager;
+            searcher = aSearcher;
+            request = aRequest;
+
+            leafIterator = sortLeaves(searcher.getIndexReader().leaves(), searcher, aQuery)
+                    .iterator();
+
+            searchableDocuments = getSearchableDocuments(aRequest.getProject(),
+                    aRequest.getUser());
+
+            final float boost = 0;
+            spanWeight = aQuery.rewrite(searcher.getIndexReader()).createWeight(searcher,
+                    COMPLETE_NO_SCORES, boost);
+        }
 
-            try {
-                Spans spans = spanweight.getSpans(leafReaderContext, SpanWeight.Postings.POSITIONS);
-                SegmentReader segmentReader = (SegmentReader) leafReaderContext.reader();
-                Terms terms = segmentReader.terms(FIELD_CONTENT);
-                CodecInfo mtasCodecInfo = CodecInfo.getCodecInfoFromTerms(terms);
-                if (spans != null) {
-                    while (spans.nextDoc() != Spans.NO_MORE_DOCS) {
-                        if (segmentReader.numDocs() == segmentReader.maxDoc()
-                                || segmentReader.getLiveDocs().get(spans.docID())) {
-                            Document document = segmentReader.document(spans.docID());
-
-                            // Retrieve user
-                            String user = document.get(FIELD_USER);
-
-                            // Retrieve source and annotation document ids
-                            String rawSourceDocumentId = document.get(FIELD_SOURCE_DOCUMENT_ID);
-                            String rawAnnotationDocumentId = document
-                                    .get(FIELD_ANNOTATION_DOCUMENT_ID);
-                            if (rawSourceDocumentId == null || rawAnnotationDocumentId == null) {
-                                log.trace(
-                                        "Indexed document lacks source/annotation document IDs"
-                                                + " - source: {}, annotation: {}",
-                                        rawSourceDocumentId, rawAnnotationDocumentId);
-                                continue;
-
-                            }
-
-                            long sourceDocumentId = Long.valueOf(rawSourceDocumentId);
-                            long annotationDocumentId = Long.valueOf(rawAnnotationDocumentId);
-                            boolean matchInSourceDocument = annotationDocumentId == -1;
-
-                            SourceDocument sourceDocument = sourceDocumentIndex
-                                    .get(sourceDocumentId);
-
-                            if (sourceDocument == null) {
-                                // Document is not annotatable by this user, so we skip this result
-                                continue;
-                            }
-
-                            AnnotationDocument annotationDocument = sourceAnnotationDocPairs
-                                    .get(sourceDocument);
-
-                            if (annotationDocument != null
-                                    && IGNORE != annotationDocument.getState()) {
-                                // Skip if the document is ignored for this user
-                                log.trace("Skipping results from ignored document {}",
-                                        sourceDocumentId);
-                            }
-
-                            // If the query is limited to a given document, skip any results
-                            // which are not in the given document
-                            Optional<SourceDocument> limitedToDocument = aRequest
-                                    .getLimitedToDocument();
-                            if (limitedToDocument.isPresent() && !Objects
-                                    .equals(limitedToDocument.get().getId(), sourceDocumentId)) {
-                                log.trace(
-                                        "Query limited to document {}, skipping results for "
-                                                + "document {}",
-                                        limitedToDocument.get().getId(), sourceDocumentId);
-                                continue;
-                            }
-
-                            if (matchInSourceDocument && annotationDocument != null) {
-                                // Exclude result if the retrieved document is a sourcedocument
-                                // AND it has a corresponding annotation document for this user
-                                // AND the document is not ignored for this user
-                                log.trace("Skipping results from indexed source document {} in"
-                                        + "favor of results from the corresponding annotation "
-                                        + "document", sourceDocumentId);
-                                continue;
-                            }
-                            else if (annotationDocumentId != -1
-                                    && !aRequest.getUser().getUsername().equals(user)) {
-                                // Exclude result if the retrieved document is an annotation
-                                // document (that is, annotationDocument != -1 and its username
-                                // is different from the querying user
-                                log.trace(
-                                        "Skipping results from annotation document for user {} "
-                                                + "which does not match the requested user {}",
-                                        user, aRequest.getUser().getUsername());
-                                continue;
-                            }
-
-                            // Retrieve document title
-                            String documentTitle = document.get(FIELD_TITLE);
-
-                            // String idValue = segmentReader.document(spans.docID())
-                            // .getField(FIELD_ID).stringValue();
-                            // log.debug("******** New doc {}-{}", + spans.docID(), idValue);
-
-                            while (spans.nextStartPosition() != Spans.NO_MORE_POSITIONS) {
-                                if (current < offset) {
-                                    current++;
-                                    continue;
-                                }
-                                if (current - offset + 1 > count) {
-                                    break resultIteration;
-                                }
-                                current++;
-                                int matchStart = spans.startPosition();
-                                int matchEnd = spans.endPosition();
-
-                                int windowStart = Math.max(matchStart - RESULT_WINDOW_SIZE, 0);
-                                int windowEnd = matchEnd + RESULT_WINDOW_SIZE - 1;
-
-                                // Retrieve all indexed objects within the matching range
-                                List<MtasTokenString> tokens = mtasCodecInfo.getObjectsByPositions(
-                                        FIELD_CONTENT, spans.docID(), windowStart, windowEnd);
-
-                                tokens.sort(Comparator.comparing(MtasTokenString::getOffsetStart));
-
-                                if (tokens.isEmpty()) {
-                                    continue;
-                                }
-
-                                SearchResult result = new SearchResult();
-                                StringBuilder resultText = new StringBuilder();
-                                StringBuilder leftContext = new StringBuilder();
-                                StringBuilder rightContext = new StringBuilder();
-                                result.setDocumentId(sourceDocumentId);
-                                result.setDocumentTitle(documentTitle);
-                                result.setOffsetStart(tokens.stream()
-                                        .filter(t -> t.getPositionStart() >= matchStart
-                                                && t.getPositionEnd() < matchEnd)
-                                        .mapToInt(MtasTokenString::getOffsetStart).min()
-                                        .orElse(matchStart));
-                                result.setOffsetEnd(tokens.stream()
-                                        .filter(t -> t.getPositionStart() >= matchStart
-                                                && t.getPositionEnd() < matchEnd)
-                                        .mapToInt(MtasTokenString::getOffsetEnd).max()
-                                        .orElse(matchEnd));
-                                result.setTokenStart(matchStart);
-                                result.setTokenLength(matchEnd - matchStart);
-                                result.setReadOnly(annotationDocument != null
-                                        && FINISHED.equals(annotationDocument.getState()));
-                                result.setSelectedForAnnotation(!result.isReadOnly());
-
-                                MtasTokenString prevToken = null;
-                                for (MtasTokenString token : tokens) {
-                                    if (!token.getPrefix().equals(DEFAULT_PREFIX)) {
-                                        continue;
-                                    }
-
-                                    // When searching for an annotation, we don't get the matching
-                                    // text back... not sure why...
-                                    String tokenText = CodecUtil.termValue(token.getValue());
-                                    if (tokenText == null) {
-                                        continue;
-                                    }
-
-                                    if (token.getPositionStart() < matchStart) {
-                                        fill(leftContext, prevToken, token);
-                                        leftContext.append(tokenText);
-                                    }
-                                    else if (token.getPositionStart() >= matchEnd) {
-                                        fill(rightContext, prevToken, token);
-                                        rightContext.append(tokenText);
-                                    }
-                                    else {
-                                        // Only add the whitespace to the match if we already have
-                                        // added any text to the match - otherwise consider the
-                                        // whitespace to be part of the left context
-                                        if (resultText.length() > 0) {
-                                            fill(resultText, prevToken, token);
-                                        }
-                                        else {
-                                            fill(leftContext, prevToken, token);
-                                        }
-                                        resultText.append(tokenText);
-                                    }
-                                    prevToken = token;
-                                }
-                                result.setText(resultText.toString());
-                                result.setLeftContext(leftContext.toString());
-                                result.setRightContext(rightContext.toString());
-
-                                AnnotationLayer groupingLayer = aRequest.getAnnoationLayer();
-                                AnnotationFeature groupingFeature = aRequest.getAnnotationFeature();
-
-                                if (groupingLayer != null && groupingFeature != null) {
-                                    List<String> featureValues = featureValuesAtMatch(tokens,
-                                            matchStart, matchEnd, groupingLayer, groupingFeature);
-                                    for (String featureValue : featureValues) {
-                                        addToResults(results, featureValue, result);
-                                    }
-                                }
-                                else {
-                                    // if no annotation feature is specified group by document title
-                                    addToResults(results, result.getDocumentTitle(), result);
-                                }
-                            }
+        @Override
+        public long getPosition()
+        {
+            return position;
+        }
+
+        @Override
+        public long skip(long aCount) throws IOException
+        {
+            long skipped = 0;
+            while (skipped < aCount && nextMatch()) {
+                position++;
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public Map<String, List<SearchResult>> next(long aCount) throws IOException
+        {
+            Map<String, List<SearchResult>> results = new LinkedHashMap<>();
+
+            long fetched = 0;
+            while (fetched < aCount && nextMatch()) {
+                position++;
+                fetched++;
+
+                try {
+                    addMatch(results);
+                }
+                catch (Exception e) {
+                    log.error("Unable to process query results", e);
+                }
+            }
+
+            var sortedResults = new LinkedHashMap<String, List<SearchResult>>();
+            var sortedKeys = results.keySet().stream().sorted().collect(toList());
+            for (var key : sortedKeys) {
+                sortedResults.put(key, results.get(key));
+            }
+
+            return sortedResults;
+        }
+
+        @Override
+        public synchronized void close()
+        {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            if (searcherManager != null) {
+                try {
+                    searcherManager.release(searcher);
+                }
+                catch (IOException e) {
+                    log.error("Unable to release searcher", e);
+                }
+            }
+        }
+
+        /**
+         * Moves the spans to the next match in a document that is visible to the user.
+         * 
+         * @return whether there was another match.
+         */
+        private boolean nextMatch() throws IOException
+        {
+            if (closed) {
+                throw new IOException("Cursor has already been closed");
+            }
+
+            while (true) {
+                try {
+                    if (document != null) {
+                        if (spans.nextStartPosition() != Spans.NO_MORE_POSITIONS) {
+                            return true;
                         }
+                        document = null;
                     }
+
+                    if (spans != null) {
+                        if (spans.nextDoc() != Spans.NO_MORE_DOCS) {
+                            document = matchDocument(spans.docID());
+                            tokenTable = null;
+                            continue;
+                        }
+                        spans = null;
+                    }
+
+                    if (!leafIterator.hasNext()) {
+                        return false;
+                    }
+
+                    LeafReaderContext leafReaderContext = leafIterator.next();
+                    segmentReader = (SegmentReader) leafReaderContext.reader();
+                    mtasCodecInfo = CodecInfo
+                            .getCodecInfoFromTerms(segmentReader.terms(FIELD_CONTENT));
+                    sourceDocumentIds = segmentReader
+                            .getNumericDocValues(FIELD_SOURCE_DOCUMENT_ID);
+                    titles = segmentReader.getSortedDocValues(FIELD_TITLE);
+                    tokenTables = segmentReader.getBinaryDocValues(FIELD_TOKENS);
+                    visibleDocs = searchableDocuments.getVisibleDocuments(segmentReader);
+                    spans = spanWeight.getSpans(leafReaderContext, SpanWeight.Postings.POSITIONS);
+                }
+                catch (Exception e) {
+                    // Give up on the current leaf and continue with the next one
+                    log.error("Unable to process query results", e);
+                    document = null;
+                    spans = null;
                 }
             }
-            catch (Exception e) {
-                log.error("Unable to process query results", e);
+        }
+
+        /**
+         * @return information about the document if matches from it should be included in the
+         *         results or {@code null} if it should be skipped.
+         */
+        private MatchedDocument matchDocument(int aDocId) throws IOException
+        {
+            if (segmentReader.numDocs() != segmentReader.maxDoc()
+                    && !segmentReader.getLiveDocs().get(aDocId)) {
+                return null;
+            }
+
+            // Skip documents which the user cannot see - e.g. source documents for which the user
+            // has an annotation document, annotation documents of other users or documents which
+            // are ignored for the user
+            if (!visibleDocs.get(aDocId)) {
+                return null;
+            }
+
+            String documentTitle;
+            long sourceDocumentId;
+            if (hasMetadataDocValues(aDocId)) {
+                documentTitle = titles.binaryValue().utf8ToString();
+                sourceDocumentId = sourceDocumentIds.longValue();
             }
+            else {
+                // Documents indexed before the metadata was added as doc values
+                Document doc = segmentReader.document(aDocId);
+
+                // Retrieve document title
+                documentTitle = doc.get(FIELD_TITLE);
+
+                // The document is only visible if it has a source document ID
+                sourceDocumentId = Long.valueOf(doc.get(FIELD_SOURCE_DOCUMENT_ID));
+            }
+
+            // If the query is limited to a given document, skip any results
+            // which are not in the given document
+            Optional<SourceDocument> limitedToDocument = request.getLimitedToDocument();
+            if (limitedToDocument.isPresent()
+                    && !Objects.equals(limitedToDocument.get().getId(), sourceDocumentId)) {
+                log.trace("Query limited to document {}, skipping results for document {}",
+                        limitedToDocument.get().getId(), sourceDocumentId);
+                return null;
+            }
+
+            return new MatchedDocument(sourceDocumentId, documentTitle,
+                    searchableDocuments.getAnnotationDocument(sourceDocumentId));
         }
 
-        var sortedResults = new LinkedHashMap<String, List<SearchResult>>();
-        var sortedKeys = results.keySet().stream().sorted().collect(toList());
-        for (var key : sortedKeys) {
-            sortedResults.put(key, results.get(key));
+        private boolean hasMetadataDocValues(int aDocId) throws IOException
+        {
+            return sourceDocumentIds != null && sourceDocumentIds.advanceExact(aDocId)
+                    && titles != null && titles.advanceExact(aDocId);
         }
 
-        return sortedResults;
+        /**
+         * Builds the tokens in the given window from the token table of the current document.
+         * 
+         * @return the tokens or {@code null} if the document has no token table or if the table
+         *         does not cover the match.
+         */
+        private List<MtasTokenString> tokensFromTable(int aWindowStart, int aWindowEnd,
+                int aMatchStart, int aMatchEnd)
+            throws IOException
+        {
+            if (tokenTable == null) {
+                tokenTable = Optional.empty();
+                if (tokenTables != null && tokenTables.advanceExact(spans.docID())) {
+                    tokenTable = MtasTokenTable.decode(tokenTables.binaryValue());
+                }
+            }
+
+            if (tokenTable.isEmpty()) {
+                return null;
+            }
+
+            MtasTokenTable table = tokenTable.get();
+            for (int p = aMatchStart; p < aMatchEnd; p++) {
+                if (!table.contains(p)) {
+                    return null;
+                }
+            }
+
+            List<MtasTokenString> tokens = new ArrayList<>();
+            for (int p = aWindowStart; p <= aWindowEnd && p < table.size(); p++) {
+                if (!table.contains(p)) {
+                    continue;
+                }
+
+                MtasTokenString token = new MtasTokenString(p, DEFAULT_PREFIX, table.getText(p),
+                        p);
+                token.setOffset(table.getBegin(p), table.getEnd(p));
+                token.addPositionRange(p, p);
+                tokens.add(token);
+            }
+            return tokens;
+        }
+
+        private void addMatch(Map<String, List<SearchResult>> aResults) throws IOException
+        {
+            int matchStart = spans.startPosition();
+            int matchEnd = spans.endPosition();
+
+            int windowStart = Math.max(matchStart - RESULT_WINDOW_SIZE, 0);
+            int windowEnd = matchEnd + RESULT_WINDOW_SIZE - 1;
+
+            AnnotationLayer groupingLayer = request.getAnnoationLayer();
+            AnnotationFeature groupingFeature = request.getAnnotationFeature();
+            boolean grouping = groupingLayer != null && groupingFeature != null;
+
+            // Unless we need the annotations at the match for grouping, the tokens can be taken
+            // from the token table stored with the document. Otherwise, retrieve all indexed
+            // objects within the matching range
+            List<MtasTokenString> tokens = grouping ? null
+                    : tokensFromTable(windowStart, windowEnd, matchStart, matchEnd);
+            if (tokens == null) {
+                tokens = mtasCodecInfo.getObjectsByPositions(FIELD_CONTENT, spans.docID(),
+                        windowStart, windowEnd);
+            }
+
+            tokens.sort(Comparator.comparing(MtasTokenString::getOffsetStart));
+
+            if (tokens.isEmpty()) {
+                return;
+            }
+
+            AnnotationDocument annotationDocument = document.annotationDocument();
+
+            SearchResult result = new SearchResult();
+            StringBuilder resultText = new StringBuilder();
+            StringBuilder leftContext = new StringBuilder();
+            StringBuilder rightContext = new StringBuilder();
+            result.setDocumentId(document.sourceDocumentId());
+            result.setDocumentTitle(document.title());
+            result.setOffsetStart(tokens.stream()
+                    .filter(t -> t.getPositionStart() >= matchStart
+                            && t.getPositionEnd() < matchEnd)
+                    .mapToInt(MtasTokenString::getOffsetStart).min().orElse(matchStart));
+            result.setOffsetEnd(tokens.stream()
+                    .filter(t -> t.getPositionStart() >= matchStart
+                            && t.getPositionEnd() < matchEnd)
+                    .mapToInt(MtasTokenString::getOffsetEnd).max().orElse(matchEnd));
+            result.setTokenStart(matchStart);
+            result.setTokenLength(matchEnd - matchStart);
+            result.setReadOnly(annotationDocument != null
+                    && FINISHED.equals(annotationDocument.getState()));
+            result.setSelectedForAnnotation(!result.isReadOnly());
+
+            MtasTokenString prevToken = null;
+            for (MtasTokenString token : tokens) {
+                if (!token.getPrefix().equals(DEFAULT_PREFIX)) {
+                    continue;
+                }
+
+                // When searching for an annotation, we don't get the matching
+                // text back... not sure why...
+                String tokenText = CodecUtil.termValue(token.getValue());
+                if (tokenText == null) {
+                    continue;
+                }
+
+                if (token.getPositionStart() < matchStart) {
+                    fill(leftContext, prevToken, token);
+                    leftContext.append(tokenText);
+                }
+                else if (token.getPositionStart() >= matchEnd) {
+                    fill(rightContext, prevToken, token);
+                    rightContext.append(tokenText);
+                }
+                else {
+                    // Only add the whitespace to the match if we already have
+                    // added any text to the match - otherwise consider the
+                    // whitespace to be part of the left context
+                    if (resultText.length() > 0) {
+                        fill(resultText, prevToken, token);
+                    }
+                    else {
+                        fill(leftContext, prevToken, token);
+                    }
+                    resultText.append(tokenText);
+                }
+                prevToken = token;
+            }
+            result.setText(resultText.toString());
+            result.setLeftContext(leftContext.toString());
+            result.setRightContext(rightContext.toString());
+
+            if (grouping) {
+                List<String> featureValues = featureValuesAtMatch(tokens, matchStart, matchEnd,
+                        groupingLayer, groupingFeature);
+                for (String featureValue : featureValues) {
+                    addToResults(aResults, featureValue, result);
+                }
+            }
+            else {
+                // if no annotation feature is specified group by document title
+                addToResults(aResults, result.getDocumentTitle(), result);
+            }
+        }
     }
 
+    private record MatchedDocument(long sourceDocumentId, String title,
+            AnnotationDocument annotationDocument)
+    {}
+
     private void addToResults(Map<String, List<SearchResult>> aResultsMap, String aKey,
             SearchResult aSearchResult)
     {
@@ -1229,6 +2030,22 @@ public class MtasDocumentIndex
     private String indexDocument(String aDocumentTitle, long aSourceDocumentId,
             long aAnnotationDocumentId, String aUser, byte[] aBinaryCas)
         throws IOException
+    {
+        return indexDocument(aDocumentTitle, aSourceDocumentId, aAnnotationDocumentId, aUser,
+                new String(MtasUtils.bytesToChars(aBinaryCas)), null);
+    }
+
+    private String indexDocument(String aDocumentTitle, long aSourceDocumentId,
+            long aAnnotationDocumentId, String aUser, CAS aCas)
+        throws IOException
+    {
+        return indexDocument(aDocumentTitle, aSourceDocumentId, aAnnotationDocumentId, aUser,
+                CAS_HANDOFF_CONTENT, aCas);
+    }
+
+    private String indexDocument(String aDocumentTitle, long aSourceDocumentId,
+            long aAnnotationDocumentId, String aUser, String aContent, CAS aCas)
+        throws IOException
     {
         // Calculate timestamp that will be indexed
         String timestamp = DateTools.dateToString(new Date(), DateTools.Resolution.MILLISECOND);
@@ -1239,10 +2056,7 @@ public class MtasDocumentIndex
                 project.getName(), project.getId(), aSourceDocumentId, aAnnotationDocumentId, aUser,
                 timestamp);
 
-        IndexWriter indexWriter = getIndexWriter();
-
-        // Prepare bytearray with document content to be indexed
-        String encodedCAS = new String(MtasUtils.bytesToChars(aBinaryCas));
+        IndexWriter indexWriter = getIndexWriter(aSourceDocumentId);
 
         // Create new Lucene document
         Document doc = new Document();
@@ -1258,10 +2072,35 @@ public class MtasDocumentIndex
         doc.add(new StringField(FIELD_TITLE, aDocumentTitle, Field.Store.YES));
         doc.add(new StringField(FIELD_USER, aUser, Field.Store.YES));
         doc.add(new StringField(FIELD_TIMESTAMP, timestamp, Field.Store.YES));
-        doc.add(new TextField(FIELD_CONTENT, encodedCAS, Field.Store.NO));
+        doc.add(new TextField(FIELD_CONTENT, aContent, Field.Store.NO));
+
+        // Add the document metadata also as doc values such that search results can be
+        // materialized without loading the stored fields of every matching document
+        doc.add(new NumericDocValuesField(FIELD_SOURCE_DOCUMENT_ID, aSourceDocumentId));
+        doc.add(new NumericDocValuesField(FIELD_ANNOTATION_DOCUMENT_ID, aAnnotationDocumentId));
+        doc.add(new SortedDocValuesField(FIELD_TITLE, new BytesRef(aDocumentTitle)));
+        doc.add(new SortedDocValuesField(FIELD_USER, new BytesRef(aUser)));
+
+        // The statistics and the token table are only known once the parser has analyzed the
+        // content, so we add empty placeholders here and fill them in after the document has
+        // been added
+        String version = UUID.randomUUID().toString();
+        doc.add(new StringField(FIELD_VERSION, version, Field.Store.NO));
+        doc.add(new BinaryDocValuesField(FIELD_STATISTICS, new BytesRef()));
+        doc.add(new BinaryDocValuesField(FIELD_TOKENS, new BytesRef()));
 
         // Add document to the Lucene index
-        indexWriter.addDocument(doc);
+        try (var collector = MtasIndexingCollector.collect(aCas)) {
+            indexWriter.addDocument(doc);
+
+            var statistics = collector.getStatistics();
+            var tokenTable = collector.getTokenTable();
+            if (statistics.isPresent() && tokenTable.isPresent()) {
+                indexWriter.updateDocValues(new Term(FIELD_VERSION, version),
+                        new BinaryDocValuesField(FIELD_STATISTICS, statistics.get().encode()),
+                        new BinaryDocValuesField(FIELD_TOKENS, tokenTable.get().encode()));
+            }
+        }
 
         return timestamp;
     };
@@ -1288,7 +2127,7 @@ public class MtasDocumentIndex
                 project.getName(), project.getId(), aSourceDocumentId, aAnnotationDocumentId,
                 aUser);
 
-        IndexWriter indexWriter = getIndexWriter();
+        IndexWriter indexWriter = getIndexWriter(aSourceDocumentId);
         indexWriter.deleteDocuments(new Term(FIELD_ID,
                 String.format("%d/%d", aSourceDocumentId, aAnnotationDocumentId)));
     }
@@ -1315,7 +2154,7 @@ public class MtasDocumentIndex
                 project.getName(), project.getId(), aSourceDocumentId, aAnnotationDocumentId, aUser,
                 aTimestamp);
 
-        IndexWriter indexWriter = getIndexWriter();
+        IndexWriter indexWriter = getIndexWriter(aSourceDocumentId);
 
         // Prepare boolean query with the two obligatory terms (id and timestamp)
         BooleanQuery.Builder booleanQuery = new BooleanQuery.Builder() //
@@ -1351,7 +2190,7 @@ public class MtasDocumentIndex
                 project.getName(), project.getId(), aSourceDocumentId, aAnnotationDocumentId, aUser,
                 aCurrentVersion);
 
-        IndexWriter indexWriter = getIndexWriter();
+        IndexWriter indexWriter = getIndexWriter(aSourceDocumentId);
 
         // Prepare boolean query with the two obligatory terms (id and timestamp)
         BooleanQuery.Builder booleanQuery = new BooleanQuery.Builder() //
@@ -1382,8 +2221,9 @@ public class MtasDocumentIndex
     public synchronized void clear() throws IOException
     {
         // Remove all data from the index
-        IndexWriter indexWriter = getIndexWriter();
-        indexWriter.deleteAll();
+        for (IndexWriter indexWriter : getIndexWriters()) {
+            indexWriter.deleteAll();
+        }
         ensureAllIsCommitted();
     }
 
@@ -1425,6 +2265,15 @@ public class MtasDocumentIndex
         return new File(repositoryDir, "/" + PROJECT_FOLDER + "/" + project.getId() + "/" + INDEX);
     }
 
+    /**
+     * @return the folder of the given shard. An index which is not sharded uses the index folder
+     *         directly such that existing indexes remain usable.
+     */
+    private File getShardDir(int aShard)
+    {
+        return shards == 1 ? getIndexDir() : new File(getIndexDir(), SHARD_PREFIX + aShard);
+    }
+
     @Override
     public synchronized void delete() throws IOException
     {
@@ -1497,7 +2346,13 @@ public class MtasDocumentIndex
     public String toString()
     {
         return new ToStringBuilder(this).append("project", project).append("path", getIndexDir())
-                .toString();
+                .append("shards", shards).toString();
+    }
+
+    @FunctionalInterface
+    private interface ShardTask<T>
+    {
+        T run(List<LeafReaderContext> aLeaves) throws IOException;
     }
 
     @FunctionalInterface
@@ -1509,6 +2364,20 @@ public class MtasDocumentIndex
 
     @Override
     public void indexDocument(AnnotationDocument aDocument, byte[] aBinaryCas) throws IOException
+    {
+        indexDocument(aDocument, (title, srcDocId, annoDocId, user) -> indexDocument(title,
+                srcDocId, annoDocId, user, aBinaryCas));
+    }
+
+    @Override
+    public void indexDocument(AnnotationDocument aDocument, CAS aCas) throws IOException
+    {
+        indexDocument(aDocument, (title, srcDocId, annoDocId, user) -> indexDocument(title,
+                srcDocId, annoDocId, user, aCas));
+    }
+
+    private void indexDocument(AnnotationDocument aDocument, DocumentIndexer aIndexer)
+        throws IOException
     {
         long srcDocId = aDocument.getDocument().getId();
         long annoDocId = aDocument.getId();
@@ -1528,8 +2397,7 @@ public class MtasDocumentIndex
         // oldTimestamp = getTimestamp(srcDocId, annoDocId);
         // }
 
-        var currentTimestamp = indexDocument(aDocument.getName(), srcDocId, annoDocId, user,
-                aBinaryCas);
+        var currentTimestamp = aIndexer.index(aDocument.getName(), srcDocId, annoDocId, user);
 
         deindexOldVersionsOfDocument(srcDocId, annoDocId, user, currentTimestamp);
 
@@ -1542,6 +2410,20 @@ public class MtasDocumentIndex
 
     @Override
     public void indexDocument(SourceDocument aSourceDocument, byte[] aBinaryCas) throws IOException
+    {
+        indexDocument(aSourceDocument, (title, srcDocId, annoDocId, user) -> indexDocument(title,
+                srcDocId, annoDocId, user, aBinaryCas));
+    }
+
+    @Override
+    public void indexDocument(SourceDocument aSourceDocument, CAS aCas) throws IOException
+    {
+        indexDocument(aSourceDocument, (title, srcDocId, annoDocId, user) -> indexDocument(title,
+                srcDocId, annoDocId, user, aCas));
+    }
+
+    private void indexDocument(SourceDocument aSourceDocument, DocumentIndexer aIndexer)
+        throws IOException
     {
         // NOTE: deleting all index versions related to the sourcedoc is ok in comparison to
         // re-indexing annotation documents, because we do this before the search
@@ -1550,7 +2432,15 @@ public class MtasDocumentIndex
             deindexDocument(aSourceDocument.getId(), -1, "");
         }
 
-        indexDocument(aSourceDocument.getName(), aSourceDocument.getId(), -1, "", aBinaryCas);
+        aIndexer.index(aSourceDocument.getName(), aSourceDocument.getId(), -1, "");
         scheduleCommit();
     }
+
+    @FunctionalInterface
+    private interface DocumentIndexer
+    {
+        String index(String aDocumentTitle, long aSourceDocumentId, long aAnnotationDocumentId,
+                String aUser)
+            throws IOException;
+    }
 }
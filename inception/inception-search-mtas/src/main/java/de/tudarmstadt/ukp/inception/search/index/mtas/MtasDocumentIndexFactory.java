@@ -21,11 +21,14 @@
  */
 package de.tudarmstadt.ukp.inception.search.index.mtas;
 
+import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasDocumentIndexSettings.KEY_MTAS_INDEX_SETTINGS;
+
 import org.springframework.beans.factory.annotation.Autowired;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.preferences.PreferencesService;
 import de.tudarmstadt.ukp.inception.schema.api.feature.FeatureSupportRegistry;
 import de.tudarmstadt.ukp.inception.search.FeatureIndexingSupportRegistry;
 import de.tudarmstadt.ukp.inception.search.index.PhysicalIndex;
@@ -46,17 +49,23 @@ public class MtasDocumentIndexFactory
     private final RepositoryProperties repositoryProperties;
     private final FeatureIndexingSupportRegistry featureIndexingSupportRegistry;
     private final FeatureSupportRegistry featureSupportRegistry;
+    private final PreferencesService preferencesService;
+    private final SearchableDocumentCache searchableDocumentCache;
 
     @Autowired
     public MtasDocumentIndexFactory(DocumentService aDocumentService,
             RepositoryProperties aRepositoryProperties,
             FeatureIndexingSupportRegistry aFeatureIndexingSupportRegistry,
-            FeatureSupportRegistry aFeatureSupportRegistry)
+            FeatureSupportRegistry aFeatureSupportRegistry,
+            PreferencesService aPreferencesService,
+            SearchableDocumentCache aSearchableDocumentCache)
     {
         documentService = aDocumentService;
         repositoryProperties = aRepositoryProperties;
         featureIndexingSupportRegistry = aFeatureIndexingSupportRegistry;
         featureSupportRegistry = aFeatureSupportRegistry;
+        preferencesService = aPreferencesService;
+        searchableDocumentCache = aSearchableDocumentCache;
     }
 
     @Override
@@ -68,8 +77,11 @@ public class MtasDocumentIndexFactory
     @Override
     public PhysicalIndex getPhysicalIndex(Project aProject)
     {
+        var settings = preferencesService.loadDefaultTraitsForProject(KEY_MTAS_INDEX_SETTINGS,
+                aProject);
+
         return new MtasDocumentIndex(aProject, documentService,
                 repositoryProperties.getPath().getAbsolutePath(), featureIndexingSupportRegistry,
-                featureSupportRegistry);
+                featureSupportRegistry, settings, searchableDocumentCache);
     }
 }
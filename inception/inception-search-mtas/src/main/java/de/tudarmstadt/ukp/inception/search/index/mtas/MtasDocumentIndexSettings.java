@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import java.io.Serializable;
+
+import de.tudarmstadt.ukp.inception.preferences.Key;
+
+/**
+ * Project-level settings of the MTAS index. Changing the number of shards requires the index to be
+ * rebuilt which happens automatically the next time the index is opened. The merge and maintenance
+ * settings take effect the next time the index is opened.
+ */
+public class MtasDocumentIndexSettings
+    implements Serializable
+{
+    public static final Key<MtasDocumentIndexSettings> KEY_MTAS_INDEX_SETTINGS = new Key<>(
+            MtasDocumentIndexSettings.class, "search/mtas-index");
+
+    private static final long serialVersionUID = -2377052961377353487L;
+
+    private int shards = 1;
+
+    private int commitDelay = 3;
+
+    private int segmentsPerTier = 10;
+    private int maxMergedSegmentMb = 5 * 1024;
+    private int floorSegmentMb = 2;
+
+    private int forceMergeWindowStart = 2;
+    private int forceMergeWindowEnd = 5;
+    private int forceMergeMaxSegments = 1;
+    private int forceMergeMbPerSec = 20;
+
+    /**
+     * @return the number of shards the index of the project is split into.
+     */
+    public int getShards()
+    {
+        return shards;
+    }
+
+    public void setShards(int aShards)
+    {
+        shards = aShards;
+    }
+
+    /**
+     * @return the number of seconds changes are collected before they are committed to the index
+     *         and become visible to queries.
+     */
+    public int getCommitDelay()
+    {
+        return commitDelay;
+    }
+
+    public void setCommitDelay(int aCommitDelay)
+    {
+        commitDelay = aCommitDelay;
+    }
+
+    /**
+     * @return the number of segments of similar size allowed per tier before they are merged.
+     *         Lower values mean fewer segments to search but more merging while indexing.
+     */
+    public int getSegmentsPerTier()
+    {
+        return segmentsPerTier;
+    }
+
+    public void setSegmentsPerTier(int aSegmentsPerTier)
+    {
+        segmentsPerTier = aSegmentsPerTier;
+    }
+
+    /**
+     * @return the maximum size of a segment produced by a regular merge in MB.
+     */
+    public int getMaxMergedSegmentMb()
+    {
+        return maxMergedSegmentMb;
+    }
+
+    public void setMaxMergedSegmentMb(int aMaxMergedSegmentMb)
+    {
+        maxMergedSegmentMb = aMaxMergedSegmentMb;
+    }
+
+    /**
+     * @return the size in MB below which segments are considered to be of equal size when
+     *         selecting segments to merge.
+     */
+    public int getFloorSegmentMb()
+    {
+        return floorSegmentMb;
+    }
+
+    public void setFloorSegmentMb(int aFloorSegmentMb)
+    {
+        floorSegmentMb = aFloorSegmentMb;
+    }
+
+    /**
+     * @return the hour of the day (0-23) at which the window during which the index may be
+     *         force-merged starts.
+     */
+    public int getForceMergeWindowStart()
+    {
+        return forceMergeWindowStart;
+    }
+
+    public void setForceMergeWindowStart(int aForceMergeWindowStart)
+    {
+        forceMergeWindowStart = aForceMergeWindowStart;
+    }
+
+    /**
+     * @return the hour of the day (0-23) at which the window during which the index may be
+     *         force-merged ends. If it is before the start, the window spans midnight. If it is
+     *         equal to the start, the index is never force-merged.
+     */
+    public int getForceMergeWindowEnd()
+    {
+        return forceMergeWindowEnd;
+    }
+
+    public void setForceMergeWindowEnd(int aForceMergeWindowEnd)
+    {
+        forceMergeWindowEnd = aForceMergeWindowEnd;
+    }
+
+    /**
+     * @return the number of segments each shard is force-merged down to. A value less than one
+     *         disables force-merging.
+     */
+    public int getForceMergeMaxSegments()
+    {
+        return forceMergeMaxSegments;
+    }
+
+    public void setForceMergeMaxSegments(int aForceMergeMaxSegments)
+    {
+        forceMergeMaxSegments = aForceMergeMaxSegments;
+    }
+
+    /**
+     * @return the rate in MB per second to which force-merges are throttled so they do not
+     *         compete with queries for I/O.
+     */
+    public int getForceMergeMbPerSec()
+    {
+        return forceMergeMbPerSec;
+    }
+
+    public void setForceMergeMbPerSec(int aForceMergeMbPerSec)
+    {
+        forceMergeMbPerSec = aForceMergeMbPerSec;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Per-document token counts by MTAS prefix (e.g. {@code Token}, {@code s}, {@code Layer.feature})
+ * which are collected by the {@link MtasUimaParser} while a document is being indexed. They are
+ * stored as binary doc values alongside the document so that annotation statistics can be
+ * aggregated without having to run an MTAS span query per feature.
+ */
+public class MtasDocumentStatistics
+{
+    private final Map<String, Long> counts;
+
+    public MtasDocumentStatistics(Map<String, Long> aCounts)
+    {
+        counts = Collections.unmodifiableMap(new HashMap<>(aCounts));
+    }
+
+    public long getCount(String aPrefix)
+    {
+        return counts.getOrDefault(aPrefix, 0L);
+    }
+
+    public Map<String, Long> getCounts()
+    {
+        return counts;
+    }
+
+    public BytesRef encode()
+    {
+        try (var bos = new ByteArrayOutputStream(); var out = new DataOutputStream(bos)) {
+            out.writeInt(counts.size());
+            for (var entry : counts.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.flush();
+            return new BytesRef(bos.toByteArray());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param aBytes
+     *            the encoded statistics.
+     * @return the decoded statistics or nothing if no statistics were recorded for the document,
+     *         e.g. because it was indexed before statistics were collected.
+     */
+    public static Optional<MtasDocumentStatistics> decode(BytesRef aBytes)
+    {
+        if (aBytes == null || aBytes.length == 0) {
+            return Optional.empty();
+        }
+
+        try (var in = new DataInputStream(
+                new ByteArrayInputStream(aBytes.bytes, aBytes.offset, aBytes.length))) {
+            int size = in.readInt();
+            var counts = new HashMap<String, Long>(size);
+            for (int i = 0; i < size; i++) {
+                counts.put(in.readUTF(), in.readLong());
+            }
+            return Optional.of(new MtasDocumentStatistics(counts));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
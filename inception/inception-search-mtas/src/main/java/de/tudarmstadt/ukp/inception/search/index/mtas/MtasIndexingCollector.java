@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import java.util.Optional;
+
+import org.apache.uima.cas.CAS;
+
+/**
+ * Receives the per-document data which the {@link MtasUimaParser} derives while a document is
+ * being analyzed, i.e. the {@link MtasDocumentStatistics} and the {@link MtasTokenTable}. If the
+ * caller has a CAS at hand, the collector also passes it to the parser, so that it does not need
+ * to be serialized into the indexed field and deserialized again by the parser. Lucene runs the
+ * analysis chain on the thread calling {@code IndexWriter.addDocument}, so the collector is bound
+ * to the current thread and must be opened around that call.
+ */
+public class MtasIndexingCollector
+    implements AutoCloseable
+{
+    private static final ThreadLocal<MtasIndexingCollector> COLLECTOR = new ThreadLocal<>();
+
+    private final CAS cas;
+
+    private MtasDocumentStatistics statistics;
+    private MtasTokenTable tokenTable;
+
+    private MtasIndexingCollector(CAS aCas)
+    {
+        cas = aCas;
+    }
+
+    /**
+     * Starts collecting the data produced by the parser on the current thread.
+     * 
+     * @return the collector.
+     */
+    public static MtasIndexingCollector collect()
+    {
+        return collect(null);
+    }
+
+    /**
+     * Starts collecting the data produced by the parser on the current thread.
+     * 
+     * @param aCas
+     *            the CAS to be analyzed by the parser instead of the content of the indexed field
+     *            or {@code null} to analyze the field content. The CAS must not be modified until
+     *            the collector is closed.
+     * @return the collector.
+     */
+    public static MtasIndexingCollector collect(CAS aCas)
+    {
+        var collector = new MtasIndexingCollector(aCas);
+        COLLECTOR.set(collector);
+        return collector;
+    }
+
+    static Optional<CAS> getCasToIndex()
+    {
+        var collector = COLLECTOR.get();
+        return collector != null ? Optional.ofNullable(collector.cas) : Optional.empty();
+    }
+
+    static void publish(MtasDocumentStatistics aStatistics, MtasTokenTable aTokenTable)
+    {
+        var collector = COLLECTOR.get();
+        if (collector != null) {
+            collector.statistics = aStatistics;
+            collector.tokenTable = aTokenTable;
+        }
+    }
+
+    public Optional<MtasDocumentStatistics> getStatistics()
+    {
+        return Optional.ofNullable(statistics);
+    }
+
+    public Optional<MtasTokenTable> getTokenTable()
+    {
+        return Optional.ofNullable(tokenTable);
+    }
+
+    @Override
+    public void close()
+    {
+        COLLECTOR.remove();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * The text and character offsets of the tokens of a document by token position as they were
+ * indexed by the {@link MtasUimaParser}. It is stored as binary doc values alongside the document
+ * so that the context of search results can be built by reading consecutive entries of the table
+ * instead of resolving the MTAS objects around each hit.
+ */
+public class MtasTokenTable
+{
+    private static final int NO_TOKEN = -1;
+
+    private final int[] begins;
+    private final int[] ends;
+    private final String[] texts;
+
+    private MtasTokenTable(int[] aBegins, int[] aEnds, String[] aTexts)
+    {
+        begins = aBegins;
+        ends = aEnds;
+        texts = aTexts;
+    }
+
+    public int size()
+    {
+        return texts.length;
+    }
+
+    /**
+     * @return whether there is a token at the given position. Positions may be empty e.g. for
+     *         zero-width tokens which are not indexed.
+     */
+    public boolean contains(int aPosition)
+    {
+        return aPosition >= 0 && aPosition < texts.length && texts[aPosition] != null;
+    }
+
+    public int getBegin(int aPosition)
+    {
+        return begins[aPosition];
+    }
+
+    public int getEnd(int aPosition)
+    {
+        return ends[aPosition];
+    }
+
+    public String getText(int aPosition)
+    {
+        return texts[aPosition];
+    }
+
+    public BytesRef encode()
+    {
+        try (var bos = new ByteArrayOutputStream(); var out = new DataOutputStream(bos)) {
+            out.writeInt(texts.length);
+            for (int i = 0; i < texts.length; i++) {
+                if (texts[i] == null) {
+                    out.writeInt(NO_TOKEN);
+                    continue;
+                }
+
+                byte[] text = texts[i].getBytes(UTF_8);
+                out.writeInt(begins[i]);
+                out.writeInt(ends[i]);
+                out.writeInt(text.length);
+                out.write(text);
+            }
+            out.flush();
+            return new BytesRef(bos.toByteArray());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param aBytes
+     *            the encoded table.
+     * @return the decoded table or nothing if no table was recorded for the document, e.g.
+     *         because it was indexed before token tables were stored.
+     */
+    public static Optional<MtasTokenTable> decode(BytesRef aBytes)
+    {
+        if (aBytes == null || aBytes.length == 0) {
+            return Optional.empty();
+        }
+
+        try (var in = new DataInputStream(
+                new ByteArrayInputStream(aBytes.bytes, aBytes.offset, aBytes.length))) {
+            int size = in.readInt();
+            var builder = new Builder(size);
+            for (int i = 0; i < size; i++) {
+                int begin = in.readInt();
+                if (begin == NO_TOKEN) {
+                    continue;
+                }
+
+                int end = in.readInt();
+                byte[] text = new byte[in.readInt()];
+                in.readFully(text);
+                builder.add(i, begin, end, new String(text, UTF_8));
+            }
+            return Optional.of(builder.build());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static class Builder
+    {
+        private int[] begins;
+        private int[] ends;
+        private String[] texts;
+        private int size;
+
+        public Builder(int aExpectedSize)
+        {
+            int capacity = Math.max(aExpectedSize, 16);
+            begins = new int[capacity];
+            ends = new int[capacity];
+            texts = new String[capacity];
+        }
+
+        public Builder add(int aPosition, int aBegin, int aEnd, String aText)
+        {
+            if (aPosition >= texts.length) {
+                int capacity = Math.max(aPosition + 1, texts.length * 2);
+                begins = Arrays.copyOf(begins, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                texts = Arrays.copyOf(texts, capacity);
+            }
+
+            begins[aPosition] = aBegin;
+            ends[aPosition] = aEnd;
+            texts[aPosition] = aText;
+            size = Math.max(size, aPosition + 1);
+            return this;
+        }
+
+        public MtasTokenTable build()
+        {
+            return new MtasTokenTable(Arrays.copyOf(begins, size), Arrays.copyOf(ends, size),
+                    Arrays.copyOf(texts, size));
+        }
+    }
+}
@@ -118,6 +118,9 @@ public class MtasUimaParser
 
     private AnnotationSearchState prefs;
 
+    private Map<String, Long> tokenCounts;
+    private MtasTokenTable.Builder tokenTable;
+
     public MtasUimaParser(MtasConfiguration config)
     {
         super(config);
@@ -207,7 +210,9 @@ public class MtasUimaParser
 
         CAS cas;
         try {
-            cas = readCas(aReader);
+            // If the CAS has been handed to us directly, we do not need to deserialize it
+            var casToIndex = MtasIndexingCollector.getCasToIndex();
+            cas = casToIndex.isPresent() ? getRealCas(casToIndex.get()) : readCas(aReader);
         }
         catch (Exception e) {
             LOG.error("Unable to decode CAS", e);
@@ -235,6 +240,7 @@ public class MtasUimaParser
     {
         // Initialize state
         tokenCollection = new MtasTokenCollection();
+        tokenCounts = new HashMap<>();
         int mtasId = 0;
         int tokenNum = 0;
 
@@ -247,6 +253,7 @@ public class MtasUimaParser
             tokenEndIndex.put(token.getEnd(), Pair.of(token, tokenNum));
             tokenNum++;
         }
+        tokenTable = new MtasTokenTable.Builder(tokenNum);
 
         // Loop over the annotations
         for (AnnotationFS annotation : selectAll(aJCas)) {
@@ -259,6 +266,9 @@ public class MtasUimaParser
 
         // MtasUtils.print(tokenCollection);
 
+        MtasIndexingCollector.publish(new MtasDocumentStatistics(tokenCounts),
+                tokenTable.build());
+
         return tokenCollection;
     }
 
@@ -450,7 +460,8 @@ public class MtasUimaParser
         MtasToken mt = new MtasTokenString(aMtasId, field, value, aRange.getBegin());
         mt.setOffset(aRange.getBeginOffset(), aRange.getEndOffset());
         mt.addPositionRange(aRange.getBegin(), aRange.getEnd());
-        tokenCollection.add(mt);
+        addToken(field, mt);
+        tokenTable.add(aRange.getBegin(), aRange.getBeginOffset(), aRange.getEndOffset(), value);
 
         LOG.trace("TOKN[{}-{}]: {}={}", aRange.getBegin(), aRange.getEnd(), field, value);
     }
@@ -463,7 +474,7 @@ public class MtasUimaParser
         MtasToken mt = new MtasTokenString(aMtasId, field, value, aRange.getBegin());
         mt.setOffset(aRange.getBeginOffset(), aRange.getEndOffset());
         mt.addPositionRange(aRange.getBegin(), aRange.getEnd());
-        tokenCollection.add(mt);
+        addToken(field, mt);
 
         LOG.trace("SENT[{}-{}]: {}={}", aRange.getBegin(), aRange.getEnd(), field, value);
     }
@@ -480,7 +491,7 @@ public class MtasUimaParser
         // the same FS - this is not really meant to be used to look up the FS through the stored
         // address as the CAS may be out-of-sync with the index and thus the IDs may not match
         mt.setPayload(encodeFSAddress(aFSAddress));
-        tokenCollection.add(mt);
+        addToken(field, mt);
 
         LOG.trace("TEXT[{}-{}]: {}={}", aRange.getBegin(), aRange.getEnd(), field, aValue);
     }
@@ -497,11 +508,17 @@ public class MtasUimaParser
         // the same FS - this is not really meant to be used to look up the FS through the stored
         // address as the CAS may be out-of-sync with the index and thus the IDs may not match
         mt.setPayload(encodeFSAddress(aFSAddress));
-        tokenCollection.add(mt);
+        addToken(field, mt);
 
         LOG.trace("FEAT[{}-{}]: {}={}", aRange.getBegin(), aRange.getEnd(), field, aValue);
     }
 
+    private void addToken(String aField, MtasToken aToken)
+    {
+        tokenCollection.add(aToken);
+        tokenCounts.merge(aField, 1L, Long::sum);
+    }
+
     /**
      * Replaces space with underscore in a {@code String}
      * 
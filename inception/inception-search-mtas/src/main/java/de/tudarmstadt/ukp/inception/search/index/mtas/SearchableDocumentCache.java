@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentCreatedEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentResetEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AnnotationStateChangeEvent;
+import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
+import de.tudarmstadt.ukp.inception.project.api.event.ProjectPermissionsChangedEvent;
+import de.tudarmstadt.ukp.inception.search.index.mtas.config.MtasDocumentIndexAutoConfiguration;
+
+/**
+ * Caches the documents which are visible in the search results of a user in a project, so that
+ * running a query does not need to list the annotatable documents from the database every time.
+ * The cache is maintained from the events signalling that documents have been created, removed
+ * or changed their state or that the project permissions have changed.
+ * <p>
+ * This class is exposed as a Spring Component via
+ * {@link MtasDocumentIndexAutoConfiguration#searchableDocumentCache}.
+ * </p>
+ */
+public class SearchableDocumentCache
+{
+    private final DocumentService documentService;
+    private final Map<Key, SearchableDocuments> cache = new ConcurrentHashMap<>();
+
+    // Advanced on every invalidation such that a list loaded concurrently to an invalidation is
+    // not put into the cache
+    private final AtomicLong generation = new AtomicLong();
+
+    public SearchableDocumentCache(DocumentService aDocumentService)
+    {
+        documentService = aDocumentService;
+    }
+
+    SearchableDocuments get(Project aProject, User aUser)
+    {
+        var key = new Key(aProject.getId(), aUser.getUsername());
+
+        var documents = cache.get(key);
+        if (documents != null) {
+            return documents;
+        }
+
+        var generationBeforeLoading = generation.get();
+        documents = load(documentService, aProject, aUser);
+        if (generation.get() == generationBeforeLoading) {
+            var existing = cache.putIfAbsent(key, documents);
+            if (existing != null) {
+                return existing;
+            }
+        }
+
+        return documents;
+    }
+
+    static SearchableDocuments load(DocumentService aDocumentService, Project aProject,
+            User aUser)
+    {
+        return new SearchableDocuments(aUser.getUsername(),
+                aDocumentService.listAnnotatableDocuments(aProject, aUser));
+    }
+
+    public void invalidateProject(long aProjectId)
+    {
+        generation.incrementAndGet();
+        cache.keySet().removeIf(key -> key.projectId() == aProjectId);
+    }
+
+    public void invalidateUser(long aProjectId, String aUser)
+    {
+        generation.incrementAndGet();
+        cache.remove(new Key(aProjectId, aUser));
+    }
+
+    public int size()
+    {
+        return cache.size();
+    }
+
+    @EventListener
+    public void onDocumentCreated(AfterDocumentCreatedEvent aEvent)
+    {
+        invalidateProject(aEvent.getDocument().getProject().getId());
+    }
+
+    @EventListener
+    public void onDocumentRemoved(BeforeDocumentRemovedEvent aEvent)
+    {
+        invalidateProject(aEvent.getDocument().getProject().getId());
+    }
+
+    @EventListener
+    public void onAnnotationStateChange(AnnotationStateChangeEvent aEvent)
+    {
+        invalidateUser(aEvent.getDocument().getProject().getId(), aEvent.getUser());
+    }
+
+    @EventListener
+    public void onDocumentReset(AfterDocumentResetEvent aEvent)
+    {
+        var document = aEvent.getDocument();
+        invalidateUser(document.getProject().getId(), document.getUser());
+    }
+
+    @EventListener
+    public void onCasWritten(AfterCasWrittenEvent aEvent)
+    {
+        var document = aEvent.getDocument();
+        var documents = cache.get(new Key(document.getProject().getId(), document.getUser()));
+
+        // Annotation documents can be created without a state change, so the first time the CAS
+        // of an annotation document is written, the user needs to see its annotations instead
+        // of the source document from now on
+        if (documents != null
+                && documents.getAnnotationDocument(document.getDocument().getId()) == null) {
+            invalidateUser(document.getProject().getId(), document.getUser());
+        }
+    }
+
+    @EventListener
+    public void onProjectPermissionsChanged(ProjectPermissionsChangedEvent aEvent)
+    {
+        invalidateProject(aEvent.getProject().getId());
+    }
+
+    @EventListener
+    public void onProjectRemoved(BeforeProjectRemovedEvent aEvent)
+    {
+        invalidateProject(aEvent.getProject().getId());
+    }
+
+    private record Key(long projectId, String user) {}
+}
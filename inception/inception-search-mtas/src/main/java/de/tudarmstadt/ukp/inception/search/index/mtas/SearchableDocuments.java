@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasDocumentIndex.FIELD_ANNOTATION_DOCUMENT_ID;
+import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasDocumentIndex.FIELD_SOURCE_DOCUMENT_ID;
+import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasDocumentIndex.FIELD_USER;
+import static java.util.Collections.synchronizedMap;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+
+/**
+ * The documents of a project which a user can see in search results. These are the source
+ * documents the user can annotate and the annotation documents of the user. A source document is
+ * only searched in its original form if the user has not started annotating it yet.
+ * <p>
+ * For every segment of the index, the visible Lucene documents are determined once and kept as a
+ * bit set, so query execution only needs to intersect its matches with that bit set.
+ * </p>
+ */
+class SearchableDocuments
+{
+    private static final Set<String> FIELDS_TO_LOAD = Set.of(FIELD_SOURCE_DOCUMENT_ID,
+            FIELD_ANNOTATION_DOCUMENT_ID, FIELD_USER);
+
+    private final String user;
+    private final Map<Long, SourceDocument> sourceDocuments;
+    private final Map<Long, AnnotationDocument> annotationDocuments;
+
+    // Segments are weakly referenced through their core cache key, so the bit sets of segments
+    // which have been merged away can be garbage collected
+    private final Map<Object, FixedBitSet> visibleDocumentsPerSegment = synchronizedMap(
+            new WeakHashMap<>());
+
+    /**
+     * @param aUser
+     *            the user searching.
+     * @param aDocuments
+     *            the source documents the user can annotate mapped to the annotation documents of
+     *            the user or to {@code null} if the user has not started annotating them.
+     */
+    SearchableDocuments(String aUser, Map<SourceDocument, AnnotationDocument> aDocuments)
+    {
+        user = aUser;
+        sourceDocuments = new HashMap<>();
+        annotationDocuments = new HashMap<>();
+        for (var entry : aDocuments.entrySet()) {
+            sourceDocuments.put(entry.getKey().getId(), entry.getKey());
+            if (entry.getValue() != null) {
+                annotationDocuments.put(entry.getKey().getId(), entry.getValue());
+            }
+        }
+    }
+
+    public String getUser()
+    {
+        return user;
+    }
+
+    /**
+     * @return the source document with the given ID or {@code null} if it is not visible.
+     */
+    public SourceDocument getSourceDocument(long aSourceDocumentId)
+    {
+        return sourceDocuments.get(aSourceDocumentId);
+    }
+
+    /**
+     * @return the annotation document of the user for the given source document or {@code null}
+     *         if the user has not started annotating it.
+     */
+    public AnnotationDocument getAnnotationDocument(long aSourceDocumentId)
+    {
+        return annotationDocuments.get(aSourceDocumentId);
+    }
+
+    public boolean isVisible(long aSourceDocumentId, long aAnnotationDocumentId, String aUser)
+    {
+        if (!sourceDocuments.containsKey(aSourceDocumentId)) {
+            return false;
+        }
+
+        if (aAnnotationDocumentId == -1) {
+            // Results from the source document are only shown if there are no results from an
+            // annotation document of the user
+            return !annotationDocuments.containsKey(aSourceDocumentId);
+        }
+
+        return user.equals(aUser);
+    }
+
+    /**
+     * @return the Lucene documents in the given segment which are visible to the user. Deleted
+     *         documents are not taken into account and need to be checked separately.
+     */
+    public Bits getVisibleDocuments(LeafReader aReader) throws IOException
+    {
+        var cacheHelper = aReader.getCoreCacheHelper();
+        if (cacheHelper == null) {
+            return findVisibleDocuments(aReader);
+        }
+
+        var key = cacheHelper.getKey();
+        var visibleDocuments = visibleDocumentsPerSegment.get(key);
+        if (visibleDocuments == null) {
+            visibleDocuments = findVisibleDocuments(aReader);
+            visibleDocumentsPerSegment.put(key, visibleDocuments);
+        }
+        return visibleDocuments;
+    }
+
+    private FixedBitSet findVisibleDocuments(LeafReader aReader) throws IOException
+    {
+        var sourceDocumentIds = aReader.getNumericDocValues(FIELD_SOURCE_DOCUMENT_ID);
+        var annotationDocumentIds = aReader.getNumericDocValues(FIELD_ANNOTATION_DOCUMENT_ID);
+        var users = aReader.getSortedDocValues(FIELD_USER);
+        var userOrd = users != null ? users.lookupTerm(new BytesRef(user)) : -1;
+
+        var visibleDocuments = new FixedBitSet(aReader.maxDoc());
+        for (int doc = 0; doc < aReader.maxDoc(); doc++) {
+            if (sourceDocumentIds != null && sourceDocumentIds.advanceExact(doc)
+                    && annotationDocumentIds != null && annotationDocumentIds.advanceExact(doc)
+                    && users != null && users.advanceExact(doc)) {
+                var annotationDocumentId = annotationDocumentIds.longValue();
+                // Comparing the ordinals avoids decoding the user name of every document
+                var docUser = userOrd >= 0 && users.ordValue() == userOrd ? user : null;
+                if (isVisible(sourceDocumentIds.longValue(), annotationDocumentId, docUser)) {
+                    visibleDocuments.set(doc);
+                }
+                continue;
+            }
+
+            // Documents indexed before the metadata was added as doc values
+            var document = aReader.document(doc, FIELDS_TO_LOAD);
+            var rawSourceDocumentId = document.get(FIELD_SOURCE_DOCUMENT_ID);
+            var rawAnnotationDocumentId = document.get(FIELD_ANNOTATION_DOCUMENT_ID);
+            if (rawSourceDocumentId == null || rawAnnotationDocumentId == null) {
+                continue;
+            }
+
+            if (isVisible(Long.valueOf(rawSourceDocumentId), Long.valueOf(rawAnnotationDocumentId),
+                    document.get(FIELD_USER))) {
+                visibleDocuments.set(doc);
+            }
+        }
+
+        return visibleDocuments;
+    }
+}
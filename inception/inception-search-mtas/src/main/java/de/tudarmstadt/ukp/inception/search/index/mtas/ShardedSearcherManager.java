@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+
+/**
+ * Manages searchers over a sharded index. Each shard has its own {@link IndexWriter}. The searcher
+ * sees all shards as a single {@link MultiReader} such that the leaves of all shards can be
+ * processed like the leaves of a single index. On refresh, only the shards which have actually
+ * changed are re-opened.
+ */
+class ShardedSearcherManager
+    extends ReferenceManager<IndexSearcher>
+{
+    private final List<IndexWriter> writers;
+
+    ShardedSearcherManager(List<IndexWriter> aWriters) throws IOException
+    {
+        writers = aWriters;
+
+        var shards = new DirectoryReader[aWriters.size()];
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = DirectoryReader.open(aWriters.get(i), true, true);
+            }
+
+            current = new IndexSearcher(new ShardedReader(shards));
+        }
+        finally {
+            // The sharded reader holds its own references to the shards
+            release(shards);
+        }
+    }
+
+    @Override
+    protected void decRef(IndexSearcher aReference) throws IOException
+    {
+        aReference.getIndexReader().decRef();
+    }
+
+    @Override
+    protected IndexSearcher refreshIfNeeded(IndexSearcher aReferenceToRefresh) throws IOException
+    {
+        var oldShards = ((ShardedReader) aReferenceToRefresh.getIndexReader()).getShards();
+
+        var shards = new DirectoryReader[oldShards.size()];
+        try {
+            var changed = false;
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = DirectoryReader.openIfChanged(oldShards.get(i), writers.get(i), true);
+                changed |= shards[i] != null;
+            }
+
+            if (!changed) {
+                return null;
+            }
+
+            // Shards which have not changed are shared with the previous reader
+            for (int i = 0; i < shards.length; i++) {
+                if (shards[i] == null) {
+                    shards[i] = oldShards.get(i);
+                    shards[i].incRef();
+                }
+            }
+
+            return new IndexSearcher(new ShardedReader(shards));
+        }
+        finally {
+            release(shards);
+        }
+    }
+
+    @Override
+    protected boolean tryIncRef(IndexSearcher aReference)
+    {
+        return aReference.getIndexReader().tryIncRef();
+    }
+
+    @Override
+    protected int getRefCount(IndexSearcher aReference)
+    {
+        return aReference.getIndexReader().getRefCount();
+    }
+
+    private static void release(IndexReader[] aReaders) throws IOException
+    {
+        for (var reader : aReaders) {
+            if (reader != null) {
+                reader.decRef();
+            }
+        }
+    }
+
+    /**
+     * A reader over all shards of an index.
+     */
+    static class ShardedReader
+        extends MultiReader
+    {
+        ShardedReader(DirectoryReader[] aShards) throws IOException
+        {
+            super(aShards, false);
+        }
+
+        List<DirectoryReader> getShards()
+        {
+            var shards = new ArrayList<DirectoryReader>();
+            for (var reader : getSequentialSubReaders()) {
+                shards.add((DirectoryReader) reader);
+            }
+            return shards;
+        }
+
+        int getShardCount()
+        {
+            return getSequentialSubReaders().size();
+        }
+
+        /**
+         * @return the shard the given leaf belongs to.
+         */
+        int getShard(LeafReaderContext aLeaf)
+        {
+            return readerIndex(aLeaf.docBase);
+        }
+
+        /**
+         * @return a version which changes whenever any of the shards changes.
+         */
+        long getVersion()
+        {
+            long version = 0;
+            for (var shard : getShards()) {
+                version += shard.getVersion();
+            }
+            return version;
+        }
+    }
+}
@@ -23,11 +23,13 @@ import org.springframework.context.annotation.Bean;
 
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.preferences.PreferencesService;
 import de.tudarmstadt.ukp.inception.schema.api.feature.FeatureSupportRegistry;
 import de.tudarmstadt.ukp.inception.search.FeatureIndexingSupportRegistry;
 import de.tudarmstadt.ukp.inception.search.config.SearchServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.search.index.PhysicalIndexRegistry;
 import de.tudarmstadt.ukp.inception.search.index.mtas.MtasDocumentIndexFactory;
+import de.tudarmstadt.ukp.inception.search.index.mtas.SearchableDocumentCache;
 
 @AutoConfigureAfter(SearchServiceAutoConfiguration.class)
 @ConditionalOnBean(PhysicalIndexRegistry.class)
@@ -37,9 +39,17 @@ public class MtasDocumentIndexAutoConfiguration
     public MtasDocumentIndexFactory mtasDocumentIndexFactory(DocumentService aDocumentService,
             RepositoryProperties aRepositoryProperties,
             FeatureIndexingSupportRegistry aFeatureIndexingSupportRegistry,
-            FeatureSupportRegistry aFeatureSupportRegistry)
+            FeatureSupportRegistry aFeatureSupportRegistry, PreferencesService aPreferencesService,
+            SearchableDocumentCache aSearchableDocumentCache)
     {
         return new MtasDocumentIndexFactory(aDocumentService, aRepositoryProperties,
-                aFeatureIndexingSupportRegistry, aFeatureSupportRegistry);
+                aFeatureIndexingSupportRegistry, aFeatureSupportRegistry, aPreferencesService,
+                aSearchableDocumentCache);
+    }
+
+    @Bean
+    public SearchableDocumentCache searchableDocumentCache(DocumentService aDocumentService)
+    {
+        return new SearchableDocumentCache(aDocumentService);
     }
 }
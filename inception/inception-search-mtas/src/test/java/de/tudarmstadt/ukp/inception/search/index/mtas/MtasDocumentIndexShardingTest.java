@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.testing.factory.TokenBuilder;
+import org.apache.uima.jcas.JCas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.tudarmstadt.ukp.clarin.webanno.diag.config.CasDoctorAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.project.config.ProjectServiceAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.security.config.SecurityAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.clarin.webanno.text.TextFormatSupport;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryPropertiesImpl;
+import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.export.config.DocumentImportExportServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.io.xmi.XmiFormatSupport;
+import de.tudarmstadt.ukp.inception.io.xmi.config.UimaFormatsPropertiesImpl.XmiFormatProperties;
+import de.tudarmstadt.ukp.inception.preferences.config.PreferencesServiceAutoConfig;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.config.SchedulingServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.schema.api.feature.FeatureSupportRegistry;
+import de.tudarmstadt.ukp.inception.schema.config.AnnotationSchemaServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.search.FeatureIndexingSupportRegistry;
+import de.tudarmstadt.ukp.inception.search.SearchQueryRequest;
+import de.tudarmstadt.ukp.inception.search.config.SearchServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.search.index.IndexRebuildRequiredException;
+import de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState;
+import de.tudarmstadt.ukp.inception.support.spring.ApplicationContextProvider;
+
+@Transactional
+@DataJpaTest( //
+        showSql = false, //
+        properties = { //
+                "spring.main.banner-mode=off", //
+                "debug.cas-doctor.force-release-behavior=true", //
+                "document-import.run-cas-doctor-on-import=OFF" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+@EnableAutoConfiguration
+@ImportAutoConfiguration( //
+        classes = { //
+                PreferencesServiceAutoConfig.class, //
+                ProjectServiceAutoConfiguration.class, //
+                AnnotationSchemaServiceAutoConfiguration.class, //
+                CasDoctorAutoConfiguration.class, //
+                DocumentServiceAutoConfiguration.class, //
+                CasStorageServiceAutoConfiguration.class, //
+                DocumentImportExportServiceAutoConfiguration.class, //
+                SchedulingServiceAutoConfiguration.class, //
+                SecurityAutoConfiguration.class, //
+                SearchServiceAutoConfiguration.class }, //
+        exclude = LiquibaseAutoConfiguration.class)
+@EntityScan({ //
+        "de.tudarmstadt.ukp.clarin.webanno.security.model", //
+        "de.tudarmstadt.ukp.inception.preferences.model", //
+        "de.tudarmstadt.ukp.inception.kb.model", //
+        "de.tudarmstadt.ukp.clarin.webanno.model" })
+public class MtasDocumentIndexShardingTest
+{
+    static final String WORK_DIR = "target/test-output/MtasDocumentIndexShardingTest";
+
+    private static final Logger LOG = LoggerFactory.getLogger(MtasDocumentIndexShardingTest.class);
+
+    private static final String[] WORDS = { "the", "annotation", "of", "documents", "is",
+            "performed", "by", "many", "annotators", "in", "parallel", "and", "curated", "later" };
+
+    @Autowired
+    ProjectService projectService;
+
+    @Autowired
+    DocumentService documentService;
+
+    @Autowired
+    FeatureIndexingSupportRegistry featureIndexingSupportRegistry;
+
+    @Autowired
+    FeatureSupportRegistry featureSupportRegistry;
+
+    Project project;
+    User user;
+    AnnotationSearchState prefs;
+    List<MtasDocumentIndex> indexes = new ArrayList<>();
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        deleteQuietly(new File(WORK_DIR));
+
+        project = new Project("test");
+        projectService.createProject(project);
+
+        user = new User("user");
+        prefs = new AnnotationSearchState();
+    }
+
+    @AfterEach
+    void teardown() throws Exception
+    {
+        for (var index : indexes) {
+            index.close();
+        }
+    }
+
+    @Test
+    void thatShardedIndexReturnsSameResultsAsUnshardedIndex() throws Exception
+    {
+        var docs = createCorpus(20, 50);
+
+        var unsharded = createIndex("unsharded", 1);
+        var sharded = createIndex("sharded", 3);
+        for (var doc : docs) {
+            unsharded.indexDocument(doc.document(), doc.jcas().getCas());
+            sharded.indexDocument(doc.document(), doc.jcas().getCas());
+        }
+
+        assertThat(docs) //
+                .extracting(doc -> sharded.getShard(doc.document().getId())) //
+                .containsOnly(0, 1, 2);
+
+        for (var query : List.of("annotation", "the annotation", "parallel")) {
+            var request = new SearchQueryRequest(project, user, query, prefs);
+
+            assertThat(sharded.numberOfQueryResults(request)) //
+                    .isPositive() //
+                    .isEqualTo(unsharded.numberOfQueryResults(request));
+            assertThat(sharded.executeQuery(request)) //
+                    .isEqualTo(unsharded.executeQuery(request));
+        }
+    }
+
+    @Test
+    void thatChangingShardCountRequiresRebuild() throws Exception
+    {
+        var docs = createCorpus(5, 10);
+
+        var index = createIndex("index", 2);
+        for (var doc : docs) {
+            index.indexDocument(doc.document(), doc.jcas().getCas());
+        }
+        index.close();
+
+        var resharded = createIndex("index", 3);
+        assertThatExceptionOfType(IndexRebuildRequiredException.class) //
+                .isThrownBy(() -> resharded.open());
+        assertThat(resharded.isCreated()).isFalse();
+    }
+
+    @Test
+    void thatForceMergeReducesSegmentsOfEachShard() throws Exception
+    {
+        var docs = createCorpus(10, 20);
+
+        var settings = new MtasDocumentIndexSettings();
+        settings.setShards(2);
+        settings.setForceMergeMaxSegments(1);
+
+        var index = createIndex("index", settings);
+        for (var doc : docs) {
+            index.indexDocument(doc.document(), doc.jcas().getCas());
+            // Refreshing the searcher flushes the pending document into a new segment
+            index.getIndexStatistics();
+        }
+
+        assertThat(index.getIndexStatistics()).get() //
+                .satisfies(stats -> assertThat(stats.getSegments()).isGreaterThan(2)) //
+                .satisfies(stats -> assertThat(stats.getDocuments()).isEqualTo(docs.size()));
+
+        index.forceMerge();
+
+        assertThat(index.getIndexStatistics()).get() //
+                .satisfies(stats -> assertThat(stats.getSegments()).isEqualTo(2)) //
+                .satisfies(stats -> assertThat(stats.getDocuments()).isEqualTo(docs.size())) //
+                .satisfies(stats -> assertThat(stats.getSizeInBytes()).isPositive());
+    }
+
+    @Test
+    void thatForceMergeWindowMayCrossMidnight()
+    {
+        assertThat(MtasDocumentIndex.isInForceMergeWindow(2, 5, 1)).isFalse();
+        assertThat(MtasDocumentIndex.isInForceMergeWindow(2, 5, 2)).isTrue();
+        assertThat(MtasDocumentIndex.isInForceMergeWindow(2, 5, 4)).isTrue();
+        assertThat(MtasDocumentIndex.isInForceMergeWindow(2, 5, 5)).isFalse();
+
+        assertThat(MtasDocumentIndex.isInForceMergeWindow(22, 3, 21)).isFalse();
+        assertThat(MtasDocumentIndex.isInForceMergeWindow(22, 3, 23)).isTrue();
+        assertThat(MtasDocumentIndex.isInForceMergeWindow(22, 3, 0)).isTrue();
+        assertThat(MtasDocumentIndex.isInForceMergeWindow(22, 3, 3)).isFalse();
+
+        assertThat(MtasDocumentIndex.isInForceMergeWindow(4, 4, 4)).isFalse();
+    }
+
+    /**
+     * Compares the query latency of a sharded and an unsharded index on a generated corpus. Run
+     * explicitly to get the numbers - the results are logged.
+     */
+    @Tag("slow")
+    @Test
+    void benchmarkShardedAgainstUnshardedQueries() throws Exception
+    {
+        var docs = createCorpus(2_000, 2_000);
+
+        var unsharded = createIndex("unsharded", 1);
+        var sharded = createIndex("sharded", 4);
+        for (var doc : docs) {
+            unsharded.indexDocument(doc.document(), doc.jcas().getCas());
+            sharded.indexDocument(doc.document(), doc.jcas().getCas());
+        }
+
+        for (var query : List.of("annotation", "the annotation", "\"curated\" \"later\"")) {
+            var request = new SearchQueryRequest(project, user, query, null, null, null, 0, 100,
+                    prefs);
+
+            var unshardedMs = measure(unsharded, request);
+            var shardedMs = measure(sharded, request);
+
+            LOG.info("[{}]: unsharded {}ms, sharded {}ms", query, unshardedMs, shardedMs);
+
+            assertThat(sharded.numberOfQueryResults(request)) //
+                    .isEqualTo(unsharded.numberOfQueryResults(request));
+        }
+    }
+
+    private long measure(MtasDocumentIndex aIndex, SearchQueryRequest aRequest) throws Exception
+    {
+        final int rounds = 10;
+
+        // Warm up
+        aIndex.numberOfQueryResults(aRequest);
+        aIndex.executeQuery(aRequest);
+
+        var t0 = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            aIndex.numberOfQueryResults(aRequest);
+            aIndex.executeQuery(aRequest);
+        }
+        return (System.nanoTime() - t0) / rounds / 1_000_000;
+    }
+
+    private MtasDocumentIndex createIndex(String aName, int aShards)
+    {
+        var settings = new MtasDocumentIndexSettings();
+        settings.setShards(aShards);
+        return createIndex(aName, settings);
+    }
+
+    private MtasDocumentIndex createIndex(String aName, MtasDocumentIndexSettings aSettings)
+    {
+        var index = new MtasDocumentIndex(project, documentService,
+                new File(WORK_DIR, aName).getAbsolutePath(), featureIndexingSupportRegistry,
+                featureSupportRegistry, aSettings, null);
+        indexes.add(index);
+        return index;
+    }
+
+    private List<GeneratedDocument> createCorpus(int aDocuments, int aTokens) throws Exception
+    {
+        var rnd = new Random(42);
+        var docs = new ArrayList<GeneratedDocument>();
+        for (int i = 0; i < aDocuments; i++) {
+            var text = new StringBuilder();
+            for (int t = 0; t < aTokens; t++) {
+                text.append(WORDS[rnd.nextInt(WORDS.length)]);
+                text.append(t % 20 == 19 ? " . " : " ");
+            }
+
+            var jcas = JCasFactory.createJCas();
+            new TokenBuilder<>(Token.class, Sentence.class).buildTokens(jcas,
+                    text.toString().trim());
+
+            var srcDoc = new SourceDocument("doc-" + i + ".txt", project, TextFormatSupport.ID);
+            documentService.createSourceDocument(srcDoc);
+
+            docs.add(new GeneratedDocument(srcDoc, jcas));
+        }
+        return docs;
+    }
+
+    private record GeneratedDocument(SourceDocument document, JCas jcas) {}
+
+    @SpringBootConfiguration
+    public static class SpringConfig
+    {
+        @Bean
+        ApplicationContextProvider applicationContextProvider()
+        {
+            return new ApplicationContextProvider();
+        }
+
+        @Bean
+        RepositoryProperties repositoryProperties()
+        {
+            var props = new RepositoryPropertiesImpl();
+            props.setPath(new File(WORK_DIR));
+            return props;
+        }
+
+        @Bean
+        public XmiFormatSupport xmiFormatSupport()
+        {
+            return new XmiFormatSupport(new XmiFormatProperties());
+        }
+    }
+}
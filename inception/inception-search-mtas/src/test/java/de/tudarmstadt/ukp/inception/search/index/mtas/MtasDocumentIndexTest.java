@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.inception.search.index.mtas;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.awaitility.Awaitility.await;
 
 import java.io.ByteArrayInputStream;
@@ -88,6 +89,7 @@ import de.tudarmstadt.ukp.inception.project.api.ProjectService;
 import de.tudarmstadt.ukp.inception.scheduling.config.SchedulingServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.schema.config.AnnotationSchemaServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.search.LayerStatistics;
+import de.tudarmstadt.ukp.inception.search.SearchCursorExpiredException;
 import de.tudarmstadt.ukp.inception.search.SearchResult;
 import de.tudarmstadt.ukp.inception.search.SearchService;
 import de.tudarmstadt.ukp.inception.search.StatisticsResult;
@@ -627,6 +629,47 @@ public class MtasDocumentIndexTest
                 .containsExactlyElementsOf(resultsAfter.keySet());
     }
 
+    @Test
+    public void testCursorPaging() throws Exception
+    {
+        Project project = new Project("cursor-paging");
+
+        createProject(project);
+
+        SourceDocument sourceDocument = new SourceDocument("Raw text document", project, "text");
+
+        String fileContent = "a b a c a d a e a.";
+
+        uploadDocument(Pair.of(sourceDocument, fileContent));
+
+        String query = "a";
+
+        var expected = searchService.query(user, project, query, null, null, null, 0, 5);
+
+        String cursorId = searchService.openCursor(user, project, query, null, null, null);
+        try {
+            var page1 = searchService.fetch(cursorId, 0, 2);
+            var page2 = searchService.fetch(cursorId, 2, 2);
+            var page3 = searchService.fetch(cursorId, 4, 2);
+            // Seeking backwards re-opens the cursor
+            var page1Again = searchService.fetch(cursorId, 0, 2);
+
+            assertThat(page1.get("Raw text document")) //
+                    .containsExactlyElementsOf(expected.get("Raw text document").subList(0, 2));
+            assertThat(page2.get("Raw text document")) //
+                    .containsExactlyElementsOf(expected.get("Raw text document").subList(2, 4));
+            assertThat(page3.get("Raw text document")) //
+                    .containsExactlyElementsOf(expected.get("Raw text document").subList(4, 5));
+            assertThat(page1Again).isEqualTo(page1);
+        }
+        finally {
+            searchService.closeCursor(cursorId);
+        }
+
+        assertThatExceptionOfType(SearchCursorExpiredException.class)
+                .isThrownBy(() -> searchService.fetch(cursorId, 0, 2));
+    }
+
     @Disabled("This test is flaky, but I do not know why - maybe some race condition in the indexing")
     @Test
     public void testStatistics() throws Exception
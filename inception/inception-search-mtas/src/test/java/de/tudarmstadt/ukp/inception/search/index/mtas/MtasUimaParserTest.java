@@ -28,6 +28,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.when;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -250,6 +251,58 @@ public class MtasUimaParserTest
                 .containsExactly("This is a test .", "This is sentence two .");
     }
 
+    @Test
+    public void testStatisticsAndTokenTableAreCollected() throws Exception
+    {
+        TokenBuilder<Token, Sentence> builder = TokenBuilder.create(Token.class, Sentence.class);
+        builder.buildTokens(jcas, "This is a test . \n This is sentence two .");
+
+        var sut = new MtasUimaParser(asList(), annotationSchemaService,
+                featureIndexingSupportRegistry, prefs);
+
+        MtasDocumentStatistics stats;
+        MtasTokenTable tokenTable;
+        try (var collector = MtasIndexingCollector.collect()) {
+            sut.createTokenCollection(jcas.getCas());
+            stats = collector.getStatistics().get();
+            tokenTable = collector.getTokenTable().get();
+        }
+
+        assertThat(stats.getCount("Token")).isEqualTo(10);
+        assertThat(stats.getCount("s")).isEqualTo(2);
+        assertThat(stats.getCount("Named_entity.value")).isEqualTo(0);
+        assertThat(MtasDocumentStatistics.decode(stats.encode()).get().getCounts())
+                .isEqualTo(stats.getCounts());
+
+        assertThat(tokenTable.size()).isEqualTo(10);
+        assertThat(tokenTable.getText(3)).isEqualTo("test");
+        var decodedTable = MtasTokenTable.decode(tokenTable.encode()).get();
+        assertThat(decodedTable.getBegin(3)).isEqualTo(tokenTable.getBegin(3));
+        assertThat(decodedTable.getEnd(9)).isEqualTo(tokenTable.getEnd(9));
+        assertThat(decodedTable.getText(9)).isEqualTo(".");
+    }
+
+    @Test
+    public void testCasHandedOverByCollectorIsIndexed() throws Exception
+    {
+        TokenBuilder<Token, Sentence> builder = TokenBuilder.create(Token.class, Sentence.class);
+        builder.buildTokens(jcas, "This is a test .");
+
+        var sut = new MtasUimaParser(asList(), annotationSchemaService,
+                featureIndexingSupportRegistry, prefs);
+
+        MtasTokenCollection tc;
+        try (var collector = MtasIndexingCollector.collect(jcas.getCas())) {
+            // The field content is ignored when the CAS is handed over by the collector
+            tc = sut.createTokenCollection(new StringReader("cas"));
+        }
+
+        assertThat(toList(tc)) //
+                .filteredOn(t -> "Token".equals(t.getPrefix())) //
+                .extracting(MtasToken::getPostfix) //
+                .containsExactly("This", "is", "a", "test", ".");
+    }
+
     @Test
     public void testNamedEnity() throws Exception
     {
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentCreatedEvent;
+
+@ExtendWith(MockitoExtension.class)
+class SearchableDocumentCacheTest
+{
+    private @Mock DocumentService documentService;
+
+    private SearchableDocumentCache sut;
+    private Project project;
+    private User user;
+    private SourceDocument doc1;
+    private SourceDocument doc2;
+    private AnnotationDocument annDoc1;
+
+    @BeforeEach
+    void setup()
+    {
+        sut = new SearchableDocumentCache(documentService);
+
+        project = new Project("test");
+        project.setId(1l);
+        user = new User("user");
+
+        doc1 = new SourceDocument("doc1.txt", project, "text");
+        doc1.setId(1l);
+        doc2 = new SourceDocument("doc2.txt", project, "text");
+        doc2.setId(2l);
+        annDoc1 = new AnnotationDocument("user", doc1);
+        annDoc1.setId(10l);
+    }
+
+    @Test
+    void thatVisibilityFollowsAnnotationDocuments()
+    {
+        var docs = new SearchableDocuments("user", documents(annDoc1));
+
+        // The annotation document replaces the source document for the user
+        assertThat(docs.isVisible(1, -1, "")).isFalse();
+        assertThat(docs.isVisible(1, 10, "user")).isTrue();
+        assertThat(docs.isVisible(1, 11, "other")).isFalse();
+
+        // The user has not started annotating the second document
+        assertThat(docs.isVisible(2, -1, "")).isTrue();
+
+        // The document is not annotatable by the user, e.g. because it is ignored
+        assertThat(docs.isVisible(3, -1, "")).isFalse();
+    }
+
+    @Test
+    void thatDocumentsAreOnlyListedOnce()
+    {
+        when(documentService.listAnnotatableDocuments(any(), any())).thenReturn(documents());
+
+        var first = sut.get(project, user);
+        var second = sut.get(project, user);
+
+        assertThat(second).isSameAs(first);
+        verify(documentService, times(1)).listAnnotatableDocuments(project, user);
+    }
+
+    @Test
+    void thatCreatingDocumentInvalidatesProject()
+    {
+        when(documentService.listAnnotatableDocuments(any(), any())).thenReturn(documents());
+
+        sut.get(project, user);
+        sut.onDocumentCreated(new AfterDocumentCreatedEvent(this, doc2, null));
+
+        assertThat(sut.size()).isZero();
+    }
+
+    @Test
+    void thatWritingNewAnnotationDocumentInvalidatesUser()
+    {
+        when(documentService.listAnnotatableDocuments(any(), any())).thenReturn(documents());
+
+        sut.get(project, user);
+        sut.onCasWritten(new AfterCasWrittenEvent(this, annDoc1, null));
+
+        assertThat(sut.size()).isZero();
+    }
+
+    @Test
+    void thatWritingKnownAnnotationDocumentKeepsCache()
+    {
+        when(documentService.listAnnotatableDocuments(any(), any()))
+                .thenReturn(documents(annDoc1));
+
+        sut.get(project, user);
+        sut.onCasWritten(new AfterCasWrittenEvent(this, annDoc1, null));
+
+        assertThat(sut.size()).isOne();
+    }
+
+    private Map<SourceDocument, AnnotationDocument> documents(AnnotationDocument... aAnnDocs)
+    {
+        var documents = new HashMap<SourceDocument, AnnotationDocument>();
+        documents.put(doc1, null);
+        documents.put(doc2, null);
+        for (var annDoc : aAnnDocs) {
+            documents.put(annDoc.getDocument(), annDoc);
+        }
+        return documents;
+    }
+}
@@ -17,7 +17,6 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.ui.curation.component;
 
-import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiff;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.getDiffAdapters;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_ROLE_AS_LABEL;
 import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.CURATION_FINISHED;
@@ -82,6 +81,7 @@ import de.tudarmstadt.ukp.inception.curation.merge.AlreadyMergedException;
 import de.tudarmstadt.ukp.inception.curation.merge.CasMerge;
 import de.tudarmstadt.ukp.inception.curation.merge.CasMergeOperationResult;
 import de.tudarmstadt.ukp.inception.curation.merge.MergeConflictException;
+import de.tudarmstadt.ukp.inception.curation.service.CasDiffCache;
 import de.tudarmstadt.ukp.inception.curation.service.CurationDocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.rendering.editorstate.AnnotatorState;
@@ -126,6 +126,7 @@ public class AnnotatorsPanel
     private @SpringBean CurationRenderer curationRenderer;
     private @SpringBean BratSchemaGenerator bratSchemaGenerator;
     private @SpringBean AnnotationSchemaProperties annotationEditorProperties;
+    private @SpringBean CasDiffCache casDiffCache;
 
     public AnnotatorsPanel(String id, IModel<List<AnnotatorSegmentState>> aModel)
     {
@@ -456,8 +457,8 @@ public class AnnotatorsPanel
             Map<String, CAS> aCasses)
     {
         var adapters = getDiffAdapters(schemaService, aState.getAnnotationLayers());
-        var diff = doDiff(adapters, LINK_ROLE_AS_LABEL, aCasses, aState.getWindowBeginOffset(),
-                aState.getWindowEndOffset()).toResult();
+        var diff = casDiffCache.getDiff(aState.getDocument(), adapters, LINK_ROLE_AS_LABEL,
+                aCasses, aState.getWindowBeginOffset(), aState.getWindowEndOffset());
 
         var differingSets = diff.getDifferingConfigurationSetsWithExceptions(CURATION_USER)
                 .values();
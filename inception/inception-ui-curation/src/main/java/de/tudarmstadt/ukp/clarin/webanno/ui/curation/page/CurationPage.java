@@ -20,7 +20,6 @@ package de.tudarmstadt.ukp.clarin.webanno.ui.curation.page;
 import static de.tudarmstadt.ukp.clarin.webanno.api.annotation.page.AnnotationPageBase.PAGE_PARAM_DOCUMENT;
 import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.UNMANAGED_ACCESS;
 import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.FORCE_CAS_UPGRADE;
-import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiff;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.getDiffAdapters;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_ROLE_AS_LABEL;
 import static de.tudarmstadt.ukp.clarin.webanno.model.PermissionLevel.CURATOR;
@@ -92,6 +91,7 @@ import de.tudarmstadt.ukp.clarin.webanno.ui.curation.overview.CurationUnit;
 import de.tudarmstadt.ukp.clarin.webanno.ui.curation.overview.CurationUnitOverview;
 import de.tudarmstadt.ukp.inception.annotation.events.AnnotationEvent;
 import de.tudarmstadt.ukp.inception.curation.merge.strategy.MergeStrategy;
+import de.tudarmstadt.ukp.inception.curation.service.CasDiffCache;
 import de.tudarmstadt.ukp.inception.curation.service.CurationDocumentService;
 import de.tudarmstadt.ukp.inception.curation.service.CurationMergeService;
 import de.tudarmstadt.ukp.inception.curation.service.CurationService;
@@ -136,6 +136,7 @@ public class CurationPage
     private @SpringBean WorkloadManagementService workloadManagementService;
     private @SpringBean CurationService curationService;
     private @SpringBean CurationMergeService curationMergeService;
+    private @SpringBean CasDiffCache casDiffCache;
     private @SpringBean AnnotationEditorRegistry editorRegistry;
 
     private long currentprojectId;
@@ -708,8 +709,8 @@ public class CurationPage
                 LOG.debug("Processing differences: {} of {} units...", unitIndex, units.size());
             }
 
-            var diff = doDiff(adapters, LINK_ROLE_AS_LABEL, casses, unit.getBegin(), unit.getEnd())
-                    .toResult();
+            var diff = casDiffCache.getDiff(aState.getDocument(), adapters, LINK_ROLE_AS_LABEL,
+                    casses, unit.getBegin(), unit.getEnd());
 
             var curationUnit = new CurationUnit(unit.getBegin(), unit.getEnd(), unitIndex);
             curationUnit.setState(CasDiffSummaryState.calculateState(diff));
@@ -17,7 +17,6 @@
  */
 package de.tudarmstadt.ukp.inception.ui.curation.sidebar;
 
-import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiff;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.getDiffAdapters;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_ROLE_AS_LABEL;
 import static de.tudarmstadt.ukp.clarin.webanno.model.MultiValueMode.NONE;
@@ -41,7 +40,7 @@ import org.springframework.context.ApplicationEventPublisher;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.exception.NotEditableException;
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.page.AnnotationPageBase;
-import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.DiffResult;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
@@ -50,6 +49,7 @@ import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.annotation.layer.relation.RelationLayerSupport;
 import de.tudarmstadt.ukp.inception.annotation.layer.span.SpanLayerSupport;
 import de.tudarmstadt.ukp.inception.curation.merge.CasMerge;
+import de.tudarmstadt.ukp.inception.curation.service.CasDiffCache;
 import de.tudarmstadt.ukp.inception.diam.editor.actions.ScrollToHandler;
 import de.tudarmstadt.ukp.inception.diam.editor.actions.SelectAnnotationHandler;
 import de.tudarmstadt.ukp.inception.diam.editor.lazydetails.LazyDetailsLookupService;
@@ -89,12 +89,13 @@ public class CurationEditorExtension
     private final CurationSidebarService curationSidebarService;
     private final FeatureSupportRegistry featureSupportRegistry;
     private final LazyDetailsLookupService detailsLookupService;
+    private final CasDiffCache casDiffCache;
 
     public CurationEditorExtension(AnnotationSchemaService aAnnotationService,
             DocumentService aDocumentService, ApplicationEventPublisher aApplicationEventPublisher,
             UserDao aUserRepository, CurationSidebarService aCurationSidebarService,
             FeatureSupportRegistry aFeatureSupportRegistry,
-            LazyDetailsLookupService aDetailsLookupService)
+            LazyDetailsLookupService aDetailsLookupService, CasDiffCache aCasDiffCache)
     {
         annotationService = aAnnotationService;
         documentService = aDocumentService;
@@ -103,6 +104,7 @@ public class CurationEditorExtension
         curationSidebarService = aCurationSidebarService;
         featureSupportRegistry = aFeatureSupportRegistry;
         detailsLookupService = aDetailsLookupService;
+        casDiffCache = aCasDiffCache;
     }
 
     @Override
@@ -324,9 +326,10 @@ public class CurationEditorExtension
         var casses = collectCasses(aDocument, aUser, aCas, selectedUsers);
 
         var srcAnnotation = ICasUtil.selectAnnotationByAddr(srcCas, vid.getId());
-        var casDiff = createDiff(casses, aLayer, srcAnnotation.getBegin(), srcAnnotation.getEnd());
+        var diff = createDiff(aDocument, casses, aLayer, srcAnnotation.getBegin(),
+                srcAnnotation.getEnd());
 
-        var maybeConfiguration = casDiff.toResult().findConfiguration(srcUser, srcAnnotation);
+        var maybeConfiguration = diff.findConfiguration(srcUser, srcAnnotation);
         if (maybeConfiguration.isEmpty()) {
             return emptyList();
         }
@@ -391,10 +394,10 @@ public class CurationEditorExtension
         return casses;
     }
 
-    private CasDiff createDiff(Map<String, CAS> casses, AnnotationLayer aLayer, int aBegin,
-            int aEnd)
+    private DiffResult createDiff(SourceDocument aDocument, Map<String, CAS> casses,
+            AnnotationLayer aLayer, int aBegin, int aEnd)
     {
         var adapters = getDiffAdapters(annotationService, asList(aLayer));
-        return doDiff(adapters, LINK_ROLE_AS_LABEL, casses, aBegin, aEnd);
+        return casDiffCache.getDiff(aDocument, adapters, LINK_ROLE_AS_LABEL, casses, aBegin, aEnd);
     }
 }
@@ -29,6 +29,7 @@ import org.springframework.security.core.session.SessionRegistry;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
 import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
+import de.tudarmstadt.ukp.inception.curation.service.CasDiffCache;
 import de.tudarmstadt.ukp.inception.diam.editor.lazydetails.LazyDetailsLookupService;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
@@ -65,11 +66,11 @@ public class CurationSidebarAutoConfiguration
             ApplicationEventPublisher aApplicationEventPublisher, UserDao aUserRepository,
             CurationSidebarService aCurationSidebarService,
             FeatureSupportRegistry aFeatureSupportRegistry,
-            LazyDetailsLookupService aDetailsLookupService)
+            LazyDetailsLookupService aDetailsLookupService, CasDiffCache aCasDiffCache)
     {
         return new CurationEditorExtension(aAnnotationService, aDocumentService,
                 aApplicationEventPublisher, aUserRepository, aCurationSidebarService,
-                aFeatureSupportRegistry, aDetailsLookupService);
+                aFeatureSupportRegistry, aDetailsLookupService, aCasDiffCache);
     }
 
     @Bean("curationSidebar")
@@ -83,10 +84,11 @@ public class CurationSidebarAutoConfiguration
     @Bean
     public CurationSidebarRenderer curationSidebarRenderer(CurationSidebarService aCurationService,
             LayerSupportRegistry aLayerSupportRegistry, DocumentService aDocumentService,
-            UserDao aUserRepository, AnnotationSchemaService aAnnotationService)
+            UserDao aUserRepository, AnnotationSchemaService aAnnotationService,
+            CasDiffCache aCasDiffCache)
     {
         return new CurationSidebarRenderer(aCurationService, aLayerSupportRegistry,
-                aDocumentService, aUserRepository, aAnnotationService);
+                aDocumentService, aUserRepository, aAnnotationService, aCasDiffCache);
     }
 
     @Bean
@@ -17,7 +17,6 @@
  */
 package de.tudarmstadt.ukp.inception.ui.curation.sidebar.render;
 
-import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiff;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.getDiffAdapters;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_ROLE_AS_LABEL;
 import static de.tudarmstadt.ukp.clarin.webanno.model.Mode.ANNOTATION;
@@ -30,6 +29,7 @@ import java.lang.invoke.MethodHandles;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.apache.uima.cas.CAS;
@@ -38,7 +38,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.Order;
 
-import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.Configuration;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.DiffResult;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.Position;
@@ -46,6 +45,7 @@ import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.internal.AID;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.curation.service.CasDiffCache;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.rendering.pipeline.RenderStep;
 import de.tudarmstadt.ukp.inception.rendering.request.RenderRequest;
@@ -80,16 +80,19 @@ public class CurationSidebarRenderer
     private final DocumentService documentService;
     private final UserDao userRepository;
     private final AnnotationSchemaService annotationService;
+    private final CasDiffCache casDiffCache;
 
     public CurationSidebarRenderer(CurationSidebarService aCurationService,
             LayerSupportRegistry aLayerSupportRegistry, DocumentService aDocumentService,
-            UserDao aUserRepository, AnnotationSchemaService aAnnotationService)
+            UserDao aUserRepository, AnnotationSchemaService aAnnotationService,
+            CasDiffCache aCasDiffCache)
     {
         curationService = aCurationService;
         layerSupportRegistry = aLayerSupportRegistry;
         documentService = aDocumentService;
         userRepository = aUserRepository;
         annotationService = aAnnotationService;
+        casDiffCache = aCasDiffCache;
     }
 
     @Override
@@ -131,8 +134,10 @@ public class CurationSidebarRenderer
             return;
         }
 
-        var casDiff = createDiff(aRequest, selectedUsers);
-        var diff = casDiff.toResult();
+        var casses = collectCasses(aRequest, selectedUsers);
+        var adapters = getDiffAdapters(annotationService, aRequest.getVisibleLayers());
+        var diff = casDiffCache.getDiff(aRequest.getSourceDocument(), adapters, LINK_ROLE_AS_LABEL,
+                casses, aRequest.getWindowBeginOffset(), aRequest.getWindowEndOffset());
 
         // Listing the features once is faster than repeatedly hitting the DB to list features for
         // every layer.
@@ -164,7 +169,7 @@ public class CurationSidebarRenderer
                     .toList();
 
             for (var cfg : cfgSet.getConfigurations()) {
-                var fs = cfg.getRepresentative(casDiff.getCasMap());
+                var fs = cfg.getRepresentative(casses);
                 var user = cfg.getRepresentativeCasGroupId();
 
                 // We need to pass in *all* the annotation features here because we also to that in
@@ -208,7 +213,7 @@ public class CurationSidebarRenderer
         }
     }
 
-    private CasDiff createDiff(RenderRequest aRequest, List<User> selectedUsers)
+    private Map<String, CAS> collectCasses(RenderRequest aRequest, List<User> selectedUsers)
     {
         var casses = new LinkedHashMap<String, CAS>();
 
@@ -227,9 +232,7 @@ public class CurationSidebarRenderer
             }
         }
 
-        var adapters = getDiffAdapters(annotationService, aRequest.getVisibleLayers());
-        return doDiff(adapters, LINK_ROLE_AS_LABEL, casses, aRequest.getWindowBeginOffset(),
-                aRequest.getWindowEndOffset());
+        return casses;
     }
 
     /**
@@ -18,15 +18,20 @@
 package de.tudarmstadt.ukp.inception.ui.core.dashboard.settings.annotation;
 
 import static de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState.KEY_SEARCH_STATE;
+import static de.tudarmstadt.ukp.inception.support.lambda.LambdaBehavior.visibleWhen;
 
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.feedback.IFeedback;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.CheckBox;
 import org.apache.wicket.markup.html.form.Form;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.model.CompoundPropertyModel;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.LoadableDetachableModel;
 import org.apache.wicket.spring.injection.annot.SpringBean;
+import org.apache.wicket.util.lang.Bytes;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
@@ -34,6 +39,7 @@ import de.tudarmstadt.ukp.inception.editor.AnnotationEditorRegistry;
 import de.tudarmstadt.ukp.inception.preferences.PreferencesService;
 import de.tudarmstadt.ukp.inception.search.SearchService;
 import de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState;
+import de.tudarmstadt.ukp.inception.search.model.IndexStatistics;
 import de.tudarmstadt.ukp.inception.support.lambda.LambdaAjaxLink;
 import de.tudarmstadt.ukp.inception.support.lambda.LambdaForm;
 
@@ -62,6 +68,15 @@ public class AnnotationSearchStatePanel
 
         queue(new CheckBox("caseSensitive").setOutputMarkupId(true));
 
+        var statistics = LoadableDetachableModel.of(() -> searchService
+                .getIndexStatistics(getModel().getObject()).orElse(null));
+        queue(new WebMarkupContainer("indexStatistics")
+                .add(visibleWhen(statistics.isPresent())));
+        queue(new Label("segments", statistics.map(IndexStatistics::getSegments)));
+        queue(new Label("size", statistics.map(s -> Bytes.bytes(s.getSizeInBytes()))));
+        queue(new Label("documents", statistics.map(IndexStatistics::getDocuments)));
+        queue(new Label("deletedDocuments", statistics.map(IndexStatistics::getDeletedDocuments)));
+
         queue(new LambdaAjaxLink(CID_REINDEX_PROJECT, this::actionRebuildIndex));
     }
 
@@ -73,8 +88,7 @@ public class AnnotationSearchStatePanel
 
     private void actionSave(AjaxRequestTarget aTarget, Form<AnnotationSearchState> aForm)
     {
-        preferencesService.saveDefaultTraitsForProject(KEY_SEARCH_STATE, getModel().getObject(),
-                aForm.getModelObject());
+        searchService.saveIndexingSettings(getModel().getObject(), aForm.getModelObject());
     }
 
     private void actionRebuildIndex(AjaxRequestTarget aTarget)
@@ -28,6 +28,7 @@ import static java.util.Objects.isNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import java.io.IOException;
+import java.util.Objects;
 
 import org.apache.uima.cas.CAS;
 import org.apache.wicket.Component;
@@ -236,9 +237,11 @@ public class FeatureDetailForm
 
     private void actionDeleteConfirmed(AjaxRequestTarget aTarget) throws IOException
     {
-        annotationService.removeFeature(getModelObject());
+        var feature = getModelObject();
+
+        annotationService.removeFeature(feature);
 
-        var project = getModelObject().getProject();
+        var project = feature.getProject();
 
         setModelObject(null);
 
@@ -246,7 +249,7 @@ public class FeatureDetailForm
 
         // Trigger LayerConfigurationChangedEvent
         applicationEventPublisherHolder.get()
-                .publishEvent(new LayerConfigurationChangedEvent(this, project));
+                .publishEvent(new LayerConfigurationChangedEvent(this, feature));
 
         aTarget.add(getPage());
     }
@@ -257,6 +260,8 @@ public class FeatureDetailForm
 
         var feature = getModelObject();
 
+        var compatible = isNull(feature.getId()) || isCompatibleChange(feature);
+
         if (isNull(feature.getId())) {
             feature.setName(feature.getUiName().replaceAll("\\W", ""));
 
@@ -289,6 +294,18 @@ public class FeatureDetailForm
 
         // Trigger LayerConfigurationChangedEvent
         applicationEventPublisherHolder.get()
-                .publishEvent(new LayerConfigurationChangedEvent(this, feature.getProject()));
+                .publishEvent(new LayerConfigurationChangedEvent(this, feature, compatible));
+    }
+
+    /**
+     * Changing the type of an existing feature invalidates the values it has in existing
+     * annotations.
+     */
+    private boolean isCompatibleChange(AnnotationFeature aFeature)
+    {
+        var persistedFeature = annotationService.getFeature(aFeature.getId());
+        return Objects.equals(persistedFeature.getType(), aFeature.getType())
+                && persistedFeature.getMultiValueMode() == aFeature.getMultiValueMode()
+                && persistedFeature.getLinkMode() == aFeature.getLinkMode();
     }
 }
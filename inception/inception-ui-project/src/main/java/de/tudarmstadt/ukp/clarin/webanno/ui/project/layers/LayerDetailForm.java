@@ -310,13 +310,15 @@ public class LayerDetailForm
 
     private void actionDeleteLayerConfirmed(AjaxRequestTarget _target) throws IOException
     {
-        annotationService.removeLayer(getModelObject());
-        Project project = getModelObject().getProject();
+        AnnotationLayer layer = getModelObject();
+        annotationService.removeLayer(layer);
+        Project project = layer.getProject();
         setModelObject(null);
         documentService.upgradeAllAnnotationDocuments(project);
-        // Trigger LayerConfigurationChangedEvent
+        // Trigger LayerConfigurationChangedEvent - the annotations of the removed layer are gone
+        // from the upgraded CASes, so anything derived from them needs to be rebuilt
         applicationEventPublisherHolder.get()
-                .publishEvent(new LayerConfigurationChangedEvent(this, project));
+                .publishEvent(new LayerConfigurationChangedEvent(this, layer, false));
         _target.add(getPage());
     }
 
@@ -382,7 +384,7 @@ public class LayerDetailForm
 
         // Trigger LayerConfigurationChangedEvent
         applicationEventPublisherHolder.get()
-                .publishEvent(new LayerConfigurationChangedEvent(this, project));
+                .publishEvent(new LayerConfigurationChangedEvent(this, layer));
     }
 
     private void actionCancel(AjaxRequestTarget aTarget)
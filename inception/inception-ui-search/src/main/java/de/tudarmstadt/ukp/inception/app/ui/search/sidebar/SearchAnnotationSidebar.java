@@ -526,7 +526,7 @@ public class SearchAnnotationSidebar
             {
                 SearchResultsExporter exporter = new SearchResultsExporter();
                 try {
-                    return exporter.generateCsv(resultsProvider.getAllResults());
+                    return exporter.generateCsv(resultsProvider.getAllResultPages());
                 }
                 catch (Exception e) {
                     LOG.error("Unable to generate search results csv", e);
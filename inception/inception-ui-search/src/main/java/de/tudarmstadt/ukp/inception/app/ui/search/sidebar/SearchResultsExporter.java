@@ -29,7 +29,9 @@ import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
@@ -50,27 +52,64 @@ public class SearchResultsExporter
         return new ByteArrayInputStream(buf.toByteArray());
     }
 
+    /**
+     * Writes the results page by page such that they do not have to be held in memory all at
+     * once. A group which continues on the next page is written as a single group.
+     */
+    public InputStream generateCsv(Iterator<List<ResultsGroup>> aSearchResultPages)
+        throws IOException
+    {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (CSVPrinter printer = new CSVPrinter(new OutputStreamWriter(buf, "UTF-8"), EXCEL)) {
+            printHeader(printer);
+
+            String previousGroupKey = null;
+            boolean first = true;
+            while (aSearchResultPages.hasNext()) {
+                for (ResultsGroup group : aSearchResultPages.next()) {
+                    if (!first && !Objects.equals(previousGroupKey, group.getGroupKey())) {
+                        // blank line after each ResultsGroup
+                        printer.println();
+                    }
+                    printResults(group, printer);
+                    previousGroupKey = group.getGroupKey();
+                    first = false;
+                }
+            }
+
+            if (!first) {
+                printer.println();
+            }
+        }
+
+        return new ByteArrayInputStream(buf.toByteArray());
+    }
+
     public static void toCSV(List<ResultsGroup> aSearchResults, CSVPrinter aOut) throws IOException
     {
-        aOut.printRecord("document name", "begin offset", "end offset", "context left", "text",
-                "context right");
+        printHeader(aOut);
         for (int i = 0; i < aSearchResults.size(); i++) {
-            for (int j = 0; j < aSearchResults.get(i).getResults().size(); j++) {
-                String text = aSearchResults.get(i).getResults().get(j).getText();
-                String leftContext = aSearchResults.get(i).getResults().get(j).getLeftContext();
-                String rightContext = aSearchResults.get(i).getResults().get(j).getRightContext();
-                String documentName = aSearchResults.get(i).getResults().get(j).getDocumentTitle();
-                int beginOffset = aSearchResults.get(i).getResults().get(j).getOffsetStart();
-                int endOffset = aSearchResults.get(i).getResults().get(j).getOffsetEnd();
-
-                aOut.printRecord(documentName, beginOffset, endOffset, leftContext, text,
-                        rightContext);
-            }
+            printResults(aSearchResults.get(i), aOut);
             // blank line after each ResultsGroup
             aOut.println();
         }
     }
 
+    private static void printHeader(CSVPrinter aOut) throws IOException
+    {
+        aOut.printRecord("document name", "begin offset", "end offset", "context left", "text",
+                "context right");
+    }
+
+    private static void printResults(ResultsGroup aGroup, CSVPrinter aOut) throws IOException
+    {
+        for (SearchResult result : aGroup.getResults()) {
+            aOut.printRecord(result.getDocumentTitle(), result.getOffsetStart(),
+                    result.getOffsetEnd(), result.getLeftContext(), result.getText(),
+                    result.getRightContext());
+        }
+    }
+
     // This method only exists for a better testing of the export method
     public static List<ResultsGroup> importCSV(Path aDataPath) throws IOException
     {
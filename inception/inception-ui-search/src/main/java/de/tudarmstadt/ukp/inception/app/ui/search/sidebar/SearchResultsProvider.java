@@ -22,6 +22,8 @@ import static java.util.Collections.emptyIterator;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.IteratorUtils;
@@ -39,6 +41,8 @@ import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.search.ExecutionException;
 import de.tudarmstadt.ukp.inception.search.ResultsGroup;
+import de.tudarmstadt.ukp.inception.search.SearchCursorExpiredException;
+import de.tudarmstadt.ukp.inception.search.SearchResult;
 import de.tudarmstadt.ukp.inception.search.SearchService;
 
 public class SearchResultsProvider
@@ -58,6 +62,9 @@ public class SearchResultsProvider
     private AnnotationLayer annotationLayer;
     private AnnotationFeature annotationFeature;
 
+    // Server-side cursor from which consecutive pages are fetched
+    private String cursorId;
+
     // Cache
     private long totalResults = 0;
     private IModel<SearchResultsPagesCache> pagesCacheModel;
@@ -84,11 +91,7 @@ public class SearchResultsProvider
         // Query if the results in the given range are not in the cache i.e. if we need to fetch
         // a new page
         try {
-            List<ResultsGroup> queryResults = searchService
-                    .query(user, project, query, document, annotationLayer, annotationFeature,
-                            first, count)
-                    .entrySet().stream().map(e -> new ResultsGroup(e.getKey(), e.getValue()))
-                    .collect(Collectors.toList());
+            List<ResultsGroup> queryResults = fetch(first, count);
 
             pagesCacheModel.getObject().putPage(first, count, queryResults);
             return queryResults.iterator();
@@ -108,6 +111,83 @@ public class SearchResultsProvider
         }
     }
 
+    /**
+     * Fetches all results page by page from the server-side cursor without caching them.
+     * 
+     * @param aPageSize
+     *            the number of results per page.
+     * @return an iterator over the result pages.
+     */
+    public Iterator<List<ResultsGroup>> pages(long aPageSize)
+    {
+        return new Iterator<List<ResultsGroup>>()
+        {
+            private long offset = 0;
+            private List<ResultsGroup> nextPage;
+
+            @Override
+            public boolean hasNext()
+            {
+                if (nextPage == null && query != null) {
+                    try {
+                        nextPage = fetch(offset, aPageSize);
+                    }
+                    catch (ExecutionException | IOException e) {
+                        throw new IllegalStateException("Unable to retrieve results", e);
+                    }
+                    offset += aPageSize;
+                }
+                return nextPage != null && !nextPage.isEmpty();
+            }
+
+            @Override
+            public List<ResultsGroup> next()
+            {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                List<ResultsGroup> page = nextPage;
+                nextPage = null;
+                return page;
+            }
+        };
+    }
+
+    private List<ResultsGroup> fetch(long aFirst, long aCount)
+        throws ExecutionException, IOException
+    {
+        Map<String, List<SearchResult>> results = null;
+
+        if (cursorId != null) {
+            try {
+                results = searchService.fetch(cursorId, aFirst, aCount);
+            }
+            catch (SearchCursorExpiredException e) {
+                LOG.trace("Search cursor expired - re-opening");
+                cursorId = null;
+            }
+        }
+
+        if (cursorId == null) {
+            cursorId = searchService.openCursor(user, project, query, document, annotationLayer,
+                    annotationFeature);
+            results = searchService.fetch(cursorId, aFirst, aCount);
+        }
+
+        return results.entrySet().stream() //
+                .map(e -> new ResultsGroup(e.getKey(), e.getValue())) //
+                .collect(Collectors.toList());
+    }
+
+    private void closeCursor()
+    {
+        if (cursorId != null) {
+            searchService.closeCursor(cursorId);
+            cursorId = null;
+        }
+    }
+
     @Override
     public long size()
     {
@@ -148,6 +228,7 @@ public class SearchResultsProvider
         annotationLayer = aAnnotationLayer;
         annotationFeature = aAnnotationFeature;
 
+        closeCursor();
         totalResults = -1; // reset size cache
         pagesCacheModel.getObject().clear(); // reset page cache
     }
@@ -155,6 +236,7 @@ public class SearchResultsProvider
     public void emptyQuery()
     {
         query = null;
+        closeCursor();
         totalResults = 0;
         pagesCacheModel.getObject().clear();
     }
@@ -37,6 +37,8 @@ public class SearchResultsProviderWrapper
 {
     private static final long serialVersionUID = 4339947719820231592L;
 
+    private static final long EXPORT_PAGE_SIZE = 1000;
+
     private SearchResultsProvider searchResultsProvider;
     private List<ResultsGroup> resultGroups;
     private boolean groupingActivated;
@@ -159,6 +161,20 @@ public class SearchResultsProviderWrapper
         return resultsList;
     }
 
+    /**
+     * @return all results in pages. If paging is applied at query level, the pages are fetched one
+     *         after the other from the server-side search cursor. Otherwise, all results have
+     *         already been loaded anyway and are returned as a single page.
+     */
+    public Iterator<List<ResultsGroup>> getAllResultPages()
+    {
+        if (applyLowLevelPaging()) {
+            return searchResultsProvider.pages(EXPORT_PAGE_SIZE);
+        }
+
+        return List.of(resultGroups).iterator();
+    }
+
     public void emptyQuery()
     {
         searchResultsProvider.emptyQuery();
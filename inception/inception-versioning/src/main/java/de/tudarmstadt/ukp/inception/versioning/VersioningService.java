@@ -25,6 +25,8 @@ import java.util.Optional;
 import org.eclipse.jgit.api.errors.GitAPIException;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.scheduling.TaskMonitor;
 
 public interface VersioningService
 {
@@ -32,6 +34,24 @@ public interface VersioningService
     void snapshotCompleteProject(Project aProject, String aCommitMessage)
         throws IOException, GitAPIException;
 
+    /**
+     * Creates a snapshot commit which only re-exports the annotation documents whose CAS changed
+     * since the last snapshot and the layer definitions if they changed. Documents and annotation
+     * documents which no longer exist in the project are removed from the snapshot.
+     * 
+     * @param aProject
+     *            the project to snapshot.
+     * @param aAuthor
+     *            the author of the commit.
+     * @param aCommitMessage
+     *            the commit message.
+     * @param aMonitor
+     *            monitor used to report progress and to check for cancellation.
+     */
+    void snapshotChangedDocuments(Project aProject, User aAuthor, String aCommitMessage,
+            TaskMonitor aMonitor)
+        throws IOException, GitAPIException;
+
     void labelCurrentVersion(Project aProject, String aLabel);
 
     File getRepoDir(Project aProject);
@@ -19,6 +19,8 @@ package de.tudarmstadt.ukp.inception.versioning;
 
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.DOCUMENT_FOLDER;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.CURATION_USER;
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.INITIAL_CAS_PSEUDO_USER;
 
 import java.io.File;
 import java.io.IOException;
@@ -28,8 +30,13 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.uima.cas.CAS;
@@ -61,8 +68,11 @@ import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.export.LayerImportExportUtils;
 import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
+import de.tudarmstadt.ukp.inception.scheduling.TaskMonitor;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
+import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
 import de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil;
 
 /**
@@ -78,6 +88,9 @@ public class VersioningServiceImpl
 
     public static final String REPO_NAME = "git-backup";
     public static final String LAYERS = "layers.json";
+    public static final String SYSTEM_AUTHOR = "system";
+
+    private static final String SNAPSHOT_STATE = "inception-snapshot.properties";
 
     private final RepositoryProperties repositoryProperties;
     private final AnnotationSchemaService annotationService;
@@ -86,6 +99,9 @@ public class VersioningServiceImpl
     private final CasStorageService casStorageService;
     private final UserDao userDao;
 
+    private final Map<Long, Object> projectLocks = new ConcurrentHashMap<>();
+    private final Set<Long> projectsWithUnchangedLayers = ConcurrentHashMap.newKeySet();
+
     @Autowired
     public VersioningServiceImpl(RepositoryProperties aRepoProperties,
             AnnotationSchemaService aAnnotationService, DocumentService aDocumentService,
@@ -113,51 +129,125 @@ public class VersioningServiceImpl
                     project.getName(), project.getId(), repoPath);
             FileSystemUtils.deleteRecursively(repoPath);
         }
+
+        projectLocks.remove(project.getId());
+        projectsWithUnchangedLayers.remove(project.getId());
+    }
+
+    @EventListener
+    public void onLayerConfigurationChangedEvent(LayerConfigurationChangedEvent aEvent)
+    {
+        projectsWithUnchangedLayers.remove(aEvent.getProject().getId());
     }
 
     @Override
     public void snapshotCompleteProject(Project aProject, String aCommitMessage)
         throws IOException, GitAPIException
     {
-        File repoDir = getRepoDir(aProject);
+        snapshot(aProject, userDao.getCurrentUser(), aCommitMessage, false, null);
+    }
+
+    @Override
+    public void snapshotChangedDocuments(Project aProject, User aAuthor, String aCommitMessage,
+            TaskMonitor aMonitor)
+        throws IOException, GitAPIException
+    {
+        snapshot(aProject, aAuthor, aCommitMessage, true, aMonitor);
+    }
+
+    private void snapshot(Project aProject, User aAuthor, String aCommitMessage,
+            boolean aIncremental, TaskMonitor aMonitor)
+        throws IOException, GitAPIException
+    {
+        synchronized (projectLocks.computeIfAbsent(aProject.getId(), _id -> new Object())) {
+            // If the layers change while we are snapshotting, the event listener removes the
+            // project again so the layers are dumped on the next snapshot
+            boolean layersChanged = projectsWithUnchangedLayers.add(aProject.getId());
+
+            try (Git git = Git.open(getRepoDir(aProject))) {
+                if (!snapshot(git, aProject, aAuthor, aCommitMessage,
+                        !aIncremental || layersChanged, aIncremental, aMonitor)) {
+                    projectsWithUnchangedLayers.remove(aProject.getId());
+                }
+            }
+            catch (IOException | GitAPIException | RuntimeException e) {
+                projectsWithUnchangedLayers.remove(aProject.getId());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the snapshot was committed, {@code false} if it was cancelled.
+     */
+    private boolean snapshot(Git aGit, Project aProject, User aAuthor, String aCommitMessage,
+            boolean aDumpLayers, boolean aIncremental, TaskMonitor aMonitor)
+        throws IOException, GitAPIException
+    {
+        File repoDir = aGit.getRepository().getWorkTree();
         Path documentDir = repoDir.toPath().resolve(DOCUMENT_FOLDER);
 
-        Git git = Git.open(repoDir);
+        var previousState = aIncremental ? loadSnapshotState(aGit) : new Properties();
+        var newState = new Properties();
+        var exportedFiles = new HashSet<Path>();
+        var exportedCount = 0;
 
         // Dump layers
-        File layersJsonFile = new File(repoDir, LAYERS);
-        dumpLayers(layersJsonFile, aProject);
-        git.add().addFilepattern(LAYERS).call();
+        if (aDumpLayers) {
+            File layersJsonFile = new File(repoDir, LAYERS);
+            dumpLayers(layersJsonFile, aProject);
+        }
+
+        var sourceDocuments = documentService.listSourceDocuments(aProject);
+        var progress = 0;
+        for (SourceDocument sourceDocument : sourceDocuments) {
+            if (aMonitor != null) {
+                if (aMonitor.isCancelled()) {
+                    return false;
+                }
+
+                aMonitor.setProgressWithMessage(progress, sourceDocuments.size(),
+                        LogMessage.info(this, "%s", sourceDocument.getName()));
+            }
 
-        for (SourceDocument sourceDocument : documentService.listSourceDocuments(aProject)) {
             Path sourceDir = documentDir.resolve(sourceDocument.getName());
 
             Files.createDirectories(sourceDir);
 
-            // Dump source documents
-            Path sourceDocumentPath = sourceDir.resolve("source.xmi");
-            try (CasStorageSession session = CasStorageSession.openNested();
-                    OutputStream out = Files.newOutputStream(sourceDocumentPath)) {
-                CAS cas = documentService.createOrReadInitialCas(sourceDocument);
-                CasIOUtils.save(WebAnnoCasUtil.getRealCas(cas), out, SerialFormat.XMI);
-            }
+            // Dump source documents and initial cas
+            var initialCasTimestamp = casStorageService.getCasTimestamp(sourceDocument,
+                    INITIAL_CAS_PSEUDO_USER);
+            for (var fileName : List.of("source.xmi", "initial.xmi")) {
+                Path initialCasPath = sourceDir.resolve(fileName);
+                exportedFiles.add(initialCasPath);
+                if (isUnchanged(previousState, newState, repoDir, initialCasPath,
+                        initialCasTimestamp)) {
+                    continue;
+                }
 
-            // Dump initial cas
-            Path initialCasPath = sourceDir.resolve("initial.xmi");
-            try (CasStorageSession session = CasStorageSession.openNested();
-                    OutputStream out = Files.newOutputStream(initialCasPath)) {
-                CAS cas = documentService.createOrReadInitialCas(sourceDocument);
-                CasIOUtils.save(WebAnnoCasUtil.getRealCas(cas), out, SerialFormat.XMI);
+                try (CasStorageSession session = CasStorageSession.openNested();
+                        OutputStream out = Files.newOutputStream(initialCasPath)) {
+                    CAS cas = documentService.createOrReadInitialCas(sourceDocument);
+                    CasIOUtils.save(WebAnnoCasUtil.getRealCas(cas), out, SerialFormat.XMI);
+                }
+                exportedCount++;
             }
 
             // Dump curation cas
             Path curationCasPath = sourceDir.resolve("curation.xmi");
-            try (CasStorageSession session = CasStorageSession.openNested();
-                    OutputStream out = Files.newOutputStream(curationCasPath)) {
-                if (curationDocumentService.existsCurationCas(sourceDocument)) {
-                    CAS cas = curationDocumentService.readCurationCas(sourceDocument);
-                    CasIOUtils.save(WebAnnoCasUtil.getRealCas(cas), out, SerialFormat.XMI);
+            exportedFiles.add(curationCasPath);
+            var curationCasTimestamp = casStorageService.getCasTimestamp(sourceDocument,
+                    CURATION_USER);
+            if (!isUnchanged(previousState, newState, repoDir, curationCasPath,
+                    curationCasTimestamp)) {
+                try (CasStorageSession session = CasStorageSession.openNested();
+                        OutputStream out = Files.newOutputStream(curationCasPath)) {
+                    if (curationDocumentService.existsCurationCas(sourceDocument)) {
+                        CAS cas = curationDocumentService.readCurationCas(sourceDocument);
+                        CasIOUtils.save(WebAnnoCasUtil.getRealCas(cas), out, SerialFormat.XMI);
+                    }
                 }
+                exportedCount++;
             }
 
             // Dump annotation documents
@@ -166,19 +256,114 @@ public class VersioningServiceImpl
 
                 String userName = annotationDocument.getUser();
                 Path annotationDocumentPath = sourceDir.resolve(userName + ".xmi");
+                exportedFiles.add(annotationDocumentPath);
+
+                var casTimestamp = casStorageService.getCasTimestamp(sourceDocument, userName);
+                if (isUnchanged(previousState, newState, repoDir, annotationDocumentPath,
+                        casTimestamp)) {
+                    continue;
+                }
 
                 try (CasStorageSession session = CasStorageSession.openNested();
                         OutputStream out = Files.newOutputStream(annotationDocumentPath)) {
                     CAS cas = casStorageService.readCas(annotationDocument.getDocument(), userName);
                     CasIOUtils.save(WebAnnoCasUtil.getRealCas(cas), out, SerialFormat.XMI);
                 }
+                exportedCount++;
             }
+
+            progress++;
+        }
+
+        // Remove documents and annotation documents that no longer exist in the project
+        removeStaleFiles(documentDir, exportedFiles);
+
+        if (aMonitor != null) {
+            aMonitor.setProgressWithMessage(progress, sourceDocuments.size(),
+                    LogMessage.info(this, "Committing %d changed files", exportedCount));
         }
 
-        git.add().addFilepattern(DOCUMENT_FOLDER).call();
-        git.add().addFilepattern(LAYERS).call();
+        aGit.add().addFilepattern(DOCUMENT_FOLDER).call();
+        aGit.add().setUpdate(true).addFilepattern(DOCUMENT_FOLDER).call();
+        aGit.add().addFilepattern(LAYERS).call();
+
+        commit(aGit, aCommitMessage, aAuthor);
+
+        saveSnapshotState(aGit, newState);
+
+        log.debug("Snapshot of project [{}]({}) exported {} changed files", aProject.getName(),
+                aProject.getId(), exportedCount);
+
+        return true;
+    }
+
+    /**
+     * Checks whether the given file has already been exported from a CAS with the given timestamp
+     * by a previous snapshot. The timestamp is recorded in the new snapshot state in any case.
+     */
+    private boolean isUnchanged(Properties aPreviousState, Properties aNewState, File aRepoDir,
+            Path aFile, Optional<Long> aCasTimestamp)
+    {
+        var key = aRepoDir.toPath().relativize(aFile).toString();
+
+        // If we do not know the timestamp, we cannot tell if the file changed - so we export it
+        // and do not record any timestamp
+        if (aCasTimestamp.isEmpty()) {
+            return false;
+        }
+
+        aNewState.setProperty(key, String.valueOf(aCasTimestamp.get()));
+
+        return Files.exists(aFile)
+                && String.valueOf(aCasTimestamp.get()).equals(aPreviousState.getProperty(key));
+    }
 
-        commit(git, aCommitMessage);
+    private void removeStaleFiles(Path aDocumentDir, Set<Path> aExportedFiles) throws IOException
+    {
+        if (!Files.isDirectory(aDocumentDir)) {
+            return;
+        }
+
+        try (var files = Files.walk(aDocumentDir)) {
+            var staleFiles = files //
+                    .filter(Files::isRegularFile) //
+                    .filter(f -> !aExportedFiles.contains(f)) //
+                    .toList();
+            for (var file : staleFiles) {
+                Files.delete(file);
+            }
+        }
+
+        try (var dirs = Files.list(aDocumentDir)) {
+            for (var dir : dirs.filter(Files::isDirectory).toList()) {
+                try (var content = Files.list(dir)) {
+                    if (content.findAny().isEmpty()) {
+                        Files.delete(dir);
+                    }
+                }
+            }
+        }
+    }
+
+    private Properties loadSnapshotState(Git aGit) throws IOException
+    {
+        var state = new Properties();
+        var stateFile = new File(aGit.getRepository().getDirectory(), SNAPSHOT_STATE);
+        if (stateFile.exists()) {
+            try (var in = Files.newInputStream(stateFile.toPath())) {
+                state.load(in);
+            }
+        }
+        return state;
+    }
+
+    private void saveSnapshotState(Git aGit, Properties aState) throws IOException
+    {
+        // The state is kept in the .git folder so that it is not part of the snapshots
+        var stateFile = new File(aGit.getRepository().getDirectory(), SNAPSHOT_STATE);
+        try (var out = Files.newOutputStream(stateFile.toPath())) {
+            aState.store(out, "CAS timestamps of the last snapshot");
+        }
     }
 
     @Override
@@ -261,12 +446,13 @@ public class VersioningServiceImpl
                 .call();
     }
 
-    private void commit(Git aGit, String aMessage) throws GitAPIException
+    private void commit(Git aGit, String aMessage, User aAuthor) throws GitAPIException
     {
-        User user = userDao.getCurrentUser();
+        User user = aAuthor != null ? aAuthor : userDao.getCurrentUser();
 
-        String userName = user.getUsername();
-        String email = user.getEmail();
+        // Automatic snapshots may be triggered by background tasks without a user
+        String userName = user != null ? user.getUsername() : SYSTEM_AUTHOR;
+        String email = user != null ? user.getEmail() : null;
         if (StringUtils.isBlank(email)) {
             email = userName + "@" + "inception";
         }
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.versioning.config;
+
+import java.time.Duration;
+
+public interface VersioningProperties
+{
+    /**
+     * @return whether projects with a versioning repository are snapshotted automatically after
+     *         the state of a document has changed.
+     */
+    boolean isAutoSnapshot();
+
+    /**
+     * @return time to wait after the last document state change before taking an automatic
+     *         snapshot.
+     */
+    Duration getAutoSnapshotDelay();
+
+    /**
+     * @return maximum time an automatic snapshot may be postponed by further document state
+     *         changes.
+     */
+    Duration getAutoSnapshotMaxDelay();
+}
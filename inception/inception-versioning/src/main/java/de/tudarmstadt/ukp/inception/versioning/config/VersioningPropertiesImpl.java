@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.versioning.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("versioning")
+public class VersioningPropertiesImpl
+    implements VersioningProperties
+{
+    private boolean autoSnapshot = true;
+
+    private Duration autoSnapshotDelay = Duration.ofMinutes(1);
+
+    private Duration autoSnapshotMaxDelay = Duration.ofMinutes(15);
+
+    @Override
+    public boolean isAutoSnapshot()
+    {
+        return autoSnapshot;
+    }
+
+    public void setAutoSnapshot(boolean aAutoSnapshot)
+    {
+        autoSnapshot = aAutoSnapshot;
+    }
+
+    @Override
+    public Duration getAutoSnapshotDelay()
+    {
+        return autoSnapshotDelay;
+    }
+
+    public void setAutoSnapshotDelay(Duration aAutoSnapshotDelay)
+    {
+        autoSnapshotDelay = aAutoSnapshotDelay;
+    }
+
+    @Override
+    public Duration getAutoSnapshotMaxDelay()
+    {
+        return autoSnapshotMaxDelay;
+    }
+
+    public void setAutoSnapshotMaxDelay(Duration aAutoSnapshotMaxDelay)
+    {
+        autoSnapshotMaxDelay = aAutoSnapshotMaxDelay;
+    }
+}
@@ -21,6 +21,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -29,14 +30,17 @@ import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.inception.curation.service.CurationDocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.inception.versioning.VersioningService;
 import de.tudarmstadt.ukp.inception.versioning.VersioningServiceImpl;
+import de.tudarmstadt.ukp.inception.versioning.event.VersioningStateWatcher;
 import de.tudarmstadt.ukp.inception.versioning.ui.VersioningMenuItem;
 import de.tudarmstadt.ukp.inception.versioning.ui.VersioningSettingsPanelFactory;
 
 @Configuration
 @ConditionalOnProperty(prefix = "versioning", name = "enabled", havingValue = "true", matchIfMissing = false)
+@EnableConfigurationProperties(VersioningPropertiesImpl.class)
 public class VersioningServiceAutoConfiguration
 {
     private @PersistenceContext EntityManager entityManager;
@@ -51,6 +55,15 @@ public class VersioningServiceAutoConfiguration
                 aDocumentService, aCurationDocumentService, aCasStorageService, aUserDao);
     }
 
+    @Bean
+    public VersioningStateWatcher versioningStateWatcher(SchedulingService aSchedulingService,
+            VersioningService aVersioningService, UserDao aUserDao,
+            VersioningProperties aProperties)
+    {
+        return new VersioningStateWatcher(aSchedulingService, aVersioningService, aUserDao,
+                aProperties);
+    }
+
     @Bean
     public VersioningSettingsPanelFactory versioningSettingsPanelFactory()
     {
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.versioning.event;
+
+import org.springframework.context.event.EventListener;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
+import de.tudarmstadt.ukp.inception.documents.event.AnnotationStateChangeEvent;
+import de.tudarmstadt.ukp.inception.documents.event.DocumentStateChangedEvent;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
+import de.tudarmstadt.ukp.inception.versioning.VersioningService;
+import de.tudarmstadt.ukp.inception.versioning.config.VersioningProperties;
+import de.tudarmstadt.ukp.inception.versioning.config.VersioningServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.versioning.task.SnapshotProjectTask;
+
+/**
+ * Takes a snapshot of projects with a versioning repository after the state of their documents
+ * has changed.
+ * <p>
+ * This class is exposed as a Spring Component via
+ * {@link VersioningServiceAutoConfiguration#versioningStateWatcher}
+ * </p>
+ */
+public class VersioningStateWatcher
+{
+    private final SchedulingService schedulingService;
+    private final VersioningService versioningService;
+    private final UserDao userService;
+    private final VersioningProperties properties;
+
+    public VersioningStateWatcher(SchedulingService aSchedulingService,
+            VersioningService aVersioningService, UserDao aUserService,
+            VersioningProperties aProperties)
+    {
+        schedulingService = aSchedulingService;
+        versioningService = aVersioningService;
+        userService = aUserService;
+        properties = aProperties;
+    }
+
+    @EventListener
+    public void onDocumentStateChangedEvent(DocumentStateChangedEvent aEvent)
+    {
+        scheduleSnapshot(aEvent.getDocument().getProject(), "onDocumentStateChangedEvent");
+    }
+
+    @EventListener
+    public void onAnnotationStateChangeEvent(AnnotationStateChangeEvent aEvent)
+    {
+        scheduleSnapshot(aEvent.getDocument().getProject(), "onAnnotationStateChangeEvent");
+    }
+
+    private void scheduleSnapshot(Project aProject, String aTrigger)
+    {
+        // Versioning is only active for projects for which a repository has been set up
+        if (!properties.isAutoSnapshot() || !versioningService.repoExists(aProject)) {
+            return;
+        }
+
+        schedulingService.enqueue(SnapshotProjectTask.builder() //
+                .withSessionOwner(userService.getCurrentUser()) //
+                .withProject(aProject) //
+                .withTrigger(aTrigger) //
+                .withCommitMessage("Automatic snapshot") //
+                .withDebounceMillis(properties.getAutoSnapshotDelay()) //
+                .withMaxDebounceMillis(properties.getAutoSnapshotMaxDelay()) //
+                .build());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.versioning.task;
+
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.DISCARD_OR_QUEUE_THIS;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.NO_MATCH;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.UNQUEUE_EXISTING_AND_QUEUE_THIS;
+import static de.tudarmstadt.ukp.inception.scheduling.TaskScope.PROJECT;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.Objects;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import de.tudarmstadt.ukp.inception.scheduling.DebouncingTask;
+import de.tudarmstadt.ukp.inception.scheduling.MatchResult;
+import de.tudarmstadt.ukp.inception.scheduling.MatchableTask;
+import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.scheduling.TaskState;
+import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
+import de.tudarmstadt.ukp.inception.versioning.VersioningService;
+
+/**
+ * Creates an incremental snapshot of a project in the background. Automatic snapshots are
+ * debounced so that a burst of changes results in a single snapshot.
+ */
+public class SnapshotProjectTask
+    extends DebouncingTask
+    implements MatchableTask
+{
+    public static final String TYPE = "SnapshotProjectTask";
+
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private @Autowired VersioningService versioningService;
+
+    private final String commitMessage;
+
+    public SnapshotProjectTask(Builder<? extends Builder<?>> aBuilder)
+    {
+        super(aBuilder.withType(TYPE).withScope(PROJECT));
+
+        commitMessage = aBuilder.commitMessage;
+    }
+
+    @Override
+    public String getTitle()
+    {
+        return "Snapshotting project...";
+    }
+
+    @Override
+    public void execute()
+    {
+        var monitor = getMonitor();
+
+        try {
+            versioningService.snapshotChangedDocuments(getProject(), getUser().orElse(null),
+                    commitMessage, monitor);
+
+            if (monitor.isCancelled()) {
+                monitor.setState(TaskState.CANCELLED);
+            }
+        }
+        catch (IOException | GitAPIException e) {
+            LOG.error("Error snapshotting project {}", getProject(), e);
+            monitor.addMessage(LogMessage.error(this, "Error snapshotting project: %s",
+                    ExceptionUtils.getRootCauseMessage(e)));
+            monitor.setState(TaskState.FAILED);
+        }
+    }
+
+    @Override
+    public MatchResult matches(Task aTask)
+    {
+        if (aTask instanceof SnapshotProjectTask) {
+            if (Objects.equals(aTask.getProject().getId(), getProject().getId())) {
+                // A snapshot which is about to start will pick up all changes anyway
+                if (aTask.isReadyToStart()) {
+                    return DISCARD_OR_QUEUE_THIS;
+                }
+
+                // Otherwise, this task replaces the one still waiting for its debounce delay
+                return UNQUEUE_EXISTING_AND_QUEUE_THIS;
+            }
+        }
+
+        return NO_MATCH;
+    }
+
+    public static Builder<Builder<?>> builder()
+    {
+        return new Builder<>();
+    }
+
+    public static class Builder<T extends Builder<?>>
+        extends DebouncingTask.Builder<T>
+    {
+        private String commitMessage;
+
+        protected Builder()
+        {
+            withCancellable(true);
+        }
+
+        @SuppressWarnings("unchecked")
+        public T withCommitMessage(String aCommitMessage)
+        {
+            commitMessage = aCommitMessage;
+            return (T) this;
+        }
+
+        public SnapshotProjectTask build()
+        {
+            return new SnapshotProjectTask(this);
+        }
+    }
+}
@@ -36,10 +36,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.clarin.webanno.ui.core.settings.ProjectSettingsPanelBase;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.support.lambda.LambdaAjaxButton;
 import de.tudarmstadt.ukp.inception.support.lambda.LambdaAjaxLink;
 import de.tudarmstadt.ukp.inception.versioning.VersioningService;
+import de.tudarmstadt.ukp.inception.versioning.task.SnapshotProjectTask;
 
 public class VersioningSettingsPanel
     extends ProjectSettingsPanelBase
@@ -49,6 +52,8 @@ public class VersioningSettingsPanel
     private static final Logger LOG = LoggerFactory.getLogger(VersioningSettingsPanel.class);
 
     private @SpringBean VersioningService versioningService;
+    private @SpringBean SchedulingService schedulingService;
+    private @SpringBean UserDao userService;
 
     private IModel<RepositoryConfig> repositoryConfigModel;
     private IModel<PushConfig> pushConfigModel;
@@ -125,17 +130,14 @@ public class VersioningSettingsPanel
 
     private void actionSnapshotProject(AjaxRequestTarget aTarget)
     {
-        try {
-            versioningService.snapshotCompleteProject(getModelObject(), "Snapshotting");
-            aTarget.add(this);
-            success("Snapshotting successful!");
-        }
-        catch (IOException | GitAPIException e) {
-            Project project = getModelObject();
-            LOG.error("Error snapshotting project [{}]({})", project.getName(), project.getId(), e);
-            error("Error snapshotting project: " + ExceptionUtils.getRootCauseMessage(e));
-        }
-
+        schedulingService.enqueue(SnapshotProjectTask.builder() //
+                .withSessionOwner(userService.getCurrentUser()) //
+                .withProject(getModelObject()) //
+                .withTrigger("Versioning settings") //
+                .withCommitMessage("Snapshotting") //
+                .build());
+
+        info("Snapshotting started in the background");
         aTarget.addChildren(getPage(), IFeedback.class);
     }
 
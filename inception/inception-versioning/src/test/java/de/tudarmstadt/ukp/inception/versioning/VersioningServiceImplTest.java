@@ -21,10 +21,12 @@ import static de.tudarmstadt.ukp.clarin.webanno.model.PermissionLevel.ANNOTATOR;
 import static de.tudarmstadt.ukp.clarin.webanno.model.PermissionLevel.CURATOR;
 import static de.tudarmstadt.ukp.clarin.webanno.model.PermissionLevel.MANAGER;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 import java.io.File;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
@@ -67,6 +69,8 @@ import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfigur
 import de.tudarmstadt.ukp.inception.export.config.DocumentImportExportServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.io.xmi.config.UimaFormatsAutoConfiguration;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.TaskMonitor;
+import de.tudarmstadt.ukp.inception.scheduling.config.SchedulingServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.schema.config.AnnotationSchemaServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.versioning.config.VersioningServiceAutoConfiguration;
 
@@ -77,6 +81,7 @@ import de.tudarmstadt.ukp.inception.versioning.config.VersioningServiceAutoConfi
                 "spring.main.banner-mode=off", //
                 "repository.path=" + VersioningServiceImplTest.TEST_OUTPUT_FOLDER, //
                 "versioning.enabled=true", //
+                "versioning.auto-snapshot=false", //
                 "debug.cas-doctor.force-release-behavior=true", //
                 "document-import.run-cas-doctor-on-import=OFF" })
 @EnableAutoConfiguration
@@ -95,6 +100,7 @@ import de.tudarmstadt.ukp.inception.versioning.config.VersioningServiceAutoConfi
         DocumentServiceAutoConfiguration.class, //
         DocumentImportExportServiceAutoConfiguration.class, //
         VersioningServiceAutoConfiguration.class, //
+        SchedulingServiceAutoConfiguration.class, //
         SecurityAutoConfiguration.class })
 public class VersioningServiceImplTest
 {
@@ -205,6 +211,42 @@ public class VersioningServiceImplTest
         );
     }
 
+    @Test
+    @WithMockUser(username = "admin")
+    public void incrementalSnapshot_ShouldOnlyExportChangedDocuments() throws Exception
+    {
+        createProject(testProject);
+        User admin = createAdmin();
+        User annotator = createAnnotator();
+        uploadDocuments();
+        createAnnotationDocuments(admin);
+
+        sut.snapshotChangedDocuments(testProject, admin, "First snapshot",
+                mock(TaskMonitor.class));
+
+        // Tamper with an exported file - since the CAS did not change, the next incremental
+        // snapshot must not overwrite it
+        Path documentDir = sut.getRepoDir(testProject).toPath().resolve("document");
+        Path adminDinos = documentDir.resolve("dinos.txt").resolve("admin.xmi");
+        Files.writeString(adminDinos, "unchanged");
+
+        createAnnotationDocuments(annotator);
+
+        sut.snapshotChangedDocuments(testProject, admin, "Second snapshot",
+                mock(TaskMonitor.class));
+
+        assertThat(adminDinos).hasContent("unchanged");
+        assertThat(documentDir.resolve("dinos.txt").resolve("annotator.xmi")).isNotEmptyFile();
+        assertThat(documentDir.resolve("lorem.txt").resolve("annotator.xmi")).isNotEmptyFile();
+
+        Git git = Git.open(sut.getRepoDir(testProject));
+        List<RevCommit> commits = StreamSupport.stream(git.log() //
+                .call().spliterator(), false) //
+                .collect(Collectors.toList());
+        assertThat(commits).extracting(RevCommit::getShortMessage) //
+                .containsExactly("Second snapshot", "First snapshot");
+    }
+
     @Test
     @WithMockUser(username = "admin")
     public void pushingRepository_WithLocalRemote_ShouldPushFiles() throws Exception
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.versioning.event;
+
+import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.NEW;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.DISCARD_OR_QUEUE_THIS;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.UNQUEUE_EXISTING_AND_QUEUE_THIS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
+import de.tudarmstadt.ukp.inception.documents.event.DocumentStateChangedEvent;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
+import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.versioning.VersioningService;
+import de.tudarmstadt.ukp.inception.versioning.config.VersioningPropertiesImpl;
+import de.tudarmstadt.ukp.inception.versioning.task.SnapshotProjectTask;
+
+@ExtendWith(MockitoExtension.class)
+class VersioningStateWatcherTest
+{
+    private @Mock SchedulingService schedulingService;
+    private @Mock VersioningService versioningService;
+    private @Mock UserDao userService;
+
+    private VersioningPropertiesImpl properties;
+    private VersioningStateWatcher sut;
+    private Project project;
+    private SourceDocument document;
+
+    @BeforeEach
+    void setup()
+    {
+        properties = new VersioningPropertiesImpl();
+        properties.setAutoSnapshotDelay(Duration.ofMinutes(1));
+
+        sut = new VersioningStateWatcher(schedulingService, versioningService, userService,
+                properties);
+
+        project = new Project("test");
+        project.setId(1l);
+        document = new SourceDocument("doc", project, "text");
+    }
+
+    @Test
+    void thatDebouncedSnapshotIsScheduledAfterDocumentStateChange()
+    {
+        when(versioningService.repoExists(project)).thenReturn(true);
+
+        sut.onDocumentStateChangedEvent(new DocumentStateChangedEvent(this, document, NEW));
+
+        var captor = ArgumentCaptor.forClass(Task.class);
+        verify(schedulingService).enqueue(captor.capture());
+        assertThat(captor.getValue()).isInstanceOf(SnapshotProjectTask.class);
+        assertThat(captor.getValue().getProject()).isEqualTo(project);
+        assertThat(captor.getValue().isReadyToStart()).isFalse();
+    }
+
+    @Test
+    void thatNoSnapshotIsScheduledWithoutRepository()
+    {
+        when(versioningService.repoExists(project)).thenReturn(false);
+
+        sut.onDocumentStateChangedEvent(new DocumentStateChangedEvent(this, document, NEW));
+
+        verify(schedulingService, never()).enqueue(any());
+    }
+
+    @Test
+    void thatNoSnapshotIsScheduledWhenDisabled()
+    {
+        properties.setAutoSnapshot(false);
+
+        sut.onDocumentStateChangedEvent(new DocumentStateChangedEvent(this, document, NEW));
+
+        verify(schedulingService, never()).enqueue(any());
+    }
+
+    @Test
+    void thatPendingAutomaticSnapshotIsReplacedButImmediateSnapshotIsKept()
+    {
+        var pending = SnapshotProjectTask.builder() //
+                .withProject(project) //
+                .withTrigger("test") //
+                .withDebounceMillis(Duration.ofMinutes(1)) //
+                .build();
+        var immediate = SnapshotProjectTask.builder() //
+                .withProject(project) //
+                .withTrigger("test") //
+                .build();
+
+        assertThat(pending.matches(pending)).isEqualTo(UNQUEUE_EXISTING_AND_QUEUE_THIS);
+        assertThat(immediate.matches(pending)).isEqualTo(UNQUEUE_EXISTING_AND_QUEUE_THIS);
+        assertThat(pending.matches(immediate)).isEqualTo(DISCARD_OR_QUEUE_THIS);
+    }
+}
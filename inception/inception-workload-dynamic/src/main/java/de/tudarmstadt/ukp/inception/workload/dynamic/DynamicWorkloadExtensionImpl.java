@@ -29,6 +29,7 @@ import static de.tudarmstadt.ukp.inception.support.json.JSONUtil.fromJsonString;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -37,11 +38,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import javax.persistence.NoResultException;
+
 import org.apache.uima.UIMAException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -56,7 +61,10 @@ import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentStateStats;
+import de.tudarmstadt.ukp.inception.documents.event.AnnotationStateChangeEvent;
+import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
 import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 import de.tudarmstadt.ukp.inception.workload.dynamic.config.DynamicWorkloadManagerAutoConfiguration;
 import de.tudarmstadt.ukp.inception.workload.dynamic.trait.DynamicWorkloadTraits;
@@ -75,6 +83,9 @@ import de.tudarmstadt.ukp.inception.workload.model.WorkloadManager;
 public class DynamicWorkloadExtensionImpl
     implements DynamicWorkloadExtension
 {
+    private static final Duration RESERVATION_TIMEOUT = Duration.ofMinutes(1);
+    private static final Duration MAX_FRESHEN_INTERVAL = Duration.ofMinutes(1);
+
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
     private final WorkloadManagementService workloadManagementService;
@@ -84,6 +95,10 @@ public class DynamicWorkloadExtensionImpl
     private final UserDao userRepository;
     private final SessionRegistry sessionRegistry;
 
+    private final Map<Long, Object> projectLocks = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Instant>> reservations = new ConcurrentHashMap<>();
+    private final Map<Long, Instant> lastFreshened = new ConcurrentHashMap<>();
+
     public DynamicWorkloadExtensionImpl(WorkloadManagementService aWorkloadManagementService,
             WorkflowExtensionPoint aWorkflowExtensionPoint, DocumentService aDocumentService,
             ProjectService aProjectService, UserDao aUserRepository,
@@ -173,10 +188,6 @@ public class DynamicWorkloadExtensionImpl
             return Optional.of(inProgressDocuments.get(0).getDocument());
         }
 
-        // Make sure that any documents that could be eligible for annotation due to having been
-        // abandoned by another user are available
-        freshenStatus(aProject);
-
         WorkloadManager currentWorkload = workloadManagementService
                 .loadOrCreateWorkloadManagerConfiguration(aProject);
 
@@ -187,6 +198,13 @@ public class DynamicWorkloadExtensionImpl
                 .getExtension(traits.getWorkflowType()) //
                 .orElseGet(DefaultWorkflowExtension::new);
 
+        // Make sure that any documents that could be eligible for annotation due to having been
+        // abandoned by another user are available. This is expensive, so we do not do it on
+        // every request.
+        if (isFreshenStatusDue(aProject, traits)) {
+            freshenStatus(aProject);
+        }
+
         // Get all documents for which the state is NEW, or which have not been created yet.
         List<SourceDocument> sourceDocuments = documentService
                 .listAnnotatableDocuments(aProject, aUser).entrySet().stream()
@@ -197,21 +215,112 @@ public class DynamicWorkloadExtensionImpl
         // Rearrange list of documents according to current workflow
         sourceDocuments = currentWorkflowExtension.rankDocuments(sourceDocuments);
 
-        for (SourceDocument doc : sourceDocuments) {
-            // FIXME: repeated query to DB should be optimized into a single query returning
-            // a map of documents / annotator counts
-
-            // Check if there are less annotators working on the selected document than
-            // the target number of annotation set by the project manager
-            if ((workloadManagementService.getNumberOfUsersWorkingOnADocument(doc)) < (traits
-                    .getDefaultNumberOfAnnotations())) {
-                return Optional.of(doc);
+        // Counting and reserving happens under a per-project lock, so that concurrent requests
+        // do not hand out a document to more annotators than required
+        synchronized (projectLocks.computeIfAbsent(aProject.getId(), _id -> new Object())) {
+            Map<Long, Long> annotatorCounts = workloadManagementService
+                    .getNumberOfUsersWorkingOnDocuments(aProject);
+            Instant now = Instant.now();
+
+            for (SourceDocument doc : sourceDocuments) {
+                // Check if there are less annotators working on the selected document than
+                // the target number of annotation set by the project manager. Documents which
+                // were just handed out to other annotators but not opened yet count as well.
+                long annotatorCount = annotatorCounts.getOrDefault(doc.getId(), 0l)
+                        + countReservationsByOtherUsers(doc, aUser, now);
+                if (annotatorCount < traits.getDefaultNumberOfAnnotations()) {
+                    reservations.computeIfAbsent(doc.getId(), _id -> new ConcurrentHashMap<>())
+                            .put(aUser.getUsername(), now.plus(RESERVATION_TIMEOUT));
+                    return Optional.of(doc);
+                }
             }
         }
 
         return Optional.empty();
     }
 
+    private long countReservationsByOtherUsers(SourceDocument aDocument, User aUser,
+            Instant aNow)
+    {
+        // Drop expired reservations and forget the document entirely once none are left
+        var docReservations = reservations.computeIfPresent(aDocument.getId(), (_id, users) -> {
+            users.values().removeIf(expiry -> expiry.isBefore(aNow));
+            return users.isEmpty() ? null : users;
+        });
+
+        if (docReservations == null) {
+            return 0;
+        }
+
+        return docReservations.keySet().stream() //
+                .filter(username -> !username.equals(aUser.getUsername())) //
+                .count();
+    }
+
+    private boolean isFreshenStatusDue(Project aProject, DynamicWorkloadTraits aTraits)
+    {
+        Duration abandonationTimeout = aTraits.getAbandonationTimeout();
+
+        // If the duration is not positive, then freshening would not do anything anyway
+        if (abandonationTimeout.isZero() || abandonationTimeout.isNegative()) {
+            return false;
+        }
+
+        Duration interval = abandonationTimeout.dividedBy(10);
+        if (interval.compareTo(MAX_FRESHEN_INTERVAL) > 0) {
+            interval = MAX_FRESHEN_INTERVAL;
+        }
+
+        Instant now = Instant.now();
+        Instant threshold = now.minus(interval);
+        boolean[] due = { false };
+        lastFreshened.compute(aProject.getId(), (_id, last) -> {
+            if (last == null || last.isBefore(threshold)) {
+                due[0] = true;
+                return now;
+            }
+            return last;
+        });
+
+        return due[0];
+    }
+
+    /**
+     * Once the annotation document of a user changes state, the DB query counts the user, so the
+     * reservation can be released.
+     * 
+     * @param aEvent
+     *            the event.
+     */
+    @EventListener
+    public void onAnnotationStateChangeEvent(AnnotationStateChangeEvent aEvent)
+    {
+        var annDoc = aEvent.getAnnotationDocument();
+        reservations.computeIfPresent(annDoc.getDocument().getId(), (_id, users) -> {
+            users.remove(annDoc.getUser());
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    @EventListener
+    public void onBeforeDocumentRemovedEvent(BeforeDocumentRemovedEvent aEvent)
+    {
+        reservations.remove(aEvent.getDocument().getId());
+    }
+
+    @EventListener
+    public void onBeforeProjectRemovedEvent(BeforeProjectRemovedEvent aEvent)
+    {
+        var project = aEvent.getProject();
+
+        for (var doc : documentService.listSourceDocuments(project)) {
+            reservations.remove(doc.getId());
+        }
+
+        lastFreshened.remove(project.getId());
+        projectLocks.remove(project.getId());
+    }
+
     @Override
     @Transactional
     public ProjectState recalculate(Project aProject)
@@ -232,6 +341,34 @@ public class DynamicWorkloadExtensionImpl
         return project.getState();
     }
 
+    @Override
+    @Transactional
+    public ProjectState updateDocumentStates(Project aProject,
+            Collection<SourceDocument> aDocuments)
+    {
+        WorkloadManager currentWorkload = workloadManagementService
+                .loadOrCreateWorkloadManagerConfiguration(aProject);
+        DynamicWorkloadTraits traits = readTraits(currentWorkload);
+
+        for (SourceDocument doc : aDocuments) {
+            try {
+                // Get the latest state
+                updateDocumentState(documentService.getSourceDocument(aProject.getId(),
+                        doc.getId()), traits.getDefaultNumberOfAnnotations());
+            }
+            catch (NoResultException e) {
+                // Document has been deleted in the meantime
+            }
+        }
+
+        // Refresh the project stats and recalculate them
+        Project project = projectService.getProject(aProject.getId());
+        SourceDocumentStateStats stats = documentService.getSourceDocumentStats(project);
+        projectService.setProjectState(aProject, stats.getProjectState());
+
+        return project.getState();
+    }
+
     @Override
     @Transactional
     public ProjectState freshenStatus(Project aProject)
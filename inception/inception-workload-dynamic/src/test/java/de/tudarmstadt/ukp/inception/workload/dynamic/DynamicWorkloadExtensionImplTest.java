@@ -43,6 +43,7 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.util.FileSystemUtils;
@@ -62,6 +63,7 @@ import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageServiceA
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryAutoConfiguration;
 import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
 import de.tudarmstadt.ukp.inception.scheduling.config.SchedulingServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
@@ -102,6 +104,7 @@ public class DynamicWorkloadExtensionImplTest
     private @Autowired UserDao userService;
     private @Autowired WorkloadManagementService workloadManagementService;
     private @Autowired DynamicWorkloadExtension dynamicWorkloadExtension;
+    private @Autowired ApplicationEventPublisher applicationEventPublisher;
 
     private User annotator;
     private User otherAnnotator;
@@ -215,6 +218,44 @@ public class DynamicWorkloadExtensionImplTest
                 .isPresent().get().isEqualTo("1.txt");
     }
 
+    @Test
+    public void thatDocumentsHandedOutToAnotherUserAreNotReturned() throws Exception
+    {
+        createSourceDocument("1.txt");
+
+        Optional<SourceDocument> nextDoc = dynamicWorkloadExtension.nextDocumentToAnnotate(project,
+                otherAnnotator);
+
+        assertThat(nextDoc) //
+                .map(SourceDocument::getName) //
+                .isPresent().get().isEqualTo("1.txt");
+
+        assertThat(dynamicWorkloadExtension.nextDocumentToAnnotate(project, annotator)) //
+                .as("Document was just handed out to the other user") //
+                .isNotPresent();
+
+        assertThat(dynamicWorkloadExtension.nextDocumentToAnnotate(project, otherAnnotator)) //
+                .as("Document can be handed out to the same user again") //
+                .map(SourceDocument::getName) //
+                .isPresent().get().isEqualTo("1.txt");
+    }
+
+    @Test
+    public void thatReservationsAreDroppedWhenDocumentIsRemoved() throws Exception
+    {
+        var doc = createSourceDocument("1.txt");
+
+        assertThat(dynamicWorkloadExtension.nextDocumentToAnnotate(project, otherAnnotator)) //
+                .isPresent();
+
+        applicationEventPublisher.publishEvent(new BeforeDocumentRemovedEvent(this, doc));
+
+        assertThat(dynamicWorkloadExtension.nextDocumentToAnnotate(project, annotator)) //
+                .as("Reservation of the other user was dropped") //
+                .map(SourceDocument::getName) //
+                .isPresent().get().isEqualTo("1.txt");
+    }
+
     private SourceDocument createSourceDocument(String aName)
     {
         return documentService
@@ -23,13 +23,21 @@ import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.ANNOTA
 import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.ANNOTATION_IN_PROGRESS;
 import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.CURATION_FINISHED;
 import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.CURATION_IN_PROGRESS;
+import static de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState.NEW;
 
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.NoResultException;
 
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.model.IModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,8 +49,14 @@ import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState;
 import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentStateStats;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentCreatedEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AnnotationStateChangeEvent;
+import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
+import de.tudarmstadt.ukp.inception.documents.event.DocumentStateChangedEvent;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
 import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
+import de.tudarmstadt.ukp.inception.workload.event.WorkloadManagerConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.workload.matrix.config.MatrixWorkloadManagerAutoConfiguration;
 import de.tudarmstadt.ukp.inception.workload.matrix.trait.MatrixWorkloadTraits;
 import de.tudarmstadt.ukp.inception.workload.matrix.trait.MatrixWorkloadTraitsEditor;
@@ -68,6 +82,35 @@ public class MatrixWorkloadExtensionImpl
     private final ProjectService projectService;
     private final UserDao userRepository;
 
+    /**
+     * Documents per project in which the state of an annotation document has changed, but the
+     * source document state has not yet been updated. Only projects using this workload manager
+     * are tracked.
+     */
+    private final Map<Long, Set<Long>> pendingDocuments = new ConcurrentHashMap<>();
+
+    /**
+     * Projects of which the state of all documents has been recalculated since startup. The
+     * pending documents are only tracked in memory, so changes made before a restart are only
+     * picked up by such a recalculation.
+     */
+    private final Set<Long> recalculatedProjects = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether a project uses this workload manager. Dropped when the workload manager configuration
+     * of the project changes.
+     */
+    private final Map<Long, Boolean> matrixProjects = new ConcurrentHashMap<>();
+
+    /**
+     * Number of source documents per state in projects using this workload manager. Initialized
+     * from the database and then kept up to date by applying the document state changes, so the
+     * project state can be derived without looking at all documents again. Dropped when documents
+     * are added or removed.
+     */
+    private final Map<Long, Map<SourceDocumentState, Long>> documentStateCounts = //
+            new ConcurrentHashMap<>();
+
     public MatrixWorkloadExtensionImpl(WorkloadManagementService aWorkloadManagementService,
             DocumentService aDocumentService, ProjectService aProjectService,
             UserDao aUserRepository)
@@ -160,6 +203,10 @@ public class MatrixWorkloadExtensionImpl
     @Transactional
     public ProjectState recalculate(Project aProject)
     {
+        // We look at all documents anyway
+        pendingDocuments.remove(aProject.getId());
+        recalculatedProjects.add(aProject.getId());
+
         var projectUsers = projectService.listProjectUsersWithPermissions(aProject);
         int annotatorCount = projectUsers.size();
         var annDocs = documentService.listAnnotationDocuments(aProject);
@@ -176,7 +223,8 @@ public class MatrixWorkloadExtensionImpl
 
         // Refresh the project stats and recalculate them
         Project project = projectService.getProject(aProject.getId());
-        SourceDocumentStateStats stats = documentService.getSourceDocumentStats(project);
+        documentStateCounts.remove(aProject.getId());
+        SourceDocumentStateStats stats = getDocumentStateStats(project);
         projectService.setProjectState(aProject, stats.getProjectState());
 
         return project.getState();
@@ -184,22 +232,13 @@ public class MatrixWorkloadExtensionImpl
 
     @Override
     @Transactional
-    public ProjectState freshenStatus(Project aProject)
+    public ProjectState updateDocumentStates(Project aProject,
+            Collection<SourceDocument> aDocuments)
     {
-        var projectUsers = projectService.listProjectUsersWithPermissions(aProject);
-        int annotatorCount = projectUsers.size();
-        var annDocs = documentService.listAnnotationDocuments(aProject);
-
-        // Update the annotation document and source document states for the abandoned documents
-        for (var doc : documentService.listSourceDocumentsInState(aProject,
-                ANNOTATION_IN_PROGRESS)) {
-            if (isInCuration(doc)) {
-                continue;
-            }
-
-            var stats = documentService.getAnnotationDocumentStats(doc, annDocs, projectUsers);
+        int annotatorCount = projectService.listProjectUsersWithPermissions(aProject).size();
 
-            setSourceDocumentStateBasedOnStats(doc, annotatorCount, stats);
+        for (var doc : aDocuments) {
+            updateDocumentState(aProject, doc.getId(), annotatorCount);
         }
 
         // Refresh the project stats and recalculate them
@@ -210,10 +249,159 @@ public class MatrixWorkloadExtensionImpl
         return project.getState();
     }
 
+    /**
+     * The states of the documents are maintained incrementally as annotation document states
+     * change, so here we only need to catch up on the documents which have changed but not been
+     * updated yet. Use {@link #recalculate} to repair the state of all documents.
+     */
+    @Override
+    @Transactional
+    public ProjectState freshenStatus(Project aProject)
+    {
+        // Pending documents from before a restart are unknown, so the first time the status of a
+        // project is freshened, we need to look at all documents
+        if (!recalculatedProjects.contains(aProject.getId())) {
+            return recalculate(aProject);
+        }
+
+        var pending = pendingDocuments.remove(aProject.getId());
+
+        if (pending != null && !pending.isEmpty()) {
+            int annotatorCount = projectService.listProjectUsersWithPermissions(aProject).size();
+
+            for (var docId : pending) {
+                updateDocumentState(aProject, docId, annotatorCount);
+            }
+        }
+
+        // The document state counts have been kept up to date while the documents were updated
+        SourceDocumentStateStats stats = getDocumentStateStats(aProject);
+        projectService.setProjectState(aProject, stats.getProjectState());
+
+        return aProject.getState();
+    }
+
+    private SourceDocumentStateStats getDocumentStateStats(Project aProject)
+    {
+        var counts = documentStateCounts.computeIfAbsent(aProject.getId(), _id -> {
+            var stats = documentService.getSourceDocumentStats(aProject);
+            var initialCounts = new EnumMap<SourceDocumentState, Long>(SourceDocumentState.class);
+            initialCounts.put(NEW, stats.getNewAnnotations());
+            initialCounts.put(ANNOTATION_IN_PROGRESS, stats.getAnnotationsInProgress());
+            initialCounts.put(ANNOTATION_FINISHED, stats.getFinishedAnnotations());
+            initialCounts.put(CURATION_IN_PROGRESS, stats.getCurationsInProgress());
+            initialCounts.put(CURATION_FINISHED, stats.getCurationsFinished());
+            return initialCounts;
+        });
+
+        return new SourceDocumentStateStats(
+                counts.values().stream().mapToLong(Long::longValue).sum(), counts.get(NEW),
+                counts.get(ANNOTATION_IN_PROGRESS), counts.get(ANNOTATION_FINISHED),
+                counts.get(CURATION_IN_PROGRESS), counts.get(CURATION_FINISHED));
+    }
+
+    private boolean isMatrixProject(Project aProject)
+    {
+        return matrixProjects.computeIfAbsent(aProject.getId(),
+                _id -> MATRIX_WORKLOAD_MANAGER_EXTENSION_ID.equals(workloadManagementService
+                        .loadOrCreateWorkloadManagerConfiguration(aProject).getType()));
+    }
+
+    private void updateDocumentState(Project aProject, long aDocumentId, int aAnnotatorCount)
+    {
+        SourceDocument doc;
+        try {
+            // Get the latest state
+            doc = documentService.getSourceDocument(aProject.getId(), aDocumentId);
+        }
+        catch (NoResultException e) {
+            // Document has been deleted in the meantime
+            return;
+        }
+
+        updateDocumentState(doc, aAnnotatorCount);
+    }
+
+    @EventListener
+    public void onAnnotationStateChangeEvent(AnnotationStateChangeEvent aEvent)
+    {
+        var doc = aEvent.getDocument();
+        var project = doc.getProject();
+
+        if (!isMatrixProject(project)) {
+            return;
+        }
+
+        pendingDocuments.computeIfAbsent(project.getId(), _id -> ConcurrentHashMap.newKeySet())
+                .add(doc.getId());
+    }
+
+    @EventListener
+    public void onDocumentStateChangedEvent(DocumentStateChangedEvent aEvent)
+    {
+        // Documents without a state are counted as in progress by the database query
+        var previousState = aEvent.getPreviousState() != null ? aEvent.getPreviousState()
+                : ANNOTATION_IN_PROGRESS;
+        var newState = aEvent.getNewState() != null ? aEvent.getNewState()
+                : ANNOTATION_IN_PROGRESS;
+
+        documentStateCounts.computeIfPresent(aEvent.getDocument().getProject().getId(),
+                (_id, counts) -> {
+                    var newCounts = new EnumMap<>(counts);
+                    newCounts.merge(previousState, -1l, Long::sum);
+                    newCounts.merge(newState, 1l, Long::sum);
+                    return newCounts;
+                });
+    }
+
+    @EventListener
+    public void onAfterDocumentCreatedEvent(AfterDocumentCreatedEvent aEvent)
+    {
+        documentStateCounts.remove(aEvent.getDocument().getProject().getId());
+    }
+
+    @EventListener
+    public void onBeforeDocumentRemovedEvent(BeforeDocumentRemovedEvent aEvent)
+    {
+        documentStateCounts.remove(aEvent.getDocument().getProject().getId());
+    }
+
+    @EventListener
+    public void onWorkloadManagerConfigurationChangedEvent(
+            WorkloadManagerConfigurationChangedEvent aEvent)
+    {
+        var projectId = aEvent.getProject().getId();
+        matrixProjects.put(projectId,
+                MATRIX_WORKLOAD_MANAGER_EXTENSION_ID.equals(aEvent.getType()));
+        // The project may have used this workload manager before
+        pendingDocuments.remove(projectId);
+        documentStateCounts.remove(projectId);
+        recalculatedProjects.remove(projectId);
+    }
+
+    @EventListener
+    public void onBeforeProjectRemovedEvent(BeforeProjectRemovedEvent aEvent)
+    {
+        pendingDocuments.remove(aEvent.getProject().getId());
+        recalculatedProjects.remove(aEvent.getProject().getId());
+        matrixProjects.remove(aEvent.getProject().getId());
+        documentStateCounts.remove(aEvent.getProject().getId());
+    }
+
+    Set<Long> getPendingDocuments(Project aProject)
+    {
+        return pendingDocuments.getOrDefault(aProject.getId(), Set.of());
+    }
+
     @Override
     @Transactional
     public void updateDocumentState(SourceDocument aDocument, int aAnnotatorCount)
     {
+        pendingDocuments.computeIfPresent(aDocument.getProject().getId(), (_id, docIds) -> {
+            docIds.remove(aDocument.getId());
+            return docIds.isEmpty() ? null : docIds;
+        });
+
         if (isInCuration(aDocument)) {
             return;
         }
@@ -49,6 +49,7 @@ import java.util.Set;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.wicket.ajax.AjaxRequestTarget;
@@ -401,7 +402,7 @@ public class MatrixWorkloadManagementPage
                 .collect(toList());
         documentService.bulkSetAnnotationDocumentState(finishedDocuments, IN_PROGRESS);
 
-        matrixWorkloadExtension.recalculate(getProject());
+        updateDocumentStates(lockedDocuments, finishedDocuments);
 
         success(format("The state of %d document(s) has been set to [%s]", lockedDocuments.size(),
                 NEW));
@@ -426,7 +427,7 @@ public class MatrixWorkloadManagementPage
                 .collect(toList());
         documentService.bulkSetAnnotationDocumentState(inProgressDocuments, FINISHED);
 
-        matrixWorkloadExtension.recalculate(getProject());
+        updateDocumentStates(newDocuments, inProgressDocuments);
 
         success(format("The state of %d document(s) has been set to [%s]", newDocuments.size(),
                 IGNORE));
@@ -446,7 +447,7 @@ public class MatrixWorkloadManagementPage
 
         documentService.bulkSetAnnotationDocumentState(newDocuments, IN_PROGRESS);
 
-        matrixWorkloadExtension.recalculate(getProject());
+        updateDocumentStates(newDocuments);
 
         success(format("The state of %d document(s) has been set to [%s]", newDocuments.size(),
                 IN_PROGRESS));
@@ -464,7 +465,7 @@ public class MatrixWorkloadManagementPage
 
         documentService.bulkSetAnnotationDocumentState(newDocuments, IGNORE);
 
-        matrixWorkloadExtension.recalculate(getProject());
+        updateDocumentStates(newDocuments);
 
         success(format("The state of %d document(s) has been set to [%s]", newDocuments.size(),
                 IGNORE));
@@ -482,7 +483,7 @@ public class MatrixWorkloadManagementPage
 
         documentService.bulkSetAnnotationDocumentState(lockedDocuments, NEW);
 
-        matrixWorkloadExtension.recalculate(getProject());
+        updateDocumentStates(lockedDocuments);
 
         success(format("The state of %d document(s) has been set to [%s]", lockedDocuments.size(),
                 NEW));
@@ -500,7 +501,7 @@ public class MatrixWorkloadManagementPage
 
         documentService.bulkSetAnnotationDocumentState(inProgressDocuments, FINISHED);
 
-        matrixWorkloadExtension.recalculate(getProject());
+        updateDocumentStates(inProgressDocuments);
 
         success(format("The state of %d document(s) has been set to [%s]",
                 inProgressDocuments.size(), FINISHED));
@@ -518,7 +519,7 @@ public class MatrixWorkloadManagementPage
 
         documentService.bulkSetAnnotationDocumentState(finishedDocuments, IN_PROGRESS);
 
-        matrixWorkloadExtension.recalculate(getProject());
+        updateDocumentStates(finishedDocuments);
 
         success(format("The state of %d document(s) has been set to [%s]", finishedDocuments.size(),
                 IN_PROGRESS));
@@ -539,6 +540,18 @@ public class MatrixWorkloadManagementPage
         aTarget.add(documentMatrix, toggleBulkChange, actionContainer);
     }
 
+    @SafeVarargs
+    private void updateDocumentStates(Collection<AnnotationDocument>... aChangedDocuments)
+    {
+        var sourceDocuments = Stream.of(aChangedDocuments) //
+                .flatMap(Collection::stream) //
+                .map(AnnotationDocument::getDocument) //
+                .distinct() //
+                .collect(toList());
+
+        matrixWorkloadExtension.updateDocumentStates(getProject(), sourceDocuments);
+    }
+
     private Collection<AnnotationDocument> selectedAnnotationDocuments()
     {
         List<User> annotators = documentMatrix.getColumns().stream() //
@@ -17,6 +17,7 @@
  */
 package de.tudarmstadt.ukp.inception.workload.matrix;
 
+import static de.tudarmstadt.ukp.clarin.webanno.model.PermissionLevel.ANNOTATOR;
 import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTypeSystemDescription;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -24,6 +25,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.util.List;
 
 import org.apache.uima.util.CasCreationUtils;
 import org.junit.jupiter.api.AfterEach;
@@ -42,7 +44,9 @@ import org.springframework.util.FileSystemUtils;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.export.DocumentImportExportService;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.ProjectState;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocumentState;
 import de.tudarmstadt.ukp.clarin.webanno.project.config.ProjectServiceAutoConfiguration;
@@ -55,11 +59,13 @@ import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageServiceA
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryAutoConfiguration;
 import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.documents.event.AnnotationStateChangeEvent;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
 import de.tudarmstadt.ukp.inception.scheduling.config.SchedulingServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.inception.schema.config.AnnotationSchemaServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.workload.config.WorkloadManagementAutoConfiguration;
+import de.tudarmstadt.ukp.inception.workload.event.WorkloadManagerConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.workload.matrix.config.MatrixWorkloadManagerAutoConfiguration;
 import de.tudarmstadt.ukp.inception.workload.model.WorkloadManagementService;
 import de.tudarmstadt.ukp.inception.workload.model.WorkloadManager;
@@ -121,6 +127,7 @@ public class MatrixWorkloadExtensionImplTest
         WorkloadManager workloadManager = workloadManagementService
                 .loadOrCreateWorkloadManagerConfiguration(project);
         workloadManager.setType(MatrixWorkloadExtension.MATRIX_WORKLOAD_MANAGER_EXTENSION_ID);
+        workloadManagementService.saveConfiguration(workloadManager);
     }
 
     @AfterEach
@@ -142,6 +149,102 @@ public class MatrixWorkloadExtensionImplTest
         assertThat(sourceDocument.getState()).isEqualTo(SourceDocumentState.CURATION_IN_PROGRESS);
     }
 
+    @Test
+    public void thatFreshenStatusUpdatesDocumentsWithChangedAnnotationState() throws Exception
+    {
+        projectService.assignRole(project, annotator, ANNOTATOR);
+        documentService.setSourceDocumentState(sourceDocument,
+                SourceDocumentState.ANNOTATION_IN_PROGRESS);
+
+        documentService.setAnnotationDocumentState(annotationDocument,
+                AnnotationDocumentState.FINISHED);
+
+        matrixWorkloadExtension.freshenStatus(project);
+
+        sourceDocument = documentService.getSourceDocument(project.getId(), sourceDocument.getId());
+
+        assertThat(sourceDocument.getState()).isEqualTo(SourceDocumentState.ANNOTATION_FINISHED);
+    }
+
+    @Test
+    public void thatFreshenStatusAfterRestartPicksUpEarlierChanges() throws Exception
+    {
+        projectService.assignRole(project, annotator, ANNOTATOR);
+        documentService.setAnnotationDocumentState(annotationDocument,
+                AnnotationDocumentState.FINISHED);
+        documentService.setSourceDocumentState(sourceDocument,
+                SourceDocumentState.ANNOTATION_IN_PROGRESS);
+
+        // A new instance does not know about the changes made before it was created
+        var restarted = new MatrixWorkloadExtensionImpl(workloadManagementService,
+                documentService, projectService, userService);
+        restarted.freshenStatus(project);
+
+        sourceDocument = documentService.getSourceDocument(project.getId(), sourceDocument.getId());
+
+        assertThat(sourceDocument.getState()).isEqualTo(SourceDocumentState.ANNOTATION_FINISHED);
+    }
+
+    @Test
+    public void thatOnlyDocumentsOfMatrixWorkloadProjectsAreTracked() throws Exception
+    {
+        var impl = new MatrixWorkloadExtensionImpl(workloadManagementService, documentService,
+                projectService, userService);
+        var event = new AnnotationStateChangeEvent(this, annotationDocument,
+                AnnotationDocumentState.NEW);
+
+        impl.onAnnotationStateChangeEvent(event);
+
+        assertThat(impl.getPendingDocuments(project)).containsExactly(sourceDocument.getId());
+
+        var workloadManager = workloadManagementService
+                .loadOrCreateWorkloadManagerConfiguration(project);
+        workloadManager.setType("dynamic");
+        workloadManagementService.saveConfiguration(workloadManager);
+        impl.onWorkloadManagerConfigurationChangedEvent(
+                new WorkloadManagerConfigurationChangedEvent(this, workloadManager));
+
+        assertThat(impl.getPendingDocuments(project)).isEmpty();
+
+        impl.onAnnotationStateChangeEvent(event);
+
+        assertThat(impl.getPendingDocuments(project)).isEmpty();
+    }
+
+    @Test
+    public void thatFreshenStatusFollowsDocumentStateChanges() throws Exception
+    {
+        projectService.assignRole(project, annotator, ANNOTATOR);
+
+        matrixWorkloadExtension.recalculate(project);
+
+        documentService.setAnnotationDocumentState(annotationDocument,
+                AnnotationDocumentState.FINISHED);
+
+        assertThat(matrixWorkloadExtension.freshenStatus(project))
+                .isEqualTo(ProjectState.ANNOTATION_FINISHED);
+
+        sourceDocument = documentService.getSourceDocument(project.getId(), sourceDocument.getId());
+        documentService.setSourceDocumentState(sourceDocument,
+                SourceDocumentState.CURATION_FINISHED);
+
+        assertThat(matrixWorkloadExtension.freshenStatus(project))
+                .isEqualTo(ProjectState.CURATION_FINISHED);
+    }
+
+    @Test
+    public void thatUpdatingDocumentStatesDoesNotFallBackBehindCuration() throws Exception
+    {
+        documentService.setSourceDocumentState(sourceDocument,
+                SourceDocumentState.CURATION_IN_PROGRESS);
+
+        matrixWorkloadExtension.updateDocumentStates(project, List.of(sourceDocument));
+
+        sourceDocument = documentService.getSourceDocument(project.getId(), sourceDocument.getId());
+
+        assertThat(sourceDocument.getState()).isEqualTo(SourceDocumentState.CURATION_IN_PROGRESS);
+    }
+
     @SpringBootConfiguration
     public static class TestContext
     {
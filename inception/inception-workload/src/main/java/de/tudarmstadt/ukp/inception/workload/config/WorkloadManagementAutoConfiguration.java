@@ -22,6 +22,7 @@ import java.util.List;
 import javax.persistence.EntityManager;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -48,10 +49,11 @@ public class WorkloadManagementAutoConfiguration<T>
     @Bean
     public WorkloadManagementService workloadManagementService(EntityManager aEntityManager,
             WorkloadManagerExtensionPoint aWorkloadManagerExtensionPoint,
-            SchedulingService aSchedulingService)
+            SchedulingService aSchedulingService,
+            ApplicationEventPublisher aApplicationEventPublisher)
     {
         return new WorkloadManagementServiceImpl(aEntityManager, aWorkloadManagerExtensionPoint,
-                aSchedulingService);
+                aSchedulingService, aApplicationEventPublisher);
     }
 
     @Bean
@@ -17,12 +17,15 @@
  */
 package de.tudarmstadt.ukp.inception.workload.extension;
 
+import java.util.Collection;
+
 import org.apache.wicket.markup.html.panel.EmptyPanel;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.model.IModel;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.model.ProjectState;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.inception.support.extensionpoint.Extension;
 import de.tudarmstadt.ukp.inception.workload.model.WorkloadManager;
 
@@ -83,6 +86,23 @@ public interface WorkloadManagerExtension<T>
      */
     ProjectState recalculate(Project aProject);
 
+    /**
+     * Ask the workload manager to immediately recalculate the state of the given documents and of
+     * the project itself. Unlike {@link #recalculate}, this does not touch any other documents of
+     * the project and should be preferred if the set of changed documents is known.
+     * 
+     * @param aProject
+     *            a project
+     * @param aDocuments
+     *            the documents whose state may have changed
+     * @return the state of the project after the recalculation has been completed
+     */
+    default ProjectState updateDocumentStates(Project aProject,
+            Collection<SourceDocument> aDocuments)
+    {
+        return recalculate(aProject);
+    }
+
     /**
      * Ask the workload manager to immediately refresh the state of the documents and overall
      * project. This can be called immediately before fetching the project status in order to ensure
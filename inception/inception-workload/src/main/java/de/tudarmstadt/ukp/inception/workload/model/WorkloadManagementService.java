@@ -18,6 +18,7 @@
 package de.tudarmstadt.ukp.inception.workload.model;
 
 import java.util.List;
+import java.util.Map;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState;
@@ -48,4 +49,13 @@ public interface WorkloadManagementService
             SourceDocument aSourceDocument, AnnotationDocumentState aState);
 
     Long getNumberOfUsersWorkingOnADocument(SourceDocument aDocument);
+
+    /**
+     * @return the number of users working on or having finished each document of the given project,
+     *         keyed by source document ID. Documents on which nobody works are not contained in the
+     *         map.
+     * @param aProject
+     *            a project
+     */
+    Map<Long, Long> getNumberOfUsersWorkingOnDocuments(Project aProject);
 }
@@ -23,12 +23,15 @@ import static java.lang.String.join;
 import static java.util.Arrays.asList;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
@@ -38,6 +41,7 @@ import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.workload.config.WorkloadManagementAutoConfiguration;
 import de.tudarmstadt.ukp.inception.workload.event.RecalculateProjectStateTask;
+import de.tudarmstadt.ukp.inception.workload.event.WorkloadManagerConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.workload.extension.WorkloadManagerExtension;
 import de.tudarmstadt.ukp.inception.workload.extension.WorkloadManagerExtensionPoint;
 
@@ -57,15 +61,18 @@ public class WorkloadManagementServiceImpl
     private final EntityManager entityManager;
     private final WorkloadManagerExtensionPoint workloadManagerExtensionPoint;
     private final SchedulingService schedulingService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Autowired
     public WorkloadManagementServiceImpl(EntityManager aEntityManager,
             WorkloadManagerExtensionPoint aWorkloadManagerExtensionPoint,
-            SchedulingService aSchedulingService)
+            SchedulingService aSchedulingService,
+            ApplicationEventPublisher aApplicationEventPublisher)
     {
         entityManager = aEntityManager;
         workloadManagerExtensionPoint = aWorkloadManagerExtensionPoint;
         schedulingService = aSchedulingService;
+        applicationEventPublisher = aApplicationEventPublisher;
     }
 
     /*
@@ -131,6 +138,9 @@ public class WorkloadManagementServiceImpl
                 .setParameter("projectID", aManager.getProject()) //
                 .executeUpdate();
 
+        applicationEventPublisher
+                .publishEvent(new WorkloadManagerConfigurationChangedEvent(this, aManager));
+
         schedulingService.enqueue(RecalculateProjectStateTask.builder() //
                 .withProject(aManager.getProject()) //
                 .withTrigger("Workload configuration changed") //
@@ -175,4 +185,28 @@ public class WorkloadManagementServiceImpl
                 .setParameter("states", asList(IN_PROGRESS, FINISHED)) //
                 .getSingleResult();
     }
+
+    /**
+     * This method is a fast DB search to get the number of users working on each SourceDocument of
+     * a specific Project in a single query.
+     */
+    @Override
+    @Transactional
+    public Map<Long, Long> getNumberOfUsersWorkingOnDocuments(Project aProject)
+    {
+        String query = String.join("\n", //
+                "SELECT document.id, COUNT(*)", //
+                "FROM AnnotationDocument", //
+                "WHERE project = :project", //
+                "AND state IN (:states)", //
+                "GROUP BY document.id");
+
+        var result = new HashMap<Long, Long>();
+        entityManager.createQuery(query, Object[].class) //
+                .setParameter("project", aProject) //
+                .setParameter("states", asList(IN_PROGRESS, FINISHED)) //
+                .getResultStream() //
+                .forEach(row -> result.put((Long) row[0], (Long) row[1]));
+        return result;
+    }
 }